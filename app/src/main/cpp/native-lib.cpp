@@ -20,6 +20,8 @@ Java_io_mavsdk_mavsdkserver_MavsdkServer_runNative(JNIEnv* env, jobject thiz, js
 
     LOGD("Running mavsdk_server with connection url: %s", native_connection_url);
     auto mavsdk_server = mavsdk_server_run(native_connection_url, mavsdk_server_port);
+    // mavsdk_server keeps its own copy of the url
+    env->ReleaseStringUTFChars(system_address, native_connection_url);
     auto server_port = mavsdk_server_get_port(mavsdk_server);
     LOGD("mavsdk_server is now running, listening on port %d", server_port);
 
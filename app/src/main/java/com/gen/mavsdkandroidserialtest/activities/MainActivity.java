@@ -11,12 +11,19 @@ import android.Manifest;
 import android.content.pm.PackageManager;
 import android.os.Bundle;
 import android.util.Log;
+import android.view.View;
 import android.widget.TextView;
 
+import com.gen.mavsdkandroidserialtest.BuildConfig;
 import com.gen.mavsdkandroidserialtest.R;
+import com.gen.mavsdkandroidserialtest.alerts.AlertRule;
+import com.gen.mavsdkandroidserialtest.models.ConnectionState;
+import com.gen.mavsdkandroidserialtest.models.LastKnownState;
 import com.gen.mavsdkandroidserialtest.models.PositionRelative;
-import com.gen.mavsdkandroidserialtest.utils.TextUtils;
+import com.gen.mavsdkandroidserialtest.models.TelemetrySnapshot;
+import com.gen.mavsdkandroidserialtest.utils.TextField;
 import com.gen.mavsdkandroidserialtest.viewmodels.MainActivityViewModel;
+import com.gen.mavsdkandroidserialtest.views.TextFieldRenderer;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -27,6 +34,7 @@ public class MainActivity extends AppCompatActivity {
     private static final String TAG = "LOG_" + MainActivity.class.getName();
 
     private static final int REQUEST_CODE_ALL_PERMISSIONS = 1001;
+    private static final float STALE_ALPHA = 0.4f;
     private static final String[] PERMISSIONS = new String[]{
             Manifest.permission.INTERNET,
             Manifest.permission.WRITE_EXTERNAL_STORAGE,
@@ -35,12 +43,25 @@ public class MainActivity extends AppCompatActivity {
 
     private MainActivityViewModel mViewModel;
 
+    private final PositionRelative mPositionRelative = new PositionRelative();
+    private final TextFieldRenderer mTextFieldRenderer = new TextFieldRenderer();
+
     private TextView tv_main_data_distance;
     private TextView tv_main_data_height;
     private TextView tv_main_data_battery_charge;
     private TextView tv_main_data_battery_voltage;
     private TextView tv_main_data_latitude;
     private TextView tv_main_data_longitude;
+    private TextView tv_main_data_connection_state;
+    private TextView tv_main_alerts;
+    private TextView tv_main_metrics_overlay;
+
+    private TextField mDistanceField;
+    private TextField mHeightField;
+    private TextField mBatteryChargeField;
+    private TextField mBatteryVoltageField;
+    private TextField mLatitudeField;
+    private TextField mLongitudeField;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -53,8 +74,19 @@ public class MainActivity extends AppCompatActivity {
         tv_main_data_battery_voltage = findViewById(R.id.tv_main_data_battery_voltage);
         tv_main_data_latitude = findViewById(R.id.tv_main_data_latitude);
         tv_main_data_longitude = findViewById(R.id.tv_main_data_longitude);
+        tv_main_data_connection_state = findViewById(R.id.tv_main_data_connection_state);
+        tv_main_alerts = findViewById(R.id.tv_main_alerts);
+        tv_main_metrics_overlay = findViewById(R.id.tv_main_metrics_overlay);
+
+        mDistanceField = mTextFieldRenderer.bind(tv_main_data_distance);
+        mHeightField = mTextFieldRenderer.bind(tv_main_data_height);
+        mBatteryChargeField = mTextFieldRenderer.bind(tv_main_data_battery_charge);
+        mBatteryVoltageField = mTextFieldRenderer.bind(tv_main_data_battery_voltage);
+        mLatitudeField = mTextFieldRenderer.bind(tv_main_data_latitude);
+        mLongitudeField = mTextFieldRenderer.bind(tv_main_data_longitude);
 
         mViewModel = ViewModelProviders.of(this).get(MainActivityViewModel.class);
+        showLastKnownState(mViewModel.getLastKnownState());
 
         if (checkPermissions()) {
             observeData();
@@ -62,31 +94,124 @@ public class MainActivity extends AppCompatActivity {
     }
 
     private void observeData() {
-        mViewModel.getPositionRelative().observe(this, new Observer<PositionRelative>() {
+        mViewModel.getConnectionState().observe(this, new Observer<ConnectionState>() {
+            @Override
+            public void onChanged(ConnectionState connectionState) {
+                switch (connectionState) {
+                    case INITIALISING:
+                        tv_main_data_connection_state.setText(R.string.str_state_initialising);
+                        break;
+                    case WAITING_FOR_VEHICLE:
+                        tv_main_data_connection_state.setText(R.string.str_state_waiting_for_vehicle);
+                        break;
+                    case CONNECTED:
+                        tv_main_data_connection_state.setText(R.string.str_state_connected);
+                        break;
+                    case FAILED:
+                        tv_main_data_connection_state.setText(R.string.str_state_failed);
+                        break;
+                }
+            }
+        });
+
+        mViewModel.getTelemetrySnapshot().observe(this, new Observer<TelemetrySnapshot>() {
             @Override
-            public void onChanged(PositionRelative positionRelative) {
-                tv_main_data_distance.setText(TextUtils.roundToDecimalPlaces(positionRelative.getDistance(), 2));
-                tv_main_data_height.setText(TextUtils.roundToDecimalPlaces(positionRelative.getHeight(), 2));            }
+            public void onChanged(TelemetrySnapshot telemetrySnapshot) {
+                telemetrySnapshot.readPositionRelative(mPositionRelative);
+                mDistanceField.setFixedPoint(mPositionRelative.getDistance(), 2);
+                mHeightField.setFixedPoint(mPositionRelative.getHeight(), 2);
+                setStale(false, tv_main_data_distance, tv_main_data_height);
+                mTextFieldRenderer.invalidate();
+            }
         });
 
         mViewModel.getBattery().observe(this, new Observer<Telemetry.Battery>() {
             @Override
             public void onChanged(Telemetry.Battery battery) {
-                int remainingPercentInt = (int) (battery.getRemainingPercent() * 100);
-
-                tv_main_data_battery_charge.setText(String.valueOf(remainingPercentInt).concat("%"));
-                tv_main_data_battery_voltage.setText(TextUtils.roundToDecimalPlaces(battery.getVoltageV(), 1));
+                showBattery(battery);
+                setStale(false, tv_main_data_battery_charge, tv_main_data_battery_voltage);
+                mTextFieldRenderer.invalidate();
             }
         });
 
         mViewModel.getPosition().observe(this, new Observer<Telemetry.Position>() {
             @Override
             public void onChanged(Telemetry.Position position) {
-                tv_main_data_latitude.setText(TextUtils.roundToDecimalPlaces(position.getLatitudeDeg(), 5));
-                tv_main_data_longitude.setText(TextUtils.roundToDecimalPlaces(position.getLongitudeDeg(), 5));
+                showPosition(position);
+                setStale(false, tv_main_data_latitude, tv_main_data_longitude);
+                mTextFieldRenderer.invalidate();
+
+            }
+        });
 
+        mViewModel.getActiveAlerts().observe(this, new Observer<List<AlertRule>>() {
+            @Override
+            public void onChanged(List<AlertRule> activeAlerts) {
+                StringBuilder text = new StringBuilder();
+                for (AlertRule rule : activeAlerts) {
+                    if (text.length() > 0) {
+                        text.append('\n');
+                    }
+                    text.append(rule.getName());
+                }
+                tv_main_alerts.setText(text);
+                tv_main_alerts.setVisibility(activeAlerts.isEmpty() ? View.GONE : View.VISIBLE);
             }
         });
+
+        if (BuildConfig.DEBUG) {
+            tv_main_metrics_overlay.setVisibility(View.VISIBLE);
+            mViewModel.getMetricsText().observe(this, new Observer<String>() {
+                @Override
+                public void onChanged(String metricsText) {
+                    tv_main_metrics_overlay.setText(metricsText);
+                }
+            });
+        }
+    }
+
+    // Fills the fields from the previous run, dimmed until live values replace them
+    private void showLastKnownState(LastKnownState lastKnownState) {
+        Telemetry.PositionVelocityNed positionVelocityNed = lastKnownState.getPositionVelocityNed();
+        if (positionVelocityNed != null) {
+            Telemetry.PositionNed position = positionVelocityNed.getPosition();
+            mDistanceField.setFixedPoint(Math.hypot(position.getNorthM(), position.getEastM()), 2);
+            mHeightField.setFixedPoint(Math.abs(position.getDownM()), 2);
+            setStale(true, tv_main_data_distance, tv_main_data_height);
+        }
+        if (lastKnownState.getBattery() != null) {
+            showBattery(lastKnownState.getBattery());
+            setStale(true, tv_main_data_battery_charge, tv_main_data_battery_voltage);
+        }
+        if (lastKnownState.getPosition() != null) {
+            showPosition(lastKnownState.getPosition());
+            setStale(true, tv_main_data_latitude, tv_main_data_longitude);
+        }
+        mTextFieldRenderer.invalidate();
+    }
+
+    private void showBattery(Telemetry.Battery battery) {
+        int remainingPercentInt = (int) (battery.getRemainingPercent() * 100);
+
+        mBatteryChargeField.setPercent(remainingPercentInt);
+        mBatteryVoltageField.setFixedPoint(battery.getVoltageV(), 1);
+    }
+
+    private void showPosition(Telemetry.Position position) {
+        mLatitudeField.setFixedPoint(position.getLatitudeDeg(), 5);
+        mLongitudeField.setFixedPoint(position.getLongitudeDeg(), 5);
+    }
+
+    private static void setStale(boolean stale, TextView... textViews) {
+        for (TextView textView : textViews) {
+            textView.setAlpha(stale ? STALE_ALPHA : 1f);
+        }
+    }
+
+    @Override
+    protected void onDestroy() {
+        mTextFieldRenderer.cancel();
+        super.onDestroy();
     }
 
     private boolean checkPermissions() {
@@ -0,0 +1,316 @@
+package com.gen.mavsdkandroidserialtest.alerts;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+import io.mavsdk.telemetry.Telemetry;
+
+/**
+ * Evaluates {@link AlertRule}s incrementally as telemetry samples arrive, and reports
+ * only the transitions.
+ *
+ * <p>Rules are compiled into primitive arrays. For each field and direction, the raise
+ * and clear thresholds are kept sorted, so a new sample only visits the rules whose
+ * thresholds lie between the field's previous value and the new one. A sample that
+ * crosses nothing costs a few binary searches however many rules there are. Rules
+ * waiting out their debounce are kept in a list that every sample checks.</p>
+ *
+ * <p>Samples must come one at a time, from one thread or one Rx worker, which is also
+ * where the listener is called. NaN values are ignored.</p>
+ */
+public class AlertEngine {
+
+    public interface Listener {
+        void onAlertChanged(AlertRule rule, boolean active);
+    }
+
+    private static final byte INACTIVE = 0;
+    private static final byte PENDING_RAISE = 1;
+    private static final byte ACTIVE = 2;
+    private static final byte PENDING_CLEAR = 3;
+
+    private static final int FIELD_COUNT = AlertField.values().length;
+
+    private final AlertRule[] mRules;
+    private final Listener mListener;
+
+    // Per rule
+    private final boolean[] mAbove;
+    private final double[] mThreshold;
+    private final double[] mClearThreshold;
+    private final long[] mDebounceNanos;
+    private final byte[] mState;
+    private final long[] mPendingSinceNanos;
+    private final int[] mPendingPosition;
+
+    // Per field: every rule, then sorted thresholds for each direction
+    private final int[][] mFieldRules = new int[FIELD_COUNT][];
+    private final Ladder[] mAboveRaise = new Ladder[FIELD_COUNT];
+    private final Ladder[] mAboveClear = new Ladder[FIELD_COUNT];
+    private final Ladder[] mBelowRaise = new Ladder[FIELD_COUNT];
+    private final Ladder[] mBelowClear = new Ladder[FIELD_COUNT];
+    private final double[] mLastValue = new double[FIELD_COUNT];
+    private final boolean[] mHasValue = new boolean[FIELD_COUNT];
+
+    private final int[] mPending;
+    private int mPendingCount;
+    private volatile int mActiveCount;
+
+    public AlertEngine(List<AlertRule> rules, Listener listener) {
+        mRules = rules.toArray(new AlertRule[0]);
+        mListener = listener;
+        int count = mRules.length;
+        mAbove = new boolean[count];
+        mThreshold = new double[count];
+        mClearThreshold = new double[count];
+        mDebounceNanos = new long[count];
+        mState = new byte[count];
+        mPendingSinceNanos = new long[count];
+        mPendingPosition = new int[count];
+        mPending = new int[count];
+
+        for (int i = 0; i < count; i++) {
+            AlertRule rule = mRules[i];
+            mAbove[i] = rule.isAbove();
+            mThreshold[i] = rule.getThreshold();
+            mClearThreshold[i] = rule.getClearThreshold();
+            mDebounceNanos[i] = rule.getDebounceMillis() * 1_000_000L;
+        }
+        for (AlertField field : AlertField.values()) {
+            int f = field.ordinal();
+            List<Integer> all = new ArrayList<>();
+            List<Integer> above = new ArrayList<>();
+            List<Integer> below = new ArrayList<>();
+            for (int i = 0; i < count; i++) {
+                if (mRules[i].getField() == field) {
+                    all.add(i);
+                    (mAbove[i] ? above : below).add(i);
+                }
+            }
+            mFieldRules[f] = toArray(all);
+            mAboveRaise[f] = new Ladder(above, mThreshold);
+            mAboveClear[f] = new Ladder(above, mClearThreshold);
+            mBelowRaise[f] = new Ladder(below, mThreshold);
+            mBelowClear[f] = new Ladder(below, mClearThreshold);
+        }
+    }
+
+    private static int[] toArray(List<Integer> list) {
+        int[] array = new int[list.size()];
+        for (int i = 0; i < array.length; i++) {
+            array[i] = list.get(i);
+        }
+        return array;
+    }
+
+    public void onBattery(Telemetry.Battery battery, long nanos) {
+        onValue(AlertField.BATTERY_VOLTAGE, battery.getVoltageV(), nanos);
+        onValue(AlertField.BATTERY_PERCENT, battery.getRemainingPercent() * 100, nanos);
+    }
+
+    public void onGpsInfo(Telemetry.GpsInfo gpsInfo, long nanos) {
+        onValue(AlertField.GPS_SATELLITES, gpsInfo.getNumSatellites(), nanos);
+    }
+
+    public void onPosition(Telemetry.Position position, long nanos) {
+        onValue(AlertField.RELATIVE_ALTITUDE, position.getRelativeAltitudeM(), nanos);
+    }
+
+    public void onPositionVelocityNed(Telemetry.PositionVelocityNed positionVelocityNed, long nanos) {
+        Telemetry.PositionNed position = positionVelocityNed.getPosition();
+        Telemetry.VelocityNed velocity = positionVelocityNed.getVelocity();
+        onValue(AlertField.HOME_DISTANCE, Math.hypot(position.getNorthM(), position.getEastM()), nanos);
+        onValue(AlertField.GROUND_SPEED, Math.hypot(velocity.getNorthMS(), velocity.getEastMS()), nanos);
+    }
+
+    /**
+     * Evaluate a new value of `field`, seen at {@link System#nanoTime()} `nanos`.
+     */
+    public void onValue(AlertField field, double value, long nanos) {
+        if (Double.isNaN(value)) {
+            return;
+        }
+        int f = field.ordinal();
+        if (!mHasValue[f]) {
+            mHasValue[f] = true;
+            for (int rule : mFieldRules[f]) {
+                update(rule, value, nanos);
+            }
+        } else {
+            double last = mLastValue[f];
+            if (value != last) {
+                double low = Math.min(last, value);
+                double high = Math.max(last, value);
+                // "v > t" changes for t in [low, high); "v < t" for t in (low, high]
+                mAboveRaise[f].visit(this, low, high, true, value, nanos);
+                mAboveClear[f].visit(this, low, high, true, value, nanos);
+                mBelowRaise[f].visit(this, low, high, false, value, nanos);
+                mBelowClear[f].visit(this, low, high, false, value, nanos);
+            }
+        }
+        mLastValue[f] = value;
+        expirePending(nanos);
+    }
+
+    // Moves the rule through its states for the field's current value; calling it again changes nothing
+    private void update(int rule, double value, long nanos) {
+        boolean raise = mAbove[rule] ? value > mThreshold[rule] : value < mThreshold[rule];
+        boolean clear = mAbove[rule] ? value <= mClearThreshold[rule] : value >= mClearThreshold[rule];
+        switch (mState[rule]) {
+            case INACTIVE:
+                if (raise) {
+                    if (mDebounceNanos[rule] == 0) {
+                        setActive(rule, true);
+                    } else {
+                        startPending(rule, PENDING_RAISE, nanos);
+                    }
+                }
+                break;
+            case PENDING_RAISE:
+                if (!raise) {
+                    stopPending(rule, INACTIVE);
+                }
+                break;
+            case ACTIVE:
+                if (clear) {
+                    if (mDebounceNanos[rule] == 0) {
+                        setActive(rule, false);
+                    } else {
+                        startPending(rule, PENDING_CLEAR, nanos);
+                    }
+                }
+                break;
+            case PENDING_CLEAR:
+                if (!clear) {
+                    stopPending(rule, ACTIVE);
+                }
+                break;
+            default:
+                break;
+        }
+    }
+
+    private void expirePending(long nanos) {
+        for (int p = mPendingCount - 1; p >= 0; p--) {
+            int rule = mPending[p];
+            if (nanos - mPendingSinceNanos[rule] >= mDebounceNanos[rule]) {
+                boolean raising = mState[rule] == PENDING_RAISE;
+                stopPending(rule, raising ? ACTIVE : INACTIVE);
+                notifyListener(rule, raising);
+            }
+        }
+    }
+
+    private void startPending(int rule, byte state, long nanos) {
+        mState[rule] = state;
+        mPendingSinceNanos[rule] = nanos;
+        mPendingPosition[rule] = mPendingCount;
+        mPending[mPendingCount++] = rule;
+    }
+
+    private void stopPending(int rule, byte state) {
+        mState[rule] = state;
+        int position = mPendingPosition[rule];
+        int last = mPending[--mPendingCount];
+        mPending[position] = last;
+        mPendingPosition[last] = position;
+    }
+
+    private void setActive(int rule, boolean active) {
+        mState[rule] = active ? ACTIVE : INACTIVE;
+        notifyListener(rule, active);
+    }
+
+    private void notifyListener(int rule, boolean active) {
+        mActiveCount += active ? 1 : -1;
+        mListener.onAlertChanged(mRules[rule], active);
+    }
+
+    /**
+     * @return The rules raised now, in the order they were given. Call on the sample thread.
+     */
+    public List<AlertRule> getActiveRules() {
+        List<AlertRule> active = new ArrayList<>();
+        for (int i = 0; i < mRules.length; i++) {
+            if (mState[i] == ACTIVE || mState[i] == PENDING_CLEAR) {
+                active.add(mRules[i]);
+            }
+        }
+        return Collections.unmodifiableList(active);
+    }
+
+    public int getActiveCount() {
+        return mActiveCount;
+    }
+
+    public int getRuleCount() {
+        return mRules.length;
+    }
+
+    /**
+     * Rule indices sorted by one of their thresholds.
+     */
+    private static class Ladder {
+
+        private final double[] mKeys;
+        private final int[] mRules;
+
+        Ladder(List<Integer> rules, final double[] thresholds) {
+            Integer[] sorted = rules.toArray(new Integer[0]);
+            Arrays.sort(sorted, new Comparator<Integer>() {
+                @Override
+                public int compare(Integer a, Integer b) {
+                    return Double.compare(thresholds[a], thresholds[b]);
+                }
+            });
+            mKeys = new double[sorted.length];
+            mRules = new int[sorted.length];
+            for (int i = 0; i < sorted.length; i++) {
+                mRules[i] = sorted[i];
+                mKeys[i] = thresholds[sorted[i]];
+            }
+        }
+
+        // Updates the rules keyed in [low, high) when `lowInclusive`, else in (low, high]
+        void visit(AlertEngine engine, double low, double high, boolean lowInclusive, double value, long nanos) {
+            if (mKeys.length == 0) {
+                return;
+            }
+            int end = lowInclusive ? firstAtLeast(high) : firstAbove(high);
+            for (int i = lowInclusive ? firstAtLeast(low) : firstAbove(low); i < end; i++) {
+                engine.update(mRules[i], value, nanos);
+            }
+        }
+
+        private int firstAtLeast(double key) {
+            int low = 0;
+            int high = mKeys.length;
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (mKeys[middle] < key) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+            return low;
+        }
+
+        private int firstAbove(double key) {
+            int low = 0;
+            int high = mKeys.length;
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (mKeys[middle] <= key) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+            return low;
+        }
+    }
+}
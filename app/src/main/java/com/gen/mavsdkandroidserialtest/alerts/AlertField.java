@@ -0,0 +1,19 @@
+package com.gen.mavsdkandroidserialtest.alerts;
+
+/**
+ * A telemetry value an {@link AlertRule} can watch, and the sample it comes from.
+ */
+public enum AlertField {
+    /** Volts, from {@code Telemetry.Battery}. */
+    BATTERY_VOLTAGE,
+    /** 0 to 100, from {@code Telemetry.Battery}. */
+    BATTERY_PERCENT,
+    /** From {@code Telemetry.GpsInfo}. */
+    GPS_SATELLITES,
+    /** Metres above home, from {@code Telemetry.Position}. */
+    RELATIVE_ALTITUDE,
+    /** Horizontal metres from the local origin, from {@code Telemetry.PositionVelocityNed}. */
+    HOME_DISTANCE,
+    /** Horizontal metres per second, from {@code Telemetry.PositionVelocityNed}. */
+    GROUND_SPEED
+}
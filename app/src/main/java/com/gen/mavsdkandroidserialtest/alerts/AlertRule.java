@@ -0,0 +1,78 @@
+package com.gen.mavsdkandroidserialtest.alerts;
+
+/**
+ * A declarative alert: raised while a telemetry value is beyond a threshold.
+ *
+ * <p>Once raised, the alert only clears when the value is back past the threshold by the
+ * hysteresis, so a value hovering at the threshold does not flap. Both raising and
+ * clearing must hold for the debounce time first.</p>
+ */
+public class AlertRule {
+
+    private final String mName;
+    private final AlertField mField;
+    private final boolean mAbove;
+    private final double mThreshold;
+    private final double mHysteresis;
+    private final long mDebounceMillis;
+
+    private AlertRule(String name, AlertField field, boolean above, double threshold, double hysteresis, long debounceMillis) {
+        if (hysteresis < 0 || debounceMillis < 0 || Double.isNaN(threshold)) {
+            throw new IllegalArgumentException(name + ": threshold " + threshold + ", hysteresis " + hysteresis
+                    + ", debounceMillis " + debounceMillis);
+        }
+        mName = name;
+        mField = field;
+        mAbove = above;
+        mThreshold = threshold;
+        mHysteresis = hysteresis;
+        mDebounceMillis = debounceMillis;
+    }
+
+    /**
+     * Raised while `field` is above `threshold`, cleared at or below threshold - hysteresis.
+     */
+    public static AlertRule above(String name, AlertField field, double threshold, double hysteresis, long debounceMillis) {
+        return new AlertRule(name, field, true, threshold, hysteresis, debounceMillis);
+    }
+
+    /**
+     * Raised while `field` is below `threshold`, cleared at or above threshold + hysteresis.
+     */
+    public static AlertRule below(String name, AlertField field, double threshold, double hysteresis, long debounceMillis) {
+        return new AlertRule(name, field, false, threshold, hysteresis, debounceMillis);
+    }
+
+    public String getName() {
+        return mName;
+    }
+
+    public AlertField getField() {
+        return mField;
+    }
+
+    public boolean isAbove() {
+        return mAbove;
+    }
+
+    public double getThreshold() {
+        return mThreshold;
+    }
+
+    public double getClearThreshold() {
+        return mAbove ? mThreshold - mHysteresis : mThreshold + mHysteresis;
+    }
+
+    public double getHysteresis() {
+        return mHysteresis;
+    }
+
+    public long getDebounceMillis() {
+        return mDebounceMillis;
+    }
+
+    @Override
+    public String toString() {
+        return mName + " (" + mField + (mAbove ? " > " : " < ") + mThreshold + ")";
+    }
+}
@@ -0,0 +1,45 @@
+package com.gen.mavsdkandroidserialtest.alerts;
+
+/**
+ * Hands the latest sample of one field, with the time it arrived, from a telemetry
+ * stream to the thread that feeds the {@link AlertEngine}. A sample not yet taken is
+ * replaced by a newer one, so a slow consumer never queues more than one per field.
+ */
+public abstract class AlertSampleSlot<T> {
+
+    private T mSample;
+    private long mArrivalNanos;
+
+    /**
+     * @return Whether the slot was empty, in which case the caller must arrange a
+     *     {@link #drain()}.
+     */
+    public synchronized boolean offer(T sample, long arrivalNanos) {
+        boolean wasEmpty = mSample == null;
+        mSample = sample;
+        mArrivalNanos = arrivalNanos;
+        return wasEmpty;
+    }
+
+    /**
+     * Empties the slot and evaluates its sample, if there was one, outside the slot's lock.
+     *
+     * @return Whether there was a sample.
+     */
+    public boolean drain() {
+        T sample;
+        long arrivalNanos;
+        synchronized (this) {
+            sample = mSample;
+            if (sample == null) {
+                return false;
+            }
+            arrivalNanos = mArrivalNanos;
+            mSample = null;
+        }
+        evaluate(sample, arrivalNanos);
+        return true;
+    }
+
+    protected abstract void evaluate(T sample, long arrivalNanos);
+}
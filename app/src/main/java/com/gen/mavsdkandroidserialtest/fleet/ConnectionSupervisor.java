@@ -0,0 +1,252 @@
+package com.gen.mavsdkandroidserialtest.fleet;
+
+import com.gen.mavsdkandroidserialtest.link.LinkPort;
+import com.gen.mavsdkandroidserialtest.link.LinkScheduler;
+import com.gen.mavsdkandroidserialtest.link.VehicleLink;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Brings a {@link VehicleConnection} back after its link drops.
+ *
+ * <p>A link is lost when the device is reported detached or when its bridge stops on an
+ * I/O error. The connection is then torn down completely, server included, and the port
+ * is reopened with exponential backoff between {@link #DEFAULT_INITIAL_BACKOFF_MILLIS}
+ * and {@link #DEFAULT_MAX_BACKOFF_MILLIS}. A device attach skips the wait. The restore
+ * time runs from the attach (or, without one, from the loss) to the first frame
+ * received on the new link.</p>
+ *
+ * <p>All work happens on the executor handed in by {@link FleetManager}.</p>
+ */
+public class ConnectionSupervisor {
+
+    public static final long DEFAULT_INITIAL_BACKOFF_MILLIS = 50;
+    public static final long DEFAULT_MAX_BACKOFF_MILLIS = 2000;
+    private static final long WATCH_INTERVAL_MILLIS = 10;
+
+    public enum State {
+        CONNECTED,
+        DISCONNECTED,
+        STOPPED
+    }
+
+    public interface PortOpener {
+        /**
+         * @return The reopened port, or null if the device is not present yet.
+         */
+        LinkPort open() throws IOException;
+    }
+
+    public interface Listener {
+        void onLinkLost(ConnectionSupervisor supervisor);
+
+        void onLinkRestored(ConnectionSupervisor supervisor, long restoreNanos);
+    }
+
+    private final VehicleConnection mConnection;
+    private final LinkScheduler mScheduler;
+    private final ScheduledExecutorService mExecutor;
+    private final PortOpener mPortOpener;
+    private final List<Listener> mListeners = new CopyOnWriteArrayList<>();
+
+    private final Runnable mAttempt = new Runnable() {
+        @Override
+        public void run() {
+            attemptReconnect();
+        }
+    };
+
+    private volatile State mState = State.CONNECTED;
+    private ScheduledFuture<?> mWatch;
+    private ScheduledFuture<?> mRetry;
+    private long mBackoffMillis = DEFAULT_INITIAL_BACKOFF_MILLIS;
+    private long mRestoreStartNanos;
+    private boolean mAwaitingFirstFrame;
+
+    private volatile int mReconnectCount;
+    private volatile int mFailedAttemptCount;
+    private volatile long mLastRestoreNanos;
+    private volatile long mMaxRestoreNanos;
+    private volatile Exception mLastError;
+
+    ConnectionSupervisor(VehicleConnection connection, LinkScheduler scheduler, ScheduledExecutorService executor, PortOpener portOpener) {
+        mConnection = connection;
+        mScheduler = scheduler;
+        mExecutor = executor;
+        mPortOpener = portOpener;
+    }
+
+    void start() {
+        mWatch = mExecutor.scheduleWithFixedDelay(new Runnable() {
+            @Override
+            public void run() {
+                watch();
+            }
+        }, WATCH_INTERVAL_MILLIS, WATCH_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    void stop() {
+        mState = State.STOPPED;
+        if (mWatch != null) {
+            mWatch.cancel(false);
+        }
+        if (mRetry != null) {
+            mRetry.cancel(false);
+        }
+    }
+
+    public void addListener(Listener listener) {
+        mListeners.add(listener);
+    }
+
+    public void removeListener(Listener listener) {
+        mListeners.remove(listener);
+    }
+
+    /**
+     * Report that the connection's device went away.
+     */
+    public void onDeviceDetached() {
+        mExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                if (mState == State.CONNECTED) {
+                    onLinkLost();
+                }
+            }
+        });
+    }
+
+    /**
+     * Report that the connection's device is back; reconnect without waiting for backoff.
+     */
+    public void onDeviceAttached() {
+        final long attachNanos = System.nanoTime();
+        mExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                if (mState != State.DISCONNECTED) {
+                    return;
+                }
+                mRestoreStartNanos = attachNanos;
+                mBackoffMillis = DEFAULT_INITIAL_BACKOFF_MILLIS;
+                if (mRetry != null) {
+                    mRetry.cancel(false);
+                }
+                attemptReconnect();
+            }
+        });
+    }
+
+    private void watch() {
+        if (mState != State.CONNECTED) {
+            return;
+        }
+        if (!mConnection.isConnected()) {
+            onLinkLost();
+            return;
+        }
+        if (mAwaitingFirstFrame) {
+            VehicleLink link = mConnection.getLink();
+            long firstFrameNanos = link == null ? 0 : link.getFirstFrameNanos();
+            if (firstFrameNanos != 0) {
+                mAwaitingFirstFrame = false;
+                long restoreNanos = firstFrameNanos - mRestoreStartNanos;
+                mLastRestoreNanos = restoreNanos;
+                if (restoreNanos > mMaxRestoreNanos) {
+                    mMaxRestoreNanos = restoreNanos;
+                }
+                for (Listener listener : mListeners) {
+                    listener.onLinkRestored(this, restoreNanos);
+                }
+            }
+        }
+    }
+
+    private void onLinkLost() {
+        mAwaitingFirstFrame = false;
+        mRestoreStartNanos = System.nanoTime();
+        try {
+            mConnection.disconnect();
+        } catch (IOException e) {
+            mLastError = e;
+        }
+        mState = State.DISCONNECTED;
+        for (Listener listener : mListeners) {
+            listener.onLinkLost(this);
+        }
+        mBackoffMillis = DEFAULT_INITIAL_BACKOFF_MILLIS;
+        scheduleRetry();
+    }
+
+    private void attemptReconnect() {
+        if (mState != State.DISCONNECTED) {
+            return;
+        }
+        LinkPort linkPort = null;
+        try {
+            linkPort = mPortOpener.open();
+            if (linkPort != null) {
+                mConnection.connect(linkPort, mScheduler);
+                mState = State.CONNECTED;
+                mAwaitingFirstFrame = true;
+                mReconnectCount++;
+                return;
+            }
+        } catch (IOException | RuntimeException e) {
+            mLastError = e;
+            if (linkPort != null) {
+                try {
+                    linkPort.close();
+                } catch (IOException ignored) {
+                }
+            }
+        }
+        mFailedAttemptCount++;
+        scheduleRetry();
+    }
+
+    private void scheduleRetry() {
+        mRetry = mExecutor.schedule(mAttempt, mBackoffMillis, TimeUnit.MILLISECONDS);
+        mBackoffMillis = Math.min(mBackoffMillis * 2, DEFAULT_MAX_BACKOFF_MILLIS);
+    }
+
+    public VehicleConnection getConnection() {
+        return mConnection;
+    }
+
+    public State getState() {
+        return mState;
+    }
+
+    public int getReconnectCount() {
+        return mReconnectCount;
+    }
+
+    public int getFailedAttemptCount() {
+        return mFailedAttemptCount;
+    }
+
+    /**
+     * @return How long the last restore took, attach to first frame, or 0 if none yet.
+     */
+    public long getLastRestoreNanos() {
+        return mLastRestoreNanos;
+    }
+
+    public long getMaxRestoreNanos() {
+        return mMaxRestoreNanos;
+    }
+
+    /**
+     * @return The last error from tearing down or reopening the link, or null.
+     */
+    public Exception getLastError() {
+        return mLastError;
+    }
+}
@@ -0,0 +1,229 @@
+package com.gen.mavsdkandroidserialtest.fleet;
+
+import com.gen.mavsdkandroidserialtest.link.LinkPort;
+import com.gen.mavsdkandroidserialtest.link.LinkScheduler;
+import com.gen.mavsdkandroidserialtest.link.MavlinkRouter;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Owns the connections to every vehicle the ground station talks to.
+ *
+ * <p>Each link, serial or UDP, gets its own bridge and its own {@link VehicleServer}
+ * listening on the next loopback UDP port. All bridges share one {@link LinkScheduler},
+ * so adding vehicles adds no pump threads. Vehicles are looked up by the MAVLink system
+ * id learned from their heartbeats.</p>
+ *
+ * <p>With {@link #setGcsEndpoints}, links added afterwards are also routed to other ground
+ * stations. TCP server ports go up by one per link, like the server ports.</p>
+ *
+ * <p>Links that can drop out, such as USB radios, can be handed to a
+ * {@link ConnectionSupervisor} with {@link #supervise}; all supervisors share one
+ * thread.</p>
+ */
+public class FleetManager {
+
+    public interface Listener {
+        /**
+         * Called on a link thread once a connection's system id is known.
+         */
+        void onVehicleIdentified(VehicleConnection connection);
+    }
+
+    private final LinkScheduler mScheduler;
+    private final VehicleServer.Factory mServerFactory;
+    private final String mServerHost;
+    private final int mFirstServerPort;
+
+    private final List<VehicleConnection> mConnections = new CopyOnWriteArrayList<>();
+    private final ConcurrentHashMap<Integer, VehicleConnection> mVehicles = new ConcurrentHashMap<>();
+    private final List<Listener> mListeners = new CopyOnWriteArrayList<>();
+    private final List<ConnectionSupervisor> mSupervisors = new CopyOnWriteArrayList<>();
+    private ScheduledExecutorService mSupervisorExecutor;
+    private int mNextServerPort;
+    private List<MavlinkRouter.EndpointSpec> mGcsEndpoints = new ArrayList<>();
+
+    private final VehicleConnection.IdentityListener mIdentityListener = new VehicleConnection.IdentityListener() {
+        @Override
+        public void onSystemIdLearned(VehicleConnection connection) {
+            mVehicles.put(connection.getSystemId(), connection);
+            for (Listener listener : mListeners) {
+                listener.onVehicleIdentified(connection);
+            }
+        }
+    };
+
+    /**
+     * @param firstServerPort The UDP port of the first vehicle's server; later vehicles
+     *     use the following ports.
+     */
+    public FleetManager(LinkScheduler scheduler, VehicleServer.Factory serverFactory, String serverHost, int firstServerPort) {
+        mScheduler = scheduler;
+        mServerFactory = serverFactory;
+        mServerHost = serverHost;
+        mFirstServerPort = firstServerPort;
+        mNextServerPort = firstServerPort;
+    }
+
+    public void addListener(Listener listener) {
+        mListeners.add(listener);
+    }
+
+    public void removeListener(Listener listener) {
+        mListeners.remove(listener);
+    }
+
+    /**
+     * Route links added from now on to `gcsEndpoints` as well as to their servers.
+     */
+    public synchronized void setGcsEndpoints(List<MavlinkRouter.EndpointSpec> gcsEndpoints) {
+        mGcsEndpoints = new ArrayList<>(gcsEndpoints);
+    }
+
+    /**
+     * Start a server for the vehicle on `linkPort` and begin pumping the link.
+     *
+     * <p>May be called from several threads at once; servers then start in parallel.
+     * Connections keep the order in which their calls began.</p>
+     */
+    public VehicleConnection addLink(String name, LinkPort linkPort) throws IOException {
+        VehicleConnection connection;
+        synchronized (this) {
+            int linkIndex = mNextServerPort - mFirstServerPort;
+            connection = new VehicleConnection(name, mServerFactory.create(),
+                    new InetSocketAddress(mServerHost, mNextServerPort++), mIdentityListener, gcsEndpointsFor(linkIndex));
+            mConnections.add(connection);
+        }
+        try {
+            connection.connect(linkPort, mScheduler);
+        } catch (IOException | RuntimeException e) {
+            mConnections.remove(connection);
+            throw e;
+        }
+        return connection;
+    }
+
+    // The ground station endpoints of the `linkIndex`th link, with its own TCP ports
+    private List<MavlinkRouter.EndpointSpec> gcsEndpointsFor(int linkIndex) {
+        List<MavlinkRouter.EndpointSpec> endpoints = new ArrayList<>();
+        for (MavlinkRouter.EndpointSpec spec : mGcsEndpoints) {
+            if (spec.isTcpServer() && spec.getAddress().getPort() != 0) {
+                InetSocketAddress address = spec.getAddress();
+                spec = MavlinkRouter.EndpointSpec.tcpServer(spec.getName(),
+                        new InetSocketAddress(address.getAddress(), address.getPort() + linkIndex));
+            }
+            endpoints.add(spec);
+        }
+        return endpoints;
+    }
+
+    /**
+     * Reconnect `connection` through `portOpener` whenever its link drops.
+     */
+    public synchronized ConnectionSupervisor supervise(VehicleConnection connection, ConnectionSupervisor.PortOpener portOpener) {
+        if (mSupervisorExecutor == null) {
+            mSupervisorExecutor = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable runnable) {
+                    Thread thread = new Thread(runnable, "connection-supervisor");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+        }
+        ConnectionSupervisor supervisor = new ConnectionSupervisor(connection, mScheduler, mSupervisorExecutor, portOpener);
+        mSupervisors.add(supervisor);
+        supervisor.start();
+        return supervisor;
+    }
+
+    public List<ConnectionSupervisor> getSupervisors() {
+        return new ArrayList<>(mSupervisors);
+    }
+
+    /**
+     * Stop and forget a connection.
+     */
+    public synchronized void removeLink(VehicleConnection connection) throws IOException {
+        mConnections.remove(connection);
+        if (connection.getSystemId() != VehicleConnection.UNKNOWN_SYSTEM_ID) {
+            mVehicles.remove(connection.getSystemId(), connection);
+        }
+        for (ConnectionSupervisor supervisor : mSupervisors) {
+            if (supervisor.getConnection() == connection) {
+                supervisor.stop();
+                mSupervisors.remove(supervisor);
+            }
+        }
+        connection.disconnect();
+    }
+
+    /**
+     * @return All connections in the order they were added.
+     */
+    public List<VehicleConnection> getConnections() {
+        return new ArrayList<>(mConnections);
+    }
+
+    /**
+     * @return The connection to the vehicle with MAVLink system id `systemId`, or null.
+     */
+    public VehicleConnection getVehicle(int systemId) {
+        return mVehicles.get(systemId);
+    }
+
+    /**
+     * @return The first connection added, or null.
+     */
+    public VehicleConnection getPrimaryConnection() {
+        return mConnections.isEmpty() ? null : mConnections.get(0);
+    }
+
+    public int getVehicleCount() {
+        return mVehicles.size();
+    }
+
+    public int getFirstServerPort() {
+        return mFirstServerPort;
+    }
+
+    public LinkScheduler getScheduler() {
+        return mScheduler;
+    }
+
+    /**
+     * Close every connection and stop the scheduler.
+     */
+    public synchronized void close() throws IOException {
+        for (ConnectionSupervisor supervisor : mSupervisors) {
+            supervisor.stop();
+        }
+        mSupervisors.clear();
+        if (mSupervisorExecutor != null) {
+            mSupervisorExecutor.shutdownNow();
+            mSupervisorExecutor = null;
+        }
+        IOException error = null;
+        for (VehicleConnection connection : mConnections) {
+            try {
+                connection.disconnect();
+            } catch (IOException e) {
+                error = e;
+            }
+        }
+        mConnections.clear();
+        mVehicles.clear();
+        mScheduler.shutdown();
+        if (error != null) {
+            throw error;
+        }
+    }
+}
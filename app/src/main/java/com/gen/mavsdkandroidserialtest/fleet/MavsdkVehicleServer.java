@@ -0,0 +1,45 @@
+package com.gen.mavsdkandroidserialtest.fleet;
+
+import com.gen.mavsdkandroidserialtest.repositories.TelemetryHub;
+
+import io.mavsdk.System;
+import io.mavsdk.mavsdkserver.MavsdkServer;
+
+/**
+ * {@link VehicleServer} backed by its own mavsdk_server and {@link System}.
+ */
+public class MavsdkVehicleServer implements VehicleServer {
+
+    public static final Factory FACTORY = new Factory() {
+        @Override
+        public VehicleServer create() {
+            return new MavsdkVehicleServer();
+        }
+    };
+
+    private static final String MAVSDK_SERVER_IP = "127.0.0.1";
+
+    private MavsdkServer mMavsdkServer;
+    private System mDrone;
+
+    @Override
+    public TelemetryHub start(String systemAddress) {
+        mMavsdkServer = new MavsdkServer();
+        int mavsdkServerPort = mMavsdkServer.run(systemAddress);
+        mDrone = new System(MAVSDK_SERVER_IP, mavsdkServerPort);
+        return new TelemetryHub(mDrone.getTelemetry());
+    }
+
+    public System getDrone() {
+        return mDrone;
+    }
+
+    @Override
+    public void stop() {
+        if (mDrone != null) {
+            mDrone.dispose();
+            mMavsdkServer.stop();
+            mDrone = null;
+        }
+    }
+}
@@ -0,0 +1,239 @@
+package com.gen.mavsdkandroidserialtest.fleet;
+
+import com.gen.mavsdkandroidserialtest.link.LinkPort;
+import com.gen.mavsdkandroidserialtest.link.LinkScheduler;
+import com.gen.mavsdkandroidserialtest.link.MavlinkRouter;
+import com.gen.mavsdkandroidserialtest.link.SerialUdpBridge;
+import com.gen.mavsdkandroidserialtest.link.VehicleLink;
+import com.gen.mavsdkandroidserialtest.mavlink.MavlinkFrame;
+import com.gen.mavsdkandroidserialtest.mavlink.MavlinkFrameParser;
+import com.gen.mavsdkandroidserialtest.mavlink.MavlinkMessages;
+import com.gen.mavsdkandroidserialtest.repositories.TelemetryHub;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * One link to one vehicle: the port, the bridge feeding the vehicle's server, and the
+ * telemetry that server publishes.
+ *
+ * <p>With ground station endpoints, the link goes through a {@link MavlinkRouter}
+ * instead of a bridge, and the vehicle's server is one endpoint among them.</p>
+ *
+ * <p>The vehicle's MAVLink system id is learned from the first autopilot heartbeat seen
+ * on the link; heartbeats from ground stations on the same link are ignored.</p>
+ *
+ * <p>A connection can be taken down and brought back on a new port, e.g. after the USB
+ * radio was replugged. Every {@link #connect} starts a fresh server and therefore a new
+ * {@link TelemetryHub}, reported through {@link Listener}.</p>
+ */
+public class VehicleConnection {
+
+    public static final int UNKNOWN_SYSTEM_ID = -1;
+
+    private static final int HEARTBEAT_AUTOPILOT_OFFSET = 5;
+    private static final int MAV_AUTOPILOT_INVALID = 8;
+
+    public interface Listener {
+        /**
+         * Called after {@link #connect} with the hub of the newly started server.
+         */
+        void onTelemetryHubChanged(VehicleConnection connection, TelemetryHub telemetryHub);
+    }
+
+    interface IdentityListener {
+        void onSystemIdLearned(VehicleConnection connection);
+    }
+
+    private final String mName;
+    private final VehicleServer mServer;
+    private final InetSocketAddress mServerAddress;
+    private final IdentityListener mIdentityListener;
+    private final List<MavlinkRouter.EndpointSpec> mGcsEndpoints;
+    private final List<Listener> mListeners = new CopyOnWriteArrayList<>();
+
+    private final MavlinkFrameParser.Listener mLinkTap = new MavlinkFrameParser.Listener() {
+        @Override
+        public void onFrame(MavlinkFrame frame) {
+            if (mSystemId == UNKNOWN_SYSTEM_ID
+                    && frame.getMessageId() == MavlinkMessages.HEARTBEAT
+                    && frame.getUint8(HEARTBEAT_AUTOPILOT_OFFSET) != MAV_AUTOPILOT_INVALID) {
+                mSystemId = frame.getSystemId();
+                mIdentityListener.onSystemIdLearned(VehicleConnection.this);
+            }
+            MavlinkFrameParser.Listener frameTap = mFrameTap;
+            if (frameTap != null) {
+                frameTap.onFrame(frame);
+            }
+        }
+    };
+
+    private final MavlinkFrameParser.Listener mVehicleLinkTap = new MavlinkFrameParser.Listener() {
+        @Override
+        public void onFrame(MavlinkFrame frame) {
+            MavlinkFrameParser.Listener vehicleFrameTap = mVehicleFrameTap;
+            if (vehicleFrameTap != null) {
+                vehicleFrameTap.onFrame(frame);
+            }
+        }
+    };
+
+    private volatile LinkPort mLinkPort;
+    private volatile VehicleLink mLink;
+    private volatile TelemetryHub mTelemetryHub;
+    private volatile int mSystemId = UNKNOWN_SYSTEM_ID;
+    private volatile MavlinkFrameParser.Listener mFrameTap;
+    private volatile MavlinkFrameParser.Listener mVehicleFrameTap;
+
+    VehicleConnection(String name, VehicleServer server, InetSocketAddress serverAddress, IdentityListener identityListener) {
+        this(name, server, serverAddress, identityListener, Collections.<MavlinkRouter.EndpointSpec>emptyList());
+    }
+
+    VehicleConnection(String name, VehicleServer server, InetSocketAddress serverAddress, IdentityListener identityListener,
+                      List<MavlinkRouter.EndpointSpec> gcsEndpoints) {
+        mName = name;
+        mServer = server;
+        mServerAddress = serverAddress;
+        mIdentityListener = identityListener;
+        mGcsEndpoints = new ArrayList<>(gcsEndpoints);
+    }
+
+    /**
+     * Start a server for the vehicle on `linkPort` and pump the link on `scheduler`.
+     */
+    public synchronized void connect(LinkPort linkPort, LinkScheduler scheduler) throws IOException {
+        if (mLink != null) {
+            throw new IllegalStateException(mName + " already connected");
+        }
+        VehicleLink link = createLink(linkPort);
+        link.setFrameTap(mLinkTap);
+        link.setVehicleFrameTap(mVehicleLinkTap);
+        TelemetryHub telemetryHub = mServer.start(getSystemAddress());
+        try {
+            link.start(scheduler);
+        } catch (IOException e) {
+            mServer.stop();
+            throw e;
+        }
+        mLinkPort = linkPort;
+        mLink = link;
+        mTelemetryHub = telemetryHub;
+        for (Listener listener : mListeners) {
+            listener.onTelemetryHubChanged(this, telemetryHub);
+        }
+    }
+
+    private VehicleLink createLink(LinkPort linkPort) {
+        if (mGcsEndpoints.isEmpty()) {
+            return new SerialUdpBridge(linkPort, mServerAddress);
+        }
+        List<MavlinkRouter.EndpointSpec> endpoints = new ArrayList<>();
+        endpoints.add(MavlinkRouter.EndpointSpec.udp("mavsdk_server", mServerAddress));
+        endpoints.addAll(mGcsEndpoints);
+        return new MavlinkRouter(linkPort, endpoints);
+    }
+
+    /**
+     * Stop the link and the server, and close the port. The connection keeps its
+     * name, system id and server address and may be connected again.
+     */
+    public synchronized void disconnect() throws IOException {
+        VehicleLink link = mLink;
+        LinkPort linkPort = mLinkPort;
+        mLink = null;
+        mLinkPort = null;
+        if (link == null) {
+            return;
+        }
+        link.stop();
+        mServer.stop();
+        linkPort.close();
+    }
+
+    public boolean isConnected() {
+        VehicleLink link = mLink;
+        return link != null && link.isRunning();
+    }
+
+    public void addListener(Listener listener) {
+        mListeners.add(listener);
+    }
+
+    public void removeListener(Listener listener) {
+        mListeners.remove(listener);
+    }
+
+    /**
+     * Set a listener that sees every frame on this link, e.g. a tlog recorder.
+     */
+    public void setFrameTap(MavlinkFrameParser.Listener frameTap) {
+        mFrameTap = frameTap;
+    }
+
+    /**
+     * Set a listener that sees the frames from the vehicle only, e.g. to measure the link.
+     */
+    public void setVehicleFrameTap(MavlinkFrameParser.Listener vehicleFrameTap) {
+        mVehicleFrameTap = vehicleFrameTap;
+    }
+
+    public String getName() {
+        return mName;
+    }
+
+    /**
+     * @return The vehicle's MAVLink system id, or {@link #UNKNOWN_SYSTEM_ID} before its
+     *     first heartbeat.
+     */
+    public int getSystemId() {
+        return mSystemId;
+    }
+
+    /**
+     * @return The address the vehicle's server listens on, e.g. "udp://127.0.0.1:14541".
+     */
+    public String getSystemAddress() {
+        return "udp://" + mServerAddress.getHostString() + ":" + mServerAddress.getPort();
+    }
+
+    /**
+     * @return The current port, or null while disconnected.
+     */
+    public LinkPort getLinkPort() {
+        return mLinkPort;
+    }
+
+    /**
+     * @return The current bridge or router, or null while disconnected.
+     */
+    public VehicleLink getLink() {
+        return mLink;
+    }
+
+    /**
+     * @return The ground station endpoints the link is routed to besides the server.
+     */
+    public List<MavlinkRouter.EndpointSpec> getGcsEndpoints() {
+        return Collections.unmodifiableList(mGcsEndpoints);
+    }
+
+    public VehicleServer getServer() {
+        return mServer;
+    }
+
+    /**
+     * @return The hub of the current server, or of the last one while disconnected.
+     */
+    public TelemetryHub getTelemetryHub() {
+        return mTelemetryHub;
+    }
+
+    @Override
+    public String toString() {
+        return mName + " sysid=" + mSystemId + " " + getSystemAddress();
+    }
+}
@@ -0,0 +1,22 @@
+package com.gen.mavsdkandroidserialtest.fleet;
+
+import com.gen.mavsdkandroidserialtest.repositories.TelemetryHub;
+
+/**
+ * The telemetry backend of one vehicle connection, normally a mavsdk_server instance.
+ */
+public interface VehicleServer {
+
+    interface Factory {
+        VehicleServer create();
+    }
+
+    /**
+     * Start serving the vehicle reachable at `systemAddress`, e.g. "udp://:14541".
+     *
+     * @return The vehicle's telemetry topics.
+     */
+    TelemetryHub start(String systemAddress);
+
+    void stop();
+}
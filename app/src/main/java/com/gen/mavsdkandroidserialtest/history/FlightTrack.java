@@ -0,0 +1,294 @@
+package com.gen.mavsdkandroidserialtest.history;
+
+import io.mavsdk.telemetry.Telemetry;
+
+/**
+ * The path flown so far, simplified as it grows, for a map overlay to redraw whole.
+ *
+ * <p>Fixes are projected to metres east and north of home, the first fix. Each one is
+ * run through a sleeve: a point is dropped while a straight segment from the last kept
+ * vertex can still pass within the tolerance of every point dropped since, which costs
+ * O(1) per fix. The slack applies sideways off the segment and back from its far end,
+ * so doubling back is never cut off. The kept vertices live in fixed arrays; when they
+ * fill up, the track is simplified again with twice the tolerance, so memory stays
+ * bounded and appends stay amortised O(1) while {@link #getErrorBoundMeters()} grows
+ * with the flight.</p>
+ *
+ * <p>Distance flown and distance from home come from the raw fixes, kept as running
+ * figures. Appends come from one thread; all access synchronizes on the track.</p>
+ */
+public class FlightTrack {
+
+    private static final double EARTH_RADIUS_M = 6_371_000;
+    private static final double SQRT_HALF = Math.sqrt(0.5);
+
+    // Drops points that stay within a tolerance of a segment from the anchor
+    private static class Sleeve {
+        double tolerance;
+        double anchorX;
+        double anchorY;
+        double pendingX;
+        double pendingY;
+        boolean hasPending;
+        // The directions from the anchor that stay close to every point since, relative
+        // to `reference` so the interval never wraps, and the furthest of those points
+        boolean bounded;
+        double reference;
+        double low;
+        double high;
+        double reach;
+
+        void start(double x, double y) {
+            anchorX = x;
+            anchorY = y;
+            hasPending = false;
+            bounded = false;
+            reach = 0;
+        }
+
+        /**
+         * @return Whether the pending point must be kept as a vertex; it is then the
+         *     anchor, and (x, y) is pending after it.
+         */
+        boolean offer(double x, double y) {
+            boolean keep = hasPending && !narrow(x, y);
+            if (keep) {
+                start(pendingX, pendingY);
+                narrow(x, y);
+            }
+            pendingX = x;
+            pendingY = y;
+            hasPending = true;
+            return keep;
+        }
+
+        // Intersects the sleeve with the directions passing near (x, y); false if it
+        // does not fit
+        private boolean narrow(double x, double y) {
+            double dx = x - anchorX;
+            double dy = y - anchorY;
+            double distance = Math.hypot(dx, dy);
+            if (distance <= tolerance) {
+                reach = Math.max(reach, distance);
+                return true;
+            }
+            // Sideways and backwards slack of tolerance/sqrt(2) each keep the corner
+            // case, a point both beside and beyond the segment's end, within tolerance
+            double slack = tolerance * SQRT_HALF;
+            if (distance < reach - slack) {
+                return false;
+            }
+            double direction = Math.atan2(dy, dx);
+            double halfWidth = Math.asin(slack / distance);
+            if (!bounded) {
+                bounded = true;
+                reference = direction;
+                low = -halfWidth;
+                high = halfWidth;
+            } else {
+                double relative = normalize(direction - reference);
+                if (relative < low || relative > high) {
+                    return false;
+                }
+                low = Math.max(low, relative - halfWidth);
+                high = Math.min(high, relative + halfWidth);
+            }
+            reach = Math.max(reach, distance);
+            return true;
+        }
+
+        private static double normalize(double angle) {
+            while (angle > Math.PI) {
+                angle -= 2 * Math.PI;
+            }
+            while (angle <= -Math.PI) {
+                angle += 2 * Math.PI;
+            }
+            return angle;
+        }
+    }
+
+    private final float[] mX;
+    private final float[] mY;
+    private final double mInitialToleranceMeters;
+    private final Sleeve mSleeve = new Sleeve();
+    private final Sleeve mCompactionSleeve = new Sleeve();
+    private int mVertexCount;
+    private double mErrorBoundMeters;
+
+    private boolean mHasHome;
+    private double mHomeLatitudeDeg;
+    private double mHomeLongitudeDeg;
+    private double mMetresPerDegreeLongitude;
+    private double mLastX;
+    private double mLastY;
+    private long mFixCount;
+    private double mDistanceFlownMeters;
+    private int mVersion;
+
+    /**
+     * @param maxVertices Vertices kept before the track is simplified further; at least 4.
+     * @param toleranceMeters How far the track may stray from any fix to begin with.
+     */
+    public FlightTrack(int maxVertices, double toleranceMeters) {
+        if (maxVertices < 4) {
+            throw new IllegalArgumentException("maxVertices: " + maxVertices);
+        }
+        mX = new float[maxVertices];
+        mY = new float[maxVertices];
+        mInitialToleranceMeters = toleranceMeters;
+        mSleeve.tolerance = toleranceMeters;
+        mErrorBoundMeters = toleranceMeters;
+    }
+
+    public void append(Telemetry.Position position) {
+        append(position.getLatitudeDeg(), position.getLongitudeDeg());
+    }
+
+    public synchronized void append(double latitudeDeg, double longitudeDeg) {
+        if (Double.isNaN(latitudeDeg) || Double.isNaN(longitudeDeg)) {
+            return;
+        }
+        if (!mHasHome) {
+            mHasHome = true;
+            mHomeLatitudeDeg = latitudeDeg;
+            mHomeLongitudeDeg = longitudeDeg;
+            mMetresPerDegreeLongitude = Math.toRadians(EARTH_RADIUS_M) * Math.cos(Math.toRadians(latitudeDeg));
+            mSleeve.start(0, 0);
+            addVertex(0, 0);
+            mFixCount = 1;
+            mVersion++;
+            return;
+        }
+
+        double x = (longitudeDeg - mHomeLongitudeDeg) * mMetresPerDegreeLongitude;
+        double y = (latitudeDeg - mHomeLatitudeDeg) * Math.toRadians(EARTH_RADIUS_M);
+        mDistanceFlownMeters += Math.hypot(x - mLastX, y - mLastY);
+        mLastX = x;
+        mLastY = y;
+        mFixCount++;
+
+        if (mSleeve.offer(x, y)) {
+            addVertex(mSleeve.anchorX, mSleeve.anchorY);
+        }
+        mVersion++;
+    }
+
+    private void addVertex(double x, double y) {
+        if (mVertexCount == mX.length) {
+            compact();
+        }
+        mX[mVertexCount] = (float) x;
+        mY[mVertexCount] = (float) y;
+        mVertexCount++;
+    }
+
+    // Re-simplifies the vertices with doubling tolerance until at most half remain;
+    // written in place, since a pass never keeps more vertices than it has read
+    private void compact() {
+        while (mVertexCount > mX.length / 2) {
+            double tolerance = mSleeve.tolerance * 2;
+            mCompactionSleeve.tolerance = tolerance;
+            mCompactionSleeve.start(mX[0], mY[0]);
+            int written = 1;
+            for (int i = 1; i < mVertexCount; i++) {
+                if (mCompactionSleeve.offer(mX[i], mY[i])) {
+                    mX[written] = (float) mCompactionSleeve.anchorX;
+                    mY[written] = (float) mCompactionSleeve.anchorY;
+                    written++;
+                }
+            }
+            // The last vertex anchors the live sleeve, so it stays
+            mX[written] = mX[mVertexCount - 1];
+            mY[written] = mY[mVertexCount - 1];
+            mVertexCount = written + 1;
+            mSleeve.tolerance = tolerance;
+            mErrorBoundMeters += tolerance;
+        }
+    }
+
+    /**
+     * @return The points to draw: the kept vertices and the latest fix.
+     */
+    public synchronized int size() {
+        return mVertexCount + (mSleeve.hasPending ? 1 : 0);
+    }
+
+    /**
+     * Copy the track as metres east and north of home.
+     *
+     * @return The number of points written, at most the arrays' length.
+     */
+    public synchronized int copyMeters(float[] outEast, float[] outNorth) {
+        int count = Math.min(size(), Math.min(outEast.length, outNorth.length));
+        for (int i = 0; i < count; i++) {
+            if (i < mVertexCount) {
+                outEast[i] = mX[i];
+                outNorth[i] = mY[i];
+            } else {
+                outEast[i] = (float) mSleeve.pendingX;
+                outNorth[i] = (float) mSleeve.pendingY;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Copy the track as coordinates, for a map overlay.
+     *
+     * @return The number of points written, at most the arrays' length.
+     */
+    public synchronized int copyCoordinates(double[] outLatitudeDeg, double[] outLongitudeDeg) {
+        int count = Math.min(size(), Math.min(outLatitudeDeg.length, outLongitudeDeg.length));
+        for (int i = 0; i < count; i++) {
+            double x = i < mVertexCount ? mX[i] : mSleeve.pendingX;
+            double y = i < mVertexCount ? mY[i] : mSleeve.pendingY;
+            outLatitudeDeg[i] = mHomeLatitudeDeg + y / Math.toRadians(EARTH_RADIUS_M);
+            outLongitudeDeg[i] = mHomeLongitudeDeg + x / mMetresPerDegreeLongitude;
+        }
+        return count;
+    }
+
+    /**
+     * @return How far the drawn track may be from any fix flown.
+     */
+    public synchronized double getErrorBoundMeters() {
+        return mErrorBoundMeters;
+    }
+
+    public synchronized double getDistanceFlownMeters() {
+        return mDistanceFlownMeters;
+    }
+
+    public synchronized double getDistanceFromHomeMeters() {
+        return Math.hypot(mLastX, mLastY);
+    }
+
+    public synchronized long getFixCount() {
+        return mFixCount;
+    }
+
+    /**
+     * @return A number that changes with every fix, to skip redraws of an unchanged track.
+     */
+    public synchronized int getVersion() {
+        return mVersion;
+    }
+
+    public int getMaxVertices() {
+        return mX.length;
+    }
+
+    public synchronized void clear() {
+        mHasHome = false;
+        mVertexCount = 0;
+        mSleeve.tolerance = mInitialToleranceMeters;
+        mSleeve.hasPending = false;
+        mErrorBoundMeters = mInitialToleranceMeters;
+        mLastX = 0;
+        mLastY = 0;
+        mFixCount = 0;
+        mDistanceFlownMeters = 0;
+        mVersion++;
+    }
+}
@@ -0,0 +1,14 @@
+package com.gen.mavsdkandroidserialtest.history;
+
+/**
+ * The telemetry values {@link TelemetryHistory} keeps a series of.
+ */
+public enum HistoryField {
+    LATITUDE,
+    LONGITUDE,
+    ALTITUDE,
+    VOLTAGE,
+    REMAINING_BATTERY,
+    SATELLITES,
+    SPEED
+}
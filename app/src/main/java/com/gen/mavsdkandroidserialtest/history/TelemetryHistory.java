@@ -0,0 +1,72 @@
+package com.gen.mavsdkandroidserialtest.history;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+import io.mavsdk.telemetry.Telemetry;
+
+/**
+ * The flight so far, one {@link TimeSeries} per {@link HistoryField}.
+ *
+ * <p>Every series is allocated up front with the same capacity, so the history costs
+ * {@link #getMemoryBytes()} from the first sample to the end of a flight of any length;
+ * past capacity the oldest samples give way. The record methods take the samples as
+ * the telemetry streams emit them and do not allocate.</p>
+ */
+public class TelemetryHistory {
+
+    private final Map<HistoryField, TimeSeries> mSeries = new EnumMap<>(HistoryField.class);
+
+    /**
+     * @param capacity Samples kept per field.
+     * @param minIntervalMillis Samples closer together than this are dropped.
+     */
+    public TelemetryHistory(int capacity, long minIntervalMillis) {
+        for (HistoryField field : HistoryField.values()) {
+            boolean relativeToFirst = field == HistoryField.LATITUDE || field == HistoryField.LONGITUDE;
+            mSeries.put(field, new TimeSeries(capacity, minIntervalMillis, relativeToFirst));
+        }
+    }
+
+    public TimeSeries get(HistoryField field) {
+        return mSeries.get(field);
+    }
+
+    public void recordPosition(long timeMillis, Telemetry.Position position) {
+        mSeries.get(HistoryField.LATITUDE).append(timeMillis, position.getLatitudeDeg());
+        mSeries.get(HistoryField.LONGITUDE).append(timeMillis, position.getLongitudeDeg());
+        mSeries.get(HistoryField.ALTITUDE).append(timeMillis, position.getRelativeAltitudeM());
+    }
+
+    public void recordBattery(long timeMillis, Telemetry.Battery battery) {
+        mSeries.get(HistoryField.VOLTAGE).append(timeMillis, battery.getVoltageV());
+        mSeries.get(HistoryField.REMAINING_BATTERY).append(timeMillis, battery.getRemainingPercent());
+    }
+
+    public void recordGpsInfo(long timeMillis, Telemetry.GpsInfo gpsInfo) {
+        mSeries.get(HistoryField.SATELLITES).append(timeMillis, gpsInfo.getNumSatellites());
+    }
+
+    /**
+     * Records the horizontal speed.
+     */
+    public void recordPositionVelocityNed(long timeMillis, Telemetry.PositionVelocityNed positionVelocityNed) {
+        Telemetry.VelocityNed velocity = positionVelocityNed.getVelocity();
+        mSeries.get(HistoryField.SPEED).append(timeMillis,
+                Math.hypot(velocity.getNorthMS(), velocity.getEastMS()));
+    }
+
+    public long getMemoryBytes() {
+        long bytes = 0;
+        for (TimeSeries series : mSeries.values()) {
+            bytes += series.getMemoryBytes();
+        }
+        return bytes;
+    }
+
+    public void clear() {
+        for (TimeSeries series : mSeries.values()) {
+            series.clear();
+        }
+    }
+}
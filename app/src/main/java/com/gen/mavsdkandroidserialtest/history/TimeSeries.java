@@ -0,0 +1,258 @@
+package com.gen.mavsdkandroidserialtest.history;
+
+/**
+ * A fixed-capacity ring of (time, value) samples held in primitive arrays.
+ *
+ * <p>Appends are O(1) and never allocate; once full, each append overwrites the oldest
+ * sample, so a series never grows past {@link #getMemoryBytes()}. Times must not go
+ * backwards: a sample older than the newest one is rejected, as is one that arrives
+ * sooner than the minimum interval after it. Range lookups binary-search the ring.</p>
+ *
+ * <p>Values are stored as floats. A series made relative to its first sample stores
+ * offsets from that sample instead, which keeps latitude and longitude to centimetres
+ * where a plain float would round them to metres.</p>
+ *
+ * <p>One thread may append while others read; all access synchronizes on the series.</p>
+ */
+public class TimeSeries {
+
+    public static final int BYTES_PER_SAMPLE = 8 + 4;
+
+    private final long[] mTimes;
+    private final float[] mValues;
+    private final long mMinIntervalMillis;
+    private final boolean mRelativeToFirst;
+    private double mBaseline;
+    private int mHead;
+    private int mSize;
+
+    public TimeSeries(int capacity, long minIntervalMillis) {
+        this(capacity, minIntervalMillis, false);
+    }
+
+    /**
+     * @param minIntervalMillis Samples closer than this to the previous one are dropped,
+     *     so `capacity` covers at least `capacity * minIntervalMillis` of history.
+     * @param relativeToFirst Whether to store values as offsets from the first sample.
+     */
+    public TimeSeries(int capacity, long minIntervalMillis, boolean relativeToFirst) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity: " + capacity);
+        }
+        mTimes = new long[capacity];
+        mValues = new float[capacity];
+        mMinIntervalMillis = minIntervalMillis;
+        mRelativeToFirst = relativeToFirst;
+    }
+
+    /**
+     * @return False if the sample was dropped for being out of order or too soon.
+     */
+    public synchronized boolean append(long timeMillis, double value) {
+        if (mSize > 0) {
+            long lastTimeMillis = mTimes[physical(mSize - 1)];
+            if (timeMillis < lastTimeMillis || timeMillis - lastTimeMillis < mMinIntervalMillis) {
+                return false;
+            }
+        } else if (mRelativeToFirst) {
+            mBaseline = value;
+        }
+        // When full, the slot after the newest sample is the oldest one
+        int index = physical(mSize);
+        mTimes[index] = timeMillis;
+        mValues[index] = (float) (value - mBaseline);
+        if (mSize == mTimes.length) {
+            mHead = (mHead + 1) % mTimes.length;
+        } else {
+            mSize++;
+        }
+        return true;
+    }
+
+    private int physical(int logical) {
+        return (mHead + logical) % mTimes.length;
+    }
+
+    public synchronized int size() {
+        return mSize;
+    }
+
+    public int getCapacity() {
+        return mTimes.length;
+    }
+
+    public long getMemoryBytes() {
+        return (long) mTimes.length * BYTES_PER_SAMPLE;
+    }
+
+    /**
+     * @param index 0 is the oldest sample held.
+     */
+    public synchronized long getTime(int index) {
+        checkIndex(index);
+        return mTimes[physical(index)];
+    }
+
+    public synchronized double getValue(int index) {
+        checkIndex(index);
+        return mBaseline + mValues[physical(index)];
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= mSize) {
+            throw new IndexOutOfBoundsException("index " + index + ", size " + mSize);
+        }
+    }
+
+    /**
+     * @return The index of the first sample at or after `timeMillis`; {@link #size()} if
+     *     there is none.
+     */
+    public synchronized int lowerBound(long timeMillis) {
+        int low = 0;
+        int high = mSize;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (mTimes[physical(middle)] < timeMillis) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Copy the samples with `fromMillis <= time < toMillis`, oldest first, stopping when
+     * the output arrays are full.
+     *
+     * @return The number of samples copied.
+     */
+    public synchronized int query(long fromMillis, long toMillis, long[] outTimes, double[] outValues) {
+        int start = lowerBound(fromMillis);
+        int count = Math.min(lowerBound(toMillis) - start, Math.min(outTimes.length, outValues.length));
+        for (int i = 0; i < count; i++) {
+            int index = physical(start + i);
+            outTimes[i] = mTimes[index];
+            outValues[i] = mBaseline + mValues[index];
+        }
+        return Math.max(0, count);
+    }
+
+    /**
+     * Thin the samples in `[fromMillis, toMillis)` to at most `maxPoints` with
+     * Largest-Triangle-Three-Buckets, which keeps the points that shape the line: the
+     * first and last, then from each bucket the one spanning the largest triangle with
+     * the point kept before it and the average of the next bucket. Ranges that already
+     * fit are copied as they are.
+     *
+     * @return The number of points written, oldest first.
+     */
+    public synchronized int downsampleLttb(long fromMillis, long toMillis, int maxPoints,
+                                           long[] outTimes, double[] outValues) {
+        int start = lowerBound(fromMillis);
+        int count = lowerBound(toMillis) - start;
+        maxPoints = Math.min(maxPoints, Math.min(outTimes.length, outValues.length));
+        if (count <= maxPoints || maxPoints < 3) {
+            return query(fromMillis, toMillis, outTimes, outValues);
+        }
+
+        // Times relative to the range keep the areas within double precision
+        long originMillis = mTimes[physical(start)];
+        int kept = start;
+        int written = write(kept, 0, outTimes, outValues);
+        double bucketSize = (double) (count - 2) / (maxPoints - 2);
+        for (int bucket = 0; bucket < maxPoints - 2; bucket++) {
+            int bucketStart = start + 1 + (int) (bucket * bucketSize);
+            int bucketEnd = start + 1 + (int) ((bucket + 1) * bucketSize);
+            int nextStart = bucketEnd;
+            int nextEnd = Math.min(start + 1 + (int) ((bucket + 2) * bucketSize), start + count);
+            if (nextEnd <= nextStart) {
+                nextEnd = nextStart + 1;
+            }
+
+            double averageTime = 0;
+            double averageValue = 0;
+            for (int i = nextStart; i < nextEnd; i++) {
+                int index = physical(i);
+                averageTime += mTimes[index] - originMillis;
+                averageValue += mValues[index];
+            }
+            averageTime /= nextEnd - nextStart;
+            averageValue /= nextEnd - nextStart;
+
+            int keptIndex = physical(kept);
+            double keptTime = mTimes[keptIndex] - originMillis;
+            double keptValue = mValues[keptIndex];
+            double maxArea = -1;
+            int chosen = bucketStart;
+            for (int i = bucketStart; i < bucketEnd; i++) {
+                int index = physical(i);
+                double area = Math.abs((keptTime - averageTime) * (mValues[index] - keptValue)
+                        - (keptTime - (mTimes[index] - originMillis)) * (averageValue - keptValue));
+                if (area > maxArea) {
+                    maxArea = area;
+                    chosen = i;
+                }
+            }
+            kept = chosen;
+            written = write(kept, written, outTimes, outValues);
+        }
+        return write(start + count - 1, written, outTimes, outValues);
+    }
+
+    /**
+     * Thin the samples in `[fromMillis, toMillis)` to the lowest and highest of each of
+     * `buckets` equal slices of time, e.g. one per pixel column, so no spike is lost.
+     * Each slice contributes its two extremes in time order, one point if they are the
+     * same sample, and nothing if it is empty. The output needs room for `2 * buckets`.
+     *
+     * @return The number of points written, oldest first.
+     */
+    public synchronized int downsampleMinMax(long fromMillis, long toMillis, int buckets,
+                                             long[] outTimes, double[] outValues) {
+        int start = lowerBound(fromMillis);
+        int end = lowerBound(toMillis);
+        int capacity = Math.min(outTimes.length, outValues.length);
+        double bucketMillis = (double) (toMillis - fromMillis) / buckets;
+        int written = 0;
+        int i = start;
+        for (int bucket = 0; bucket < buckets && i < end && written + 2 <= capacity; bucket++) {
+            long bucketEndMillis = bucket == buckets - 1
+                    ? toMillis
+                    : fromMillis + (long) Math.ceil((bucket + 1) * bucketMillis);
+            int minIndex = -1;
+            int maxIndex = -1;
+            for (; i < end && mTimes[physical(i)] < bucketEndMillis; i++) {
+                float value = mValues[physical(i)];
+                if (minIndex < 0 || value < mValues[physical(minIndex)]) {
+                    minIndex = i;
+                }
+                if (maxIndex < 0 || value > mValues[physical(maxIndex)]) {
+                    maxIndex = i;
+                }
+            }
+            if (minIndex < 0) {
+                continue;
+            }
+            written = write(Math.min(minIndex, maxIndex), written, outTimes, outValues);
+            if (minIndex != maxIndex) {
+                written = write(Math.max(minIndex, maxIndex), written, outTimes, outValues);
+            }
+        }
+        return written;
+    }
+
+    private int write(int logical, int position, long[] outTimes, double[] outValues) {
+        int index = physical(logical);
+        outTimes[position] = mTimes[index];
+        outValues[position] = mBaseline + mValues[index];
+        return position + 1;
+    }
+
+    public synchronized void clear() {
+        mHead = 0;
+        mSize = 0;
+        mBaseline = 0;
+    }
+}
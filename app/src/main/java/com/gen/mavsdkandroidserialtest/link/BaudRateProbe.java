@@ -0,0 +1,114 @@
+package com.gen.mavsdkandroidserialtest.link;
+
+import com.gen.mavsdkandroidserialtest.mavlink.MavlinkFrame;
+import com.gen.mavsdkandroidserialtest.mavlink.MavlinkFrameParser;
+
+import java.io.IOException;
+
+/**
+ * Finds the baud rate a vehicle is talking at by listening for CRC-valid MAVLink frames.
+ *
+ * <p>Candidates are tried from fastest to slowest, so the first rate that yields
+ * {@link #DEFAULT_MIN_VALID_FRAMES} valid frames within the probe window is the fastest
+ * working one. The result is cached per device; a cached rate is verified first and the
+ * full scan only runs when it no longer works.</p>
+ */
+public class BaudRateProbe {
+
+    public static final int NO_BAUD_RATE = 0;
+    public static final int[] DEFAULT_CANDIDATES = {921600, 460800, 230400, 115200, 57600};
+    public static final int DEFAULT_WINDOW_MILLIS = 1000;
+    public static final int DEFAULT_MIN_VALID_FRAMES = 3;
+
+    private static final int READ_TIMEOUT_MILLIS = 50;
+    private static final int READ_BUFFER_SIZE = 1024;
+
+    /**
+     * Remembers the last working baud rate per device.
+     */
+    public interface Cache {
+        /**
+         * @return The cached baud rate for `key`, or {@link #NO_BAUD_RATE}.
+         */
+        int get(String key);
+
+        void put(String key, int baudRate);
+    }
+
+    private final Cache mCache;
+    private final byte[] mReadBuffer = new byte[READ_BUFFER_SIZE];
+    private int[] mCandidates = DEFAULT_CANDIDATES;
+    private int mWindowMillis = DEFAULT_WINDOW_MILLIS;
+    private int mMinValidFrames = DEFAULT_MIN_VALID_FRAMES;
+
+    private int mValidFrames;
+    private final MavlinkFrameParser mParser = new MavlinkFrameParser(new MavlinkFrameParser.Listener() {
+        @Override
+        public void onFrame(MavlinkFrame frame) {
+            mValidFrames++;
+        }
+    });
+
+    public BaudRateProbe(Cache cache) {
+        mCache = cache;
+    }
+
+    /**
+     * @return The cache key for a USB device, e.g. "1027:24597:A50285BI".
+     */
+    public static String cacheKey(int vendorId, int productId, String serialNumber) {
+        return vendorId + ":" + productId + ":" + serialNumber;
+    }
+
+    /**
+     * @param candidates Baud rates to try, fastest first.
+     */
+    public void setCandidates(int[] candidates) {
+        mCandidates = candidates.clone();
+    }
+
+    public void setWindowMillis(int windowMillis) {
+        mWindowMillis = windowMillis;
+    }
+
+    public void setMinValidFrames(int minValidFrames) {
+        mMinValidFrames = minValidFrames;
+    }
+
+    /**
+     * Leave `port` set to the fastest baud rate that carries valid MAVLink.
+     *
+     * @return The detected baud rate, or {@link #NO_BAUD_RATE} if none worked.
+     */
+    public int probe(LinkPort port, String cacheKey) throws IOException {
+        int cached = mCache.get(cacheKey);
+        if (cached != NO_BAUD_RATE && isWorking(port, cached)) {
+            return cached;
+        }
+        for (int candidate : mCandidates) {
+            if (candidate != cached && isWorking(port, candidate)) {
+                mCache.put(cacheKey, candidate);
+                return candidate;
+            }
+        }
+        return NO_BAUD_RATE;
+    }
+
+    /**
+     * @return Whether `port` carries valid MAVLink frames at `baudRate`.
+     */
+    public boolean isWorking(LinkPort port, int baudRate) throws IOException {
+        port.setBaudRate(baudRate);
+        mParser.reset();
+        mValidFrames = 0;
+
+        long deadline = System.nanoTime() + mWindowMillis * 1_000_000L;
+        while (mValidFrames < mMinValidFrames && System.nanoTime() < deadline) {
+            int n = port.read(mReadBuffer, READ_TIMEOUT_MILLIS);
+            if (n > 0) {
+                mParser.parse(mReadBuffer, 0, n);
+            }
+        }
+        return mValidFrames >= mMinValidFrames;
+    }
+}
@@ -0,0 +1,27 @@
+package com.gen.mavsdkandroidserialtest.link;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * A bidirectional byte link to a vehicle, such as a USB serial port.
+ */
+public interface LinkPort extends Closeable {
+
+    /**
+     * Read available bytes into `destination`, waiting at most `timeoutMillis`.
+     *
+     * @return The number of bytes read, 0 if the timeout elapsed without data.
+     */
+    int read(byte[] destination, int timeoutMillis) throws IOException;
+
+    /**
+     * Write the first `length` bytes of `source`, waiting at most `timeoutMillis`.
+     */
+    void write(byte[] source, int length, int timeoutMillis) throws IOException;
+
+    /**
+     * Reconfigure the port for `baudRate` with 8 data bits, 1 stop bit and no parity.
+     */
+    void setBaudRate(int baudRate) throws IOException;
+}
@@ -0,0 +1,169 @@
+package com.gen.mavsdkandroidserialtest.link;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Runs the pump loops of many links on a fixed number of threads.
+ *
+ * <p>Each registered {@link Pump} is assigned to the worker serving the fewest pumps and
+ * is called round-robin with the other pumps on that worker, so the thread count stays
+ * the same however many vehicles are connected. Pumps are cooperative: a single call
+ * should wait no longer than a few milliseconds for input.</p>
+ */
+public class LinkScheduler {
+
+    public static final int DEFAULT_THREAD_COUNT = Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors()));
+
+    /**
+     * One step of a link's I/O loop.
+     */
+    public interface Pump {
+        void pumpOnce() throws IOException;
+
+        /**
+         * Called on the worker thread when {@link #pumpOnce()} failed; the pump has
+         * already been unregistered. A RuntimeException arrives as the cause of `e`.
+         */
+        void onPumpError(IOException e);
+    }
+
+    /**
+     * Handle returned by {@link #register(Pump)}.
+     */
+    public static final class Registration {
+        private final Pump mPump;
+        private final Worker mWorker;
+        private boolean mActive = true;
+
+        private Registration(Pump pump, Worker worker) {
+            mPump = pump;
+            mWorker = worker;
+        }
+
+        /**
+         * Stop calling the pump. Once this returns the pump is not running on any thread.
+         */
+        public void cancel() {
+            synchronized (this) {
+                mActive = false;
+            }
+            mWorker.mRegistrations.remove(this);
+        }
+    }
+
+    private static class Worker implements Runnable {
+        private final List<Registration> mRegistrations = new CopyOnWriteArrayList<>();
+        private volatile boolean mRunning = true;
+
+        @Override
+        public void run() {
+            while (mRunning) {
+                if (mRegistrations.isEmpty()) {
+                    synchronized (this) {
+                        try {
+                            wait(100);
+                        } catch (InterruptedException e) {
+                            return;
+                        }
+                    }
+                    continue;
+                }
+                for (Registration registration : mRegistrations) {
+                    synchronized (registration) {
+                        if (!registration.mActive) {
+                            continue;
+                        }
+                        try {
+                            registration.mPump.pumpOnce();
+                        } catch (IOException e) {
+                            fail(registration, e);
+                        } catch (RuntimeException e) {
+                            // A bug in one pump must not stop the others on this thread
+                            fail(registration, new IOException("pumpOnce: " + e, e));
+                        }
+                    }
+                }
+            }
+        }
+
+        private void fail(Registration registration, IOException e) {
+            registration.mActive = false;
+            mRegistrations.remove(registration);
+            try {
+                registration.mPump.onPumpError(e);
+            } catch (RuntimeException ignored) {
+                // The pump is already unregistered; nothing else depends on it
+            }
+        }
+    }
+
+    private final Worker[] mWorkers;
+    private final List<Thread> mThreads = new ArrayList<>();
+
+    public LinkScheduler() {
+        this(DEFAULT_THREAD_COUNT);
+    }
+
+    public LinkScheduler(int threadCount) {
+        mWorkers = new Worker[threadCount];
+        for (int i = 0; i < threadCount; i++) {
+            mWorkers[i] = new Worker();
+            Thread thread = new Thread(mWorkers[i], "link-scheduler-" + i);
+            thread.setDaemon(true);
+            mThreads.add(thread);
+            thread.start();
+        }
+    }
+
+    public synchronized Registration register(Pump pump) {
+        Worker worker = mWorkers[0];
+        for (Worker candidate : mWorkers) {
+            if (candidate.mRegistrations.size() < worker.mRegistrations.size()) {
+                worker = candidate;
+            }
+        }
+        Registration registration = new Registration(pump, worker);
+        worker.mRegistrations.add(registration);
+        synchronized (worker) {
+            worker.notify();
+        }
+        return registration;
+    }
+
+    public int getThreadCount() {
+        return mWorkers.length;
+    }
+
+    /**
+     * @return The number of pumps currently registered.
+     */
+    public synchronized int getPumpCount() {
+        int count = 0;
+        for (Worker worker : mWorkers) {
+            count += worker.mRegistrations.size();
+        }
+        return count;
+    }
+
+    /**
+     * Stop all workers. Registered pumps are dropped without being notified.
+     */
+    public void shutdown() {
+        for (Worker worker : mWorkers) {
+            worker.mRunning = false;
+            synchronized (worker) {
+                worker.notify();
+            }
+        }
+        for (Thread thread : mThreads) {
+            try {
+                thread.join(1000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
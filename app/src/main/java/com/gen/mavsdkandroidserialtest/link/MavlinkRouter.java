@@ -0,0 +1,772 @@
+package com.gen.mavsdkandroidserialtest.link;
+
+import com.gen.mavsdkandroidserialtest.mavlink.MavlinkFrame;
+import com.gen.mavsdkandroidserialtest.mavlink.MavlinkFrameParser;
+import com.gen.mavsdkandroidserialtest.mavlink.MavlinkMessages;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Owns a vehicle's {@link LinkPort} and shares it between several MAVLink endpoints:
+ * mavsdk_server, and other ground stations over UDP or TCP.
+ *
+ * <p>Every frame is copied once, into a shared ring buffer. Each endpoint keeps its own
+ * bounded queue of the frames routed to it and sends them straight from the ring,
+ * coalescing neighbouring frames into one datagram or write. An endpoint that cannot
+ * keep up loses its oldest queued frames, either when its queue is full or when the ring
+ * has wrapped past them; the vehicle link and the other endpoints never wait for it.</p>
+ *
+ * <p>Routes are learned from the system and component ids of the frames each endpoint
+ * sends. A frame addressed to a known system goes only to the endpoints behind it;
+ * broadcasts, and frames for systems not seen yet, go everywhere but back to their
+ * source. Frames from endpoints go to the vehicle unless addressed to another endpoint
+ * only.</p>
+ *
+ * <p>Everything runs on one pump thread, as with {@link SerialUdpBridge}.</p>
+ */
+public class MavlinkRouter implements VehicleLink {
+
+    public static final int MAX_ENDPOINTS = 64;
+    public static final int DEFAULT_QUEUE_CAPACITY = 256;
+    public static final int DEFAULT_RING_SIZE = 256 * 1024;
+    public static final int DEFAULT_IDLE_READ_TIMEOUT_MILLIS = 10;
+    private static final int WRITE_TIMEOUT_MILLIS = 100;
+    private static final int MAX_BATCH_SIZE = SerialUdpBridge.MAX_DATAGRAM_SIZE;
+    // Frame lengths and positions are kept for this many frames; a power of two
+    private static final int FRAME_INDEX_SIZE = 8192;
+    private static final int VEHICLE = -1;
+
+    /**
+     * Where to forward the vehicle's frames.
+     */
+    public static final class EndpointSpec {
+        private final String mName;
+        private final InetSocketAddress mAddress;
+        private final boolean mTcpServer;
+
+        private EndpointSpec(String name, InetSocketAddress address, boolean tcpServer) {
+            mName = name;
+            mAddress = address;
+            mTcpServer = tcpServer;
+        }
+
+        /**
+         * Send to `target` over UDP and take its replies.
+         */
+        public static EndpointSpec udp(String name, InetSocketAddress target) {
+            return new EndpointSpec(name, target, false);
+        }
+
+        /**
+         * Listen for TCP clients on `bindAddress`; every client is an endpoint.
+         */
+        public static EndpointSpec tcpServer(String name, InetSocketAddress bindAddress) {
+            return new EndpointSpec(name, bindAddress, true);
+        }
+
+        public String getName() {
+            return mName;
+        }
+
+        public InetSocketAddress getAddress() {
+            return mAddress;
+        }
+
+        public boolean isTcpServer() {
+            return mTcpServer;
+        }
+
+        @Override
+        public String toString() {
+            return (mTcpServer ? "tcp-server " : "udp ") + mName + " " + mAddress;
+        }
+    }
+
+    /**
+     * One peer of the vehicle: a UDP target or a connected TCP client.
+     */
+    public abstract class Endpoint {
+        private final String mName;
+        private final int mIndex;
+        private final long[] mQueue;
+        private int mQueueHead;
+        private int mQueueSize;
+        // Bytes of the head frame a TCP write has already sent
+        private int mHeadSentBytes;
+        private final ByteBuffer mView = mRing.duplicate();
+        final MavlinkFrameParser mParser;
+
+        private volatile long mFramesOut;
+        private volatile long mBytesOut;
+        private volatile long mFramesIn;
+        private volatile long mDroppedFrames;
+
+        Endpoint(String name, int index) {
+            mName = name;
+            mIndex = index;
+            mQueue = new long[mQueueCapacity];
+            mParser = new MavlinkFrameParser(new MavlinkFrameParser.Listener() {
+                @Override
+                public void onFrame(MavlinkFrame frame) {
+                    mFramesIn++;
+                    onEndpointFrame(Endpoint.this, frame);
+                }
+            });
+            mParser.setAcceptUnknownMessages(true);
+        }
+
+        // Sends from `buffer` without blocking; the number of bytes taken
+        abstract int send(ByteBuffer buffer) throws IOException;
+
+        // Reads what has arrived and feeds the parser; false once the peer is gone
+        abstract boolean receive() throws IOException;
+
+        abstract boolean sendsWholeFramesOnly();
+
+        abstract void close();
+
+        void enqueue(long sequence) {
+            if (mQueueSize == mQueue.length) {
+                dropHead();
+            }
+            mQueue[(mQueueHead + mQueueSize) % mQueue.length] = sequence;
+            mQueueSize++;
+        }
+
+        private void dropHead() {
+            mQueueHead = (mQueueHead + 1) % mQueue.length;
+            mQueueSize--;
+            mHeadSentBytes = 0;
+            mDroppedFrames++;
+        }
+
+        // Sends runs of neighbouring frames until the queue is empty or the socket is full
+        void flush() throws IOException {
+            while (mQueueSize > 0) {
+                long first = mQueue[mQueueHead];
+                if (!isStored(first)) {
+                    dropHead();
+                    continue;
+                }
+                long start = mFrameStart[index(first)];
+                long end = start + mFrameLength[index(first)];
+                int frames = 1;
+                while (frames < mQueueSize) {
+                    long next = mQueue[(mQueueHead + frames) % mQueue.length];
+                    // A frame at the ring's start follows on in sequence but not in memory
+                    if (!isStored(next) || mFrameStart[index(next)] != end
+                            || end % mRing.capacity() == 0
+                            || end + mFrameLength[index(next)] - start > MAX_BATCH_SIZE) {
+                        break;
+                    }
+                    end += mFrameLength[index(next)];
+                    frames++;
+                }
+
+                int ringOffset = (int) (start % mRing.capacity());
+                mView.limit(ringOffset + (int) (end - start));
+                mView.position(ringOffset + mHeadSentBytes);
+                int sent = send(mView);
+                if (sent == 0) {
+                    return;
+                }
+                mBytesOut += sent;
+                // Pop the frames written in full; a partial TCP write resumes mid-frame
+                long sentEnd = start + mHeadSentBytes + sent;
+                while (mQueueSize > 0 && frames > 0) {
+                    long head = mQueue[mQueueHead];
+                    long headEnd = mFrameStart[index(head)] + mFrameLength[index(head)];
+                    if (headEnd > sentEnd) {
+                        mHeadSentBytes = (int) (sentEnd - mFrameStart[index(head)]);
+                        return;
+                    }
+                    mQueueHead = (mQueueHead + 1) % mQueue.length;
+                    mQueueSize--;
+                    mHeadSentBytes = 0;
+                    mFramesOut++;
+                    frames--;
+                }
+            }
+        }
+
+        public String getName() {
+            return mName;
+        }
+
+        public long getFramesOut() {
+            return mFramesOut;
+        }
+
+        public long getBytesOut() {
+            return mBytesOut;
+        }
+
+        public long getFramesIn() {
+            return mFramesIn;
+        }
+
+        /**
+         * @return Frames discarded because this endpoint fell too far behind.
+         */
+        public long getDroppedFrames() {
+            return mDroppedFrames;
+        }
+
+        public int getQueueDepth() {
+            return mQueueSize;
+        }
+
+        @Override
+        public String toString() {
+            return mName + " out=" + mFramesOut + " in=" + mFramesIn + " dropped=" + mDroppedFrames;
+        }
+    }
+
+    private class UdpEndpoint extends Endpoint {
+        private final DatagramChannel mChannel;
+        private final InetSocketAddress mTarget;
+
+        UdpEndpoint(String name, int index, DatagramChannel channel, InetSocketAddress target) {
+            super(name, index);
+            mChannel = channel;
+            mTarget = target;
+        }
+
+        @Override
+        int send(ByteBuffer buffer) {
+            int length = buffer.remaining();
+            try {
+                return mChannel.send(buffer, mTarget);
+            } catch (IOException e) {
+                // Nobody listening yet; the datagram is lost like any other
+                buffer.position(buffer.limit());
+                return length;
+            }
+        }
+
+        @Override
+        boolean receive() throws IOException {
+            while (true) {
+                mReceiveBuffer.clear();
+                SocketAddress source = mChannel.receive(mReceiveBuffer);
+                if (source == null) {
+                    return true;
+                }
+                mReceiveBuffer.flip();
+                int length = mReceiveBuffer.remaining();
+                mReceiveBuffer.get(mReceiveArray, 0, length);
+                mParser.parse(mReceiveArray, 0, length);
+                flushToVehicle();
+            }
+        }
+
+        @Override
+        boolean sendsWholeFramesOnly() {
+            return true;
+        }
+
+        @Override
+        void close() {
+            try {
+                mChannel.close();
+            } catch (IOException ignored) {
+            }
+        }
+    }
+
+    private class TcpClientEndpoint extends Endpoint {
+        private final SocketChannel mChannel;
+
+        TcpClientEndpoint(String name, int index, SocketChannel channel) {
+            super(name, index);
+            mChannel = channel;
+        }
+
+        @Override
+        int send(ByteBuffer buffer) throws IOException {
+            return mChannel.write(buffer);
+        }
+
+        @Override
+        boolean receive() throws IOException {
+            while (true) {
+                mReceiveBuffer.clear();
+                int length = mChannel.read(mReceiveBuffer);
+                if (length < 0) {
+                    return false;
+                }
+                if (length == 0) {
+                    return true;
+                }
+                mReceiveBuffer.flip();
+                mReceiveBuffer.get(mReceiveArray, 0, length);
+                mParser.parse(mReceiveArray, 0, length);
+                flushToVehicle();
+            }
+        }
+
+        @Override
+        boolean sendsWholeFramesOnly() {
+            return false;
+        }
+
+        @Override
+        void close() {
+            try {
+                mChannel.close();
+            } catch (IOException ignored) {
+            }
+        }
+    }
+
+    // Endpoint bit masks by system id, and by system and component id in an open-addressed table
+    private static class RoutingTable {
+        private static final int CAPACITY = 512;
+
+        private final long[] mSystems = new long[256];
+        private final int[] mKeys = new int[CAPACITY];
+        private final long[] mComponents = new long[CAPACITY];
+
+        void learn(int systemId, int componentId, long endpointBit) {
+            mSystems[systemId] |= endpointBit;
+            int key = (systemId << 8 | componentId) + 1;
+            for (int i = 0; i < CAPACITY; i++) {
+                int slot = (key * 31 + i) & (CAPACITY - 1);
+                if (mKeys[slot] == key || mKeys[slot] == 0) {
+                    mKeys[slot] = key;
+                    mComponents[slot] |= endpointBit;
+                    return;
+                }
+            }
+        }
+
+        long lookup(int systemId, int componentId) {
+            if (componentId != 0) {
+                int key = (systemId << 8 | componentId) + 1;
+                for (int i = 0; i < CAPACITY; i++) {
+                    int slot = (key * 31 + i) & (CAPACITY - 1);
+                    if (mKeys[slot] == key) {
+                        return mComponents[slot];
+                    }
+                    if (mKeys[slot] == 0) {
+                        break;
+                    }
+                }
+            }
+            return mSystems[systemId];
+        }
+
+        void forget(long endpointBit) {
+            for (int i = 0; i < mSystems.length; i++) {
+                mSystems[i] &= ~endpointBit;
+            }
+            for (int i = 0; i < CAPACITY; i++) {
+                mComponents[i] &= ~endpointBit;
+            }
+        }
+    }
+
+    private final LinkPort mLinkPort;
+    private final List<EndpointSpec> mSpecs;
+    private final int mQueueCapacity;
+    private final MavlinkFrameParser mParser;
+    private final byte[] mReadBuffer = new byte[SerialUdpBridge.DEFAULT_READ_BUFFER_SIZE];
+    // Frames for the vehicle from one receive: what was received, plus a frame the parser held over
+    private final byte[] mWriteBuffer = new byte[64 * 1024 + MavlinkFrame.MAX_FRAME_LENGTH];
+    private int mWriteLength;
+    private final ByteBuffer mReceiveBuffer = ByteBuffer.allocateDirect(64 * 1024);
+    private final byte[] mReceiveArray = new byte[64 * 1024];
+
+    // The shared ring: frame n starts at absolute byte mFrameStart[index(n)]
+    private final ByteBuffer mRing;
+    private final long[] mFrameStart = new long[FRAME_INDEX_SIZE];
+    private final int[] mFrameLength = new int[FRAME_INDEX_SIZE];
+    private long mNextSequence;
+    private long mRingEnd;
+
+    private final Endpoint[] mEndpoints = new Endpoint[MAX_ENDPOINTS];
+    private final List<Endpoint> mEndpointList = new CopyOnWriteArrayList<>();
+    private final List<ServerSocketChannel> mTcpServers = new ArrayList<>();
+    private final List<EndpointSpec> mTcpServerSpecs = new ArrayList<>();
+    private final RoutingTable mRoutes = new RoutingTable();
+    private final boolean[] mVehicleSystems = new boolean[256];
+    private InetSocketAddress mFirstLocalAddress;
+
+    private LinkScheduler.Registration mRegistration;
+    private volatile boolean mRunning;
+    private volatile MavlinkFrameParser.Listener mFrameTap;
+    private volatile MavlinkFrameParser.Listener mVehicleFrameTap;
+    private int mIdleReadTimeoutMillis = DEFAULT_IDLE_READ_TIMEOUT_MILLIS;
+
+    // Written by the pump thread only.
+    private volatile long mSerialBytesIn;
+    private volatile long mSerialBytesOut;
+    private volatile long mFramesIn;
+    private volatile long mFirstFrameNanos;
+    private volatile IOException mLastError;
+
+    public MavlinkRouter(LinkPort linkPort, List<EndpointSpec> specs) {
+        this(linkPort, specs, DEFAULT_QUEUE_CAPACITY, DEFAULT_RING_SIZE);
+    }
+
+    /**
+     * @param queueCapacity Frames each endpoint may fall behind before losing the oldest.
+     * @param ringSize Bytes of frames kept for all endpoints together.
+     */
+    public MavlinkRouter(LinkPort linkPort, List<EndpointSpec> specs, int queueCapacity, int ringSize) {
+        if (queueCapacity > FRAME_INDEX_SIZE) {
+            throw new IllegalArgumentException("queueCapacity: " + queueCapacity);
+        }
+        mLinkPort = linkPort;
+        mSpecs = new ArrayList<>(specs);
+        mQueueCapacity = queueCapacity;
+        mRing = ByteBuffer.allocateDirect(ringSize);
+        mParser = new MavlinkFrameParser(new MavlinkFrameParser.Listener() {
+            @Override
+            public void onFrame(MavlinkFrame frame) {
+                onVehicleFrame(frame);
+            }
+        });
+        mParser.setAcceptUnknownMessages(true);
+    }
+
+    @Override
+    public void setFrameTap(MavlinkFrameParser.Listener frameTap) {
+        mFrameTap = frameTap;
+    }
+
+    @Override
+    public void setVehicleFrameTap(MavlinkFrameParser.Listener vehicleFrameTap) {
+        mVehicleFrameTap = vehicleFrameTap;
+    }
+
+    public void setIdleReadTimeoutMillis(int idleReadTimeoutMillis) {
+        mIdleReadTimeoutMillis = idleReadTimeoutMillis;
+    }
+
+    /**
+     * Open the endpoints and pump on `scheduler`'s threads. Idle reads wait at most
+     * {@link SerialUdpBridge#SHARED_IDLE_READ_TIMEOUT_MILLIS}, as the bridge's do.
+     *
+     * @return The local address of the first UDP endpoint, normally mavsdk_server's.
+     */
+    @Override
+    public synchronized InetSocketAddress start(LinkScheduler scheduler) throws IOException {
+        if (mRunning) {
+            throw new IllegalStateException("Router already started");
+        }
+        try {
+            openEndpoints();
+        } catch (IOException e) {
+            closeEndpoints();
+            throw e;
+        }
+        mIdleReadTimeoutMillis = Math.min(mIdleReadTimeoutMillis, SerialUdpBridge.SHARED_IDLE_READ_TIMEOUT_MILLIS);
+        mRunning = true;
+        mRegistration = scheduler.register(new LinkScheduler.Pump() {
+            @Override
+            public void pumpOnce() throws IOException {
+                MavlinkRouter.this.pumpOnce();
+            }
+
+            @Override
+            public void onPumpError(IOException e) {
+                mLastError = e;
+                mRunning = false;
+            }
+        });
+        return mFirstLocalAddress;
+    }
+
+    private void openEndpoints() throws IOException {
+        for (EndpointSpec spec : mSpecs) {
+            if (spec.isTcpServer()) {
+                ServerSocketChannel server = ServerSocketChannel.open();
+                server.setOption(StandardSocketOptions.SO_REUSEADDR, true);
+                server.bind(spec.getAddress());
+                server.configureBlocking(false);
+                mTcpServers.add(server);
+                mTcpServerSpecs.add(spec);
+            } else {
+                DatagramChannel channel = DatagramChannel.open();
+                channel.bind(new InetSocketAddress(0));
+                channel.configureBlocking(false);
+                if (mFirstLocalAddress == null) {
+                    mFirstLocalAddress = (InetSocketAddress) channel.getLocalAddress();
+                }
+                addEndpoint(new UdpEndpoint(spec.getName(), freeIndex(), channel, spec.getAddress()));
+            }
+        }
+    }
+
+    private int freeIndex() {
+        for (int i = 0; i < MAX_ENDPOINTS; i++) {
+            if (mEndpoints[i] == null) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private void addEndpoint(Endpoint endpoint) {
+        mEndpoints[endpoint.mIndex] = endpoint;
+        mEndpointList.add(endpoint);
+    }
+
+    private void removeEndpoint(Endpoint endpoint) {
+        endpoint.close();
+        mEndpoints[endpoint.mIndex] = null;
+        mEndpointList.remove(endpoint);
+        mRoutes.forget(1L << endpoint.mIndex);
+    }
+
+    /**
+     * @return The local address of the `index`th TCP server, e.g. to find an ephemeral port.
+     */
+    public synchronized InetSocketAddress getTcpServerAddress(int index) throws IOException {
+        return (InetSocketAddress) mTcpServers.get(index).getLocalAddress();
+    }
+
+    @Override
+    public void stop() {
+        LinkScheduler.Registration registration;
+        synchronized (this) {
+            mRunning = false;
+            registration = mRegistration;
+            mRegistration = null;
+        }
+        if (registration != null) {
+            registration.cancel();
+        }
+        synchronized (this) {
+            closeEndpoints();
+        }
+    }
+
+    private void closeEndpoints() {
+        for (Endpoint endpoint : mEndpointList) {
+            endpoint.close();
+        }
+        for (ServerSocketChannel server : mTcpServers) {
+            try {
+                server.close();
+            } catch (IOException ignored) {
+            }
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return mRunning;
+    }
+
+    void pumpOnce() throws IOException {
+        int n = mLinkPort.read(mReadBuffer, mIdleReadTimeoutMillis);
+        if (n > 0) {
+            mSerialBytesIn += n;
+            mParser.parse(mReadBuffer, 0, n);
+        }
+
+        acceptClients();
+        for (Endpoint endpoint : mEndpoints) {
+            if (endpoint == null) {
+                continue;
+            }
+            boolean open;
+            try {
+                open = endpoint.receive();
+            } catch (IOException e) {
+                open = !(endpoint instanceof TcpClientEndpoint);
+            }
+            if (!open) {
+                removeEndpoint(endpoint);
+            }
+        }
+
+        for (Endpoint endpoint : mEndpoints) {
+            if (endpoint == null) {
+                continue;
+            }
+            try {
+                endpoint.flush();
+            } catch (IOException e) {
+                removeEndpoint(endpoint);
+            }
+        }
+    }
+
+    private void acceptClients() throws IOException {
+        for (int i = 0; i < mTcpServers.size(); i++) {
+            SocketChannel client;
+            while ((client = mTcpServers.get(i).accept()) != null) {
+                int index = freeIndex();
+                if (index < 0) {
+                    client.close();
+                    continue;
+                }
+                client.configureBlocking(false);
+                client.setOption(StandardSocketOptions.TCP_NODELAY, true);
+                addEndpoint(new TcpClientEndpoint(
+                        mTcpServerSpecs.get(i).getName() + " " + client.getRemoteAddress(), index, client));
+            }
+        }
+    }
+
+    private void onVehicleFrame(MavlinkFrame frame) {
+        if (mFramesIn++ == 0) {
+            mFirstFrameNanos = System.nanoTime();
+        }
+        mVehicleSystems[frame.getSystemId()] = true;
+        tap(frame);
+        MavlinkFrameParser.Listener vehicleFrameTap = mVehicleFrameTap;
+        if (vehicleFrameTap != null) {
+            vehicleFrameTap.onFrame(frame);
+        }
+        long destinations = endpointsFor(frame, VEHICLE);
+        if (destinations != 0) {
+            enqueue(store(frame), destinations);
+        }
+    }
+
+    private void onEndpointFrame(Endpoint source, MavlinkFrame frame) {
+        mRoutes.learn(frame.getSystemId(), frame.getComponentId(), 1L << source.mIndex);
+        int targetSystem = getTargetSystem(frame);
+        boolean toVehicle = targetSystem <= 0 || mVehicleSystems[targetSystem]
+                || mRoutes.lookup(targetSystem, 0) == 0;
+        if (toVehicle) {
+            tap(frame);
+            frame.copyTo(mWriteBuffer, mWriteLength);
+            mWriteLength += frame.getLength();
+        }
+        long destinations = endpointsFor(frame, source.mIndex);
+        if (destinations != 0) {
+            enqueue(store(frame), destinations);
+        }
+    }
+
+    private void tap(MavlinkFrame frame) {
+        MavlinkFrameParser.Listener frameTap = mFrameTap;
+        if (frameTap != null) {
+            frameTap.onFrame(frame);
+        }
+    }
+
+    // The endpoints a frame goes to: those behind its target, or all for broadcasts and
+    // unknown targets; never its source
+    private long endpointsFor(MavlinkFrame frame, int sourceIndex) {
+        long all = 0;
+        for (Endpoint endpoint : mEndpoints) {
+            if (endpoint != null) {
+                all |= 1L << endpoint.mIndex;
+            }
+        }
+        long destinations = all;
+        int targetSystem = getTargetSystem(frame);
+        if (targetSystem > 0) {
+            int componentOffset = MavlinkMessages.getTargetComponentOffset(frame.getMessageId());
+            int targetComponent = componentOffset < 0 ? 0 : frame.getUint8(componentOffset);
+            long routed = mRoutes.lookup(targetSystem, targetComponent);
+            if (routed != 0) {
+                destinations = routed & all;
+            } else if (sourceIndex != VEHICLE && mVehicleSystems[targetSystem]) {
+                destinations = 0;
+            }
+        }
+        if (sourceIndex != VEHICLE) {
+            destinations &= ~(1L << sourceIndex);
+        }
+        return destinations;
+    }
+
+    private static int getTargetSystem(MavlinkFrame frame) {
+        int offset = MavlinkMessages.getTargetSystemOffset(frame.getMessageId());
+        return offset < 0 ? 0 : frame.getUint8(offset);
+    }
+
+    // Copies the frame into the ring, where it stays until the ring wraps past it
+    private long store(MavlinkFrame frame) {
+        int capacity = mRing.capacity();
+        int length = frame.getLength();
+        long start = mRingEnd;
+        int ringOffset = (int) (start % capacity);
+        if (ringOffset + length > capacity) {
+            start += capacity - ringOffset;
+            ringOffset = 0;
+        }
+        mRing.limit(capacity);
+        mRing.position(ringOffset);
+        frame.copyTo(mRing);
+        long sequence = mNextSequence++;
+        mFrameStart[index(sequence)] = start;
+        mFrameLength[index(sequence)] = length;
+        mRingEnd = start + length;
+        return sequence;
+    }
+
+    private boolean isStored(long sequence) {
+        return sequence >= mNextSequence - FRAME_INDEX_SIZE
+                && mFrameStart[index(sequence)] >= mRingEnd - mRing.capacity();
+    }
+
+    private static int index(long sequence) {
+        return (int) (sequence & (FRAME_INDEX_SIZE - 1));
+    }
+
+    private void enqueue(long sequence, long destinations) {
+        for (Endpoint endpoint : mEndpoints) {
+            if (endpoint != null && (destinations & (1L << endpoint.mIndex)) != 0) {
+                endpoint.enqueue(sequence);
+            }
+        }
+    }
+
+    private void flushToVehicle() throws IOException {
+        if (mWriteLength > 0) {
+            mLinkPort.write(mWriteBuffer, mWriteLength, WRITE_TIMEOUT_MILLIS);
+            mSerialBytesOut += mWriteLength;
+            mWriteLength = 0;
+        }
+    }
+
+    /**
+     * @return The current endpoints, TCP clients included.
+     */
+    public List<Endpoint> getEndpoints() {
+        return Collections.unmodifiableList(new ArrayList<>(mEndpointList));
+    }
+
+    @Override
+    public long getSerialBytesIn() {
+        return mSerialBytesIn;
+    }
+
+    public long getSerialBytesOut() {
+        return mSerialBytesOut;
+    }
+
+    @Override
+    public long getFramesIn() {
+        return mFramesIn;
+    }
+
+    @Override
+    public long getFirstFrameNanos() {
+        return mFirstFrameNanos;
+    }
+
+    @Override
+    public IOException getLastError() {
+        return mLastError;
+    }
+}
@@ -0,0 +1,384 @@
+package com.gen.mavsdkandroidserialtest.link;
+
+import com.gen.mavsdkandroidserialtest.mavlink.MavlinkFrame;
+import com.gen.mavsdkandroidserialtest.mavlink.MavlinkFrameParser;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+
+/**
+ * Pumps a {@link LinkPort} into a loopback UDP socket that mavsdk_server listens on.
+ *
+ * <p>Serial bytes are read in large transfers, split into MAVLink frames and packed into
+ * datagrams, so every datagram holds whole frames. A datagram is sent once it reaches
+ * {@link #setFlushThreshold(int)} bytes or its oldest byte has waited
+ * {@link #setLingerMillis(int)}. Datagrams coming back from the server are written to
+ * the port. Both directions run on one pump thread, either a dedicated one or a worker
+ * of a {@link LinkScheduler} shared with other links.</p>
+ *
+ * <p>An optional frame tap sees every frame in both directions, on the pump thread.</p>
+ */
+public class SerialUdpBridge implements VehicleLink {
+
+    public static final int DEFAULT_READ_BUFFER_SIZE = 16 * 1024;
+    public static final int MAX_DATAGRAM_SIZE = 1400;
+    public static final int DEFAULT_FLUSH_THRESHOLD = 1024;
+    public static final int DEFAULT_LINGER_MILLIS = 5;
+    public static final int DEFAULT_IDLE_READ_TIMEOUT_MILLIS = 10;
+    public static final int SHARED_IDLE_READ_TIMEOUT_MILLIS = 1;
+    private static final int WRITE_TIMEOUT_MILLIS = 100;
+
+    private final LinkPort mLinkPort;
+    private final SocketAddress mServerAddress;
+    private final MavlinkFrameParser mParser;
+    private final MavlinkFrameParser mDownlinkParser;
+
+    private final byte[] mReadBuffer;
+    private final ByteBuffer mUplinkBuffer = ByteBuffer.allocateDirect(MAX_DATAGRAM_SIZE);
+    private final ByteBuffer mDownlinkBuffer = ByteBuffer.allocateDirect(64 * 1024);
+    private final byte[] mWriteBuffer = new byte[64 * 1024];
+
+    private DatagramChannel mChannel;
+    private Thread mPumpThread;
+    private LinkScheduler.Registration mRegistration;
+    private volatile boolean mRunning;
+    private volatile MavlinkFrameParser.Listener mFrameTap;
+    private volatile MavlinkFrameParser.Listener mVehicleFrameTap;
+
+    private int mFlushThreshold = DEFAULT_FLUSH_THRESHOLD;
+    private long mLingerNanos = DEFAULT_LINGER_MILLIS * 1_000_000L;
+    private int mIdleReadTimeoutMillis = DEFAULT_IDLE_READ_TIMEOUT_MILLIS;
+    private long mBatchStartNanos;
+
+    // Written by the pump thread only.
+    private volatile long mSerialBytesIn;
+    private volatile long mSerialBytesOut;
+    private volatile long mUdpBytesOut;
+    private volatile long mUdpBytesIn;
+    private volatile long mFramesIn;
+    private volatile long mFirstFrameNanos;
+    private volatile long mDatagramsOut;
+    private volatile long mDatagramsIn;
+    private volatile long mDatagramsDropped;
+    private volatile long mBatchLatencyTotalNanos;
+    private volatile long mBatchLatencyMaxNanos;
+    private volatile IOException mLastError;
+
+    public SerialUdpBridge(LinkPort linkPort, InetSocketAddress serverAddress) {
+        this(linkPort, serverAddress, DEFAULT_READ_BUFFER_SIZE);
+    }
+
+    public SerialUdpBridge(LinkPort linkPort, InetSocketAddress serverAddress, int readBufferSize) {
+        mLinkPort = linkPort;
+        mServerAddress = serverAddress;
+        mReadBuffer = new byte[readBufferSize];
+        mParser = new MavlinkFrameParser(new MavlinkFrameParser.Listener() {
+            @Override
+            public void onFrame(MavlinkFrame frame) {
+                onUplinkFrame(frame);
+            }
+        });
+        mParser.setAcceptUnknownMessages(true);
+        mDownlinkParser = new MavlinkFrameParser(new MavlinkFrameParser.Listener() {
+            @Override
+            public void onFrame(MavlinkFrame frame) {
+                MavlinkFrameParser.Listener frameTap = mFrameTap;
+                if (frameTap != null) {
+                    frameTap.onFrame(frame);
+                }
+            }
+        });
+        mDownlinkParser.setAcceptUnknownMessages(true);
+    }
+
+    /**
+     * Set a listener that sees every frame passing the bridge in either direction.
+     * It runs on the pump thread and must not block.
+     */
+    @Override
+    public void setFrameTap(MavlinkFrameParser.Listener frameTap) {
+        mFrameTap = frameTap;
+    }
+
+    @Override
+    public void setVehicleFrameTap(MavlinkFrameParser.Listener vehicleFrameTap) {
+        mVehicleFrameTap = vehicleFrameTap;
+    }
+
+    public void setFlushThreshold(int flushThreshold) {
+        mFlushThreshold = Math.min(flushThreshold, MAX_DATAGRAM_SIZE);
+    }
+
+    public void setLingerMillis(int lingerMillis) {
+        mLingerNanos = lingerMillis * 1_000_000L;
+    }
+
+    public void setIdleReadTimeoutMillis(int idleReadTimeoutMillis) {
+        mIdleReadTimeoutMillis = idleReadTimeoutMillis;
+    }
+
+    /**
+     * Open the loopback socket and start pumping on a dedicated thread.
+     *
+     * @return The local address datagrams are sent from.
+     */
+    public synchronized InetSocketAddress start() throws IOException {
+        openChannel();
+        mPumpThread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                while (mRunning) {
+                    try {
+                        pumpOnce();
+                    } catch (IOException e) {
+                        mLastError = e;
+                        mRunning = false;
+                    }
+                }
+            }
+        }, "serial-udp-bridge");
+        mPumpThread.start();
+        return (InetSocketAddress) mChannel.getLocalAddress();
+    }
+
+    /**
+     * Open the loopback socket and pump on `scheduler`'s threads. Idle reads wait at
+     * most {@link #SHARED_IDLE_READ_TIMEOUT_MILLIS} so other links are not held up.
+     *
+     * @return The local address datagrams are sent from.
+     */
+    @Override
+    public synchronized InetSocketAddress start(LinkScheduler scheduler) throws IOException {
+        openChannel();
+        mIdleReadTimeoutMillis = Math.min(mIdleReadTimeoutMillis, SHARED_IDLE_READ_TIMEOUT_MILLIS);
+        mRegistration = scheduler.register(new LinkScheduler.Pump() {
+            @Override
+            public void pumpOnce() throws IOException {
+                SerialUdpBridge.this.pumpOnce();
+            }
+
+            @Override
+            public void onPumpError(IOException e) {
+                mLastError = e;
+                mRunning = false;
+            }
+        });
+        return (InetSocketAddress) mChannel.getLocalAddress();
+    }
+
+    private void openChannel() throws IOException {
+        if (mRunning) {
+            throw new IllegalStateException("Bridge already started");
+        }
+        mChannel = DatagramChannel.open();
+        mChannel.bind(new InetSocketAddress("127.0.0.1", 0));
+        mChannel.configureBlocking(false);
+        mRunning = true;
+    }
+
+    /**
+     * Stop pumping and close the socket. The link port is left open for its owner.
+     */
+    @Override
+    public void stop() {
+        Thread pumpThread;
+        LinkScheduler.Registration registration;
+        synchronized (this) {
+            mRunning = false;
+            pumpThread = mPumpThread;
+            mPumpThread = null;
+            registration = mRegistration;
+            mRegistration = null;
+        }
+        if (registration != null) {
+            registration.cancel();
+        }
+        if (pumpThread != null) {
+            try {
+                pumpThread.join(1000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        if (mChannel != null) {
+            try {
+                mChannel.close();
+            } catch (IOException ignored) {
+            }
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return mRunning;
+    }
+
+    void pumpOnce() throws IOException {
+        int timeoutMillis = mIdleReadTimeoutMillis;
+        if (mUplinkBuffer.position() > 0) {
+            long waited = System.nanoTime() - mBatchStartNanos;
+            timeoutMillis = (int) Math.max(1, (mLingerNanos - waited) / 1_000_000L);
+        }
+
+        int n = mLinkPort.read(mReadBuffer, timeoutMillis);
+        if (n > 0) {
+            if (mUplinkBuffer.position() == 0) {
+                mBatchStartNanos = System.nanoTime();
+            }
+            mSerialBytesIn += n;
+            mParser.parse(mReadBuffer, 0, n);
+        }
+
+        if (mUplinkBuffer.position() > 0
+                && (mUplinkBuffer.position() >= mFlushThreshold
+                || System.nanoTime() - mBatchStartNanos >= mLingerNanos)) {
+            flushUplink();
+        }
+
+        pumpDownlink();
+    }
+
+    private void onUplinkFrame(MavlinkFrame frame) {
+        if (mFramesIn++ == 0) {
+            mFirstFrameNanos = System.nanoTime();
+        }
+        MavlinkFrameParser.Listener frameTap = mFrameTap;
+        if (frameTap != null) {
+            frameTap.onFrame(frame);
+        }
+        MavlinkFrameParser.Listener vehicleFrameTap = mVehicleFrameTap;
+        if (vehicleFrameTap != null) {
+            vehicleFrameTap.onFrame(frame);
+        }
+        if (mUplinkBuffer.remaining() < frame.getLength()) {
+            flushUplink();
+            mBatchStartNanos = System.nanoTime();
+        }
+        frame.copyTo(mUplinkBuffer);
+    }
+
+    private void flushUplink() {
+        mUplinkBuffer.flip();
+        int length = mUplinkBuffer.remaining();
+        try {
+            if (mChannel.send(mUplinkBuffer, mServerAddress) > 0) {
+                mDatagramsOut++;
+                mUdpBytesOut += length;
+            } else {
+                mDatagramsDropped++;
+            }
+        } catch (IOException e) {
+            mDatagramsDropped++;
+        }
+        mUplinkBuffer.clear();
+
+        long latency = System.nanoTime() - mBatchStartNanos;
+        mBatchLatencyTotalNanos += latency;
+        if (latency > mBatchLatencyMaxNanos) {
+            mBatchLatencyMaxNanos = latency;
+        }
+    }
+
+    private void pumpDownlink() throws IOException {
+        while (true) {
+            mDownlinkBuffer.clear();
+            SocketAddress source;
+            try {
+                source = mChannel.receive(mDownlinkBuffer);
+            } catch (IOException e) {
+                if (!mRunning) {
+                    return;
+                }
+                throw e;
+            }
+            if (source == null) {
+                return;
+            }
+            mDownlinkBuffer.flip();
+            int length = mDownlinkBuffer.remaining();
+            mDownlinkBuffer.get(mWriteBuffer, 0, length);
+            mDatagramsIn++;
+            mUdpBytesIn += length;
+
+            mLinkPort.write(mWriteBuffer, length, WRITE_TIMEOUT_MILLIS);
+            mSerialBytesOut += length;
+
+            if (mFrameTap != null) {
+                mDownlinkParser.parse(mWriteBuffer, 0, length);
+            }
+        }
+    }
+
+    @Override
+    public long getSerialBytesIn() {
+        return mSerialBytesIn;
+    }
+
+    public long getSerialBytesOut() {
+        return mSerialBytesOut;
+    }
+
+    public long getUdpBytesOut() {
+        return mUdpBytesOut;
+    }
+
+    public long getUdpBytesIn() {
+        return mUdpBytesIn;
+    }
+
+    /**
+     * @return The number of MAVLink frames read from the port.
+     */
+    @Override
+    public long getFramesIn() {
+        return mFramesIn;
+    }
+
+    /**
+     * @return The {@link System#nanoTime()} at which the first frame arrived, or 0.
+     */
+    @Override
+    public long getFirstFrameNanos() {
+        return mFirstFrameNanos;
+    }
+
+    public long getDatagramsOut() {
+        return mDatagramsOut;
+    }
+
+    public long getDatagramsIn() {
+        return mDatagramsIn;
+    }
+
+    public long getDatagramsDropped() {
+        return mDatagramsDropped;
+    }
+
+    public long getCrcErrorCount() {
+        return mParser.getCrcErrorCount();
+    }
+
+    /**
+     * @return The mean time the first byte of a datagram waited between the serial read
+     *     and the UDP send.
+     */
+    public long getMeanBatchLatencyNanos() {
+        long datagrams = mDatagramsOut + mDatagramsDropped;
+        return datagrams == 0 ? 0 : mBatchLatencyTotalNanos / datagrams;
+    }
+
+    public long getMaxBatchLatencyNanos() {
+        return mBatchLatencyMaxNanos;
+    }
+
+    /**
+     * @return The error that stopped the pump, or null.
+     */
+    @Override
+    public IOException getLastError() {
+        return mLastError;
+    }
+}
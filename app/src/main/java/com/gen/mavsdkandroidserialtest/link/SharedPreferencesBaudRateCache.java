@@ -0,0 +1,28 @@
+package com.gen.mavsdkandroidserialtest.link;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+
+/**
+ * {@link BaudRateProbe.Cache} kept in the app's shared preferences.
+ */
+public class SharedPreferencesBaudRateCache implements BaudRateProbe.Cache {
+
+    private static final String PREFERENCES_NAME = "baud_rates";
+
+    private final SharedPreferences mPreferences;
+
+    public SharedPreferencesBaudRateCache(Context context) {
+        mPreferences = context.getSharedPreferences(PREFERENCES_NAME, Context.MODE_PRIVATE);
+    }
+
+    @Override
+    public int get(String key) {
+        return mPreferences.getInt(key, BaudRateProbe.NO_BAUD_RATE);
+    }
+
+    @Override
+    public void put(String key, int baudRate) {
+        mPreferences.edit().putInt(key, baudRate).apply();
+    }
+}
@@ -0,0 +1,59 @@
+package com.gen.mavsdkandroidserialtest.link;
+
+import com.gen.mavsdkandroidserialtest.mavlink.MavlinkFrame;
+import com.gen.mavsdkandroidserialtest.mavlink.MavlinkFrameParser;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+
+/**
+ * Sends every frame it receives as one datagram to a UDP endpoint, e.g. mavsdk_server.
+ * Replies are ignored.
+ */
+public class UdpFrameSink implements MavlinkFrameParser.Listener, Closeable {
+
+    private final DatagramChannel mChannel;
+    private final InetSocketAddress mTarget;
+    private final ByteBuffer mBuffer = ByteBuffer.allocateDirect(MavlinkFrame.MAX_FRAME_LENGTH);
+
+    private volatile long mSentFrames;
+    private volatile long mDroppedFrames;
+
+    public UdpFrameSink(InetSocketAddress target) throws IOException {
+        mTarget = target;
+        mChannel = DatagramChannel.open();
+        mChannel.configureBlocking(false);
+    }
+
+    @Override
+    public void onFrame(MavlinkFrame frame) {
+        mBuffer.clear();
+        frame.copyTo(mBuffer);
+        mBuffer.flip();
+        try {
+            if (mChannel.send(mBuffer, mTarget) > 0) {
+                mSentFrames++;
+            } else {
+                mDroppedFrames++;
+            }
+        } catch (IOException e) {
+            mDroppedFrames++;
+        }
+    }
+
+    public long getSentFrames() {
+        return mSentFrames;
+    }
+
+    public long getDroppedFrames() {
+        return mDroppedFrames;
+    }
+
+    @Override
+    public void close() throws IOException {
+        mChannel.close();
+    }
+}
@@ -0,0 +1,94 @@
+package com.gen.mavsdkandroidserialtest.link;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+
+/**
+ * {@link LinkPort} for a vehicle that talks MAVLink over UDP, such as SITL or a
+ * network radio.
+ *
+ * <p>The port listens on a local address and replies to whichever address the vehicle
+ * last sent from, unless a fixed remote address is given.</p>
+ */
+public class UdpLinkPort implements LinkPort {
+
+    private final DatagramChannel mChannel;
+    private final Selector mSelector;
+    private final ByteBuffer mReceiveBuffer = ByteBuffer.allocateDirect(64 * 1024);
+    private SocketAddress mRemoteAddress;
+
+    public UdpLinkPort(InetSocketAddress localAddress) throws IOException {
+        this(localAddress, null);
+    }
+
+    /**
+     * @param remoteAddress Where to send until the vehicle is heard from, or null.
+     */
+    public UdpLinkPort(InetSocketAddress localAddress, InetSocketAddress remoteAddress) throws IOException {
+        mRemoteAddress = remoteAddress;
+        mChannel = DatagramChannel.open();
+        try {
+            mChannel.bind(localAddress);
+            mChannel.configureBlocking(false);
+            mSelector = Selector.open();
+            mChannel.register(mSelector, SelectionKey.OP_READ);
+        } catch (IOException e) {
+            mChannel.close();
+            throw e;
+        }
+    }
+
+    public InetSocketAddress getLocalAddress() throws IOException {
+        return (InetSocketAddress) mChannel.getLocalAddress();
+    }
+
+    @Override
+    public int read(byte[] destination, int timeoutMillis) throws IOException {
+        int length = receive(destination);
+        if (length == 0 && mSelector.select(Math.max(1, timeoutMillis)) > 0) {
+            mSelector.selectedKeys().clear();
+            length = receive(destination);
+        }
+        return length;
+    }
+
+    private int receive(byte[] destination) throws IOException {
+        mReceiveBuffer.clear();
+        mReceiveBuffer.limit(Math.min(destination.length, mReceiveBuffer.capacity()));
+        SocketAddress source = mChannel.receive(mReceiveBuffer);
+        if (source == null) {
+            return 0;
+        }
+        mRemoteAddress = source;
+        mReceiveBuffer.flip();
+        int length = mReceiveBuffer.remaining();
+        mReceiveBuffer.get(destination, 0, length);
+        return length;
+    }
+
+    @Override
+    public void write(byte[] source, int length, int timeoutMillis) throws IOException {
+        SocketAddress remoteAddress = mRemoteAddress;
+        if (remoteAddress != null) {
+            mChannel.send(ByteBuffer.wrap(source, 0, length), remoteAddress);
+        }
+    }
+
+    @Override
+    public void setBaudRate(int baudRate) {
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            mSelector.close();
+        } finally {
+            mChannel.close();
+        }
+    }
+}
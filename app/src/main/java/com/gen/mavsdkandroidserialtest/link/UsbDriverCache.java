@@ -0,0 +1,46 @@
+package com.gen.mavsdkandroidserialtest.link;
+
+import android.hardware.usb.UsbDevice;
+import android.hardware.usb.UsbManager;
+
+import com.hoho.android.usbserial.driver.ProbeTable;
+import com.hoho.android.usbserial.driver.UsbSerialDriver;
+import com.hoho.android.usbserial.driver.UsbSerialProber;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Remembers which usb-serial-for-android driver each vendor/product id needs, so a
+ * replugged device is matched with one table lookup instead of the full default probe.
+ */
+public class UsbDriverCache {
+
+    private final ProbeTable mProbeTable = new ProbeTable();
+    private final UsbSerialProber mCachedProber = new UsbSerialProber(mProbeTable);
+
+    /**
+     * @return The driver for `usbDevice`, or null if it is not a supported serial device.
+     */
+    public synchronized UsbSerialDriver probeDevice(UsbDevice usbDevice) {
+        UsbSerialDriver driver = mCachedProber.probeDevice(usbDevice);
+        if (driver == null) {
+            driver = UsbSerialProber.getDefaultProber().probeDevice(usbDevice);
+            if (driver != null) {
+                mProbeTable.addProduct(usbDevice.getVendorId(), usbDevice.getProductId(), driver.getClass());
+            }
+        }
+        return driver;
+    }
+
+    public List<UsbSerialDriver> findAllDrivers(UsbManager usbManager) {
+        List<UsbSerialDriver> drivers = new ArrayList<>();
+        for (UsbDevice usbDevice : usbManager.getDeviceList().values()) {
+            UsbSerialDriver driver = probeDevice(usbDevice);
+            if (driver != null) {
+                drivers.add(driver);
+            }
+        }
+        return drivers;
+    }
+}
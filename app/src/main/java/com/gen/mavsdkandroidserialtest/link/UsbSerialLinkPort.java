@@ -0,0 +1,56 @@
+package com.gen.mavsdkandroidserialtest.link;
+
+import android.hardware.usb.UsbDeviceConnection;
+
+import com.hoho.android.usbserial.driver.UsbSerialPort;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * {@link LinkPort} backed by an opened usb-serial-for-android port.
+ */
+public class UsbSerialLinkPort implements LinkPort {
+
+    private final UsbSerialPort mUsbSerialPort;
+    private final UsbDeviceConnection mConnection;
+    private int mBaudRate;
+
+    public UsbSerialLinkPort(UsbSerialPort usbSerialPort, UsbDeviceConnection connection) {
+        mUsbSerialPort = usbSerialPort;
+        mConnection = connection;
+    }
+
+    @Override
+    public int read(byte[] destination, int timeoutMillis) throws IOException {
+        return mUsbSerialPort.read(destination, Math.max(1, timeoutMillis));
+    }
+
+    @Override
+    public void write(byte[] source, int length, int timeoutMillis) throws IOException {
+        mUsbSerialPort.write(length == source.length ? source : Arrays.copyOf(source, length), timeoutMillis);
+    }
+
+    @Override
+    public void setBaudRate(int baudRate) throws IOException {
+        mUsbSerialPort.setParameters(
+                baudRate,
+                UsbSerialPort.DATABITS_8,
+                UsbSerialPort.STOPBITS_1,
+                UsbSerialPort.PARITY_NONE);
+        mBaudRate = baudRate;
+    }
+
+    public int getBaudRate() {
+        return mBaudRate;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            mUsbSerialPort.close();
+        } finally {
+            mConnection.close();
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.gen.mavsdkandroidserialtest.link;
+
+import com.gen.mavsdkandroidserialtest.mavlink.MavlinkFrameParser;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+
+/**
+ * What pumps a vehicle's {@link LinkPort} to its server: a {@link SerialUdpBridge}, or a
+ * {@link MavlinkRouter} that also serves other ground stations.
+ */
+public interface VehicleLink {
+
+    /**
+     * Start pumping on `scheduler`'s threads.
+     *
+     * @return The local address datagrams to the vehicle's server are sent from.
+     */
+    InetSocketAddress start(LinkScheduler scheduler) throws IOException;
+
+    /**
+     * Stop pumping and close the sockets. The link port is left open for its owner.
+     */
+    void stop();
+
+    boolean isRunning();
+
+    /**
+     * Set a listener that sees every frame to and from the vehicle, on the pump thread.
+     */
+    void setFrameTap(MavlinkFrameParser.Listener frameTap);
+
+    /**
+     * Set a listener that sees only the frames read from the vehicle's port, on the pump
+     * thread.
+     */
+    void setVehicleFrameTap(MavlinkFrameParser.Listener vehicleFrameTap);
+
+    long getSerialBytesIn();
+
+    /**
+     * @return The number of MAVLink frames read from the port.
+     */
+    long getFramesIn();
+
+    /**
+     * @return The {@link System#nanoTime()} at which the first frame arrived, or 0.
+     */
+    long getFirstFrameNanos();
+
+    /**
+     * @return The error that stopped the pump, or null.
+     */
+    IOException getLastError();
+}
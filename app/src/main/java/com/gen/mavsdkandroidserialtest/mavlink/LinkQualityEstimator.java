@@ -0,0 +1,289 @@
+package com.gen.mavsdkandroidserialtest.mavlink;
+
+import com.gen.mavsdkandroidserialtest.models.LinkQuality;
+
+/**
+ * Measures a link from the frames read off it: loss, duplicates and reordering from
+ * each sender's sequence numbers, heartbeat jitter, silences, and the radio's own
+ * RADIO_STATUS figures.
+ *
+ * <p>Every (system, component) pair numbers its frames on its own, so each is tracked
+ * separately. A sequence number up to half the 8-bit range ahead of the last one counts
+ * the frames skipped as lost; one behind it arrived late and is taken back off the
+ * losses. A link silent for longer than 128 frames can therefore under-count loss.</p>
+ *
+ * <p>Counts go into a ring of time buckets that together make up the window. Each frame
+ * costs O(1) and allocates nothing. Once per bucket, and on every RADIO_STATUS, the
+ * figures are published for {@link #read} behind a sequence counter, as
+ * {@link com.gen.mavsdkandroidserialtest.models.TelemetrySnapshot} does. Frames must
+ * come from one thread; reads may come from any.</p>
+ */
+public class LinkQualityEstimator implements MavlinkFrameParser.Listener {
+
+    public static final long DEFAULT_WINDOW_MILLIS = 10_000;
+    public static final int DEFAULT_BUCKET_COUNT = 10;
+    public static final int MAX_STREAMS = 64;
+
+    private static final int TABLE_SIZE = 2 * MAX_STREAMS;
+    private static final int SEQUENCE_HALF_RANGE = 128;
+    // RFC 3550's jitter gain
+    private static final double JITTER_GAIN = 1.0 / 16;
+    // RADIO_STATUS and RADIO share a layout
+    private static final int RADIO_RX_ERRORS_OFFSET = 0;
+    private static final int RADIO_FIXED_OFFSET = 2;
+    private static final int RADIO_RSSI_OFFSET = 4;
+    private static final int RADIO_REMOTE_RSSI_OFFSET = 5;
+    private static final int RADIO_TX_BUFFER_OFFSET = 6;
+    private static final int RADIO_NOISE_OFFSET = 7;
+    private static final int RADIO_REMOTE_NOISE_OFFSET = 8;
+
+    // Per (system, component), open-addressed by key + 1
+    private final int[] mKeys = new int[TABLE_SIZE];
+    private final int[] mLastSequence = new int[TABLE_SIZE];
+    private final long[] mLastHeartbeatNanos = new long[TABLE_SIZE];
+    private final long[] mLastHeartbeatIntervalNanos = new long[TABLE_SIZE];
+    private final double[] mHeartbeatJitterNanos = new double[TABLE_SIZE];
+    private volatile int mStreamCount;
+    private volatile long mUntrackedFrames;
+
+    private final long mBucketNanos;
+    private final long[] mReceived;
+    private final long[] mLost;
+    private final long[] mDuplicates;
+    private final long[] mReordered;
+    private final long[] mMaxGapNanos;
+    private long mCurrentBucket;
+    private boolean mStarted;
+    private long mLastFrameNanos;
+
+    private int mRssi = -1;
+    private int mRemoteRssi = -1;
+    private int mNoise = -1;
+    private int mRemoteNoise = -1;
+    private int mTxBufferPercent = -1;
+    private int mRxErrors = -1;
+    private int mFixedErrors = -1;
+    private long mLastRadioStatusNanos;
+
+    // Published figures, consistent whenever the sequence is even
+    private volatile int mSequence;
+    private volatile long mPublishedReceived;
+    private volatile long mPublishedLost;
+    private volatile long mPublishedDuplicates;
+    private volatile long mPublishedReordered;
+    private volatile float mPublishedJitterMillis;
+    private volatile float mPublishedMaxGapMillis;
+    private volatile long mPublishedLastFrameNanos;
+    private volatile int mPublishedRssi = -1;
+    private volatile int mPublishedRemoteRssi = -1;
+    private volatile int mPublishedNoise = -1;
+    private volatile int mPublishedRemoteNoise = -1;
+    private volatile int mPublishedTxBufferPercent = -1;
+    private volatile int mPublishedRxErrors = -1;
+    private volatile int mPublishedFixedErrors = -1;
+    private volatile long mPublishedLastRadioStatusNanos;
+
+    public LinkQualityEstimator() {
+        this(DEFAULT_WINDOW_MILLIS, DEFAULT_BUCKET_COUNT);
+    }
+
+    /**
+     * @param windowMillis How far back the published counts reach.
+     * @param bucketCount How many steps the window moves in; it is published once per step.
+     */
+    public LinkQualityEstimator(long windowMillis, int bucketCount) {
+        if (bucketCount <= 0 || windowMillis < bucketCount) {
+            throw new IllegalArgumentException("windowMillis: " + windowMillis + ", bucketCount: " + bucketCount);
+        }
+        mBucketNanos = windowMillis * 1_000_000L / bucketCount;
+        mReceived = new long[bucketCount];
+        mLost = new long[bucketCount];
+        mDuplicates = new long[bucketCount];
+        mReordered = new long[bucketCount];
+        mMaxGapNanos = new long[bucketCount];
+    }
+
+    @Override
+    public void onFrame(MavlinkFrame frame) {
+        onFrame(frame, System.nanoTime());
+    }
+
+    public void onFrame(MavlinkFrame frame, long nanos) {
+        long bucket = Math.floorDiv(nanos, mBucketNanos);
+        int index = (int) Math.floorMod(bucket, (long) mReceived.length);
+        if (!mStarted) {
+            mStarted = true;
+            mCurrentBucket = bucket;
+        } else {
+            if (bucket != mCurrentBucket) {
+                advance(bucket);
+                publish();
+            }
+            mMaxGapNanos[index] = Math.max(mMaxGapNanos[index], nanos - mLastFrameNanos);
+        }
+        mLastFrameNanos = nanos;
+
+        int slot = slot(frame.getSystemId() << 8 | frame.getComponentId());
+        if (slot < 0) {
+            mUntrackedFrames++;
+            mReceived[index]++;
+        } else {
+            countSequence(slot, frame.getSequence(), index);
+            if (frame.getMessageId() == MavlinkMessages.HEARTBEAT) {
+                measureHeartbeat(slot, nanos);
+            }
+        }
+
+        int messageId = frame.getMessageId();
+        if (messageId == MavlinkMessages.RADIO_STATUS || messageId == MavlinkMessages.RADIO) {
+            mRxErrors = frame.getUint16(RADIO_RX_ERRORS_OFFSET);
+            mFixedErrors = frame.getUint16(RADIO_FIXED_OFFSET);
+            mRssi = frame.getUint8(RADIO_RSSI_OFFSET);
+            mRemoteRssi = frame.getUint8(RADIO_REMOTE_RSSI_OFFSET);
+            mTxBufferPercent = frame.getUint8(RADIO_TX_BUFFER_OFFSET);
+            mNoise = frame.getUint8(RADIO_NOISE_OFFSET);
+            mRemoteNoise = frame.getUint8(RADIO_REMOTE_NOISE_OFFSET);
+            mLastRadioStatusNanos = nanos;
+            publish();
+        }
+    }
+
+    // The stream's slot, claimed on first sight; -1 once the table is full
+    private int slot(int key) {
+        int stored = key + 1;
+        int slot = (key * 0x9E3779B1 >>> 16) & (TABLE_SIZE - 1);
+        while (mKeys[slot] != 0) {
+            if (mKeys[slot] == stored) {
+                return slot;
+            }
+            slot = (slot + 1) & (TABLE_SIZE - 1);
+        }
+        if (mStreamCount == MAX_STREAMS) {
+            return -1;
+        }
+        mStreamCount++;
+        mKeys[slot] = stored;
+        mLastSequence[slot] = -1;
+        mLastHeartbeatNanos[slot] = Long.MIN_VALUE;
+        return slot;
+    }
+
+    private void countSequence(int slot, int sequence, int index) {
+        int last = mLastSequence[slot];
+        if (last < 0) {
+            mLastSequence[slot] = sequence;
+            mReceived[index]++;
+            return;
+        }
+        int skipped = (sequence - last - 1) & 0xFF;
+        if (skipped == 0xFF) {
+            mDuplicates[index]++;
+            return;
+        }
+        mReceived[index]++;
+        if (skipped >= SEQUENCE_HALF_RANGE) {
+            // Counted lost when a later frame overtook it
+            mReordered[index]++;
+            mLost[index]--;
+            return;
+        }
+        mLost[index] += skipped;
+        mLastSequence[slot] = sequence;
+    }
+
+    private void measureHeartbeat(int slot, long nanos) {
+        long last = mLastHeartbeatNanos[slot];
+        mLastHeartbeatNanos[slot] = nanos;
+        if (last == Long.MIN_VALUE) {
+            return;
+        }
+        long interval = nanos - last;
+        long lastInterval = mLastHeartbeatIntervalNanos[slot];
+        mLastHeartbeatIntervalNanos[slot] = interval;
+        if (lastInterval != 0) {
+            double deviation = Math.abs(interval - lastInterval);
+            mHeartbeatJitterNanos[slot] += (deviation - mHeartbeatJitterNanos[slot]) * JITTER_GAIN;
+        }
+    }
+
+    // Empties the buckets the window has moved past
+    private void advance(long bucket) {
+        long steps = Math.min(bucket - mCurrentBucket, mReceived.length);
+        for (long i = 1; i <= steps; i++) {
+            int index = (int) Math.floorMod(mCurrentBucket + i, (long) mReceived.length);
+            mReceived[index] = 0;
+            mLost[index] = 0;
+            mDuplicates[index] = 0;
+            mReordered[index] = 0;
+            mMaxGapNanos[index] = 0;
+        }
+        mCurrentBucket = bucket;
+    }
+
+    private void publish() {
+        long received = 0;
+        long lost = 0;
+        long duplicates = 0;
+        long reordered = 0;
+        long maxGapNanos = 0;
+        for (int i = 0; i < mReceived.length; i++) {
+            received += mReceived[i];
+            lost += mLost[i];
+            duplicates += mDuplicates[i];
+            reordered += mReordered[i];
+            maxGapNanos = Math.max(maxGapNanos, mMaxGapNanos[i]);
+        }
+        double jitterNanos = 0;
+        for (int slot = 0; slot < TABLE_SIZE; slot++) {
+            jitterNanos = Math.max(jitterNanos, mHeartbeatJitterNanos[slot]);
+        }
+
+        int s = mSequence;
+        mSequence = s + 1;
+        mPublishedReceived = received;
+        // Late frames of an earlier window can take it below zero
+        mPublishedLost = Math.max(0, lost);
+        mPublishedDuplicates = duplicates;
+        mPublishedReordered = reordered;
+        mPublishedJitterMillis = (float) (jitterNanos / 1e6);
+        mPublishedMaxGapMillis = maxGapNanos / 1e6f;
+        mPublishedLastFrameNanos = mLastFrameNanos;
+        mPublishedRssi = mRssi;
+        mPublishedRemoteRssi = mRemoteRssi;
+        mPublishedNoise = mNoise;
+        mPublishedRemoteNoise = mRemoteNoise;
+        mPublishedTxBufferPercent = mTxBufferPercent;
+        mPublishedRxErrors = mRxErrors;
+        mPublishedFixedErrors = mFixedErrors;
+        mPublishedLastRadioStatusNanos = mLastRadioStatusNanos;
+        mSequence = s + 2;
+    }
+
+    /**
+     * Copy the figures published last into `out`.
+     */
+    public void read(LinkQuality out) {
+        int s;
+        do {
+            while (((s = mSequence) & 1) != 0) {
+                Thread.yield();
+            }
+            out.setCounts(mPublishedReceived, mPublishedLost, mPublishedDuplicates, mPublishedReordered);
+            out.setTiming(mPublishedJitterMillis, mPublishedMaxGapMillis, mPublishedLastFrameNanos);
+            out.setRadio(mPublishedRssi, mPublishedRemoteRssi, mPublishedNoise, mPublishedRemoteNoise,
+                    mPublishedTxBufferPercent, mPublishedRxErrors, mPublishedFixedErrors, mPublishedLastRadioStatusNanos);
+        } while (s != mSequence);
+    }
+
+    /**
+     * @return The (system, component) pairs seen, up to {@link #MAX_STREAMS}; frames from
+     *     any more are counted as received but not checked for loss.
+     */
+    public int getStreamCount() {
+        return mStreamCount;
+    }
+
+    public long getUntrackedFrames() {
+        return mUntrackedFrames;
+    }
+}
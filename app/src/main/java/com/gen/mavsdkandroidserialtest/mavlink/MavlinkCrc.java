@@ -0,0 +1,33 @@
+package com.gen.mavsdkandroidserialtest.mavlink;
+
+/**
+ * CRC-16/MCRF4XX (X.25) checksum used by MAVLink frames.
+ */
+public class MavlinkCrc {
+
+    public static final int INITIAL_VALUE = 0xFFFF;
+
+    private MavlinkCrc() {
+    }
+
+    public static int accumulate(int b, int crc) {
+        int tmp = (b & 0xFF) ^ (crc & 0xFF);
+        tmp ^= (tmp << 4) & 0xFF;
+        return ((crc >> 8) & 0xFF) ^ (tmp << 8) ^ (tmp << 3) ^ ((tmp >> 4) & 0xF);
+    }
+
+    public static int accumulate(byte[] data, int offset, int length, int crc) {
+        for (int i = offset, end = offset + length; i < end; i++) {
+            crc = accumulate(data[i], crc) & 0xFFFF;
+        }
+        return crc;
+    }
+
+    /**
+     * @return The checksum of the frame bytes after the start marker, seeded with the
+     *     message's CRC_EXTRA.
+     */
+    public static int calculate(byte[] data, int offset, int length, int crcExtra) {
+        return accumulate(crcExtra, accumulate(data, offset, length, INITIAL_VALUE)) & 0xFFFF;
+    }
+}
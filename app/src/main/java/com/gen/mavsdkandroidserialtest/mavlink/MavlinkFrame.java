@@ -0,0 +1,158 @@
+package com.gen.mavsdkandroidserialtest.mavlink;
+
+import java.nio.ByteBuffer;
+
+/**
+ * A view of one MAVLink v1 or v2 frame inside a parser's buffer.
+ *
+ * <p>Frames are flyweights: the parser reuses the same instance for every frame and the
+ * bytes it points at are only valid for the duration of the listener callback. Use
+ * {@link #copyTo(ByteBuffer)} or {@link #copyTo(byte[], int)} to keep a frame.</p>
+ *
+ * <p>Payload accessors read little-endian fields at byte offsets into the payload and
+ * return zero for bytes past the received payload length, which is how MAVLink 2
+ * represents truncated trailing zeros.</p>
+ */
+public class MavlinkFrame {
+
+    public static final int STX_V1 = 0xFE;
+    public static final int STX_V2 = 0xFD;
+    public static final int HEADER_LENGTH_V1 = 6;
+    public static final int HEADER_LENGTH_V2 = 10;
+    public static final int CHECKSUM_LENGTH = 2;
+    public static final int SIGNATURE_LENGTH = 13;
+    public static final int MAX_PAYLOAD_LENGTH = 255;
+    public static final int MAX_FRAME_LENGTH = HEADER_LENGTH_V2 + MAX_PAYLOAD_LENGTH + CHECKSUM_LENGTH + SIGNATURE_LENGTH;
+    public static final int INCOMPAT_FLAG_SIGNED = 0x01;
+
+    private byte[] data;
+    private int offset;
+    private int length;
+    private int payloadOffset;
+    private int payloadLength;
+
+    private int version;
+    private int sequence;
+    private int systemId;
+    private int componentId;
+    private int messageId;
+    private boolean signed;
+    private boolean crcValidated;
+
+    void set(byte[] data, int offset, int length, int payloadOffset, int payloadLength,
+             int version, int sequence, int systemId, int componentId, int messageId,
+             boolean signed, boolean crcValidated) {
+        this.data = data;
+        this.offset = offset;
+        this.length = length;
+        this.payloadOffset = payloadOffset;
+        this.payloadLength = payloadLength;
+        this.version = version;
+        this.sequence = sequence;
+        this.systemId = systemId;
+        this.componentId = componentId;
+        this.messageId = messageId;
+        this.signed = signed;
+        this.crcValidated = crcValidated;
+    }
+
+    /**
+     * @return The buffer holding the frame. The frame starts at {@link #getOffset()}.
+     */
+    public byte[] array() {
+        return data;
+    }
+
+    public int getOffset() {
+        return offset;
+    }
+
+    /**
+     * @return The length of the whole frame on the wire, including checksum and signature.
+     */
+    public int getLength() {
+        return length;
+    }
+
+    public int getPayloadOffset() {
+        return payloadOffset;
+    }
+
+    public int getPayloadLength() {
+        return payloadLength;
+    }
+
+    /**
+     * @return 1 for MAVLink v1 frames, 2 for MAVLink v2 frames.
+     */
+    public int getVersion() {
+        return version;
+    }
+
+    public int getSequence() {
+        return sequence;
+    }
+
+    public int getSystemId() {
+        return systemId;
+    }
+
+    public int getComponentId() {
+        return componentId;
+    }
+
+    public int getMessageId() {
+        return messageId;
+    }
+
+    public boolean isSigned() {
+        return signed;
+    }
+
+    /**
+     * @return False if the message id is unknown, so that the checksum could not be checked.
+     */
+    public boolean isCrcValidated() {
+        return crcValidated;
+    }
+
+    public int getUint8(int index) {
+        return index < payloadLength ? data[payloadOffset + index] & 0xFF : 0;
+    }
+
+    public int getInt8(int index) {
+        return (byte) getUint8(index);
+    }
+
+    public int getUint16(int index) {
+        return getUint8(index) | (getUint8(index + 1) << 8);
+    }
+
+    public int getInt16(int index) {
+        return (short) getUint16(index);
+    }
+
+    public int getInt32(int index) {
+        return getUint16(index) | (getUint16(index + 2) << 16);
+    }
+
+    public long getUint32(int index) {
+        return getInt32(index) & 0xFFFFFFFFL;
+    }
+
+    public long getInt64(int index) {
+        return getUint32(index) | ((long) getInt32(index + 4) << 32);
+    }
+
+    public float getFloat(int index) {
+        return Float.intBitsToFloat(getInt32(index));
+    }
+
+    public void copyTo(ByteBuffer destination) {
+        destination.put(data, offset, length);
+    }
+
+    public void copyTo(byte[] destination, int destinationOffset) {
+        System.arraycopy(data, offset, destination, destinationOffset, length);
+    }
+}
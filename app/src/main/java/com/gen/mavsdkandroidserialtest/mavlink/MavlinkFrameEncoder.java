@@ -0,0 +1,84 @@
+package com.gen.mavsdkandroidserialtest.mavlink;
+
+/**
+ * Builds MAVLink v1/v2 frames for one sending system and component.
+ *
+ * <p>The encoder keeps the outgoing sequence number. MAVLink 2 payloads are sent with
+ * trailing zero bytes truncated, as the protocol requires. Signing is not supported.</p>
+ */
+public class MavlinkFrameEncoder {
+
+    private final int mVersion;
+    private final int mSystemId;
+    private final int mComponentId;
+    private int mSequence;
+
+    public MavlinkFrameEncoder(int version, int systemId, int componentId) {
+        if (version != 1 && version != 2) {
+            throw new IllegalArgumentException("Unsupported MAVLink version: " + version);
+        }
+        mVersion = version;
+        mSystemId = systemId;
+        mComponentId = componentId;
+    }
+
+    /**
+     * Encode a frame into `out` at `outOffset`.
+     *
+     * @return The length of the encoded frame.
+     */
+    public int encode(int messageId, byte[] payload, int payloadLength, byte[] out, int outOffset) {
+        int crcExtra = MavlinkMessages.getCrcExtra(messageId);
+        if (crcExtra < 0) {
+            throw new IllegalArgumentException("Unknown message id: " + messageId);
+        }
+        if (payloadLength > MavlinkFrame.MAX_PAYLOAD_LENGTH) {
+            throw new IllegalArgumentException("Payload too long: " + payloadLength);
+        }
+
+        int sequence = mSequence;
+        mSequence = (sequence + 1) & 0xFF;
+
+        int p = outOffset;
+        if (mVersion == 1) {
+            if (messageId > 0xFF) {
+                throw new IllegalArgumentException("Message id does not fit MAVLink v1: " + messageId);
+            }
+            out[p++] = (byte) MavlinkFrame.STX_V1;
+            out[p++] = (byte) payloadLength;
+            out[p++] = (byte) sequence;
+            out[p++] = (byte) mSystemId;
+            out[p++] = (byte) mComponentId;
+            out[p++] = (byte) messageId;
+        } else {
+            while (payloadLength > 1 && payload[payloadLength - 1] == 0) {
+                payloadLength--;
+            }
+            out[p++] = (byte) MavlinkFrame.STX_V2;
+            out[p++] = (byte) payloadLength;
+            out[p++] = 0;
+            out[p++] = 0;
+            out[p++] = (byte) sequence;
+            out[p++] = (byte) mSystemId;
+            out[p++] = (byte) mComponentId;
+            out[p++] = (byte) messageId;
+            out[p++] = (byte) (messageId >> 8);
+            out[p++] = (byte) (messageId >> 16);
+        }
+        System.arraycopy(payload, 0, out, p, payloadLength);
+        p += payloadLength;
+
+        int crc = MavlinkCrc.calculate(out, outOffset + 1, p - outOffset - 1, crcExtra);
+        out[p++] = (byte) crc;
+        out[p++] = (byte) (crc >> 8);
+        return p - outOffset;
+    }
+
+    public int getSystemId() {
+        return mSystemId;
+    }
+
+    public int getComponentId() {
+        return mComponentId;
+    }
+}
@@ -0,0 +1,247 @@
+package com.gen.mavsdkandroidserialtest.mavlink;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Streaming MAVLink v1/v2 frame parser working over a single reusable buffer.
+ *
+ * <p>Bytes are appended to an internal buffer and scanned for start markers. A candidate
+ * frame is accepted once its checksum, seeded with the message's CRC_EXTRA, matches;
+ * otherwise the parser skips one byte and resynchronises on the next start marker.
+ * MAVLink 2 signatures are skipped, not verified. Accepted frames are handed to the
+ * {@link Listener} as a {@link MavlinkFrame} view into the buffer, so parsing does not
+ * allocate.</p>
+ *
+ * <p>A parser is not thread-safe; feed it from a single thread.</p>
+ */
+public class MavlinkFrameParser {
+
+    public static final int DEFAULT_BUFFER_SIZE = 4096;
+
+    public interface Listener {
+        /**
+         * Called for every accepted frame. The frame is only valid during the call.
+         */
+        void onFrame(MavlinkFrame frame);
+    }
+
+    private static final int NEED_MORE_DATA = 0;
+    private static final int INVALID = -1;
+
+    private final ByteBuffer mBuffer;
+    private final byte[] mData;
+    private final MavlinkFrame mFrame = new MavlinkFrame();
+    private final Listener mListener;
+
+    private boolean mAcceptUnknownMessages;
+
+    private long mFrameCount;
+    private long mByteCount;
+    private long mCrcErrorCount;
+    private long mDiscardedByteCount;
+    private long mUnknownMessageCount;
+
+    public MavlinkFrameParser(Listener listener) {
+        this(DEFAULT_BUFFER_SIZE, listener);
+    }
+
+    public MavlinkFrameParser(int bufferSize, Listener listener) {
+        if (bufferSize < MavlinkFrame.MAX_FRAME_LENGTH) {
+            throw new IllegalArgumentException("bufferSize must hold at least one frame: " + bufferSize);
+        }
+        mBuffer = ByteBuffer.allocate(bufferSize);
+        mData = mBuffer.array();
+        mListener = listener;
+    }
+
+    /**
+     * Emit frames whose message id has no known CRC_EXTRA instead of discarding them.
+     * Such frames report {@link MavlinkFrame#isCrcValidated()} as false. Routers and
+     * recorders want them; consumers that decode payloads usually do not.
+     */
+    public void setAcceptUnknownMessages(boolean acceptUnknownMessages) {
+        mAcceptUnknownMessages = acceptUnknownMessages;
+    }
+
+    public void parse(byte[] source, int offset, int length) {
+        mByteCount += length;
+        while (length > 0) {
+            int n = Math.min(length, mBuffer.remaining());
+            mBuffer.put(source, offset, n);
+            offset += n;
+            length -= n;
+            drain();
+        }
+    }
+
+    /**
+     * Parse the remaining bytes of `source`, leaving its position at its limit.
+     */
+    public void parse(ByteBuffer source) {
+        if (source.hasArray()) {
+            parse(source.array(), source.arrayOffset() + source.position(), source.remaining());
+            source.position(source.limit());
+            return;
+        }
+        mByteCount += source.remaining();
+        int limit = source.limit();
+        while (source.hasRemaining()) {
+            source.limit(Math.min(limit, source.position() + mBuffer.remaining()));
+            mBuffer.put(source);
+            source.limit(limit);
+            drain();
+        }
+    }
+
+    /**
+     * Drop any partially received frame, e.g. after the link was reopened.
+     */
+    public void reset() {
+        mDiscardedByteCount += mBuffer.position();
+        mBuffer.clear();
+    }
+
+    private void drain() {
+        int position = 0;
+        int limit = mBuffer.position();
+
+        while (position < limit) {
+            int stx = mData[position] & 0xFF;
+            if (stx != MavlinkFrame.STX_V1 && stx != MavlinkFrame.STX_V2) {
+                position++;
+                mDiscardedByteCount++;
+                continue;
+            }
+
+            int result = stx == MavlinkFrame.STX_V2
+                    ? parseV2(position, limit)
+                    : parseV1(position, limit);
+            if (result == NEED_MORE_DATA) {
+                break;
+            }
+            if (result == INVALID) {
+                position++;
+                mDiscardedByteCount++;
+                continue;
+            }
+            position += result;
+        }
+
+        if (position > 0) {
+            int remaining = limit - position;
+            System.arraycopy(mData, position, mData, 0, remaining);
+            mBuffer.position(remaining);
+        }
+    }
+
+    private int parseV1(int start, int limit) {
+        if (limit - start < MavlinkFrame.HEADER_LENGTH_V1) {
+            return NEED_MORE_DATA;
+        }
+        int payloadLength = mData[start + 1] & 0xFF;
+        int frameLength = MavlinkFrame.HEADER_LENGTH_V1 + payloadLength + MavlinkFrame.CHECKSUM_LENGTH;
+        if (limit - start < frameLength) {
+            return NEED_MORE_DATA;
+        }
+        int messageId = mData[start + 5] & 0xFF;
+        int payloadOffset = start + MavlinkFrame.HEADER_LENGTH_V1;
+
+        int crcState = checkCrc(start, payloadOffset + payloadLength, messageId);
+        if (crcState == INVALID) {
+            return INVALID;
+        }
+
+        mFrame.set(mData, start, frameLength, payloadOffset, payloadLength, 1,
+                mData[start + 2] & 0xFF,
+                mData[start + 3] & 0xFF,
+                mData[start + 4] & 0xFF,
+                messageId,
+                false,
+                crcState == 1);
+        emit();
+        return frameLength;
+    }
+
+    private int parseV2(int start, int limit) {
+        if (limit - start < MavlinkFrame.HEADER_LENGTH_V2) {
+            return NEED_MORE_DATA;
+        }
+        int payloadLength = mData[start + 1] & 0xFF;
+        int incompatFlags = mData[start + 2] & 0xFF;
+        if ((incompatFlags & ~MavlinkFrame.INCOMPAT_FLAG_SIGNED) != 0) {
+            return INVALID;
+        }
+        boolean signed = (incompatFlags & MavlinkFrame.INCOMPAT_FLAG_SIGNED) != 0;
+        int frameLength = MavlinkFrame.HEADER_LENGTH_V2 + payloadLength + MavlinkFrame.CHECKSUM_LENGTH
+                + (signed ? MavlinkFrame.SIGNATURE_LENGTH : 0);
+        if (limit - start < frameLength) {
+            return NEED_MORE_DATA;
+        }
+        int messageId = (mData[start + 7] & 0xFF)
+                | ((mData[start + 8] & 0xFF) << 8)
+                | ((mData[start + 9] & 0xFF) << 16);
+        int payloadOffset = start + MavlinkFrame.HEADER_LENGTH_V2;
+
+        int crcState = checkCrc(start, payloadOffset + payloadLength, messageId);
+        if (crcState == INVALID) {
+            return INVALID;
+        }
+
+        mFrame.set(mData, start, frameLength, payloadOffset, payloadLength, 2,
+                mData[start + 4] & 0xFF,
+                mData[start + 5] & 0xFF,
+                mData[start + 6] & 0xFF,
+                messageId,
+                signed,
+                crcState == 1);
+        emit();
+        return frameLength;
+    }
+
+    /**
+     * @return 1 if the checksum matched, 0 if the message is unknown and accepted
+     *     unchecked, {@link #INVALID} otherwise.
+     */
+    private int checkCrc(int start, int checksumOffset, int messageId) {
+        int crcExtra = MavlinkMessages.getCrcExtra(messageId);
+        if (crcExtra < 0) {
+            mUnknownMessageCount++;
+            return mAcceptUnknownMessages ? 0 : INVALID;
+        }
+        int expected = MavlinkCrc.calculate(mData, start + 1, checksumOffset - start - 1, crcExtra);
+        int actual = (mData[checksumOffset] & 0xFF) | ((mData[checksumOffset + 1] & 0xFF) << 8);
+        if (expected != actual) {
+            mCrcErrorCount++;
+            return INVALID;
+        }
+        return 1;
+    }
+
+    private void emit() {
+        mFrameCount++;
+        mListener.onFrame(mFrame);
+    }
+
+    public long getFrameCount() {
+        return mFrameCount;
+    }
+
+    public long getByteCount() {
+        return mByteCount;
+    }
+
+    public long getCrcErrorCount() {
+        return mCrcErrorCount;
+    }
+
+    /**
+     * @return The number of bytes skipped while resynchronising on a start marker.
+     */
+    public long getDiscardedByteCount() {
+        return mDiscardedByteCount;
+    }
+
+    public long getUnknownMessageCount() {
+        return mUnknownMessageCount;
+    }
+}
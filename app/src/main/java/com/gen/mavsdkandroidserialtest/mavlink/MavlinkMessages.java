@@ -0,0 +1,207 @@
+package com.gen.mavsdkandroidserialtest.mavlink;
+
+import java.util.Arrays;
+
+/**
+ * Message ids, CRC_EXTRA seeds and payload lengths of the MAVLink messages the app
+ * understands. Lengths are those of the v1 payload, without v2 extension fields.
+ * Messages addressed to one system also have the payload offsets of their target
+ * fields.
+ */
+public class MavlinkMessages {
+
+    public static final int HEARTBEAT = 0;
+    public static final int SYS_STATUS = 1;
+    public static final int SYSTEM_TIME = 2;
+    public static final int PING = 4;
+    public static final int SET_MODE = 11;
+    public static final int PARAM_REQUEST_READ = 20;
+    public static final int PARAM_REQUEST_LIST = 21;
+    public static final int PARAM_VALUE = 22;
+    public static final int PARAM_SET = 23;
+    public static final int GPS_RAW_INT = 24;
+    public static final int GPS_STATUS = 25;
+    public static final int SCALED_IMU = 26;
+    public static final int RAW_IMU = 27;
+    public static final int SCALED_PRESSURE = 29;
+    public static final int ATTITUDE = 30;
+    public static final int ATTITUDE_QUATERNION = 31;
+    public static final int LOCAL_POSITION_NED = 32;
+    public static final int GLOBAL_POSITION_INT = 33;
+    public static final int RC_CHANNELS_RAW = 35;
+    public static final int SERVO_OUTPUT_RAW = 36;
+    public static final int MISSION_CURRENT = 42;
+    public static final int MISSION_REQUEST_LIST = 43;
+    public static final int MISSION_COUNT = 44;
+    public static final int MISSION_ACK = 47;
+    public static final int MISSION_REQUEST_INT = 51;
+    public static final int NAV_CONTROLLER_OUTPUT = 62;
+    public static final int RC_CHANNELS = 65;
+    public static final int REQUEST_DATA_STREAM = 66;
+    public static final int MANUAL_CONTROL = 69;
+    public static final int MISSION_ITEM_INT = 73;
+    public static final int VFR_HUD = 74;
+    public static final int COMMAND_INT = 75;
+    public static final int COMMAND_LONG = 76;
+    public static final int COMMAND_ACK = 77;
+    public static final int ATTITUDE_TARGET = 83;
+    public static final int POSITION_TARGET_LOCAL_NED = 85;
+    public static final int POSITION_TARGET_GLOBAL_INT = 87;
+    public static final int HIGHRES_IMU = 105;
+    public static final int RADIO_STATUS = 109;
+    public static final int TIMESYNC = 111;
+    public static final int POWER_STATUS = 125;
+    public static final int ALTITUDE = 141;
+    public static final int BATTERY_STATUS = 147;
+    public static final int AUTOPILOT_VERSION = 148;
+    public static final int RADIO = 166;
+    public static final int ESTIMATOR_STATUS = 230;
+    public static final int VIBRATION = 241;
+    public static final int HOME_POSITION = 242;
+    public static final int EXTENDED_SYS_STATE = 245;
+    public static final int STATUSTEXT = 253;
+    public static final int PROTOCOL_VERSION = 300;
+    public static final int ODOMETRY = 331;
+    public static final int UTM_GLOBAL_POSITION = 340;
+
+    private static final int[][] MESSAGE_INFO = new int[][]{
+            // id, crc extra, payload length
+            {HEARTBEAT, 50, 9},
+            {SYS_STATUS, 124, 31},
+            {SYSTEM_TIME, 137, 12},
+            {PING, 237, 14},
+            {SET_MODE, 89, 6},
+            {PARAM_REQUEST_READ, 214, 20},
+            {PARAM_REQUEST_LIST, 159, 2},
+            {PARAM_VALUE, 220, 25},
+            {PARAM_SET, 168, 23},
+            {GPS_RAW_INT, 24, 30},
+            {GPS_STATUS, 23, 101},
+            {SCALED_IMU, 170, 22},
+            {RAW_IMU, 144, 26},
+            {SCALED_PRESSURE, 115, 14},
+            {ATTITUDE, 39, 28},
+            {ATTITUDE_QUATERNION, 246, 32},
+            {LOCAL_POSITION_NED, 185, 28},
+            {GLOBAL_POSITION_INT, 104, 28},
+            {RC_CHANNELS_RAW, 244, 22},
+            {SERVO_OUTPUT_RAW, 222, 21},
+            {MISSION_CURRENT, 28, 2},
+            {MISSION_REQUEST_LIST, 132, 2},
+            {MISSION_COUNT, 221, 4},
+            {MISSION_ACK, 153, 3},
+            {MISSION_REQUEST_INT, 196, 4},
+            {NAV_CONTROLLER_OUTPUT, 183, 26},
+            {RC_CHANNELS, 118, 42},
+            {REQUEST_DATA_STREAM, 148, 6},
+            {MANUAL_CONTROL, 243, 11},
+            {MISSION_ITEM_INT, 38, 37},
+            {VFR_HUD, 20, 20},
+            {COMMAND_INT, 158, 35},
+            {COMMAND_LONG, 152, 33},
+            {COMMAND_ACK, 143, 3},
+            {ATTITUDE_TARGET, 22, 37},
+            {POSITION_TARGET_LOCAL_NED, 140, 51},
+            {POSITION_TARGET_GLOBAL_INT, 150, 51},
+            {HIGHRES_IMU, 93, 62},
+            {RADIO_STATUS, 185, 9},
+            {TIMESYNC, 34, 16},
+            {POWER_STATUS, 203, 6},
+            {ALTITUDE, 47, 32},
+            {BATTERY_STATUS, 154, 36},
+            {AUTOPILOT_VERSION, 178, 60},
+            {RADIO, 21, 9},
+            {ESTIMATOR_STATUS, 163, 42},
+            {VIBRATION, 90, 32},
+            {HOME_POSITION, 104, 52},
+            {EXTENDED_SYS_STATE, 130, 2},
+            {STATUSTEXT, 83, 51},
+            {PROTOCOL_VERSION, 217, 22},
+            {ODOMETRY, 91, 230},
+            {UTM_GLOBAL_POSITION, 99, 70},
+    };
+
+    private static final int[][] TARGET_INFO = new int[][]{
+            // id, target_system offset, target_component offset or -1
+            {PING, 12, 13},
+            {SET_MODE, 4, -1},
+            {PARAM_REQUEST_READ, 2, 3},
+            {PARAM_REQUEST_LIST, 0, 1},
+            {PARAM_SET, 4, 5},
+            {MISSION_REQUEST_LIST, 0, 1},
+            {MISSION_COUNT, 2, 3},
+            {MISSION_ACK, 0, 1},
+            {MISSION_REQUEST_INT, 2, 3},
+            {REQUEST_DATA_STREAM, 2, 3},
+            {MANUAL_CONTROL, 10, -1},
+            {MISSION_ITEM_INT, 32, 33},
+            {COMMAND_INT, 30, 31},
+            {COMMAND_LONG, 30, 31},
+            // In the v2 extension fields
+            {COMMAND_ACK, 8, 9},
+    };
+
+    private static final int MAX_TABLE_ID = 512;
+    private static final short[] CRC_EXTRA = new short[MAX_TABLE_ID];
+    private static final short[] PAYLOAD_LENGTH = new short[MAX_TABLE_ID];
+    private static final byte[] TARGET_SYSTEM_OFFSET = new byte[MAX_TABLE_ID];
+    private static final byte[] TARGET_COMPONENT_OFFSET = new byte[MAX_TABLE_ID];
+
+    static {
+        Arrays.fill(CRC_EXTRA, (short) -1);
+        for (int[] info : MESSAGE_INFO) {
+            CRC_EXTRA[info[0]] = (short) info[1];
+            PAYLOAD_LENGTH[info[0]] = (short) info[2];
+        }
+        Arrays.fill(TARGET_SYSTEM_OFFSET, (byte) -1);
+        Arrays.fill(TARGET_COMPONENT_OFFSET, (byte) -1);
+        for (int[] info : TARGET_INFO) {
+            TARGET_SYSTEM_OFFSET[info[0]] = (byte) info[1];
+            TARGET_COMPONENT_OFFSET[info[0]] = (byte) info[2];
+        }
+    }
+
+    private MavlinkMessages() {
+    }
+
+    /**
+     * @return The CRC_EXTRA seed of `messageId`, or -1 if the message is unknown.
+     */
+    public static int getCrcExtra(int messageId) {
+        if (messageId < 0 || messageId >= MAX_TABLE_ID) {
+            return -1;
+        }
+        return CRC_EXTRA[messageId];
+    }
+
+    /**
+     * @return The v1 payload length of `messageId`, or 0 if the message is unknown.
+     */
+    public static int getPayloadLength(int messageId) {
+        if (messageId < 0 || messageId >= MAX_TABLE_ID) {
+            return 0;
+        }
+        return PAYLOAD_LENGTH[messageId];
+    }
+
+    /**
+     * @return The payload offset of the target_system field of `messageId`, or -1 if
+     *     the message is not addressed or unknown.
+     */
+    public static int getTargetSystemOffset(int messageId) {
+        if (messageId < 0 || messageId >= MAX_TABLE_ID) {
+            return -1;
+        }
+        return TARGET_SYSTEM_OFFSET[messageId];
+    }
+
+    /**
+     * @return The payload offset of the target_component field of `messageId`, or -1.
+     */
+    public static int getTargetComponentOffset(int messageId) {
+        if (messageId < 0 || messageId >= MAX_TABLE_ID) {
+            return -1;
+        }
+        return TARGET_COMPONENT_OFFSET[messageId];
+    }
+}
@@ -0,0 +1,137 @@
+package com.gen.mavsdkandroidserialtest.mavlink;
+
+import io.mavsdk.telemetry.Telemetry;
+import io.reactivex.Flowable;
+import io.reactivex.processors.FlowableProcessor;
+import io.reactivex.processors.PublishProcessor;
+
+/**
+ * Decodes MAVLink frames into the MAVSDK telemetry types the repository streams,
+ * without going through mavsdk_server.
+ *
+ * <p>Used where frames are available in-process, e.g. tlog replay. The mapping follows
+ * what mavsdk_server does for a PX4 vehicle: GLOBAL_POSITION_INT to
+ * {@link Telemetry.Position}, SYS_STATUS to {@link Telemetry.Battery}, GPS_RAW_INT to
+ * {@link Telemetry.GpsInfo}, LOCAL_POSITION_NED to {@link Telemetry.PositionVelocityNed} and
+ * ATTITUDE to {@link Telemetry.EulerAngle}.</p>
+ */
+public class MavlinkTelemetryDecoder implements MavlinkFrameParser.Listener {
+
+    private static final Telemetry.FixType[] FIX_TYPES = new Telemetry.FixType[]{
+            Telemetry.FixType.NO_GPS,
+            Telemetry.FixType.NO_FIX,
+            Telemetry.FixType.FIX_2D,
+            Telemetry.FixType.FIX_3D,
+            Telemetry.FixType.FIX_DGPS,
+            Telemetry.FixType.RTK_FLOAT,
+            Telemetry.FixType.RTK_FIXED,
+    };
+
+    private final FlowableProcessor<Telemetry.PositionVelocityNed> mPositionVelocityNedProcessor = PublishProcessor.<Telemetry.PositionVelocityNed>create().toSerialized();
+    private final FlowableProcessor<Telemetry.Battery> mBatteryProcessor = PublishProcessor.<Telemetry.Battery>create().toSerialized();
+    private final FlowableProcessor<Telemetry.GpsInfo> mGpsInfoProcessor = PublishProcessor.<Telemetry.GpsInfo>create().toSerialized();
+    private final FlowableProcessor<Telemetry.Position> mPositionProcessor = PublishProcessor.<Telemetry.Position>create().toSerialized();
+    private final FlowableProcessor<Telemetry.EulerAngle> mAttitudeProcessor = PublishProcessor.<Telemetry.EulerAngle>create().toSerialized();
+
+    private final int mSystemId;
+
+    /**
+     * @param systemId Only decode frames from this MAVLink system, or 0 for any.
+     */
+    public MavlinkTelemetryDecoder(int systemId) {
+        mSystemId = systemId;
+    }
+
+    @Override
+    public void onFrame(MavlinkFrame frame) {
+        if (!frame.isCrcValidated() || (mSystemId != 0 && frame.getSystemId() != mSystemId)) {
+            return;
+        }
+        switch (frame.getMessageId()) {
+            case MavlinkMessages.GLOBAL_POSITION_INT:
+                if (mPositionProcessor.hasSubscribers()) {
+                    mPositionProcessor.onNext(decodePosition(frame));
+                }
+                break;
+            case MavlinkMessages.SYS_STATUS:
+                if (mBatteryProcessor.hasSubscribers()) {
+                    mBatteryProcessor.onNext(decodeBattery(frame));
+                }
+                break;
+            case MavlinkMessages.GPS_RAW_INT:
+                if (mGpsInfoProcessor.hasSubscribers()) {
+                    mGpsInfoProcessor.onNext(decodeGpsInfo(frame));
+                }
+                break;
+            case MavlinkMessages.LOCAL_POSITION_NED:
+                if (mPositionVelocityNedProcessor.hasSubscribers()) {
+                    mPositionVelocityNedProcessor.onNext(decodePositionVelocityNed(frame));
+                }
+                break;
+            case MavlinkMessages.ATTITUDE:
+                if (mAttitudeProcessor.hasSubscribers()) {
+                    mAttitudeProcessor.onNext(decodeAttitude(frame));
+                }
+                break;
+            default:
+                break;
+        }
+    }
+
+    public static Telemetry.Position decodePosition(MavlinkFrame frame) {
+        return new Telemetry.Position(
+                frame.getInt32(4) * 1e-7,
+                frame.getInt32(8) * 1e-7,
+                frame.getInt32(12) * 1e-3f,
+                frame.getInt32(16) * 1e-3f);
+    }
+
+    public static Telemetry.Battery decodeBattery(MavlinkFrame frame) {
+        int voltageMillivolts = frame.getUint16(14);
+        int remaining = frame.getInt8(30);
+        return new Telemetry.Battery(
+                voltageMillivolts == 0xFFFF ? Float.NaN : voltageMillivolts * 1e-3f,
+                remaining < 0 ? Float.NaN : remaining * 0.01f);
+    }
+
+    public static Telemetry.GpsInfo decodeGpsInfo(MavlinkFrame frame) {
+        int fixType = frame.getUint8(28);
+        int satellites = frame.getUint8(29);
+        return new Telemetry.GpsInfo(
+                satellites == 0xFF ? 0 : satellites,
+                fixType < FIX_TYPES.length ? FIX_TYPES[fixType] : Telemetry.FixType.RTK_FIXED);
+    }
+
+    public static Telemetry.PositionVelocityNed decodePositionVelocityNed(MavlinkFrame frame) {
+        return new Telemetry.PositionVelocityNed(
+                new Telemetry.PositionNed(frame.getFloat(4), frame.getFloat(8), frame.getFloat(12)),
+                new Telemetry.VelocityNed(frame.getFloat(16), frame.getFloat(20), frame.getFloat(24)));
+    }
+
+    public static Telemetry.EulerAngle decodeAttitude(MavlinkFrame frame) {
+        return new Telemetry.EulerAngle(
+                (float) Math.toDegrees(frame.getFloat(4)),
+                (float) Math.toDegrees(frame.getFloat(8)),
+                (float) Math.toDegrees(frame.getFloat(12)));
+    }
+
+    public Flowable<Telemetry.PositionVelocityNed> getPositionVelocityNed() {
+        return mPositionVelocityNedProcessor.onBackpressureDrop();
+    }
+
+    public Flowable<Telemetry.Battery> getBattery() {
+        return mBatteryProcessor.onBackpressureDrop();
+    }
+
+    public Flowable<Telemetry.GpsInfo> getGpsInfo() {
+        return mGpsInfoProcessor.onBackpressureDrop();
+    }
+
+    public Flowable<Telemetry.Position> getPosition() {
+        return mPositionProcessor.onBackpressureDrop();
+    }
+
+    public Flowable<Telemetry.EulerAngle> getAttitude() {
+        return mAttitudeProcessor.onBackpressureDrop();
+    }
+}
@@ -0,0 +1,111 @@
+package com.gen.mavsdkandroidserialtest.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free histogram of durations in nanoseconds.
+ *
+ * <p>Buckets are log-linear: every power of two is split into {@link #SUB_BUCKETS}
+ * equal buckets, so a reported percentile is at most 1/{@link #SUB_BUCKETS} above the
+ * true value. Values below {@link #SUB_BUCKETS} ns get a bucket each and values from
+ * 2^{@link #MAX_EXPONENT} ns (about 18 minutes) up share the last bucket.</p>
+ *
+ * <p>{@link #record(long)} is a couple of atomic adds and never allocates, so it can sit
+ * on telemetry hot paths. Reads may run concurrently with writers and see a count that
+ * is a few samples ahead of or behind the buckets.</p>
+ */
+public class LatencyHistogram {
+
+    public static final int SUB_BUCKET_BITS = 3;
+    public static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    public static final int MAX_EXPONENT = 40;
+
+    private static final int BUCKET_COUNT = (MAX_EXPONENT - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + 1;
+
+    private final AtomicLongArray mBuckets = new AtomicLongArray(BUCKET_COUNT);
+    private final AtomicLong mCount = new AtomicLong();
+    private final AtomicLong mSumNanos = new AtomicLong();
+    private final AtomicLong mMaxNanos = new AtomicLong();
+
+    static int bucketIndex(long nanos) {
+        if (nanos < SUB_BUCKETS) {
+            return (int) Math.max(0, nanos);
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(nanos);
+        if (exponent >= MAX_EXPONENT) {
+            return BUCKET_COUNT - 1;
+        }
+        int shift = exponent - SUB_BUCKET_BITS;
+        int subBucket = (int) (nanos >>> shift) & (SUB_BUCKETS - 1);
+        return (shift + 1) * SUB_BUCKETS + subBucket;
+    }
+
+    // The largest value that falls into `index`
+    static long bucketUpperBound(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+        if (index == BUCKET_COUNT - 1) {
+            return Long.MAX_VALUE;
+        }
+        int shift = index / SUB_BUCKETS - 1;
+        long subBucket = index % SUB_BUCKETS;
+        return ((SUB_BUCKETS + subBucket + 1) << shift) - 1;
+    }
+
+    public void record(long nanos) {
+        mBuckets.incrementAndGet(bucketIndex(nanos));
+        mCount.incrementAndGet();
+        mSumNanos.addAndGet(nanos);
+        long max = mMaxNanos.get();
+        while (nanos > max && !mMaxNanos.compareAndSet(max, nanos)) {
+            max = mMaxNanos.get();
+        }
+    }
+
+    public long getCount() {
+        return mCount.get();
+    }
+
+    public long getMaxNanos() {
+        return mMaxNanos.get();
+    }
+
+    public long getMeanNanos() {
+        long count = mCount.get();
+        return count == 0 ? 0 : mSumNanos.get() / count;
+    }
+
+    /**
+     * @param percentile Between 0 and 100.
+     * @return An upper bound for the given percentile, or 0 if nothing was recorded.
+     */
+    public long getPercentileNanos(double percentile) {
+        long total = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            total += mBuckets.get(i);
+        }
+        if (total == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(total * percentile / 100));
+        long seen = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            seen += mBuckets.get(i);
+            if (seen >= rank) {
+                return Math.min(bucketUpperBound(i), mMaxNanos.get());
+            }
+        }
+        return mMaxNanos.get();
+    }
+
+    public void reset() {
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            mBuckets.set(i, 0);
+        }
+        mCount.set(0);
+        mSumNanos.set(0);
+        mMaxNanos.set(0);
+    }
+}
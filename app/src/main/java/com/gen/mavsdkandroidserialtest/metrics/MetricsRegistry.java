@@ -0,0 +1,206 @@
+package com.gen.mavsdkandroidserialtest.metrics;
+
+import com.gen.mavsdkandroidserialtest.mavlink.LinkQualityEstimator;
+import com.gen.mavsdkandroidserialtest.models.LinkQuality;
+import com.gen.mavsdkandroidserialtest.telemetry.RatePolicy;
+import com.gen.mavsdkandroidserialtest.telemetry.TelemetryScheduler;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * The {@link StreamMetrics} of every telemetry stream, plus process-wide figures such
+ * as the number of RxJava scheduler threads, the telemetry scheduler's queue and the
+ * quality of the vehicle link.
+ *
+ * <p>Streams are registered once while the pipelines are built. Formatting and dumping
+ * allocate freely and belong on a background thread; recording into the streams does
+ * not.</p>
+ */
+public class MetricsRegistry {
+
+    public static final String TEXT_FILE_NAME = "metrics.txt";
+    public static final String JSON_FILE_NAME = "metrics.jsonl";
+
+    private static final String[] RX_THREAD_PREFIXES = {
+            "RxCachedThreadScheduler", "RxComputationThreadPool", "RxSingleScheduler",
+            "RxNewThreadScheduler", "RxCachedWorkerPoolEvictor", "RxSchedulerPurge"
+    };
+
+    private final List<StreamMetrics> mStreams = new CopyOnWriteArrayList<>();
+    private volatile TelemetryScheduler mTelemetryScheduler;
+    private volatile LinkQualityEstimator mLinkQualityEstimator;
+
+    public StreamMetrics register(String name, RatePolicy ratePolicy) {
+        StreamMetrics streamMetrics = new StreamMetrics(name, ratePolicy);
+        mStreams.add(streamMetrics);
+        return streamMetrics;
+    }
+
+    public void setTelemetryScheduler(TelemetryScheduler telemetryScheduler) {
+        mTelemetryScheduler = telemetryScheduler;
+    }
+
+    public void setLinkQualityEstimator(LinkQualityEstimator linkQualityEstimator) {
+        mLinkQualityEstimator = linkQualityEstimator;
+    }
+
+    public List<StreamMetrics> getStreams() {
+        return new ArrayList<>(mStreams);
+    }
+
+    /**
+     * @return The live threads belonging to RxJava's schedulers.
+     */
+    public static int countRxThreads() {
+        int count = 0;
+        for (Thread thread : Thread.getAllStackTraces().keySet()) {
+            for (String prefix : RX_THREAD_PREFIXES) {
+                if (thread.getName().startsWith(prefix)) {
+                    count++;
+                    break;
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * One line per stream: rate, totals and handoff latency percentiles in milliseconds.
+     */
+    public String toText() {
+        StringBuilder builder = new StringBuilder();
+        builder.append("rx threads: ").append(countRxThreads()).append('\n');
+        TelemetryScheduler telemetryScheduler = mTelemetryScheduler;
+        if (telemetryScheduler != null) {
+            LatencyHistogram queueLatency = telemetryScheduler.getQueueLatency();
+            builder.append(String.format(Locale.US,
+                    "scheduler  threads=%d queue=%d max=%d tasks=%d p50=%.2f p99=%.2f max=%.1f ms%n",
+                    telemetryScheduler.getThreadCount(),
+                    telemetryScheduler.getQueueDepth(),
+                    telemetryScheduler.getMaxQueueDepth(),
+                    telemetryScheduler.getTaskCount(),
+                    queueLatency.getPercentileNanos(50) / 1e6,
+                    queueLatency.getPercentileNanos(99) / 1e6,
+                    queueLatency.getMaxNanos() / 1e6));
+        }
+        LinkQualityEstimator linkQualityEstimator = mLinkQualityEstimator;
+        if (linkQualityEstimator != null) {
+            LinkQuality linkQuality = new LinkQuality();
+            linkQualityEstimator.read(linkQuality);
+            builder.append(String.format(Locale.US,
+                    "link       in=%d lost=%d (%.1f%%) dup=%d reordered=%d jitter=%.1f gap=%.0f ms rssi=%d/%d noise=%d/%d%n",
+                    linkQuality.getReceived(),
+                    linkQuality.getLost(),
+                    linkQuality.getLossPercent(),
+                    linkQuality.getDuplicates(),
+                    linkQuality.getReordered(),
+                    linkQuality.getJitterMillis(),
+                    linkQuality.getMaxGapMillis(),
+                    linkQuality.getRssi(),
+                    linkQuality.getRemoteRssi(),
+                    linkQuality.getNoise(),
+                    linkQuality.getRemoteNoise()));
+        }
+        for (StreamMetrics stream : mStreams) {
+            LatencyHistogram latency = stream.getHandoffLatency();
+            builder.append(String.format(Locale.US,
+                    "%-10s %5.1f Hz in=%d out=%d throttled=%d p50=%.1f p99=%.1f max=%.1f ms%n",
+                    stream.getName(),
+                    stream.getRateHz(),
+                    stream.getArrivalCount(),
+                    stream.getDeliveryCount(),
+                    stream.getThrottledCount(),
+                    latency.getPercentileNanos(50) / 1e6,
+                    latency.getPercentileNanos(99) / 1e6,
+                    latency.getMaxNanos() / 1e6));
+        }
+        return builder.toString();
+    }
+
+    /**
+     * A single-line JSON object; latencies are in microseconds.
+     */
+    public String toJson(long timeMillis) {
+        StringBuilder builder = new StringBuilder();
+        builder.append("{\"timeMillis\":").append(timeMillis)
+                .append(",\"rxThreads\":").append(countRxThreads());
+        TelemetryScheduler telemetryScheduler = mTelemetryScheduler;
+        if (telemetryScheduler != null) {
+            LatencyHistogram queueLatency = telemetryScheduler.getQueueLatency();
+            builder.append(",\"scheduler\":{\"threads\":").append(telemetryScheduler.getThreadCount())
+                    .append(",\"queueDepth\":").append(telemetryScheduler.getQueueDepth())
+                    .append(",\"maxQueueDepth\":").append(telemetryScheduler.getMaxQueueDepth())
+                    .append(",\"tasks\":").append(telemetryScheduler.getTaskCount())
+                    .append(",\"p50Micros\":").append(queueLatency.getPercentileNanos(50) / 1000)
+                    .append(",\"p99Micros\":").append(queueLatency.getPercentileNanos(99) / 1000)
+                    .append(",\"maxMicros\":").append(queueLatency.getMaxNanos() / 1000)
+                    .append('}');
+        }
+        LinkQualityEstimator linkQualityEstimator = mLinkQualityEstimator;
+        if (linkQualityEstimator != null) {
+            LinkQuality linkQuality = new LinkQuality();
+            linkQualityEstimator.read(linkQuality);
+            builder.append(",\"link\":{\"received\":").append(linkQuality.getReceived())
+                    .append(",\"lost\":").append(linkQuality.getLost())
+                    .append(",\"duplicates\":").append(linkQuality.getDuplicates())
+                    .append(",\"reordered\":").append(linkQuality.getReordered())
+                    .append(",\"jitterMillis\":").append(linkQuality.getJitterMillis())
+                    .append(",\"maxGapMillis\":").append(linkQuality.getMaxGapMillis())
+                    .append(",\"rssi\":").append(linkQuality.getRssi())
+                    .append(",\"remoteRssi\":").append(linkQuality.getRemoteRssi())
+                    .append(",\"noise\":").append(linkQuality.getNoise())
+                    .append(",\"remoteNoise\":").append(linkQuality.getRemoteNoise())
+                    .append('}');
+        }
+        builder.append(",\"streams\":[");
+        boolean first = true;
+        for (StreamMetrics stream : mStreams) {
+            LatencyHistogram latency = stream.getHandoffLatency();
+            if (!first) {
+                builder.append(',');
+            }
+            first = false;
+            builder.append("{\"name\":\"").append(stream.getName()).append('"')
+                    .append(",\"rateHz\":").append(String.format(Locale.US, "%.2f", stream.getRateHz()))
+                    .append(",\"arrivals\":").append(stream.getArrivalCount())
+                    .append(",\"deliveries\":").append(stream.getDeliveryCount())
+                    .append(",\"throttled\":").append(stream.getThrottledCount())
+                    .append(",\"latencyCount\":").append(latency.getCount())
+                    .append(",\"p50Micros\":").append(latency.getPercentileNanos(50) / 1000)
+                    .append(",\"p99Micros\":").append(latency.getPercentileNanos(99) / 1000)
+                    .append(",\"maxMicros\":").append(latency.getMaxNanos() / 1000)
+                    .append('}');
+        }
+        return builder.append("]}").toString();
+    }
+
+    /**
+     * Overwrite {@link #TEXT_FILE_NAME} with the current figures and append them as one
+     * line to {@link #JSON_FILE_NAME}, both in `directory`.
+     */
+    public void dump(File directory, long timeMillis) throws IOException {
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Cannot create " + directory);
+        }
+        write(new File(directory, TEXT_FILE_NAME), toText(), false);
+        write(new File(directory, JSON_FILE_NAME), toJson(timeMillis) + "\n", true);
+    }
+
+    private static void write(File file, String text, boolean append) throws IOException {
+        Writer writer = new OutputStreamWriter(new FileOutputStream(file, append), StandardCharsets.UTF_8);
+        try {
+            writer.write(text);
+        } finally {
+            writer.close();
+        }
+    }
+}
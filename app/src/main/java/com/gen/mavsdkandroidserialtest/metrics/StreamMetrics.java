@@ -0,0 +1,113 @@
+package com.gen.mavsdkandroidserialtest.metrics;
+
+import com.gen.mavsdkandroidserialtest.telemetry.RatePolicy;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import io.reactivex.functions.Consumer;
+
+/**
+ * What happens to one telemetry stream between its source and its observers.
+ *
+ * <p>{@link #onArrival()} is called as each sample leaves the source (the gRPC stream or
+ * the decoder), {@link #onDelivered()} as a sample reaches an observer. The handoff
+ * latency is measured from the arrival of the newest sample, which is the one a
+ * conflating {@link RatePolicy} delivers. Both calls are allocation free.</p>
+ */
+public class StreamMetrics {
+
+    private static final long RATE_WINDOW_NANOS = 1_000_000_000L;
+
+    private final String mName;
+    private final RatePolicy mRatePolicy;
+    private final AtomicLong mArrivalCount = new AtomicLong();
+    private final AtomicLong mDeliveryCount = new AtomicLong();
+    private final LatencyHistogram mHandoffLatency = new LatencyHistogram();
+    private volatile long mLastArrivalNanos;
+
+    // One-second window for the message rate; arrivals come from a single source thread
+    private long mWindowStartNanos;
+    private long mWindowCount;
+    private volatile double mRateHz;
+    private volatile long mRateNanos;
+
+    private final Consumer<Object> mArrivalConsumer = new Consumer<Object>() {
+        @Override
+        public void accept(Object sample) {
+            onArrival();
+        }
+    };
+
+    /**
+     * @param ratePolicy The policy thinning this stream, whose drop counts are reported
+     *     alongside; may be null.
+     */
+    public StreamMetrics(String name, RatePolicy ratePolicy) {
+        mName = name;
+        mRatePolicy = ratePolicy;
+    }
+
+    public void onArrival() {
+        long now = System.nanoTime();
+        mLastArrivalNanos = now;
+        mArrivalCount.incrementAndGet();
+
+        mWindowCount++;
+        long elapsedNanos = now - mWindowStartNanos;
+        if (elapsedNanos >= RATE_WINDOW_NANOS) {
+            if (mWindowStartNanos != 0) {
+                mRateHz = mWindowCount * 1e9 / elapsedNanos;
+                mRateNanos = now;
+            }
+            mWindowStartNanos = now;
+            mWindowCount = 0;
+        }
+    }
+
+    public void onDelivered() {
+        long lastArrivalNanos = mLastArrivalNanos;
+        mDeliveryCount.incrementAndGet();
+        if (lastArrivalNanos != 0) {
+            mHandoffLatency.record(System.nanoTime() - lastArrivalNanos);
+        }
+    }
+
+    /**
+     * @return A shared consumer calling {@link #onArrival()}, for use with doOnNext.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> Consumer<T> arrivals() {
+        return (Consumer<T>) mArrivalConsumer;
+    }
+
+    public String getName() {
+        return mName;
+    }
+
+    public long getArrivalCount() {
+        return mArrivalCount.get();
+    }
+
+    /**
+     * @return Arrivals per second over the last full second, or 0 once the stream has
+     *     been quiet for two.
+     */
+    public double getRateHz() {
+        return System.nanoTime() - mRateNanos > 2 * RATE_WINDOW_NANOS ? 0 : mRateHz;
+    }
+
+    public long getDeliveryCount() {
+        return mDeliveryCount.get();
+    }
+
+    /**
+     * @return Samples the rate policy dropped or conflated, or 0 without a policy.
+     */
+    public long getThrottledCount() {
+        return mRatePolicy == null ? 0 : mRatePolicy.getDroppedCount() + mRatePolicy.getConflatedCount();
+    }
+
+    public LatencyHistogram getHandoffLatency() {
+        return mHandoffLatency;
+    }
+}
@@ -0,0 +1,11 @@
+package com.gen.mavsdkandroidserialtest.models;
+
+public enum ConnectionState {
+    /** Links and servers are still being brought up. */
+    INITIALISING,
+    /** Ready, but no vehicle has been heard from yet, or its link dropped. */
+    WAITING_FOR_VEHICLE,
+    CONNECTED,
+    /** Startup threw; see the log. */
+    FAILED
+}
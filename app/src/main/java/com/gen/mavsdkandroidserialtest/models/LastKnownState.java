@@ -0,0 +1,72 @@
+package com.gen.mavsdkandroidserialtest.models;
+
+import io.mavsdk.telemetry.Telemetry;
+
+/**
+ * The latest position, battery, GPS and NED samples of an earlier run, each with the
+ * wall-clock time it was received. A sample is null, and its time 0, if none was seen.
+ * Fields the vehicle did not report are null within their sample.
+ */
+public class LastKnownState {
+
+    public static final LastKnownState EMPTY = new LastKnownState(null, 0, null, 0, null, 0, null, 0);
+
+    private final Telemetry.Position position;
+    private final long positionTimeMillis;
+    private final Telemetry.Battery battery;
+    private final long batteryTimeMillis;
+    private final Telemetry.GpsInfo gpsInfo;
+    private final long gpsInfoTimeMillis;
+    private final Telemetry.PositionVelocityNed positionVelocityNed;
+    private final long positionVelocityNedTimeMillis;
+
+    public LastKnownState(Telemetry.Position position, long positionTimeMillis,
+                          Telemetry.Battery battery, long batteryTimeMillis,
+                          Telemetry.GpsInfo gpsInfo, long gpsInfoTimeMillis,
+                          Telemetry.PositionVelocityNed positionVelocityNed, long positionVelocityNedTimeMillis) {
+        this.position = position;
+        this.positionTimeMillis = positionTimeMillis;
+        this.battery = battery;
+        this.batteryTimeMillis = batteryTimeMillis;
+        this.gpsInfo = gpsInfo;
+        this.gpsInfoTimeMillis = gpsInfoTimeMillis;
+        this.positionVelocityNed = positionVelocityNed;
+        this.positionVelocityNedTimeMillis = positionVelocityNedTimeMillis;
+    }
+
+    public Telemetry.Position getPosition() {
+        return position;
+    }
+
+    public long getPositionTimeMillis() {
+        return positionTimeMillis;
+    }
+
+    public Telemetry.Battery getBattery() {
+        return battery;
+    }
+
+    public long getBatteryTimeMillis() {
+        return batteryTimeMillis;
+    }
+
+    public Telemetry.GpsInfo getGpsInfo() {
+        return gpsInfo;
+    }
+
+    public long getGpsInfoTimeMillis() {
+        return gpsInfoTimeMillis;
+    }
+
+    public Telemetry.PositionVelocityNed getPositionVelocityNed() {
+        return positionVelocityNed;
+    }
+
+    public long getPositionVelocityNedTimeMillis() {
+        return positionVelocityNedTimeMillis;
+    }
+
+    public boolean isEmpty() {
+        return position == null && battery == null && gpsInfo == null && positionVelocityNed == null;
+    }
+}
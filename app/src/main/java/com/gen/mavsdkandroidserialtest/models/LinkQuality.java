@@ -0,0 +1,129 @@
+package com.gen.mavsdkandroidserialtest.models;
+
+/**
+ * How well frames are getting through from the vehicle, over a recent window.
+ *
+ * <p>Filled in place by {@code LinkQualityEstimator.read}; radio figures are -1 until a
+ * RADIO_STATUS has arrived.</p>
+ */
+public class LinkQuality {
+
+    private long received;
+    private long lost;
+    private long duplicates;
+    private long reordered;
+    private float jitterMillis;
+    private float maxGapMillis;
+    private long lastFrameNanos;
+
+    private int rssi = -1;
+    private int remoteRssi = -1;
+    private int noise = -1;
+    private int remoteNoise = -1;
+    private int txBufferPercent = -1;
+    private int rxErrors = -1;
+    private int fixedErrors = -1;
+    private long lastRadioStatusNanos;
+
+    public void setCounts(long received, long lost, long duplicates, long reordered) {
+        this.received = received;
+        this.lost = lost;
+        this.duplicates = duplicates;
+        this.reordered = reordered;
+    }
+
+    public void setTiming(float jitterMillis, float maxGapMillis, long lastFrameNanos) {
+        this.jitterMillis = jitterMillis;
+        this.maxGapMillis = maxGapMillis;
+        this.lastFrameNanos = lastFrameNanos;
+    }
+
+    public void setRadio(int rssi, int remoteRssi, int noise, int remoteNoise,
+                         int txBufferPercent, int rxErrors, int fixedErrors, long lastRadioStatusNanos) {
+        this.rssi = rssi;
+        this.remoteRssi = remoteRssi;
+        this.noise = noise;
+        this.remoteNoise = remoteNoise;
+        this.txBufferPercent = txBufferPercent;
+        this.rxErrors = rxErrors;
+        this.fixedErrors = fixedErrors;
+        this.lastRadioStatusNanos = lastRadioStatusNanos;
+    }
+
+    public long getReceived() {
+        return received;
+    }
+
+    public long getLost() {
+        return lost;
+    }
+
+    /**
+     * @return The share of frames sent that never arrived, from 0 to 100.
+     */
+    public float getLossPercent() {
+        long sent = received + lost;
+        return sent == 0 ? 0 : 100f * lost / sent;
+    }
+
+    public long getDuplicates() {
+        return duplicates;
+    }
+
+    public long getReordered() {
+        return reordered;
+    }
+
+    /**
+     * @return The smoothed variation between consecutive heartbeat intervals.
+     */
+    public float getJitterMillis() {
+        return jitterMillis;
+    }
+
+    /**
+     * @return The longest silence between two frames in the window.
+     */
+    public float getMaxGapMillis() {
+        return maxGapMillis;
+    }
+
+    /**
+     * @return The {@link System#nanoTime()} of the latest frame, or 0.
+     */
+    public long getLastFrameNanos() {
+        return lastFrameNanos;
+    }
+
+    public int getRssi() {
+        return rssi;
+    }
+
+    public int getRemoteRssi() {
+        return remoteRssi;
+    }
+
+    public int getNoise() {
+        return noise;
+    }
+
+    public int getRemoteNoise() {
+        return remoteNoise;
+    }
+
+    public int getTxBufferPercent() {
+        return txBufferPercent;
+    }
+
+    public int getRxErrors() {
+        return rxErrors;
+    }
+
+    public int getFixedErrors() {
+        return fixedErrors;
+    }
+
+    public long getLastRadioStatusNanos() {
+        return lastRadioStatusNanos;
+    }
+}
@@ -5,11 +5,19 @@ public class PositionRelative {
     private float distance;
     private float height;
 
+    public PositionRelative() {
+    }
+
     public PositionRelative(float distance, float height) {
         this.distance = distance;
         this.height = height;
     }
 
+    public void set(float distance, float height) {
+        this.distance = distance;
+        this.height = height;
+    }
+
     public float getDistance() {
         return distance;
     }
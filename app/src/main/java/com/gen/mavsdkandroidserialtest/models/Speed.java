@@ -5,11 +5,19 @@ public class Speed {
     private float hspeed;
     private float vspeed;
 
+    public Speed() {
+    }
+
     public Speed(float hspeed, float vspeed) {
         this.hspeed = hspeed;
         this.vspeed = vspeed;
     }
 
+    public void set(float hspeed, float vspeed) {
+        this.hspeed = hspeed;
+        this.vspeed = vspeed;
+    }
+
     public float getHspeed() {
         return hspeed;
     }
@@ -0,0 +1,76 @@
+package com.gen.mavsdkandroidserialtest.models;
+
+/**
+ * Latest distance, height and speed values, held as primitives and updated in place.
+ *
+ * <p>The snapshot has a single writer (the telemetry thread) and any number of readers.
+ * Writes are guarded by a sequence counter that is odd while a write is in progress, so
+ * readers retry until they observe the four values of the same update. Neither side
+ * allocates.</p>
+ */
+public class TelemetrySnapshot {
+
+    private volatile int sequence;
+
+    private volatile float distance;
+    private volatile float height;
+    private volatile float hspeed;
+    private volatile float vspeed;
+
+    public void write(float distance, float height, float hspeed, float vspeed) {
+        int s = sequence;
+        sequence = s + 1;
+        this.distance = distance;
+        this.height = height;
+        this.hspeed = hspeed;
+        this.vspeed = vspeed;
+        sequence = s + 2;
+    }
+
+    public void writePositionVelocityNed(float northM, float eastM, float downM,
+                                         float northMS, float eastMS, float downMS) {
+        write((float) Math.hypot(northM, eastM),
+                Math.abs(downM),
+                (float) Math.hypot(northMS, eastMS),
+                Math.abs(downMS));
+    }
+
+    public void readPositionRelative(PositionRelative out) {
+        float distance;
+        float height;
+        int s;
+        do {
+            s = awaitStableSequence();
+            distance = this.distance;
+            height = this.height;
+        } while (s != sequence);
+        out.set(distance, height);
+    }
+
+    public void readSpeed(Speed out) {
+        float hspeed;
+        float vspeed;
+        int s;
+        do {
+            s = awaitStableSequence();
+            hspeed = this.hspeed;
+            vspeed = this.vspeed;
+        } while (s != sequence);
+        out.set(hspeed, vspeed);
+    }
+
+    /**
+     * @return The number of completed writes so far.
+     */
+    public int getUpdateCount() {
+        return sequence >>> 1;
+    }
+
+    private int awaitStableSequence() {
+        int s;
+        while (((s = sequence) & 1) != 0) {
+            Thread.yield();
+        }
+        return s;
+    }
+}
@@ -0,0 +1,58 @@
+package com.gen.mavsdkandroidserialtest.recording;
+
+/**
+ * The telemetry streams a {@link TelemetryExportWriter} records, and their columns.
+ *
+ * <p>Every column holds integers: a value is stored as a multiple of its column's scale,
+ * e.g. latitude in 1e-7 degrees as the autopilot sends it. Column 0 is always the sample
+ * time in milliseconds since the Unix epoch.</p>
+ */
+public enum ExportStream {
+    POSITION(new String[]{"latitude_deg", "longitude_deg", "absolute_altitude_m", "relative_altitude_m"},
+            new double[]{1e-7, 1e-7, 1e-3, 1e-3}),
+    BATTERY(new String[]{"voltage_v", "remaining_percent"},
+            new double[]{1e-3, 1e-3}),
+    GPS_INFO(new String[]{"num_satellites", "fix_type"},
+            new double[]{1, 1}),
+    POSITION_VELOCITY_NED(new String[]{"north_m", "east_m", "down_m", "velocity_north_m_s", "velocity_east_m_s", "velocity_down_m_s"},
+            new double[]{1e-3, 1e-3, 1e-3, 1e-3, 1e-3, 1e-3});
+
+    public static final String TIME_COLUMN = "time_ms";
+    public static final int TIME = 0;
+    /**
+     * Stored for NaN and missing values.
+     */
+    public static final long NULL = Long.MIN_VALUE;
+
+    private final String[] mColumnNames;
+    private final double[] mScales;
+
+    ExportStream(String[] valueColumnNames, double[] valueScales) {
+        mColumnNames = new String[valueColumnNames.length + 1];
+        mScales = new double[valueScales.length + 1];
+        mColumnNames[TIME] = TIME_COLUMN;
+        mScales[TIME] = 1;
+        System.arraycopy(valueColumnNames, 0, mColumnNames, 1, valueColumnNames.length);
+        System.arraycopy(valueScales, 0, mScales, 1, valueScales.length);
+    }
+
+    public int getColumnCount() {
+        return mColumnNames.length;
+    }
+
+    public String getColumnName(int column) {
+        return mColumnNames[column];
+    }
+
+    public double getScale(int column) {
+        return mScales[column];
+    }
+
+    public long quantize(int column, double value) {
+        return Double.isNaN(value) ? NULL : Math.round(value / mScales[column]);
+    }
+
+    public double dequantize(int column, long stored) {
+        return stored == NULL ? Double.NaN : stored * mScales[column];
+    }
+}
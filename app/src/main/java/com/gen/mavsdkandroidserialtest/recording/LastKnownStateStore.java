@@ -0,0 +1,218 @@
+package com.gen.mavsdkandroidserialtest.recording;
+
+import com.gen.mavsdkandroidserialtest.models.LastKnownState;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+import io.mavsdk.telemetry.Telemetry;
+
+/**
+ * Keeps the latest position, battery, GPS and NED samples in a small memory-mapped file,
+ * so the next launch can show them before the vehicle connects.
+ *
+ * <p>The telemetry streams only swap volatile references; {@link #flush()}, called on a
+ * timer, copies whatever changed into the mapping. Writes to the mapping are ordinary
+ * memory stores that the kernel writes back, so they outlive a crash of the app, though
+ * not of the device. A sequence number in the header is odd while a flush is under way,
+ * and {@link #read()} discards a file left in that state.</p>
+ *
+ * <p>The file has a fixed layout: a magic number and the sequence, then one section per
+ * sample, each starting with its receive time, 0 until a sample was seen.</p>
+ */
+public class LastKnownStateStore implements Closeable {
+
+    public static final int MAGIC = 0x4C4B5331;
+    public static final int FILE_LENGTH = 104;
+
+    private static final int SEQUENCE_OFFSET = 4;
+    // Time, latitude, longitude, absolute and relative altitude
+    private static final int POSITION_OFFSET = 8;
+    // Time, voltage, remaining
+    private static final int BATTERY_OFFSET = 40;
+    // Time, satellites, fix type; UNKNOWN for a value the sample left null
+    private static final int GPS_INFO_OFFSET = 56;
+    private static final int UNKNOWN = -1;
+    // Time, then north, east, down position and velocity
+    private static final int NED_OFFSET = 72;
+
+    private static final Telemetry.FixType[] FIX_TYPES = Telemetry.FixType.values();
+
+    private final RandomAccessFile mFile;
+    private final MappedByteBuffer mBuffer;
+    private boolean mFormatted;
+    private int mSequence;
+
+    // Written by the telemetry streams; a time may belong to the sample after the one read with it
+    private volatile Telemetry.Position mPosition;
+    private volatile long mPositionTimeMillis;
+    private volatile Telemetry.Battery mBattery;
+    private volatile long mBatteryTimeMillis;
+    private volatile Telemetry.GpsInfo mGpsInfo;
+    private volatile long mGpsInfoTimeMillis;
+    private volatile Telemetry.PositionVelocityNed mPositionVelocityNed;
+    private volatile long mPositionVelocityNedTimeMillis;
+
+    // What the last flush wrote, by identity
+    private Telemetry.Position mFlushedPosition;
+    private Telemetry.Battery mFlushedBattery;
+    private Telemetry.GpsInfo mFlushedGpsInfo;
+    private Telemetry.PositionVelocityNed mFlushedPositionVelocityNed;
+    private long mFlushCount;
+
+    public LastKnownStateStore(File file) throws IOException {
+        mFile = new RandomAccessFile(file, "rw");
+        try {
+            mBuffer = mFile.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, FILE_LENGTH);
+        } catch (IOException e) {
+            mFile.close();
+            throw e;
+        }
+        mBuffer.order(ByteOrder.LITTLE_ENDIAN);
+        mFormatted = mBuffer.getInt(0) == MAGIC;
+        // Rounded down to even, so a flush cut off last time does not invert the parity
+        mSequence = mFormatted ? mBuffer.getInt(SEQUENCE_OFFSET) & ~1 : 0;
+    }
+
+    /**
+     * @return The state the file held when it was opened, or flushed since; empty if the
+     *     file is new, from another format or was cut off mid-flush.
+     */
+    public synchronized LastKnownState read() {
+        if (!mFormatted || (mBuffer.getInt(SEQUENCE_OFFSET) & 1) != 0) {
+            return LastKnownState.EMPTY;
+        }
+        Telemetry.Position position = null;
+        long positionTimeMillis = mBuffer.getLong(POSITION_OFFSET);
+        if (positionTimeMillis != 0) {
+            position = new Telemetry.Position(mBuffer.getDouble(POSITION_OFFSET + 8), mBuffer.getDouble(POSITION_OFFSET + 16),
+                    mBuffer.getFloat(POSITION_OFFSET + 24), mBuffer.getFloat(POSITION_OFFSET + 28));
+        }
+        Telemetry.Battery battery = null;
+        long batteryTimeMillis = mBuffer.getLong(BATTERY_OFFSET);
+        if (batteryTimeMillis != 0) {
+            battery = new Telemetry.Battery(mBuffer.getFloat(BATTERY_OFFSET + 8), mBuffer.getFloat(BATTERY_OFFSET + 12));
+        }
+        Telemetry.GpsInfo gpsInfo = null;
+        long gpsInfoTimeMillis = mBuffer.getLong(GPS_INFO_OFFSET);
+        if (gpsInfoTimeMillis != 0) {
+            int numSatellites = mBuffer.getInt(GPS_INFO_OFFSET + 8);
+            int fixType = mBuffer.getInt(GPS_INFO_OFFSET + 12);
+            Telemetry.FixType readFixType = null;
+            if (fixType != UNKNOWN) {
+                readFixType = fixType >= 0 && fixType < FIX_TYPES.length ? FIX_TYPES[fixType] : Telemetry.FixType.NO_GPS;
+            }
+            gpsInfo = new Telemetry.GpsInfo(numSatellites == UNKNOWN ? null : numSatellites, readFixType);
+        }
+        Telemetry.PositionVelocityNed positionVelocityNed = null;
+        long positionVelocityNedTimeMillis = mBuffer.getLong(NED_OFFSET);
+        if (positionVelocityNedTimeMillis != 0) {
+            positionVelocityNed = new Telemetry.PositionVelocityNed(
+                    new Telemetry.PositionNed(mBuffer.getFloat(NED_OFFSET + 8), mBuffer.getFloat(NED_OFFSET + 12),
+                            mBuffer.getFloat(NED_OFFSET + 16)),
+                    new Telemetry.VelocityNed(mBuffer.getFloat(NED_OFFSET + 20), mBuffer.getFloat(NED_OFFSET + 24),
+                            mBuffer.getFloat(NED_OFFSET + 28)));
+        }
+        return new LastKnownState(position, positionTimeMillis, battery, batteryTimeMillis,
+                gpsInfo, gpsInfoTimeMillis, positionVelocityNed, positionVelocityNedTimeMillis);
+    }
+
+    public void onPosition(long timeMillis, Telemetry.Position position) {
+        mPositionTimeMillis = timeMillis;
+        mPosition = position;
+    }
+
+    public void onBattery(long timeMillis, Telemetry.Battery battery) {
+        mBatteryTimeMillis = timeMillis;
+        mBattery = battery;
+    }
+
+    public void onGpsInfo(long timeMillis, Telemetry.GpsInfo gpsInfo) {
+        mGpsInfoTimeMillis = timeMillis;
+        mGpsInfo = gpsInfo;
+    }
+
+    public void onPositionVelocityNed(long timeMillis, Telemetry.PositionVelocityNed positionVelocityNed) {
+        mPositionVelocityNedTimeMillis = timeMillis;
+        mPositionVelocityNed = positionVelocityNed;
+    }
+
+    /**
+     * Copies the samples received since the last flush into the file.
+     *
+     * @return Whether anything had changed.
+     */
+    public synchronized boolean flush() {
+        Telemetry.Position position = mPosition;
+        Telemetry.Battery battery = mBattery;
+        Telemetry.GpsInfo gpsInfo = mGpsInfo;
+        Telemetry.PositionVelocityNed positionVelocityNed = mPositionVelocityNed;
+        if (position == mFlushedPosition && battery == mFlushedBattery
+                && gpsInfo == mFlushedGpsInfo && positionVelocityNed == mFlushedPositionVelocityNed) {
+            return false;
+        }
+
+        mBuffer.putInt(SEQUENCE_OFFSET, ++mSequence);
+        if (!mFormatted) {
+            for (int i = 0; i < FILE_LENGTH; i++) {
+                if (i < SEQUENCE_OFFSET || i >= SEQUENCE_OFFSET + 4) {
+                    mBuffer.put(i, (byte) 0);
+                }
+            }
+            mBuffer.putInt(0, MAGIC);
+            mFormatted = true;
+        }
+        if (position != mFlushedPosition) {
+            mBuffer.putLong(POSITION_OFFSET, mPositionTimeMillis);
+            mBuffer.putDouble(POSITION_OFFSET + 8, position.getLatitudeDeg());
+            mBuffer.putDouble(POSITION_OFFSET + 16, position.getLongitudeDeg());
+            mBuffer.putFloat(POSITION_OFFSET + 24, position.getAbsoluteAltitudeM());
+            mBuffer.putFloat(POSITION_OFFSET + 28, position.getRelativeAltitudeM());
+            mFlushedPosition = position;
+        }
+        if (battery != mFlushedBattery) {
+            mBuffer.putLong(BATTERY_OFFSET, mBatteryTimeMillis);
+            mBuffer.putFloat(BATTERY_OFFSET + 8, battery.getVoltageV());
+            mBuffer.putFloat(BATTERY_OFFSET + 12, battery.getRemainingPercent());
+            mFlushedBattery = battery;
+        }
+        if (gpsInfo != mFlushedGpsInfo) {
+            mBuffer.putLong(GPS_INFO_OFFSET, mGpsInfoTimeMillis);
+            Integer numSatellites = gpsInfo.getNumSatellites();
+            Telemetry.FixType fixType = gpsInfo.getFixType();
+            mBuffer.putInt(GPS_INFO_OFFSET + 8, numSatellites == null ? UNKNOWN : numSatellites);
+            mBuffer.putInt(GPS_INFO_OFFSET + 12, fixType == null ? UNKNOWN : fixType.ordinal());
+            mFlushedGpsInfo = gpsInfo;
+        }
+        if (positionVelocityNed != mFlushedPositionVelocityNed) {
+            Telemetry.PositionNed ned = positionVelocityNed.getPosition();
+            Telemetry.VelocityNed velocity = positionVelocityNed.getVelocity();
+            mBuffer.putLong(NED_OFFSET, mPositionVelocityNedTimeMillis);
+            mBuffer.putFloat(NED_OFFSET + 8, ned.getNorthM());
+            mBuffer.putFloat(NED_OFFSET + 12, ned.getEastM());
+            mBuffer.putFloat(NED_OFFSET + 16, ned.getDownM());
+            mBuffer.putFloat(NED_OFFSET + 20, velocity.getNorthMS());
+            mBuffer.putFloat(NED_OFFSET + 24, velocity.getEastMS());
+            mBuffer.putFloat(NED_OFFSET + 28, velocity.getDownMS());
+            mFlushedPositionVelocityNed = positionVelocityNed;
+        }
+        mBuffer.putInt(SEQUENCE_OFFSET, ++mSequence);
+        mFlushCount++;
+        return true;
+    }
+
+    public synchronized long getFlushCount() {
+        return mFlushCount;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        flush();
+        mFile.close();
+    }
+}
@@ -0,0 +1,274 @@
+package com.gen.mavsdkandroidserialtest.recording;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * Reads a file written by {@link TelemetryExportWriter} one block at a time.
+ *
+ * <p>Each {@link #next()} decodes a whole block of one stream into reused column
+ * arrays, so reading takes the same memory for any file size. A block cut short or
+ * failing its CRC ends the file, as a crash mid-write leaves it; {@link #isTruncated()}
+ * then reports it.</p>
+ */
+public class TelemetryExportReader implements Closeable {
+
+    // Far beyond any block a writer makes; guards against a corrupt row count
+    private static final int MAX_BLOCK_ROWS = 1 << 20;
+
+    private final InputStream mInput;
+    private final long mCreatedMillis;
+    private final Inflater mInflater = new Inflater(true);
+    private final CRC32 mCrc = new CRC32();
+    private byte[] mStored = new byte[0];
+    private byte[] mRaw = new byte[0];
+    private long[][] mColumns = new long[0][];
+    private int mDecodeOffset;
+
+    private ExportStream mStream;
+    private int mRowCount;
+    private boolean mTruncated;
+    private boolean mEnded;
+
+    public TelemetryExportReader(File file) throws IOException {
+        this(new BufferedInputStream(new FileInputStream(file)));
+    }
+
+    public TelemetryExportReader(InputStream input) throws IOException {
+        mInput = input;
+        byte[] header = new byte[TelemetryExportWriter.HEADER_LENGTH];
+        try {
+            readFully(header, header.length);
+        } catch (EOFException e) {
+            input.close();
+            throw new IOException("Not a telemetry export: too short");
+        }
+        if (getInt(header, 0) != TelemetryExportWriter.MAGIC || header[4] != TelemetryExportWriter.VERSION) {
+            input.close();
+            throw new IOException("Not a telemetry export, or an unknown version");
+        }
+        long createdMillis = 0;
+        for (int i = 0; i < 8; i++) {
+            createdMillis = createdMillis << 8 | (header[5 + i] & 0xFF);
+        }
+        mCreatedMillis = createdMillis;
+    }
+
+    /**
+     * Decode the next block.
+     *
+     * @return False at the end of the file, or at a block that was cut short.
+     */
+    public boolean next() throws IOException {
+        if (mEnded) {
+            return false;
+        }
+        try {
+            int streamOrdinal = mInput.read();
+            if (streamOrdinal < 0) {
+                return end(false);
+            }
+            int flags = readByte();
+            long rows = readVarint();
+            long rawLength = readVarint();
+            long storedLength = readVarint();
+            int crc = readInt();
+            if (streamOrdinal >= ExportStream.values().length || rows <= 0 || rows > MAX_BLOCK_ROWS) {
+                return end(true);
+            }
+            ExportStream stream = ExportStream.values()[streamOrdinal];
+            if (rawLength > rows * stream.getColumnCount() * TelemetryExportWriter.MAX_VARINT_LENGTH
+                    || storedLength > rawLength) {
+                return end(true);
+            }
+            if (mStored.length < storedLength) {
+                mStored = new byte[(int) storedLength];
+            }
+            readFully(mStored, (int) storedLength);
+            mCrc.reset();
+            mCrc.update(mStored, 0, (int) storedLength);
+            if ((int) mCrc.getValue() != crc) {
+                return end(true);
+            }
+
+            byte[] raw = mStored;
+            if ((flags & TelemetryExportWriter.FLAG_DEFLATED) != 0) {
+                if (mRaw.length < rawLength) {
+                    mRaw = new byte[(int) rawLength];
+                }
+                mInflater.reset();
+                mInflater.setInput(mStored, 0, (int) storedLength);
+                if (mInflater.inflate(mRaw, 0, (int) rawLength) != rawLength) {
+                    return end(true);
+                }
+                raw = mRaw;
+            }
+            decode(stream, (int) rows, raw, (int) rawLength);
+            return true;
+        } catch (EOFException | DataFormatException | ArrayIndexOutOfBoundsException e) {
+            return end(true);
+        }
+    }
+
+    private boolean end(boolean truncated) {
+        mEnded = true;
+        mTruncated = truncated;
+        mStream = null;
+        mRowCount = 0;
+        return false;
+    }
+
+    private void decode(ExportStream stream, int rows, byte[] raw, int rawLength) {
+        int columnCount = stream.getColumnCount();
+        if (mColumns.length < columnCount) {
+            mColumns = new long[columnCount][];
+        }
+        mDecodeOffset = 0;
+        for (int column = 0; column < columnCount; column++) {
+            if (mColumns[column] == null || mColumns[column].length < rows) {
+                mColumns[column] = new long[Math.max(rows, TelemetryExportWriter.DEFAULT_BLOCK_ROWS)];
+            }
+            decodeColumn(raw, rawLength, mColumns[column], rows, column == ExportStream.TIME);
+        }
+        mStream = stream;
+        mRowCount = rows;
+    }
+
+    // The inverse of TelemetryExportWriter.encodeColumn
+    private void decodeColumn(byte[] in, int limit, long[] values, int count, boolean deltaOfDelta) {
+        long previous = 0;
+        long previousDelta = 0;
+        int p = mDecodeOffset;
+        for (int i = 0; i < count; i++) {
+            long encoded = 0;
+            int shift = 0;
+            while (true) {
+                if (p >= limit) {
+                    throw new ArrayIndexOutOfBoundsException(p);
+                }
+                byte b = in[p++];
+                encoded |= (long) (b & 0x7F) << shift;
+                if (b >= 0) {
+                    break;
+                }
+                shift += 7;
+            }
+            long decoded = (encoded >>> 1) ^ -(encoded & 1);
+            long delta = deltaOfDelta ? decoded + previousDelta : decoded;
+            values[i] = previous + delta;
+            previous = values[i];
+            previousDelta = i == 0 ? 0 : delta;
+        }
+        mDecodeOffset = p;
+    }
+
+    /**
+     * @return The stream of the current block.
+     */
+    public ExportStream getStream() {
+        return mStream;
+    }
+
+    public int getRowCount() {
+        return mRowCount;
+    }
+
+    public long getTimeMillis(int row) {
+        return mColumns[ExportStream.TIME][row];
+    }
+
+    /**
+     * @return The stored integer, a multiple of the column's scale, or {@link ExportStream#NULL}.
+     */
+    public long getStored(int column, int row) {
+        return mColumns[column][row];
+    }
+
+    /**
+     * @return The value in the column's unit, or NaN where none was recorded.
+     */
+    public double getValue(int column, int row) {
+        return mStream.dequantize(column, mColumns[column][row]);
+    }
+
+    /**
+     * Copy a column of the current block, in its unit.
+     *
+     * @return The number of values written.
+     */
+    public int copyColumn(int column, double[] out) {
+        int count = Math.min(mRowCount, out.length);
+        long[] values = mColumns[column];
+        for (int row = 0; row < count; row++) {
+            out[row] = mStream.dequantize(column, values[row]);
+        }
+        return count;
+    }
+
+    /**
+     * @return When the writer created the file, in milliseconds since the Unix epoch.
+     */
+    public long getCreatedMillis() {
+        return mCreatedMillis;
+    }
+
+    /**
+     * @return Whether the file ended in a block cut short or corrupt.
+     */
+    public boolean isTruncated() {
+        return mTruncated;
+    }
+
+    private int readByte() throws IOException {
+        int b = mInput.read();
+        if (b < 0) {
+            throw new EOFException();
+        }
+        return b;
+    }
+
+    private long readVarint() throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = readByte();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new EOFException("Varint too long");
+    }
+
+    private int readInt() throws IOException {
+        return readByte() << 24 | readByte() << 16 | readByte() << 8 | readByte();
+    }
+
+    private void readFully(byte[] buffer, int length) throws IOException {
+        int read = 0;
+        while (read < length) {
+            int n = mInput.read(buffer, read, length - read);
+            if (n < 0) {
+                throw new EOFException();
+            }
+            read += n;
+        }
+    }
+
+    private static int getInt(byte[] in, int offset) {
+        return (in[offset] & 0xFF) << 24 | (in[offset + 1] & 0xFF) << 16 | (in[offset + 2] & 0xFF) << 8 | (in[offset + 3] & 0xFF);
+    }
+
+    @Override
+    public void close() throws IOException {
+        mInflater.end();
+        mInput.close();
+    }
+}
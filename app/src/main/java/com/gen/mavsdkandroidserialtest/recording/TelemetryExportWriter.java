@@ -0,0 +1,304 @@
+package com.gen.mavsdkandroidserialtest.recording;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+import io.mavsdk.telemetry.Telemetry;
+
+/**
+ * Writes telemetry samples to a compact columnar file while the flight goes on.
+ *
+ * <p>Samples are buffered per {@link ExportStream} in fixed arrays, one per column. A
+ * full buffer is written out as one block: each column in turn, as zigzag varints of the
+ * difference to the previous value, or for the time column of the difference between
+ * intervals, which is 0 at a steady rate. With compression on, a block is then deflated
+ * if that makes it smaller. Every block starts from absolute values and carries a CRC,
+ * so a reader can skip blocks and stops cleanly at a block cut short by a crash.</p>
+ *
+ * <p>Memory stays the same for any flight length. Write failures are kept in
+ * {@link #getLastError()} and end the recording; the write methods never throw, so the
+ * telemetry streams feeding them are not torn down. All access synchronizes on the
+ * writer.</p>
+ */
+public class TelemetryExportWriter implements Closeable {
+
+    public static final String FILE_EXTENSION = ".tcol";
+    public static final int MAGIC = 0x54434F4C;
+    public static final int VERSION = 1;
+    public static final int HEADER_LENGTH = 4 + 1 + 8;
+    public static final int FLAG_DEFLATED = 0x01;
+    public static final int DEFAULT_BLOCK_ROWS = 512;
+    // A zigzag varint of a 64-bit value takes at most 10 bytes
+    static final int MAX_VARINT_LENGTH = 10;
+    // Stream, flags, three varints and the CRC
+    static final int MAX_BLOCK_HEADER_LENGTH = 2 + 3 * MAX_VARINT_LENGTH + 4;
+
+    // One stream's samples since its last block
+    private static class StreamBuffer {
+        final ExportStream stream;
+        final long[][] columns;
+        int rows;
+
+        StreamBuffer(ExportStream stream, int blockRows) {
+            this.stream = stream;
+            this.columns = new long[stream.getColumnCount()][blockRows];
+        }
+    }
+
+    private final OutputStream mOutput;
+    private final int mBlockRows;
+    private final boolean mCompress;
+    private final StreamBuffer[] mBuffers = new StreamBuffer[ExportStream.values().length];
+    private final byte[] mRaw;
+    private final byte[] mDeflated;
+    private final byte[] mHeader = new byte[MAX_BLOCK_HEADER_LENGTH];
+    private final Deflater mDeflater;
+    private final CRC32 mCrc = new CRC32();
+
+    private boolean mClosed;
+    private long mRowCount;
+    private long mBlockCount;
+    private long mRawBytes;
+    private long mBytesWritten;
+    private IOException mLastError;
+
+    public TelemetryExportWriter(File file) throws IOException {
+        this(new BufferedOutputStream(new FileOutputStream(file)), DEFAULT_BLOCK_ROWS, true);
+    }
+
+    /**
+     * @param blockRows Samples of one stream per block; more compress better and lose more
+     *     on a crash.
+     * @param compress Whether to deflate blocks.
+     */
+    public TelemetryExportWriter(OutputStream output, int blockRows, boolean compress) throws IOException {
+        if (blockRows <= 0) {
+            throw new IllegalArgumentException("blockRows: " + blockRows);
+        }
+        mOutput = output;
+        mBlockRows = blockRows;
+        mCompress = compress;
+        int maxColumns = 0;
+        for (ExportStream stream : ExportStream.values()) {
+            mBuffers[stream.ordinal()] = new StreamBuffer(stream, blockRows);
+            maxColumns = Math.max(maxColumns, stream.getColumnCount());
+        }
+        mRaw = new byte[maxColumns * blockRows * MAX_VARINT_LENGTH];
+        mDeflated = compress ? new byte[mRaw.length] : null;
+        mDeflater = compress ? new Deflater(Deflater.DEFAULT_COMPRESSION, true) : null;
+
+        byte[] header = new byte[HEADER_LENGTH];
+        putInt(header, 0, MAGIC);
+        header[4] = VERSION;
+        long createdMillis = System.currentTimeMillis();
+        for (int i = 0; i < 8; i++) {
+            header[5 + i] = (byte) (createdMillis >>> (56 - 8 * i));
+        }
+        mOutput.write(header);
+        mBytesWritten = HEADER_LENGTH;
+    }
+
+    public void writePosition(long timeMillis, Telemetry.Position position) {
+        write(ExportStream.POSITION, timeMillis,
+                position.getLatitudeDeg(), position.getLongitudeDeg(),
+                position.getAbsoluteAltitudeM(), position.getRelativeAltitudeM(), 0, 0);
+    }
+
+    public void writeBattery(long timeMillis, Telemetry.Battery battery) {
+        write(ExportStream.BATTERY, timeMillis, battery.getVoltageV(), battery.getRemainingPercent(), 0, 0, 0, 0);
+    }
+
+    public void writeGpsInfo(long timeMillis, Telemetry.GpsInfo gpsInfo) {
+        Telemetry.FixType fixType = gpsInfo.getFixType();
+        write(ExportStream.GPS_INFO, timeMillis,
+                gpsInfo.getNumSatellites(), fixType == null ? Double.NaN : fixType.ordinal(), 0, 0, 0, 0);
+    }
+
+    public void writePositionVelocityNed(long timeMillis, Telemetry.PositionVelocityNed positionVelocityNed) {
+        Telemetry.PositionNed position = positionVelocityNed.getPosition();
+        Telemetry.VelocityNed velocity = positionVelocityNed.getVelocity();
+        write(ExportStream.POSITION_VELOCITY_NED, timeMillis,
+                position.getNorthM(), position.getEastM(), position.getDownM(),
+                velocity.getNorthMS(), velocity.getEastMS(), velocity.getDownMS());
+    }
+
+    /**
+     * Add one sample to `stream`; values beyond the stream's columns are ignored.
+     */
+    public synchronized void write(ExportStream stream, long timeMillis,
+                                   double v1, double v2, double v3, double v4, double v5, double v6) {
+        if (mClosed || mLastError != null) {
+            return;
+        }
+        StreamBuffer buffer = mBuffers[stream.ordinal()];
+        int row = buffer.rows;
+        long[][] columns = buffer.columns;
+        columns[ExportStream.TIME][row] = timeMillis;
+        int columnCount = columns.length;
+        columns[1][row] = stream.quantize(1, v1);
+        if (columnCount > 2) {
+            columns[2][row] = stream.quantize(2, v2);
+        }
+        if (columnCount > 3) {
+            columns[3][row] = stream.quantize(3, v3);
+        }
+        if (columnCount > 4) {
+            columns[4][row] = stream.quantize(4, v4);
+        }
+        if (columnCount > 5) {
+            columns[5][row] = stream.quantize(5, v5);
+        }
+        if (columnCount > 6) {
+            columns[6][row] = stream.quantize(6, v6);
+        }
+        buffer.rows++;
+        mRowCount++;
+        if (buffer.rows == mBlockRows) {
+            writeBlock(buffer);
+        }
+    }
+
+    /**
+     * Write out every partly filled block, e.g. before pulling the file mid-flight.
+     */
+    public synchronized void flush() {
+        if (mClosed || mLastError != null) {
+            return;
+        }
+        for (StreamBuffer buffer : mBuffers) {
+            if (buffer.rows > 0) {
+                writeBlock(buffer);
+            }
+        }
+    }
+
+    private void writeBlock(StreamBuffer buffer) {
+        int rawLength = 0;
+        for (int column = 0; column < buffer.columns.length; column++) {
+            rawLength = encodeColumn(buffer.columns[column], buffer.rows, column == ExportStream.TIME, mRaw, rawLength);
+        }
+
+        byte[] stored = mRaw;
+        int storedLength = rawLength;
+        int flags = 0;
+        if (mCompress) {
+            mDeflater.reset();
+            mDeflater.setInput(mRaw, 0, rawLength);
+            mDeflater.finish();
+            int deflatedLength = mDeflater.deflate(mDeflated, 0, mDeflated.length);
+            if (mDeflater.finished() && deflatedLength < rawLength) {
+                stored = mDeflated;
+                storedLength = deflatedLength;
+                flags = FLAG_DEFLATED;
+            }
+        }
+        mCrc.reset();
+        mCrc.update(stored, 0, storedLength);
+
+        int headerLength = 0;
+        mHeader[headerLength++] = (byte) buffer.stream.ordinal();
+        mHeader[headerLength++] = (byte) flags;
+        headerLength = putVarint(mHeader, headerLength, buffer.rows);
+        headerLength = putVarint(mHeader, headerLength, rawLength);
+        headerLength = putVarint(mHeader, headerLength, storedLength);
+        putInt(mHeader, headerLength, (int) mCrc.getValue());
+        headerLength += 4;
+
+        try {
+            mOutput.write(mHeader, 0, headerLength);
+            mOutput.write(stored, 0, storedLength);
+            // Hand each block to the OS, so a crash loses at most the unfinished ones
+            mOutput.flush();
+        } catch (IOException e) {
+            mLastError = e;
+        }
+        mBlockCount++;
+        mRawBytes += rawLength;
+        mBytesWritten += headerLength + storedLength;
+        buffer.rows = 0;
+    }
+
+    // Values as deltas from the previous one; times as deltas from the previous interval
+    static int encodeColumn(long[] values, int count, boolean deltaOfDelta, byte[] out, int offset) {
+        long previous = 0;
+        long previousDelta = 0;
+        for (int i = 0; i < count; i++) {
+            long delta = values[i] - previous;
+            offset = putVarint(out, offset, zigzag(deltaOfDelta ? delta - previousDelta : delta));
+            previous = values[i];
+            previousDelta = i == 0 ? 0 : delta;
+        }
+        return offset;
+    }
+
+    static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    static int putVarint(byte[] out, int offset, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out[offset++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out[offset++] = (byte) value;
+        return offset;
+    }
+
+    private static void putInt(byte[] out, int offset, int value) {
+        out[offset] = (byte) (value >>> 24);
+        out[offset + 1] = (byte) (value >>> 16);
+        out[offset + 2] = (byte) (value >>> 8);
+        out[offset + 3] = (byte) value;
+    }
+
+    /**
+     * Write out the partly filled blocks and close the file.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (mClosed) {
+            return;
+        }
+        flush();
+        mClosed = true;
+        if (mDeflater != null) {
+            mDeflater.end();
+        }
+        mOutput.close();
+        if (mLastError != null) {
+            throw mLastError;
+        }
+    }
+
+    public synchronized long getRowCount() {
+        return mRowCount;
+    }
+
+    public synchronized long getBlockCount() {
+        return mBlockCount;
+    }
+
+    /**
+     * @return The bytes of the encoded blocks before compression.
+     */
+    public synchronized long getRawBytes() {
+        return mRawBytes;
+    }
+
+    public synchronized long getBytesWritten() {
+        return mBytesWritten;
+    }
+
+    /**
+     * @return The error that ended the recording, or null.
+     */
+    public synchronized IOException getLastError() {
+        return mLastError;
+    }
+}
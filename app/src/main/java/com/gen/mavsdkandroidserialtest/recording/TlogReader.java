@@ -0,0 +1,158 @@
+package com.gen.mavsdkandroidserialtest.recording;
+
+import com.gen.mavsdkandroidserialtest.mavlink.MavlinkFrame;
+import com.gen.mavsdkandroidserialtest.mavlink.MavlinkFrameParser;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Read-only, memory-mapped view of one or more tlog files played back as one stream.
+ *
+ * <p>Opening the reader scans the files once and builds an index of record offsets and
+ * timestamps, so any frame can be reached in O(1) and any time in O(log n). A truncated
+ * or corrupt tail ends the file's index at the last complete record.</p>
+ */
+public class TlogReader implements Closeable {
+
+    private static final int INITIAL_INDEX_CAPACITY = 4096;
+
+    private final List<RandomAccessFile> mFiles = new ArrayList<>();
+    private final MappedByteBuffer[] mBuffers;
+    private final ByteBuffer[] mViews;
+
+    private int mFrameCount;
+    private int[] mFileIndexes = new int[INITIAL_INDEX_CAPACITY];
+    private int[] mOffsets = new int[INITIAL_INDEX_CAPACITY];
+    private int[] mLengths = new int[INITIAL_INDEX_CAPACITY];
+    private long[] mTimestamps = new long[INITIAL_INDEX_CAPACITY];
+
+    public TlogReader(List<File> files) throws IOException {
+        mBuffers = new MappedByteBuffer[files.size()];
+        mViews = new ByteBuffer[files.size()];
+        try {
+            for (int i = 0; i < files.size(); i++) {
+                RandomAccessFile randomAccessFile = new RandomAccessFile(files.get(i), "r");
+                mFiles.add(randomAccessFile);
+                FileChannel channel = randomAccessFile.getChannel();
+                mBuffers[i] = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+                mViews[i] = mBuffers[i].duplicate();
+                index(i);
+            }
+        } catch (IOException e) {
+            close();
+            throw e;
+        }
+    }
+
+    private void index(int fileIndex) {
+        MappedByteBuffer buffer = mBuffers[fileIndex];
+        int limit = buffer.limit();
+        int offset = 0;
+        while (limit - offset >= TlogRecorder.TIMESTAMP_LENGTH + MavlinkFrame.HEADER_LENGTH_V1) {
+            int frameOffset = offset + TlogRecorder.TIMESTAMP_LENGTH;
+            int frameLength = frameLength(buffer, frameOffset, limit);
+            if (frameLength <= 0 || frameOffset + frameLength > limit) {
+                break;
+            }
+            append(fileIndex, frameOffset, frameLength, buffer.getLong(offset));
+            offset = frameOffset + frameLength;
+        }
+    }
+
+    private static int frameLength(ByteBuffer buffer, int offset, int limit) {
+        int stx = buffer.get(offset) & 0xFF;
+        int payloadLength = buffer.get(offset + 1) & 0xFF;
+        if (stx == MavlinkFrame.STX_V1) {
+            return MavlinkFrame.HEADER_LENGTH_V1 + payloadLength + MavlinkFrame.CHECKSUM_LENGTH;
+        }
+        if (stx == MavlinkFrame.STX_V2 && offset + 2 < limit) {
+            boolean signed = (buffer.get(offset + 2) & MavlinkFrame.INCOMPAT_FLAG_SIGNED) != 0;
+            return MavlinkFrame.HEADER_LENGTH_V2 + payloadLength + MavlinkFrame.CHECKSUM_LENGTH
+                    + (signed ? MavlinkFrame.SIGNATURE_LENGTH : 0);
+        }
+        return -1;
+    }
+
+    private void append(int fileIndex, int offset, int length, long timestamp) {
+        if (mFrameCount == mOffsets.length) {
+            int capacity = mOffsets.length * 2;
+            mFileIndexes = Arrays.copyOf(mFileIndexes, capacity);
+            mOffsets = Arrays.copyOf(mOffsets, capacity);
+            mLengths = Arrays.copyOf(mLengths, capacity);
+            mTimestamps = Arrays.copyOf(mTimestamps, capacity);
+        }
+        mFileIndexes[mFrameCount] = fileIndex;
+        mOffsets[mFrameCount] = offset;
+        mLengths[mFrameCount] = length;
+        mTimestamps[mFrameCount] = timestamp;
+        mFrameCount++;
+    }
+
+    public int getFrameCount() {
+        return mFrameCount;
+    }
+
+    /**
+     * @return The record timestamp of frame `index` in microseconds since the Unix epoch.
+     */
+    public long getTimestampMicros(int index) {
+        return mTimestamps[index];
+    }
+
+    public int getFrameLength(int index) {
+        return mLengths[index];
+    }
+
+    /**
+     * @return The index of the first frame recorded at or after `timestampMicros`.
+     */
+    public int indexOf(long timestampMicros) {
+        int low = 0;
+        int high = mFrameCount;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (mTimestamps[mid] < timestampMicros) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Feed frame `index` to `parser` straight from the mapped file.
+     */
+    public void feed(int index, MavlinkFrameParser parser) {
+        ByteBuffer view = mViews[mFileIndexes[index]];
+        int offset = mOffsets[index];
+        view.limit(offset + mLengths[index]);
+        view.position(offset);
+        parser.parse(view);
+    }
+
+    @Override
+    public void close() throws IOException {
+        IOException error = null;
+        for (RandomAccessFile file : mFiles) {
+            try {
+                file.close();
+            } catch (IOException e) {
+                error = e;
+            }
+        }
+        mFiles.clear();
+        if (error != null) {
+            throw error;
+        }
+    }
+}
@@ -0,0 +1,276 @@
+package com.gen.mavsdkandroidserialtest.recording;
+
+import com.gen.mavsdkandroidserialtest.mavlink.MavlinkFrame;
+import com.gen.mavsdkandroidserialtest.mavlink.MavlinkFrameParser;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Records MAVLink frames into memory-mapped tlog segment files.
+ *
+ * <p>Each record is the QGroundControl tlog layout: a big-endian 64-bit timestamp in
+ * microseconds since the Unix epoch followed by the raw frame. Frames are copied into a
+ * bounded single-producer ring of preallocated slots and written to disk by a dedicated
+ * writer thread. When the ring is full the frame is dropped and counted, so the
+ * telemetry path never waits on storage. Segments are rotated once they reach the
+ * configured size, and the mapped segment is forced to disk at least once per flush
+ * interval.</p>
+ *
+ * <p>{@link #onFrame(MavlinkFrame)} must always be called from the same thread.</p>
+ */
+public class TlogRecorder implements MavlinkFrameParser.Listener {
+
+    public static final String FILE_EXTENSION = ".tlog";
+    public static final long DEFAULT_SEGMENT_SIZE = 16L * 1024 * 1024;
+    public static final int DEFAULT_QUEUE_CAPACITY = 2048;
+    public static final long DEFAULT_FLUSH_INTERVAL_MILLIS = 1000;
+    public static final int TIMESTAMP_LENGTH = 8;
+
+    private static final long IDLE_PARK_NANOS = 2_000_000L;
+
+    private final File mDirectory;
+    private final String mNamePrefix;
+    private final long mSegmentSize;
+    private final long mFlushIntervalNanos;
+
+    private final int mMask;
+    private final byte[] mSlots;
+    private final int[] mLengths;
+    private final long[] mTimestamps;
+    private final AtomicLong mHead = new AtomicLong();
+    private final AtomicLong mTail = new AtomicLong();
+
+    private final long mEpochMicrosBase;
+    private final long mNanoTimeBase;
+
+    private Thread mWriterThread;
+    private volatile boolean mRunning;
+
+    private String mSessionName;
+    private int mSegmentIndex;
+    private File mSegmentFile;
+    private RandomAccessFile mSegmentRandomAccessFile;
+    private MappedByteBuffer mSegmentBuffer;
+    private long mLastForceNanos;
+
+    private volatile long mRecordedFrames;
+    private volatile long mDroppedFrames;
+    private volatile long mBytesWritten;
+    private volatile long mMaxFlushIntervalNanos;
+    private volatile IOException mLastError;
+
+    public TlogRecorder(File directory) {
+        this(directory, "flight", DEFAULT_SEGMENT_SIZE, DEFAULT_QUEUE_CAPACITY, DEFAULT_FLUSH_INTERVAL_MILLIS);
+    }
+
+    /**
+     * @param queueCapacity Number of frames the hand-off ring holds, rounded up to a power of two.
+     */
+    public TlogRecorder(File directory, String namePrefix, long segmentSize, int queueCapacity, long flushIntervalMillis) {
+        if (segmentSize < TIMESTAMP_LENGTH + MavlinkFrame.MAX_FRAME_LENGTH) {
+            throw new IllegalArgumentException("segmentSize too small: " + segmentSize);
+        }
+        mDirectory = directory;
+        mNamePrefix = namePrefix;
+        mSegmentSize = segmentSize;
+        mFlushIntervalNanos = flushIntervalMillis * 1_000_000L;
+
+        int capacity = Integer.highestOneBit(Math.max(2, queueCapacity - 1)) << 1;
+        mMask = capacity - 1;
+        mSlots = new byte[capacity * MavlinkFrame.MAX_FRAME_LENGTH];
+        mLengths = new int[capacity];
+        mTimestamps = new long[capacity];
+
+        mEpochMicrosBase = System.currentTimeMillis() * 1000L;
+        mNanoTimeBase = System.nanoTime();
+    }
+
+    public synchronized void start() throws IOException {
+        if (mRunning) {
+            throw new IllegalStateException("Recorder already started");
+        }
+        if (!mDirectory.isDirectory() && !mDirectory.mkdirs()) {
+            throw new IOException("Cannot create " + mDirectory);
+        }
+        mSessionName = mNamePrefix + "-" + new SimpleDateFormat("yyyyMMdd-HHmmss", Locale.US).format(new Date());
+        mSegmentIndex = 0;
+        openSegment();
+
+        mRunning = true;
+        mWriterThread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                writeLoop();
+            }
+        }, "tlog-writer");
+        mWriterThread.start();
+    }
+
+    /**
+     * Write out everything already queued, then close the current segment.
+     */
+    public void stop() {
+        Thread writerThread;
+        synchronized (this) {
+            mRunning = false;
+            writerThread = mWriterThread;
+            mWriterThread = null;
+        }
+        if (writerThread == null) {
+            return;
+        }
+        LockSupport.unpark(writerThread);
+        try {
+            writerThread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public void onFrame(MavlinkFrame frame) {
+        long tail = mTail.get();
+        if (tail - mHead.get() > mMask) {
+            mDroppedFrames++;
+            return;
+        }
+        int slot = (int) tail & mMask;
+        frame.copyTo(mSlots, slot * MavlinkFrame.MAX_FRAME_LENGTH);
+        mLengths[slot] = frame.getLength();
+        mTimestamps[slot] = mEpochMicrosBase + (System.nanoTime() - mNanoTimeBase) / 1000L;
+        mTail.lazySet(tail + 1);
+    }
+
+    private void writeLoop() {
+        mLastForceNanos = System.nanoTime();
+        try {
+            while (true) {
+                boolean running = mRunning;
+                int written = drain();
+
+                long now = System.nanoTime();
+                if (now - mLastForceNanos >= mFlushIntervalNanos) {
+                    force(now);
+                }
+                if (!running) {
+                    break;
+                }
+                if (written == 0) {
+                    LockSupport.parkNanos(IDLE_PARK_NANOS);
+                }
+            }
+        } catch (IOException e) {
+            mLastError = e;
+        } finally {
+            try {
+                closeSegment();
+            } catch (IOException e) {
+                mLastError = e;
+            }
+        }
+    }
+
+    private int drain() throws IOException {
+        long head = mHead.get();
+        long tail = mTail.get();
+        int written = 0;
+        while (head < tail) {
+            int slot = (int) head & mMask;
+            int length = mLengths[slot];
+            if (mSegmentBuffer.remaining() < TIMESTAMP_LENGTH + length) {
+                rotateSegment();
+            }
+            mSegmentBuffer.putLong(mTimestamps[slot]);
+            mSegmentBuffer.put(mSlots, slot * MavlinkFrame.MAX_FRAME_LENGTH, length);
+            mBytesWritten += TIMESTAMP_LENGTH + length;
+            mRecordedFrames++;
+            written++;
+
+            head++;
+            mHead.lazySet(head);
+        }
+        return written;
+    }
+
+    private void force(long now) {
+        mSegmentBuffer.force();
+        long interval = now - mLastForceNanos;
+        if (interval > mMaxFlushIntervalNanos) {
+            mMaxFlushIntervalNanos = interval;
+        }
+        mLastForceNanos = now;
+    }
+
+    private void openSegment() throws IOException {
+        mSegmentFile = new File(mDirectory, String.format(Locale.US, "%s-%03d%s", mSessionName, mSegmentIndex, FILE_EXTENSION));
+        mSegmentRandomAccessFile = new RandomAccessFile(mSegmentFile, "rw");
+        mSegmentBuffer = mSegmentRandomAccessFile.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, mSegmentSize);
+    }
+
+    private void rotateSegment() throws IOException {
+        closeSegment();
+        mSegmentIndex++;
+        openSegment();
+    }
+
+    private void closeSegment() throws IOException {
+        if (mSegmentRandomAccessFile == null) {
+            return;
+        }
+        mSegmentBuffer.force();
+        int length = mSegmentBuffer.position();
+        mSegmentBuffer = null;
+        try {
+            mSegmentRandomAccessFile.getChannel().truncate(length);
+        } finally {
+            mSegmentRandomAccessFile.close();
+            mSegmentRandomAccessFile = null;
+        }
+    }
+
+    public long getRecordedFrames() {
+        return mRecordedFrames;
+    }
+
+    /**
+     * @return The number of frames dropped because the hand-off ring was full.
+     */
+    public long getDroppedFrames() {
+        return mDroppedFrames;
+    }
+
+    public long getBytesWritten() {
+        return mBytesWritten;
+    }
+
+    /**
+     * @return The number of frames waiting for the writer thread.
+     */
+    public int getQueuedFrames() {
+        return (int) (mTail.get() - mHead.get());
+    }
+
+    public long getMaxFlushIntervalNanos() {
+        return mMaxFlushIntervalNanos;
+    }
+
+    public File getDirectory() {
+        return mDirectory;
+    }
+
+    /**
+     * @return The error that stopped the writer, or null.
+     */
+    public IOException getLastError() {
+        return mLastError;
+    }
+}
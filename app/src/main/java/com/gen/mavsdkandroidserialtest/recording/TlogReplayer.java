@@ -0,0 +1,204 @@
+package com.gen.mavsdkandroidserialtest.recording;
+
+import com.gen.mavsdkandroidserialtest.mavlink.MavlinkFrameParser;
+
+import java.io.File;
+import java.io.FilenameFilter;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Plays recorded tlogs back into a frame listener on a dedicated thread.
+ *
+ * <p>Frames are delivered with their recorded spacing divided by the playback speed, or
+ * back to back when the speed is {@link #SPEED_AS_FAST_AS_POSSIBLE}. In that mode the
+ * replay doubles as a throughput test for whatever consumes the frames; see
+ * {@link #getFramesPerSecond()}.</p>
+ */
+public class TlogReplayer {
+
+    public static final double SPEED_AS_FAST_AS_POSSIBLE = 0;
+
+    private static final long MAX_PARK_NANOS = 50_000_000L;
+    private static final int NO_SEEK = -1;
+
+    private final TlogReader mReader;
+    private final MavlinkFrameParser mParser;
+
+    private volatile double mSpeed = 1;
+    private volatile boolean mLooping;
+    private volatile int mSeekIndex = NO_SEEK;
+    private volatile boolean mRunning;
+    private Thread mReplayThread;
+
+    private volatile int mCurrentIndex;
+    private volatile long mReplayedFrames;
+    private volatile long mReplayedBytes;
+    private volatile long mReplayNanos;
+
+    public TlogReplayer(TlogReader reader, MavlinkFrameParser.Listener listener) {
+        mReader = reader;
+        mParser = new MavlinkFrameParser(listener);
+        mParser.setAcceptUnknownMessages(true);
+    }
+
+    /**
+     * @return The segments of the most recent recording in `directory`, in order.
+     */
+    public static List<File> findLatestSession(File directory) {
+        File[] files = directory.listFiles(new FilenameFilter() {
+            @Override
+            public boolean accept(File dir, String name) {
+                return name.endsWith(TlogRecorder.FILE_EXTENSION);
+            }
+        });
+        if (files == null || files.length == 0) {
+            return Collections.emptyList();
+        }
+        Arrays.sort(files);
+        String session = sessionOf(files[files.length - 1]);
+        List<File> result = new ArrayList<>();
+        for (File file : files) {
+            if (sessionOf(file).equals(session)) {
+                result.add(file);
+            }
+        }
+        return result;
+    }
+
+    private static String sessionOf(File segment) {
+        String name = segment.getName();
+        int separator = name.lastIndexOf('-');
+        return separator < 0 ? name : name.substring(0, separator);
+    }
+
+    /**
+     * @param speed Playback speed relative to the recording, or {@link #SPEED_AS_FAST_AS_POSSIBLE}.
+     */
+    public void setSpeed(double speed) {
+        mSpeed = speed;
+        mSeekIndex = mCurrentIndex;
+    }
+
+    public void setLooping(boolean looping) {
+        mLooping = looping;
+    }
+
+    /**
+     * Continue playback from the first frame recorded at or after `timestampMicros`.
+     */
+    public void seekTo(long timestampMicros) {
+        mSeekIndex = mReader.indexOf(timestampMicros);
+    }
+
+    public synchronized void start() {
+        if (mRunning) {
+            throw new IllegalStateException("Replay already started");
+        }
+        mRunning = true;
+        mReplayThread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                replayLoop();
+            }
+        }, "tlog-replay");
+        mReplayThread.start();
+    }
+
+    public void stop() {
+        Thread replayThread;
+        synchronized (this) {
+            mRunning = false;
+            replayThread = mReplayThread;
+            mReplayThread = null;
+        }
+        if (replayThread != null) {
+            LockSupport.unpark(replayThread);
+            try {
+                replayThread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Stop playback and release the underlying files.
+     */
+    public void close() throws IOException {
+        stop();
+        mReader.close();
+    }
+
+    private void replayLoop() {
+        int frameCount = mReader.getFrameCount();
+        int index = 0;
+        long baseNanos = System.nanoTime();
+        long baseMicros = frameCount > 0 ? mReader.getTimestampMicros(0) : 0;
+        long startNanos = baseNanos;
+
+        while (mRunning && frameCount > 0) {
+            int seekIndex = mSeekIndex;
+            if (seekIndex != NO_SEEK) {
+                mSeekIndex = NO_SEEK;
+                index = Math.min(seekIndex, frameCount - 1);
+                mParser.reset();
+                baseNanos = System.nanoTime();
+                baseMicros = mReader.getTimestampMicros(index);
+            }
+            if (index == frameCount) {
+                if (!mLooping) {
+                    break;
+                }
+                index = 0;
+                mParser.reset();
+                baseNanos = System.nanoTime();
+                baseMicros = mReader.getTimestampMicros(0);
+            }
+
+            double speed = mSpeed;
+            if (speed > SPEED_AS_FAST_AS_POSSIBLE) {
+                long dueNanos = baseNanos + (long) ((mReader.getTimestampMicros(index) - baseMicros) * 1000 / speed);
+                long waitNanos = dueNanos - System.nanoTime();
+                if (waitNanos > 0) {
+                    LockSupport.parkNanos(Math.min(waitNanos, MAX_PARK_NANOS));
+                    continue;
+                }
+            }
+
+            mReader.feed(index, mParser);
+            mReplayedFrames++;
+            mReplayedBytes += mReader.getFrameLength(index);
+            mReplayNanos = System.nanoTime() - startNanos;
+            index++;
+            mCurrentIndex = index;
+        }
+        mRunning = false;
+    }
+
+    public boolean isRunning() {
+        return mRunning;
+    }
+
+    public long getReplayedFrames() {
+        return mReplayedFrames;
+    }
+
+    public long getReplayedBytes() {
+        return mReplayedBytes;
+    }
+
+    public double getFramesPerSecond() {
+        long nanos = mReplayNanos;
+        return nanos == 0 ? 0 : mReplayedFrames * 1e9 / nanos;
+    }
+
+    public double getBytesPerSecond() {
+        long nanos = mReplayNanos;
+        return nanos == 0 ? 0 : mReplayedBytes * 1e9 / nanos;
+    }
+}
@@ -1,61 +1,278 @@
 package com.gen.mavsdkandroidserialtest.repositories;
 
 import android.app.Application;
+import android.content.BroadcastReceiver;
 import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
 import android.hardware.usb.UsbDevice;
 import android.hardware.usb.UsbDeviceConnection;
 import android.hardware.usb.UsbManager;
+import android.os.Handler;
+import android.os.Looper;
 import android.util.Log;
 import android.widget.Toast;
 
 import androidx.lifecycle.LiveData;
 import androidx.lifecycle.LiveDataReactiveStreams;
+import androidx.lifecycle.MediatorLiveData;
+import androidx.lifecycle.MutableLiveData;
+import androidx.lifecycle.Observer;
 
 import com.gen.mavsdkandroidserialtest.R;
-import com.gen.mavsdkandroidserialtest.models.PositionRelative;
-import com.gen.mavsdkandroidserialtest.models.Speed;
-import com.google.common.collect.Lists;
+import com.gen.mavsdkandroidserialtest.alerts.AlertEngine;
+import com.gen.mavsdkandroidserialtest.alerts.AlertField;
+import com.gen.mavsdkandroidserialtest.alerts.AlertRule;
+import com.gen.mavsdkandroidserialtest.alerts.AlertSampleSlot;
+import com.gen.mavsdkandroidserialtest.fleet.ConnectionSupervisor;
+import com.gen.mavsdkandroidserialtest.fleet.FleetManager;
+import com.gen.mavsdkandroidserialtest.fleet.MavsdkVehicleServer;
+import com.gen.mavsdkandroidserialtest.fleet.VehicleConnection;
+import com.gen.mavsdkandroidserialtest.history.FlightTrack;
+import com.gen.mavsdkandroidserialtest.history.TelemetryHistory;
+import com.gen.mavsdkandroidserialtest.link.BaudRateProbe;
+import com.gen.mavsdkandroidserialtest.link.LinkPort;
+import com.gen.mavsdkandroidserialtest.link.LinkScheduler;
+import com.gen.mavsdkandroidserialtest.link.MavlinkRouter;
+import com.gen.mavsdkandroidserialtest.link.SharedPreferencesBaudRateCache;
+import com.gen.mavsdkandroidserialtest.link.UdpFrameSink;
+import com.gen.mavsdkandroidserialtest.link.UdpLinkPort;
+import com.gen.mavsdkandroidserialtest.link.UsbDriverCache;
+import com.gen.mavsdkandroidserialtest.link.UsbSerialLinkPort;
+import com.gen.mavsdkandroidserialtest.link.VehicleLink;
+import com.gen.mavsdkandroidserialtest.mavlink.LinkQualityEstimator;
+import com.gen.mavsdkandroidserialtest.mavlink.MavlinkFrameParser;
+import com.gen.mavsdkandroidserialtest.mavlink.MavlinkTelemetryDecoder;
+import com.gen.mavsdkandroidserialtest.metrics.MetricsRegistry;
+import com.gen.mavsdkandroidserialtest.metrics.StreamMetrics;
+import com.gen.mavsdkandroidserialtest.models.ConnectionState;
+import com.gen.mavsdkandroidserialtest.models.LastKnownState;
+import com.gen.mavsdkandroidserialtest.models.TelemetrySnapshot;
+import com.gen.mavsdkandroidserialtest.recording.LastKnownStateStore;
+import com.gen.mavsdkandroidserialtest.recording.TelemetryExportWriter;
+import com.gen.mavsdkandroidserialtest.recording.TlogReader;
+import com.gen.mavsdkandroidserialtest.recording.TlogRecorder;
+import com.gen.mavsdkandroidserialtest.recording.TlogReplayer;
+import com.gen.mavsdkandroidserialtest.simulation.VehicleSimulator;
+import com.gen.mavsdkandroidserialtest.telemetry.FrameDispatcher;
+import com.gen.mavsdkandroidserialtest.telemetry.FrameTicker;
+import com.gen.mavsdkandroidserialtest.telemetry.LinkBudgetManager;
+import com.gen.mavsdkandroidserialtest.telemetry.RatePolicies;
+import com.gen.mavsdkandroidserialtest.telemetry.TelemetryScheduler;
+import com.gen.mavsdkandroidserialtest.telemetry.TelemetryTopic;
+import com.gen.mavsdkandroidserialtest.utils.StartupTrace;
 import com.hoho.android.usbserial.driver.UsbSerialDriver;
 import com.hoho.android.usbserial.driver.UsbSerialPort;
 import com.hoho.android.usbserial.driver.UsbSerialProber;
 
+import java.io.File;
 import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
-import java.util.Random;
+import java.util.Locale;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
-import java.util.stream.Collectors;
-import java.util.stream.IntStream;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import io.mavsdk.System;
 import io.mavsdk.mavsdkserver.MavsdkServer;
 import io.mavsdk.telemetry.Telemetry;
+import io.reactivex.Completable;
 import io.reactivex.Flowable;
+import io.reactivex.Scheduler;
+import io.reactivex.disposables.Disposable;
+import io.reactivex.functions.Action;
+import io.reactivex.functions.Consumer;
 import io.reactivex.functions.Function;
+import io.reactivex.processors.BehaviorProcessor;
 import io.reactivex.schedulers.Schedulers;
 
+import org.reactivestreams.Publisher;
+
 public class DroneRepository {
     private static final String TAG = "LOG_" + DroneRepository.class.getName();
-    private static final boolean GENERATE_DUMMY_DATA = false;
+    private static final boolean REPLAY_TLOGS = false;
+    private static final boolean REPLAY_THROUGH_MAVSDK_SERVER = false;
+    private static final double REPLAY_SPEED = 1;
     private static final boolean IS_SIMULATION = false;
+    // Simulate the vehicle in-process instead of connecting to SITL
+    private static final boolean SIMULATE_VEHICLE = false;
+    private static final boolean USE_SERIAL_UDP_BRIDGE = true;
+    private static final boolean DETECT_BAUD_RATE = true;
+    private static final boolean RECORD_TLOGS = true;
+    private static final boolean MANAGE_LINK_BUDGET = true;
+    private static final boolean DUMP_METRICS = true;
+    private static final boolean RECORD_HISTORY = true;
+    // Lets other ground stations command the vehicle; see GCS_BIND_ADDRESS
+    private static final boolean ROUTE_TO_GCS = false;
+    private static final boolean EXPORT_TELEMETRY = true;
+    private static final boolean MEASURE_LINK_QUALITY = true;
+    private static final boolean EVALUATE_ALERTS = true;
+    private static final boolean PERSIST_LAST_KNOWN_STATE = true;
 
     private static final String NO_ADDRESS = "no_address";
     private static final int USB_BAUD_RATE = 57600;
     private static final String MAVSDK_SERVER_IP = "127.0.0.1";
-    private static final long THROTTLE_TIME_MILLIS = 500;
+    private static final int MAVSDK_SERVER_UDP_PORT = 14540;
+    private static final int SIMULATION_UDP_PORT = 14550;
+    private static final double SIMULATION_POSITION_RATE_HZ = 50;
+    // Other ground stations connect here, one port per link. The port takes commands without
+    // authentication, so it only listens on loopback unless an address is set here
+    private static final String GCS_BIND_ADDRESS = "127.0.0.1";
+    private static final int GCS_TCP_PORT = 5760;
+    private static final String TLOG_DIRECTORY = "tlogs";
+    private static final String EXPORT_DIRECTORY = "exports";
+    private static final String LAST_KNOWN_STATE_FILE = "last_known_state.bin";
+    private static final long LAST_KNOWN_STATE_INTERVAL_MILLIS = 1000;
+    // Shared by every stream and vehicle
+    private static final int TELEMETRY_THREAD_COUNT = 2;
+    private static final int TELEMETRY_THREAD_PRIORITY = Thread.NORM_PRIORITY;
+    private static final long LINK_BUDGET_INTERVAL_MILLIS = 5000;
+    private static final String METRICS_DIRECTORY = "metrics";
+    private static final long METRICS_DUMP_INTERVAL_MILLIS = 10000;
+    private static final long METRICS_OVERLAY_INTERVAL_MILLIS = 1000;
+    // Two hours per field at 5 Hz, about 3 MB in all
+    private static final int HISTORY_CAPACITY = 36000;
+    private static final long HISTORY_MIN_INTERVAL_MILLIS = 200;
+    private static final int TRACK_MAX_VERTICES = 2000;
+    private static final double TRACK_TOLERANCE_METERS = 1;
+
+    // A 4S pack; the ceiling and radius are the usual open-category limits
+    private static final List<AlertRule> ALERT_RULES = Arrays.asList(
+            AlertRule.below("Low battery voltage", AlertField.BATTERY_VOLTAGE, 14.0, 0.3, 2000),
+            AlertRule.below("Low battery charge", AlertField.BATTERY_PERCENT, 20, 5, 2000),
+            AlertRule.below("Weak GPS", AlertField.GPS_SATELLITES, 6, 2, 3000),
+            AlertRule.above("Above ceiling", AlertField.RELATIVE_ALTITUDE, 120, 5, 1000),
+            AlertRule.above("Far from home", AlertField.HOME_DISTANCE, 500, 20, 1000));
 
     private static DroneRepository instance;
 
-    private System mDrone;
+    private static final ThreadFactory STARTUP_THREAD_FACTORY = new ThreadFactory() {
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "drone-startup");
+            thread.setDaemon(true);
+            return thread;
+        }
+    };
+
+    // A USB link and the device currently behind it, which changes name on every replug
+    private static class UsbLink {
+        final int vendorId;
+        final int productId;
+        final int portIndex;
+        volatile String deviceName;
+        ConnectionSupervisor supervisor;
+
+        UsbLink(UsbDevice usbDevice, int portIndex) {
+            this.vendorId = usbDevice.getVendorId();
+            this.productId = usbDevice.getProductId();
+            this.portIndex = portIndex;
+            this.deviceName = usbDevice.getDeviceName();
+        }
+    }
+
+    private volatile System mDrone;
     private MavsdkServer mMavsdkServer;
     private Context mAppContext;
+    private final Handler mMainHandler = new Handler(Looper.getMainLooper());
+    private final ExecutorService mStartupExecutor = Executors.newCachedThreadPool(STARTUP_THREAD_FACTORY);
+    private final StartupTrace mStartupTrace = new StartupTrace();
+    private final MutableLiveData<ConnectionState> mConnectionStateLiveData = new MutableLiveData<>();
+    private Disposable mFirstTelemetryDisposable;
     private UsbDeviceConnection connection;
+    private int mBaudRate = USB_BAUD_RATE;
+    private FleetManager mFleetManager;
+    private volatile VehicleConnection mPrimaryConnection;
+    private final UsbDriverCache mUsbDriverCache = new UsbDriverCache();
+    private final List<UsbLink> mUsbLinks = new ArrayList<>();
+    private BroadcastReceiver mUsbReceiver;
+    private TlogRecorder mTlogRecorder;
+    private TlogReplayer mTlogReplayer;
+    private UdpFrameSink mReplayFrameSink;
+    private final BehaviorProcessor<TelemetryHub> mTelemetryHubs = BehaviorProcessor.create();
+    private TelemetryHub mTelemetryHub;
+    private LinkBudgetManager mLinkBudgetManager;
+    private TelemetryHub.ObserverCountListener mObserverCountListener;
+    private Disposable mLinkUtilisationDisposable;
+    private final TelemetryScheduler mTelemetryScheduler = new TelemetryScheduler(TELEMETRY_THREAD_COUNT, TELEMETRY_THREAD_PRIORITY);
+    private final FrameDispatcher mFrameDispatcher = new FrameDispatcher();
+    private final RatePolicies mRatePolicies = RatePolicies.defaults(FrameTicker.getFrameTicks(), mTelemetryScheduler.getScheduler());
+    private final MetricsRegistry mMetricsRegistry = new MetricsRegistry();
+    private Disposable mMetricsDumpDisposable;
+    private LiveData<String> mMetricsTextLiveData;
+    private final TelemetryHistory mTelemetryHistory = new TelemetryHistory(RECORD_HISTORY ? HISTORY_CAPACITY : 1, HISTORY_MIN_INTERVAL_MILLIS);
+    private final FlightTrack mFlightTrack = new FlightTrack(TRACK_MAX_VERTICES, TRACK_TOLERANCE_METERS);
+    private TelemetryHub.SampleListener mSampleListener;
+    private volatile TelemetryExportWriter mTelemetryExportWriter;
+    private final LinkQualityEstimator mLinkQualityEstimator = new LinkQualityEstimator();
+    private VehicleSimulator mVehicleSimulator;
+    private LastKnownStateStore mLastKnownStateStore;
+    private LastKnownState mLastKnownState = LastKnownState.EMPTY;
+    private Disposable mLastKnownStateDisposable;
+    private final MutableLiveData<List<AlertRule>> mActiveAlertsLiveData = new MutableLiveData<>();
+    private final AlertEngine mAlertEngine = new AlertEngine(EVALUATE_ALERTS ? ALERT_RULES : Collections.<AlertRule>emptyList(),
+            new AlertEngine.Listener() {
+                @Override
+                public void onAlertChanged(AlertRule rule, boolean active) {
+                    Log.d(TAG, "onAlertChanged: " + rule + (active ? " raised" : " cleared"));
+                    mAlertsChanged = true;
+                }
+            });
+    // Samples reach the engine one at a time on this worker, whichever thread they arrived on.
+    // Each field keeps only its latest sample, and at most one drain waits on the worker.
+    private final Scheduler.Worker mAlertWorker = mTelemetryScheduler.getScheduler().createWorker();
+    private final AtomicBoolean mAlertDrainScheduled = new AtomicBoolean();
+    private final Runnable mAlertDrain = new Runnable() {
+        @Override
+        public void run() {
+            drainAlertSlots();
+        }
+    };
+    private final AlertSampleSlot<Telemetry.Position> mPositionAlertSlot = new AlertSampleSlot<Telemetry.Position>() {
+        @Override
+        protected void evaluate(Telemetry.Position position, long arrivalNanos) {
+            mAlertEngine.onPosition(position, arrivalNanos);
+        }
+    };
+    private final AlertSampleSlot<Telemetry.Battery> mBatteryAlertSlot = new AlertSampleSlot<Telemetry.Battery>() {
+        @Override
+        protected void evaluate(Telemetry.Battery battery, long arrivalNanos) {
+            mAlertEngine.onBattery(battery, arrivalNanos);
+        }
+    };
+    private final AlertSampleSlot<Telemetry.GpsInfo> mGpsInfoAlertSlot = new AlertSampleSlot<Telemetry.GpsInfo>() {
+        @Override
+        protected void evaluate(Telemetry.GpsInfo gpsInfo, long arrivalNanos) {
+            mAlertEngine.onGpsInfo(gpsInfo, arrivalNanos);
+        }
+    };
+    private final AlertSampleSlot<Telemetry.PositionVelocityNed> mPositionVelocityNedAlertSlot =
+            new AlertSampleSlot<Telemetry.PositionVelocityNed>() {
+                @Override
+                protected void evaluate(Telemetry.PositionVelocityNed positionVelocityNed, long arrivalNanos) {
+                    mAlertEngine.onPositionVelocityNed(positionVelocityNed, arrivalNanos);
+                }
+            };
+    private boolean mAlertsChanged;
 
-    private LiveData<PositionRelative> mPositionRelativeLiveData;
-    private LiveData<Speed> mSpeedLiveData;
+    private LiveData<TelemetrySnapshot> mTelemetrySnapshotLiveData;
     private LiveData<Telemetry.Battery> mBatteryLiveData;
     private LiveData<Telemetry.GpsInfo> mGpsInfoLiveData;
     private LiveData<Telemetry.Position> mPositionLiveData;
+    private LiveData<Telemetry.EulerAngle> mAttitudeLiveData;
 
     public static DroneRepository getInstance(Application application) {
         if (instance == null) {
@@ -64,19 +281,104 @@ public class DroneRepository {
         return instance;
     }
 
+    // The streams exist right away and start flowing once startup sets a hub
     private DroneRepository(Application application) {
         mAppContext = application.getApplicationContext();
+        mConnectionStateLiveData.postValue(ConnectionState.INITIALISING);
+        initializeDataStreams();
+        initializeMetrics();
+        if (PERSIST_LAST_KNOWN_STATE) {
+            initializeLastKnownState();
+        }
+        if (RECORD_HISTORY || EXPORT_TELEMETRY || EVALUATE_ALERTS || PERSIST_LAST_KNOWN_STATE) {
+            initializeHistory();
+        }
 
-        if (GENERATE_DUMMY_DATA) {
-            initializeDummyDataStreams();
-        } else {
-            if (IS_SIMULATION) {
-                initializeServerAndDrone("udp://192.168.0.255:14550");
+        mStartupExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                initialize();
+            }
+        });
+    }
+
+    // Runs on a startup thread: opening USB, probing baud rates and mavsdk_server all block
+    private void initialize() {
+        StartupTrace.Span startupSpan = mStartupTrace.begin("startup");
+        try {
+            if (EXPORT_TELEMETRY && !REPLAY_TLOGS) {
+                initializeTelemetryExport();
+            }
+            if (IS_SIMULATION && SIMULATE_VEHICLE && !REPLAY_TLOGS) {
+                initializeVehicleSimulator();
+            }
+            if (REPLAY_TLOGS) {
+                initializeReplay();
+            } else if (USE_SERIAL_UDP_BRIDGE) {
+                initializeFleet();
             } else {
-                initializeServerAndDrone(initializeUsbDevice());
+                String systemAddress;
+                if (IS_SIMULATION && SIMULATE_VEHICLE) {
+                    systemAddress = "udp://:" + SIMULATION_UDP_PORT;
+                } else if (IS_SIMULATION) {
+                    systemAddress = "udp://192.168.0.255:14550";
+                } else {
+                    StartupTrace.Span usbSpan = mStartupTrace.begin("usb-open");
+                    systemAddress = initializeUsbDevice();
+                    usbSpan.end();
+                }
+                initializeServerAndDrone(systemAddress);
+                setTelemetryHub(new TelemetryHub(mDrone.getTelemetry()));
+                if (MANAGE_LINK_BUDGET && !IS_SIMULATION) {
+                    initializeLinkBudget();
+                }
+                awaitFirstTelemetry();
             }
-            initializeDataStreams();
+        } catch (RuntimeException e) {
+            Log.e(TAG, "initialize: ", e);
+            mConnectionStateLiveData.postValue(ConnectionState.FAILED);
         }
+        startupSpan.end();
+        Log.d(TAG, "initialize: " + mStartupTrace);
+    }
+
+    // Without a fleet there is no heartbeat tap, so the first telemetry message marks the vehicle as connected
+    private void awaitFirstTelemetry() {
+        mConnectionStateLiveData.postValue(ConnectionState.WAITING_FOR_VEHICLE);
+        mFirstTelemetryDisposable = mDrone.getTelemetry().getBattery()
+                .firstElement()
+                .subscribeOn(mTelemetryScheduler.getScheduler())
+                .subscribe(new Consumer<Telemetry.Battery>() {
+                    @Override
+                    public void accept(Telemetry.Battery battery) throws Exception {
+                        mConnectionStateLiveData.postValue(ConnectionState.CONNECTED);
+                    }
+                }, new Consumer<Throwable>() {
+                    @Override
+                    public void accept(Throwable throwable) throws Exception {
+                        Log.e(TAG, "awaitFirstTelemetry: ", throwable);
+                    }
+                });
+    }
+
+    private <T> T awaitStartupStep(Future<T> step) {
+        try {
+            return step.get();
+        } catch (ExecutionException e) {
+            Log.e(TAG, "awaitStartupStep: ", e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return null;
+    }
+
+    private void showToast(final int resId) {
+        mMainHandler.post(new Runnable() {
+            @Override
+            public void run() {
+                Toast.makeText(mAppContext, resId, Toast.LENGTH_SHORT).show();
+            }
+        });
     }
 
     // Using usb-serial-for-android
@@ -85,7 +387,7 @@ public class DroneRepository {
         List<UsbSerialDriver> driverList = UsbSerialProber.getDefaultProber().findAllDrivers(usbManager);
 
         if (driverList.isEmpty()) {
-            Toast.makeText(mAppContext, R.string.str_usb_device_not_found, Toast.LENGTH_SHORT).show();
+            showToast(R.string.str_usb_device_not_found);
             return NO_ADDRESS;
         }
 
@@ -94,25 +396,18 @@ public class DroneRepository {
         boolean hasPermission = usbManager.hasPermission(usbDevice);
 
         if (!hasPermission) {
-            Toast.makeText(mAppContext, R.string.str_usb_permission_not_granted, Toast.LENGTH_SHORT).show();
+            showToast(R.string.str_usb_permission_not_granted);
             return NO_ADDRESS;
         }
 
         connection = usbManager.openDevice(usbDevice);
-        UsbSerialPort usbSerialPort = usbSerialDriver.getPorts().get(0);
-
         try {
-            usbSerialPort.open(connection);
-            usbSerialPort.setParameters(
-                    USB_BAUD_RATE,
-                    UsbSerialPort.DATABITS_8,
-                    UsbSerialPort.STOPBITS_1,
-                    UsbSerialPort.PARITY_NONE);
+            mBaudRate = openUsbSerialPort(usbSerialDriver, 0, connection).getBaudRate();
         } catch (IOException e) {
-            e.printStackTrace();
+            Log.e(TAG, "initializeUsbDevice: ", e);
+            connection = null;
+            return NO_ADDRESS;
         }
-        Log.d(TAG, "initializeUsbDevice: port isOpen: " + usbSerialPort.isOpen());
-
 
         // Remove comments to read the device data on Java side
 //        SerialInputOutputManager inputOutputManager = new SerialInputOutputManager(usbSerialPort);
@@ -135,7 +430,7 @@ public class DroneRepository {
 //        Executors.newSingleThreadExecutor().submit(inputOutputManager);
 
 
-        String systemAddress = "serial_fd://" + connection.getFileDescriptor() + ":" + USB_BAUD_RATE;
+        String systemAddress = "serial_fd://" + connection.getFileDescriptor() + ":" + mBaudRate;
 //        String droneSystemAddress = "serial://" + usbDevice.getDeviceName() + ":" + USB_BAUD_RATE;
 
         Log.d(TAG, "initializeUsbDevice: " + systemAddress);
@@ -143,6 +438,342 @@ public class DroneRepository {
     }
 
 
+    // Closes the port and the device connection if either the open or the probe fails
+    private UsbSerialLinkPort openUsbSerialPort(UsbSerialDriver usbSerialDriver, int portIndex, UsbDeviceConnection connection) throws IOException {
+        UsbDevice usbDevice = usbSerialDriver.getDevice();
+        if (connection == null) {
+            throw new IOException("openUsbSerialPort: cannot open " + usbDevice.getDeviceName());
+        }
+        UsbSerialPort usbSerialPort = usbSerialDriver.getPorts().get(portIndex);
+        UsbSerialLinkPort linkPort = new UsbSerialLinkPort(usbSerialPort, connection);
+
+        try {
+            usbSerialPort.open(connection);
+            int baudRate = USB_BAUD_RATE;
+            if (DETECT_BAUD_RATE) {
+                StartupTrace.Span probeSpan = mStartupTrace.begin("baud-probe " + usbDevice.getDeviceName() + "/" + portIndex);
+                baudRate = detectBaudRate(linkPort, BaudRateProbe.cacheKey(
+                        usbDevice.getVendorId(), usbDevice.getProductId(), connection.getSerial() + "/" + portIndex));
+                probeSpan.end();
+            }
+            linkPort.setBaudRate(baudRate);
+        } catch (IOException e) {
+            try {
+                linkPort.close();
+            } catch (IOException closeError) {
+                e.addSuppressed(closeError);
+            }
+            throw e;
+        }
+        Log.d(TAG, "openUsbSerialPort: " + usbDevice.getDeviceName() + "/" + portIndex
+                + " isOpen: " + usbSerialPort.isOpen() + " baud: " + linkPort.getBaudRate());
+        return linkPort;
+    }
+
+
+    // Falls back to USB_BAUD_RATE when no candidate rate carries MAVLink
+    private int detectBaudRate(LinkPort linkPort, String cacheKey) throws IOException {
+        BaudRateProbe baudRateProbe = new BaudRateProbe(new SharedPreferencesBaudRateCache(mAppContext));
+        int baudRate = baudRateProbe.probe(linkPort, cacheKey);
+        if (baudRate == BaudRateProbe.NO_BAUD_RATE) {
+            Log.w(TAG, "detectBaudRate: no MAVLink at any candidate rate on " + cacheKey);
+            baudRate = USB_BAUD_RATE;
+        }
+        Log.d(TAG, "detectBaudRate: " + cacheKey + " -> " + baudRate);
+        return baudRate;
+    }
+
+
+    // One mavsdk_server per link, fed through loopback UDP; the first link is the primary vehicle
+    private void initializeFleet() {
+        mFleetManager = new FleetManager(new LinkScheduler(), MavsdkVehicleServer.FACTORY, MAVSDK_SERVER_IP, MAVSDK_SERVER_UDP_PORT);
+        if (ROUTE_TO_GCS) {
+            mFleetManager.setGcsEndpoints(Collections.singletonList(
+                    MavlinkRouter.EndpointSpec.tcpServer("gcs", new InetSocketAddress(GCS_BIND_ADDRESS, GCS_TCP_PORT))));
+        }
+        mFleetManager.addListener(new FleetManager.Listener() {
+            @Override
+            public void onVehicleIdentified(VehicleConnection connection) {
+                Log.d(TAG, "onVehicleIdentified: " + connection);
+                if (connection == mPrimaryConnection) {
+                    mConnectionStateLiveData.postValue(ConnectionState.CONNECTED);
+                }
+            }
+        });
+        // The recorder's file setup does not depend on the links, so it overlaps with them
+        Future<?> tlogRecorderStart = null;
+        if (RECORD_TLOGS) {
+            tlogRecorderStart = mStartupExecutor.submit(new Runnable() {
+                @Override
+                public void run() {
+                    initializeTlogRecorder();
+                }
+            });
+        }
+
+        try {
+            if (IS_SIMULATION) {
+                StartupTrace.Span linkSpan = mStartupTrace.begin("link udp:" + SIMULATION_UDP_PORT);
+                mPrimaryConnection = mFleetManager.addLink(
+                        "udp:" + SIMULATION_UDP_PORT, new UdpLinkPort(new InetSocketAddress(SIMULATION_UDP_PORT)));
+                linkSpan.end();
+            } else {
+                mPrimaryConnection = addUsbLinks();
+            }
+        } catch (IOException e) {
+            Log.e(TAG, "initializeFleet: ", e);
+        }
+        if (tlogRecorderStart != null) {
+            awaitStartupStep(tlogRecorderStart);
+        }
+
+        if (mPrimaryConnection == null) {
+            if (mTlogRecorder != null) {
+                mTlogRecorder.stop();
+                mTlogRecorder = null;
+            }
+            initializeServerAndDrone(NO_ADDRESS);
+            setTelemetryHub(new TelemetryHub(mDrone.getTelemetry()));
+            mConnectionStateLiveData.postValue(ConnectionState.WAITING_FOR_VEHICLE);
+            return;
+        }
+
+        mDrone = ((MavsdkVehicleServer) mPrimaryConnection.getServer()).getDrone();
+        if (mPrimaryConnection.getLinkPort() instanceof UsbSerialLinkPort) {
+            mBaudRate = ((UsbSerialLinkPort) mPrimaryConnection.getLinkPort()).getBaudRate();
+        }
+        if (mTlogRecorder != null) {
+            mPrimaryConnection.setFrameTap(mTlogRecorder);
+        }
+        if (MEASURE_LINK_QUALITY) {
+            mPrimaryConnection.setVehicleFrameTap(mLinkQualityEstimator);
+        }
+        setTelemetryHub(mPrimaryConnection.getTelemetryHub());
+        if (MANAGE_LINK_BUDGET && !IS_SIMULATION) {
+            initializeLinkBudget();
+        }
+
+        // The heartbeat may have arrived before the primary connection was known
+        mConnectionStateLiveData.postValue(ConnectionState.WAITING_FOR_VEHICLE);
+        if (mPrimaryConnection.getSystemId() != VehicleConnection.UNKNOWN_SYSTEM_ID) {
+            mConnectionStateLiveData.postValue(ConnectionState.CONNECTED);
+        }
+
+        // A reconnect restarts the primary vehicle's server; follow it to the new System and hub
+        mPrimaryConnection.addListener(new VehicleConnection.Listener() {
+            @Override
+            public void onTelemetryHubChanged(VehicleConnection connection, TelemetryHub telemetryHub) {
+                mDrone = ((MavsdkVehicleServer) connection.getServer()).getDrone();
+                setTelemetryHub(telemetryHub);
+            }
+        });
+    }
+
+
+    // Every port of every USB serial device the app may use, each reconnected after a replug.
+    // Ports are opened, probed and given their servers in parallel; returns the first port's connection.
+    // A port that fails to open is logged and left out.
+    private VehicleConnection addUsbLinks() {
+        final UsbManager usbManager = (UsbManager) mAppContext.getSystemService(Context.USB_SERVICE);
+        StartupTrace.Span discoverSpan = mStartupTrace.begin("usb-discover");
+        List<UsbSerialDriver> driverList = mUsbDriverCache.findAllDrivers(usbManager);
+        discoverSpan.end();
+
+        if (driverList.isEmpty()) {
+            showToast(R.string.str_usb_device_not_found);
+            return null;
+        }
+
+        List<Future<VehicleConnection>> linkStarts = new ArrayList<>();
+        for (final UsbSerialDriver usbSerialDriver : driverList) {
+            final UsbDevice usbDevice = usbSerialDriver.getDevice();
+            if (!usbManager.hasPermission(usbDevice)) {
+                showToast(R.string.str_usb_permission_not_granted);
+                continue;
+            }
+            for (int i = 0; i < usbSerialDriver.getPorts().size(); i++) {
+                final int portIndex = i;
+                linkStarts.add(mStartupExecutor.submit(new Callable<VehicleConnection>() {
+                    @Override
+                    public VehicleConnection call() throws IOException {
+                        String name = usbDevice.getDeviceName() + "/" + portIndex;
+                        StartupTrace.Span linkSpan = mStartupTrace.begin("link " + name);
+                        UsbSerialLinkPort linkPort = openUsbSerialPort(usbSerialDriver, portIndex, usbManager.openDevice(usbDevice));
+                        VehicleConnection connection;
+                        try {
+                            connection = mFleetManager.addLink(name, linkPort);
+                        } catch (IOException | RuntimeException e) {
+                            try {
+                                linkPort.close();
+                            } catch (IOException closeError) {
+                                e.addSuppressed(closeError);
+                            }
+                            throw e;
+                        }
+                        superviseUsbLink(connection, new UsbLink(usbDevice, portIndex));
+                        linkSpan.end();
+                        return connection;
+                    }
+                }));
+            }
+        }
+
+        VehicleConnection primaryConnection = null;
+        for (Future<VehicleConnection> linkStart : linkStarts) {
+            VehicleConnection connection = awaitStartupStep(linkStart);
+            if (primaryConnection == null) {
+                primaryConnection = connection;
+            }
+        }
+        registerUsbReceiver();
+        return primaryConnection;
+    }
+
+
+    private void superviseUsbLink(VehicleConnection connection, final UsbLink usbLink) {
+        usbLink.supervisor = mFleetManager.supervise(connection, new ConnectionSupervisor.PortOpener() {
+            @Override
+            public LinkPort open() throws IOException {
+                return reopenUsbLink(usbLink);
+            }
+        });
+        usbLink.supervisor.addListener(new ConnectionSupervisor.Listener() {
+            @Override
+            public void onLinkLost(ConnectionSupervisor supervisor) {
+                Log.d(TAG, "onLinkLost: " + supervisor.getConnection());
+                if (supervisor.getConnection() == mPrimaryConnection) {
+                    mConnectionStateLiveData.postValue(ConnectionState.WAITING_FOR_VEHICLE);
+                }
+            }
+
+            @Override
+            public void onLinkRestored(ConnectionSupervisor supervisor, long restoreNanos) {
+                Log.d(TAG, "onLinkRestored: " + supervisor.getConnection() + " in " + restoreNanos / 1_000_000 + " ms");
+                if (supervisor.getConnection() == mPrimaryConnection) {
+                    mConnectionStateLiveData.postValue(ConnectionState.CONNECTED);
+                    if (mLinkBudgetManager != null) {
+                        mLinkBudgetManager.reapply();
+                    }
+                }
+            }
+        });
+        synchronized (mUsbLinks) {
+            mUsbLinks.add(usbLink);
+        }
+    }
+
+
+    // Called on the supervisor thread; null while the device is absent or not yet permitted,
+    // and throws if the port cannot be opened or probed
+    private LinkPort reopenUsbLink(UsbLink usbLink) throws IOException {
+        UsbManager usbManager = (UsbManager) mAppContext.getSystemService(Context.USB_SERVICE);
+        for (UsbDevice usbDevice : usbManager.getDeviceList().values()) {
+            if (usbDevice.getVendorId() != usbLink.vendorId
+                    || usbDevice.getProductId() != usbLink.productId
+                    || isClaimedByOtherUsbLink(usbDevice, usbLink)
+                    || !usbManager.hasPermission(usbDevice)) {
+                continue;
+            }
+            UsbSerialDriver usbSerialDriver = mUsbDriverCache.probeDevice(usbDevice);
+            if (usbSerialDriver == null || usbSerialDriver.getPorts().size() <= usbLink.portIndex) {
+                continue;
+            }
+            UsbDeviceConnection usbDeviceConnection = usbManager.openDevice(usbDevice);
+            if (usbDeviceConnection == null) {
+                continue;
+            }
+            usbLink.deviceName = usbDevice.getDeviceName();
+            return openUsbSerialPort(usbSerialDriver, usbLink.portIndex, usbDeviceConnection);
+        }
+        return null;
+    }
+
+
+    private boolean isClaimedByOtherUsbLink(UsbDevice usbDevice, UsbLink usbLink) {
+        synchronized (mUsbLinks) {
+            for (UsbLink other : mUsbLinks) {
+                if (other != usbLink
+                        && other.portIndex == usbLink.portIndex
+                        && other.supervisor.getState() == ConnectionSupervisor.State.CONNECTED
+                        && usbDevice.getDeviceName().equals(other.deviceName)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+
+    private void registerUsbReceiver() {
+        mUsbReceiver = new BroadcastReceiver() {
+            @Override
+            public void onReceive(Context context, Intent intent) {
+                UsbDevice usbDevice = intent.getParcelableExtra(UsbManager.EXTRA_DEVICE);
+                if (usbDevice == null) {
+                    return;
+                }
+                boolean attached = UsbManager.ACTION_USB_DEVICE_ATTACHED.equals(intent.getAction());
+                Log.d(TAG, "onReceive: " + intent.getAction() + " " + usbDevice.getDeviceName());
+                synchronized (mUsbLinks) {
+                    for (UsbLink usbLink : mUsbLinks) {
+                        if (attached && usbDevice.getVendorId() == usbLink.vendorId && usbDevice.getProductId() == usbLink.productId) {
+                            usbLink.supervisor.onDeviceAttached();
+                        } else if (!attached && usbDevice.getDeviceName().equals(usbLink.deviceName)) {
+                            usbLink.supervisor.onDeviceDetached();
+                        }
+                    }
+                }
+            }
+        };
+        IntentFilter intentFilter = new IntentFilter();
+        intentFilter.addAction(UsbManager.ACTION_USB_DEVICE_ATTACHED);
+        intentFilter.addAction(UsbManager.ACTION_USB_DEVICE_DETACHED);
+        mAppContext.registerReceiver(mUsbReceiver, intentFilter);
+    }
+
+
+    private void initializeTlogRecorder() {
+        StartupTrace.Span recorderSpan = mStartupTrace.begin("tlog-recorder");
+        TlogRecorder tlogRecorder = new TlogRecorder(new File(mAppContext.getExternalFilesDir(null), TLOG_DIRECTORY));
+        try {
+            tlogRecorder.start();
+            mTlogRecorder = tlogRecorder;
+        } catch (IOException e) {
+            Log.e(TAG, "initializeTlogRecorder: ", e);
+        }
+        recorderSpan.end();
+    }
+
+
+    // Opens this flight's columnar export; the history subscriptions feed it
+    private void initializeTelemetryExport() {
+        File directory = new File(mAppContext.getExternalFilesDir(null), EXPORT_DIRECTORY);
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            Log.e(TAG, "initializeTelemetryExport: cannot create " + directory);
+            return;
+        }
+        String name = "flight-" + new SimpleDateFormat("yyyyMMdd-HHmmss", Locale.US).format(new Date())
+                + TelemetryExportWriter.FILE_EXTENSION;
+        try {
+            mTelemetryExportWriter = new TelemetryExportWriter(new File(directory, name));
+        } catch (IOException e) {
+            Log.e(TAG, "initializeTelemetryExport: ", e);
+        }
+    }
+
+    // Sends to the simulation port on loopback, where the fleet link or mavsdk_server listens
+    private void initializeVehicleSimulator() {
+        try {
+            mVehicleSimulator = new VehicleSimulator(
+                    new InetSocketAddress(InetAddress.getLoopbackAddress(), 0),
+                    new InetSocketAddress(InetAddress.getLoopbackAddress(), SIMULATION_UDP_PORT));
+            mVehicleSimulator.setPositionRate(SIMULATION_POSITION_RATE_HZ);
+            mVehicleSimulator.start();
+        } catch (IOException e) {
+            Log.e(TAG, "initializeVehicleSimulator: ", e);
+        }
+    }
+
     // Without using usb-serial-for-android
 //    private String initializeUsbDevice() {
 //        UsbManager usbManager = (UsbManager) mAppContext.getSystemService(Context.USB_SERVICE);
@@ -169,148 +800,376 @@ public class DroneRepository {
 
 
     private void initializeServerAndDrone(String systemAddress) {
+        StartupTrace.Span serverSpan = mStartupTrace.begin("mavsdk-server");
         mMavsdkServer = new MavsdkServer();
         int mavsdkServerPort = mMavsdkServer.run(systemAddress);
         mDrone = new System(MAVSDK_SERVER_IP, mavsdkServerPort);
+        serverSpan.end();
 
 //        connection.close();
     }
 
+    // Streams follow whichever hub was set last, so a restarted server keeps feeding the same LiveData
+    private void setTelemetryHub(TelemetryHub telemetryHub) {
+        if (mTelemetryHub != null) {
+            mTelemetryHub.setSampleListener(null);
+        }
+        mTelemetryHub = telemetryHub;
+        telemetryHub.setSampleListener(mSampleListener);
+        if (mLinkBudgetManager != null) {
+            telemetryHub.setObserverCountListener(mObserverCountListener);
+        }
+        mTelemetryHubs.onNext(telemetryHub);
+    }
+
+    // Streams run on the telemetry scheduler and reach the UI together, once per frame
     private void initializeDataStreams() {
-        // Position
-        Flowable<PositionRelative> positionRelativeFlowable =
-                mDrone.getTelemetry().getPositionVelocityNed()
-                        .throttleFirst(THROTTLE_TIME_MILLIS, TimeUnit.MILLISECONDS)
-                        .map(new Function<Telemetry.PositionVelocityNed, PositionRelative>() {
-                            @Override
-                            public PositionRelative apply(Telemetry.PositionVelocityNed positionVelocityNed) throws Exception {
-                                float distance = (float) Math.hypot(positionVelocityNed.getPosition().getNorthM(), positionVelocityNed.getPosition().getEastM());
-                                float height = Math.abs(positionVelocityNed.getPosition().getDownM());
-                                return new PositionRelative(distance, height);
-                            }
-                        })
-                        .subscribeOn(Schedulers.io());
-        mPositionRelativeLiveData = LiveDataReactiveStreams.fromPublisher(positionRelativeFlowable);
-
-        // Speed
-        Flowable<Speed> speedFlowable =
-                mDrone.getTelemetry().getPositionVelocityNed()
-                        .throttleFirst(THROTTLE_TIME_MILLIS, TimeUnit.MILLISECONDS)
-                        .map(new Function<Telemetry.PositionVelocityNed, Speed>() {
-                            @Override
-                            public Speed apply(Telemetry.PositionVelocityNed positionVelocityNed) throws Exception {
-                                float hspeed = (float) Math.hypot(positionVelocityNed.getVelocity().getNorthMS(), positionVelocityNed.getVelocity().getEastMS());
-                                float vspeed = Math.abs(positionVelocityNed.getVelocity().getDownMS());
-                                return new Speed(hspeed, vspeed);
-                            }
-                        })
-                        .subscribeOn(Schedulers.io());
-        mSpeedLiveData =  LiveDataReactiveStreams.fromPublisher(speedFlowable);
+        // Position and Speed
+        final StreamMetrics telemetrySnapshotMetrics = mMetricsRegistry.register("snapshot", mRatePolicies.get(TelemetryTopic.POSITION_VELOCITY_NED));
+        Flowable<TelemetrySnapshot> telemetrySnapshotFlowable =
+                mTelemetryHubs.switchMap(new Function<TelemetryHub, Publisher<TelemetrySnapshot>>() {
+                    @Override
+                    public Publisher<TelemetrySnapshot> apply(TelemetryHub telemetryHub) throws Exception {
+                        return telemetryHub.getTelemetrySnapshot();
+                    }
+                })
+                        .doOnNext(telemetrySnapshotMetrics.<TelemetrySnapshot>arrivals())
+                        .compose(mRatePolicies.get(TelemetryTopic.POSITION_VELOCITY_NED).<TelemetrySnapshot>transformer())
+                        .subscribeOn(mTelemetryScheduler.getScheduler());
+        mTelemetrySnapshotLiveData = instrument(mFrameDispatcher.toLiveData(telemetrySnapshotFlowable), telemetrySnapshotMetrics);
 
         // Battery
+        final StreamMetrics batteryMetrics = mMetricsRegistry.register("battery", mRatePolicies.get(TelemetryTopic.BATTERY));
         Flowable<Telemetry.Battery> batteryFlowable =
-                mDrone.getTelemetry().getBattery()
-                        .throttleFirst(THROTTLE_TIME_MILLIS, TimeUnit.MILLISECONDS)
-                        .subscribeOn(Schedulers.io());
-        mBatteryLiveData = LiveDataReactiveStreams.fromPublisher(batteryFlowable);
+                mTelemetryHubs.switchMap(new Function<TelemetryHub, Publisher<Telemetry.Battery>>() {
+                    @Override
+                    public Publisher<Telemetry.Battery> apply(TelemetryHub telemetryHub) throws Exception {
+                        return telemetryHub.getBattery();
+                    }
+                })
+                        .doOnNext(batteryMetrics.<Telemetry.Battery>arrivals())
+                        .compose(mRatePolicies.get(TelemetryTopic.BATTERY).<Telemetry.Battery>transformer())
+                        .subscribeOn(mTelemetryScheduler.getScheduler());
+        mBatteryLiveData = instrument(mFrameDispatcher.toLiveData(batteryFlowable), batteryMetrics);
 
         // GpsInfo
+        final StreamMetrics gpsInfoMetrics = mMetricsRegistry.register("gps-info", mRatePolicies.get(TelemetryTopic.GPS_INFO));
         Flowable<Telemetry.GpsInfo> gpsInfoFlowable =
-                mDrone.getTelemetry().getGpsInfo()
-                        .throttleFirst(THROTTLE_TIME_MILLIS, TimeUnit.MILLISECONDS)
-                        .subscribeOn(Schedulers.io());
-        mGpsInfoLiveData = LiveDataReactiveStreams.fromPublisher(gpsInfoFlowable);
+                mTelemetryHubs.switchMap(new Function<TelemetryHub, Publisher<Telemetry.GpsInfo>>() {
+                    @Override
+                    public Publisher<Telemetry.GpsInfo> apply(TelemetryHub telemetryHub) throws Exception {
+                        return telemetryHub.getGpsInfo();
+                    }
+                })
+                        .doOnNext(gpsInfoMetrics.<Telemetry.GpsInfo>arrivals())
+                        .compose(mRatePolicies.get(TelemetryTopic.GPS_INFO).<Telemetry.GpsInfo>transformer())
+                        .subscribeOn(mTelemetryScheduler.getScheduler());
+        mGpsInfoLiveData = instrument(mFrameDispatcher.toLiveData(gpsInfoFlowable), gpsInfoMetrics);
 
         // Location
+        final StreamMetrics positionMetrics = mMetricsRegistry.register("position", mRatePolicies.get(TelemetryTopic.POSITION));
         Flowable<Telemetry.Position> positionFlowable =
-                mDrone.getTelemetry().getPosition()
-                        .throttleFirst(THROTTLE_TIME_MILLIS, TimeUnit.MILLISECONDS)
-                        .subscribeOn(Schedulers.io());
-        mPositionLiveData = LiveDataReactiveStreams.fromPublisher(positionFlowable);
+                mTelemetryHubs.switchMap(new Function<TelemetryHub, Publisher<Telemetry.Position>>() {
+                    @Override
+                    public Publisher<Telemetry.Position> apply(TelemetryHub telemetryHub) throws Exception {
+                        return telemetryHub.getPosition();
+                    }
+                })
+                        .doOnNext(positionMetrics.<Telemetry.Position>arrivals())
+                        .compose(mRatePolicies.get(TelemetryTopic.POSITION).<Telemetry.Position>transformer())
+                        .subscribeOn(mTelemetryScheduler.getScheduler());
+        mPositionLiveData = instrument(mFrameDispatcher.toLiveData(positionFlowable), positionMetrics);
+
+        // Attitude
+        final StreamMetrics attitudeMetrics = mMetricsRegistry.register("attitude", mRatePolicies.get(TelemetryTopic.ATTITUDE));
+        Flowable<Telemetry.EulerAngle> attitudeFlowable =
+                mTelemetryHubs.switchMap(new Function<TelemetryHub, Publisher<Telemetry.EulerAngle>>() {
+                    @Override
+                    public Publisher<Telemetry.EulerAngle> apply(TelemetryHub telemetryHub) throws Exception {
+                        return telemetryHub.getAttitude();
+                    }
+                })
+                        .doOnNext(attitudeMetrics.<Telemetry.EulerAngle>arrivals())
+                        .compose(mRatePolicies.get(TelemetryTopic.ATTITUDE).<Telemetry.EulerAngle>transformer())
+                        .subscribeOn(mTelemetryScheduler.getScheduler());
+        mAttitudeLiveData = instrument(mFrameDispatcher.toLiveData(attitudeFlowable), attitudeMetrics);
     }
 
-    private void initializeDummyDataStreams() {
-        Random random = new Random();
+    // Records each delivery to the UI; the mediator only subscribes upstream while it is observed itself
+    private static <T> LiveData<T> instrument(LiveData<T> source, final StreamMetrics streamMetrics) {
+        final MediatorLiveData<T> instrumented = new MediatorLiveData<>();
+        instrumented.addSource(source, new Observer<T>() {
+            @Override
+            public void onChanged(T t) {
+                streamMetrics.onDelivered();
+                instrumented.setValue(t);
+            }
+        });
+        return instrumented;
+    }
 
-        // Position
-        Flowable<PositionRelative> positionRelativeDummyFlowable =
-                Flowable
-                        .interval(THROTTLE_TIME_MILLIS, TimeUnit.MILLISECONDS)
-                        .map(new Function<Long, PositionRelative>() {
+    private void initializeMetrics() {
+        mMetricsRegistry.setTelemetryScheduler(mTelemetryScheduler);
+        if (MEASURE_LINK_QUALITY) {
+            mMetricsRegistry.setLinkQualityEstimator(mLinkQualityEstimator);
+        }
+        mMetricsTextLiveData = LiveDataReactiveStreams.fromPublisher(
+                Flowable.interval(0, METRICS_OVERLAY_INTERVAL_MILLIS, TimeUnit.MILLISECONDS, mTelemetryScheduler.getScheduler())
+                        .map(new Function<Long, String>() {
                             @Override
-                            public PositionRelative apply(Long aLong) throws Exception {
-                                return new PositionRelative(100 * random.nextFloat(), 100 * random.nextFloat());
+                            public String apply(Long tick) throws Exception {
+                                return mMetricsRegistry.toText();
                             }
-                        });
-        mPositionRelativeLiveData = LiveDataReactiveStreams.fromPublisher(positionRelativeDummyFlowable);
+                        }));
 
-        // Speed
-        Flowable<Speed> droneSpeedDummyFlowable =
-                Flowable
-                        .interval(THROTTLE_TIME_MILLIS, TimeUnit.MILLISECONDS)
-                        .map(new Function<Long, Speed>() {
-                            @Override
-                            public Speed apply(Long aLong) throws Exception {
-                                return new Speed(10 * random.nextFloat(), 10 * random.nextFloat());
+        if (DUMP_METRICS) {
+            final File metricsDirectory = new File(mAppContext.getExternalFilesDir(null), METRICS_DIRECTORY);
+            mMetricsDumpDisposable = Flowable.interval(METRICS_DUMP_INTERVAL_MILLIS, TimeUnit.MILLISECONDS, Schedulers.io())
+                    .subscribe(new Consumer<Long>() {
+                        @Override
+                        public void accept(Long tick) throws Exception {
+                            try {
+                                mMetricsRegistry.dump(metricsDirectory, java.lang.System.currentTimeMillis());
+                            } catch (IOException e) {
+                                Log.e(TAG, "initializeMetrics: ", e);
                             }
-                        });
-        mSpeedLiveData = LiveDataReactiveStreams.fromPublisher(droneSpeedDummyFlowable);
+                        }
+                    });
+        }
+    }
 
-        // Battery
-        Flowable<Telemetry.Battery> batteryDummyFlowable =
-                Flowable
-                        .intervalRange(0, 21, 0, THROTTLE_TIME_MILLIS, TimeUnit.MILLISECONDS)
-                        .repeat()
-                        .map(new Function<Long, Telemetry.Battery>() {
-                            @Override
-                            public Telemetry.Battery apply(Long aLong) throws Exception {
-                                return new Telemetry.Battery((float) (16.8 + aLong * (12.6 - 16.8) / 21), 1 - aLong.floatValue() * 5 * 0.01f);
-                            }
-                        });
-        mBatteryLiveData = LiveDataReactiveStreams.fromPublisher(batteryDummyFlowable);
+    // Reads the previous run's state on the calling thread, so it is there for the first frame,
+    // then writes the latest samples back every second
+    private void initializeLastKnownState() {
+        StartupTrace.Span span = mStartupTrace.begin("last-known-state");
+        try {
+            mLastKnownStateStore = new LastKnownStateStore(new File(mAppContext.getFilesDir(), LAST_KNOWN_STATE_FILE));
+            mLastKnownState = mLastKnownStateStore.read();
+        } catch (IOException e) {
+            Log.e(TAG, "initializeLastKnownState: ", e);
+            return;
+        } finally {
+            span.end();
+        }
+        mLastKnownStateDisposable = Flowable.interval(LAST_KNOWN_STATE_INTERVAL_MILLIS, TimeUnit.MILLISECONDS, Schedulers.io())
+                .subscribe(new Consumer<Long>() {
+                    @Override
+                    public void accept(Long tick) throws Exception {
+                        mLastKnownStateStore.flush();
+                    }
+                });
+    }
 
-        // GpsInfo
-        Flowable<Telemetry.GpsInfo> gpsInfoDummyFlowable =
-                Flowable
-                        .intervalRange(0, 11, 0, THROTTLE_TIME_MILLIS, TimeUnit.MILLISECONDS)
-                        .repeat()
-                        .map(new Function<Long, Telemetry.GpsInfo>() {
+    // Records the raw samples of each hub, unthrottled, while the UI observes them, and exports
+    // them once the export is open; alerts and the last known state see the same samples. The
+    // listener taps the hub rather than subscribing, so it leaves the idle rates alone.
+    private void initializeHistory() {
+        mSampleListener = new TelemetryHub.SampleListener() {
+            @Override
+            public void onPosition(Telemetry.Position position) {
+                long timeMillis = java.lang.System.currentTimeMillis();
+                mTelemetryHistory.recordPosition(timeMillis, position);
+                mFlightTrack.append(position);
+                TelemetryExportWriter exportWriter = mTelemetryExportWriter;
+                if (exportWriter != null) {
+                    exportWriter.writePosition(timeMillis, position);
+                }
+                if (EVALUATE_ALERTS) {
+                    offerAlertSample(mPositionAlertSlot, position);
+                }
+                if (mLastKnownStateStore != null) {
+                    mLastKnownStateStore.onPosition(timeMillis, position);
+                }
+            }
+
+            @Override
+            public void onBattery(Telemetry.Battery battery) {
+                long timeMillis = java.lang.System.currentTimeMillis();
+                mTelemetryHistory.recordBattery(timeMillis, battery);
+                TelemetryExportWriter exportWriter = mTelemetryExportWriter;
+                if (exportWriter != null) {
+                    exportWriter.writeBattery(timeMillis, battery);
+                }
+                if (EVALUATE_ALERTS) {
+                    offerAlertSample(mBatteryAlertSlot, battery);
+                }
+                if (mLastKnownStateStore != null) {
+                    mLastKnownStateStore.onBattery(timeMillis, battery);
+                }
+            }
+
+            @Override
+            public void onGpsInfo(Telemetry.GpsInfo gpsInfo) {
+                long timeMillis = java.lang.System.currentTimeMillis();
+                mTelemetryHistory.recordGpsInfo(timeMillis, gpsInfo);
+                TelemetryExportWriter exportWriter = mTelemetryExportWriter;
+                if (exportWriter != null) {
+                    exportWriter.writeGpsInfo(timeMillis, gpsInfo);
+                }
+                if (EVALUATE_ALERTS) {
+                    offerAlertSample(mGpsInfoAlertSlot, gpsInfo);
+                }
+                if (mLastKnownStateStore != null) {
+                    mLastKnownStateStore.onGpsInfo(timeMillis, gpsInfo);
+                }
+            }
+
+            @Override
+            public void onPositionVelocityNed(Telemetry.PositionVelocityNed positionVelocityNed) {
+                long timeMillis = java.lang.System.currentTimeMillis();
+                mTelemetryHistory.recordPositionVelocityNed(timeMillis, positionVelocityNed);
+                TelemetryExportWriter exportWriter = mTelemetryExportWriter;
+                if (exportWriter != null) {
+                    exportWriter.writePositionVelocityNed(timeMillis, positionVelocityNed);
+                }
+                if (EVALUATE_ALERTS) {
+                    offerAlertSample(mPositionVelocityNedAlertSlot, positionVelocityNed);
+                }
+                if (mLastKnownStateStore != null) {
+                    mLastKnownStateStore.onPositionVelocityNed(timeMillis, positionVelocityNed);
+                }
+            }
+        };
+    }
+
+    // Called on the streams' threads with the sample's arrival time; a drain is scheduled only
+    // when a slot fills and none is waiting already
+    private <T> void offerAlertSample(AlertSampleSlot<T> slot, T sample) {
+        if (slot.offer(sample, java.lang.System.nanoTime()) && mAlertDrainScheduled.compareAndSet(false, true)) {
+            mAlertWorker.schedule(mAlertDrain);
+        }
+    }
+
+    // Runs on the alert worker. The flag is cleared first, so a sample offered meanwhile is
+    // either taken here or schedules the next drain. The active list is built outside the
+    // engine's callbacks.
+    private void drainAlertSlots() {
+        mAlertDrainScheduled.set(false);
+        mPositionAlertSlot.drain();
+        mBatteryAlertSlot.drain();
+        mGpsInfoAlertSlot.drain();
+        mPositionVelocityNedAlertSlot.drain();
+        if (mAlertsChanged) {
+            mAlertsChanged = false;
+            mActiveAlertsLiveData.postValue(mAlertEngine.getActiveRules());
+        }
+    }
+
+    // Sets the vehicle's stream rates from observer demand and the radio's capacity
+    private void initializeLinkBudget() {
+        mLinkBudgetManager = new LinkBudgetManager(mBaudRate, new LinkBudgetManager.RateSetter() {
+            @Override
+            public void setRate(final TelemetryTopic topic, final double rateHz) {
+                Telemetry telemetry = mDrone.getTelemetry();
+                Completable setRate;
+                switch (topic) {
+                    case POSITION_VELOCITY_NED:
+                        setRate = telemetry.setRatePositionVelocityNed(rateHz);
+                        break;
+                    case POSITION:
+                        setRate = telemetry.setRatePosition(rateHz);
+                        break;
+                    case ATTITUDE:
+                        setRate = telemetry.setRateAttitude(rateHz);
+                        break;
+                    case BATTERY:
+                        setRate = telemetry.setRateBattery(rateHz);
+                        break;
+                    case GPS_INFO:
+                        setRate = telemetry.setRateGpsInfo(rateHz);
+                        break;
+                    default:
+                        return;
+                }
+                setRate.subscribeOn(Schedulers.io())
+                        .subscribe(new Action() {
                             @Override
-                            public Telemetry.GpsInfo apply(Long aLong) throws Exception {
-                                return new Telemetry.GpsInfo((int) (2 * aLong), Telemetry.FixType.FIX_3D);
+                            public void run() throws Exception {
+                                Log.d(TAG, "setRate: " + topic + " " + rateHz + "Hz");
                             }
-                        });
-        mGpsInfoLiveData = LiveDataReactiveStreams.fromPublisher(gpsInfoDummyFlowable);
-
-        // Position
-        List<Integer> arr = IntStream.rangeClosed(0, 50).boxed().collect(Collectors.toList());
-        arr.addAll(Lists.reverse(arr));
-        Flowable<Telemetry.Position> positionDummyFlowable =
-                Flowable
-                        .intervalRange(0, arr.size(), 0, 100, TimeUnit.MILLISECONDS)
-                        .repeat()
-                        .map(new Function<Long, Telemetry.Position>() {
+                        }, new Consumer<Throwable>() {
                             @Override
-                            public Telemetry.Position apply(Long aLong) throws Exception {
-                                return new Telemetry.Position(
-                                        12.904993 + (12.906055 - 12.904993) * arr.get(aLong.intValue()) / (arr.size()/2),
-                                        80.157708 + (80.159610 - 80.157708) * arr.get(aLong.intValue()) / (arr.size()/2),
-                                        80f,
-                                        20f
-                                );
+                            public void accept(Throwable throwable) throws Exception {
+                                Log.e(TAG, "setRate: " + topic, throwable);
                             }
                         });
+            }
+        });
+        mObserverCountListener = new TelemetryHub.ObserverCountListener() {
+            @Override
+            public void onObserverCountChanged(TelemetryTopic topic, int observers) {
+                mLinkBudgetManager.setObserverCount(topic, observers);
+            }
+        };
+        mTelemetryHub.setObserverCountListener(mObserverCountListener);
+
+        if (mPrimaryConnection != null) {
+            mLinkUtilisationDisposable = Flowable.interval(LINK_BUDGET_INTERVAL_MILLIS, TimeUnit.MILLISECONDS, mTelemetryScheduler.getScheduler())
+                    .subscribe(new Consumer<Long>() {
+                        private VehicleLink mLastLink;
+                        private long mLastSerialBytesIn;
 
-        mPositionLiveData = LiveDataReactiveStreams.fromPublisher(positionDummyFlowable);
+                        @Override
+                        public void accept(Long tick) throws Exception {
+                            VehicleLink link = mPrimaryConnection.getLink();
+                            if (link == null) {
+                                return;
+                            }
+                            long serialBytesIn = link.getSerialBytesIn();
+                            if (link == mLastLink) {
+                                mLinkBudgetManager.setMeasuredBytesPerSecond(
+                                        (serialBytesIn - mLastSerialBytesIn) * 1000.0 / LINK_BUDGET_INTERVAL_MILLIS);
+                                Log.d(TAG, "initializeLinkBudget: " + mLinkBudgetManager);
+                            }
+                            mLastLink = link;
+                            mLastSerialBytesIn = serialBytesIn;
+                        }
+                    });
+        }
     }
 
+    // Plays back the latest recorded flight, either straight into the streams or through mavsdk_server
+    private void initializeReplay() {
+        List<File> tlogs = TlogReplayer.findLatestSession(new File(mAppContext.getExternalFilesDir(null), TLOG_DIRECTORY));
+        if (tlogs.isEmpty()) {
+            Log.w(TAG, "initializeReplay: no recorded flights");
+        }
 
-    public LiveData<PositionRelative> getPositionRelative() {
-        return mPositionRelativeLiveData;
+        MavlinkFrameParser.Listener replaySink;
+        TelemetryHub telemetryHub;
+        try {
+            if (REPLAY_THROUGH_MAVSDK_SERVER) {
+                mReplayFrameSink = new UdpFrameSink(new InetSocketAddress(MAVSDK_SERVER_IP, MAVSDK_SERVER_UDP_PORT));
+                replaySink = mReplayFrameSink;
+                initializeServerAndDrone("udp://" + MAVSDK_SERVER_IP + ":" + MAVSDK_SERVER_UDP_PORT);
+                telemetryHub = new TelemetryHub(mDrone.getTelemetry());
+            } else {
+                MavlinkTelemetryDecoder decoder = new MavlinkTelemetryDecoder(0);
+                replaySink = decoder;
+                telemetryHub = new TelemetryHub(
+                        decoder.getPositionVelocityNed(),
+                        decoder.getBattery(),
+                        decoder.getGpsInfo(),
+                        decoder.getPosition(),
+                        decoder.getAttitude());
+            }
+            mTlogReplayer = new TlogReplayer(new TlogReader(tlogs), replaySink);
+        } catch (IOException e) {
+            Log.e(TAG, "initializeReplay: ", e);
+            mConnectionStateLiveData.postValue(ConnectionState.FAILED);
+            return;
+        }
+
+        setTelemetryHub(telemetryHub);
+        mTlogReplayer.setSpeed(REPLAY_SPEED);
+        mTlogReplayer.setLooping(true);
+        mTlogReplayer.start();
+        mConnectionStateLiveData.postValue(tlogs.isEmpty() ? ConnectionState.WAITING_FOR_VEHICLE : ConnectionState.CONNECTED);
     }
 
-    public LiveData<Speed> getSpeed() {
-        return mSpeedLiveData;
+
+    public LiveData<TelemetrySnapshot> getTelemetrySnapshot() {
+        return mTelemetrySnapshotLiveData;
     }
 
     public LiveData<Telemetry.Battery> getBattery() {
@@ -325,8 +1184,154 @@ public class DroneRepository {
         return mPositionLiveData;
     }
 
+    public LiveData<Telemetry.EulerAngle> getAttitude() {
+        return mAttitudeLiveData;
+    }
+
+    /**
+     * @return Where startup and the primary vehicle's link stand; starts at INITIALISING.
+     */
+    public LiveData<ConnectionState> getConnectionState() {
+        return mConnectionStateLiveData;
+    }
+
+    public MetricsRegistry getMetricsRegistry() {
+        return mMetricsRegistry;
+    }
+
+    /**
+     * @return The metrics as text, refreshed every second while observed; for the debug overlay.
+     */
+    public LiveData<String> getMetricsText() {
+        return mMetricsTextLiveData;
+    }
+
+    /**
+     * @return Every field's samples received while the field was observed, up to a fixed
+     *     capacity; empty when RECORD_HISTORY is off.
+     */
+    public TelemetryHistory getTelemetryHistory() {
+        return mTelemetryHistory;
+    }
+
+    /**
+     * @return The latest samples of the previous run, read at startup; empty if there
+     *     were none.
+     */
+    public LastKnownState getLastKnownState() {
+        return mLastKnownState;
+    }
+
+    /**
+     * @return The alerts raised now; set only when one is raised or cleared.
+     */
+    public LiveData<List<AlertRule>> getActiveAlerts() {
+        return mActiveAlertsLiveData;
+    }
+
+    /**
+     * @return The simplified path flown since startup, with distance flown and from home.
+     */
+    public FlightTrack getFlightTrack() {
+        return mFlightTrack;
+    }
+
+    /**
+     * @return Loss, jitter and radio figures for the primary vehicle's link; read them
+     *     with {@link LinkQualityEstimator#read}, from any thread.
+     */
+    public LinkQualityEstimator getLinkQuality() {
+        return mLinkQualityEstimator;
+    }
+
+    public StartupTrace getStartupTrace() {
+        return mStartupTrace;
+    }
+
+    public RatePolicies getRatePolicies() {
+        return mRatePolicies;
+    }
+
+    public FleetManager getFleetManager() {
+        return mFleetManager;
+    }
+
+    public LinkBudgetManager getLinkBudgetManager() {
+        return mLinkBudgetManager;
+    }
+
     public void destroy() {
-        mDrone.dispose();
-        mMavsdkServer.stop();
+        mStartupExecutor.shutdown();
+        if (mTelemetryHub != null) {
+            mTelemetryHub.setSampleListener(null);
+        }
+        if (mTelemetryExportWriter != null) {
+            try {
+                mTelemetryExportWriter.close();
+            } catch (IOException e) {
+                Log.e(TAG, "destroy: ", e);
+            }
+        }
+        if (mLastKnownStateDisposable != null) {
+            mLastKnownStateDisposable.dispose();
+        }
+        if (mLastKnownStateStore != null) {
+            try {
+                mLastKnownStateStore.close();
+            } catch (IOException e) {
+                Log.e(TAG, "destroy: ", e);
+            }
+        }
+        mAlertWorker.dispose();
+        mTelemetryScheduler.shutdown();
+        if (mMetricsDumpDisposable != null) {
+            mMetricsDumpDisposable.dispose();
+        }
+        if (mFirstTelemetryDisposable != null) {
+            mFirstTelemetryDisposable.dispose();
+        }
+        if (mUsbReceiver != null) {
+            mAppContext.unregisterReceiver(mUsbReceiver);
+        }
+        if (mLinkUtilisationDisposable != null) {
+            mLinkUtilisationDisposable.dispose();
+        }
+        if (mTlogReplayer != null) {
+            try {
+                mTlogReplayer.close();
+            } catch (IOException e) {
+                Log.e(TAG, "destroy: ", e);
+            }
+        }
+        // Closed after the replayer, which sends into it until then
+        if (mReplayFrameSink != null) {
+            try {
+                mReplayFrameSink.close();
+            } catch (IOException e) {
+                Log.e(TAG, "destroy: ", e);
+            }
+        }
+        if (mVehicleSimulator != null) {
+            try {
+                mVehicleSimulator.close();
+            } catch (IOException e) {
+                Log.e(TAG, "destroy: ", e);
+            }
+        }
+        if (mMavsdkServer != null) {
+            mDrone.dispose();
+            mMavsdkServer.stop();
+        }
+
+        if (mFleetManager != null) {
+            try {
+                mFleetManager.close();
+            } catch (IOException e) {
+                Log.e(TAG, "destroy: ", e);
+            }
+            if (mTlogRecorder != null) {
+                mTlogRecorder.stop();
+            }
+        }
     }
 }
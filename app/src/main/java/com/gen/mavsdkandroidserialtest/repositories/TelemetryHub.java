@@ -0,0 +1,219 @@
+package com.gen.mavsdkandroidserialtest.repositories;
+
+import com.gen.mavsdkandroidserialtest.models.PositionRelative;
+import com.gen.mavsdkandroidserialtest.models.Speed;
+import com.gen.mavsdkandroidserialtest.models.TelemetrySnapshot;
+import com.gen.mavsdkandroidserialtest.telemetry.TelemetryTopic;
+
+import org.reactivestreams.Subscription;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import io.mavsdk.telemetry.Telemetry;
+import io.reactivex.Flowable;
+import io.reactivex.functions.Action;
+import io.reactivex.functions.Consumer;
+import io.reactivex.functions.Function;
+
+/**
+ * Opens each MAVSDK telemetry topic once and shares it between all observers.
+ *
+ * <p>Every topic is published with reference counting: the upstream gRPC stream is
+ * opened when the first observer subscribes and closed when the last one cancels.
+ * Derived values such as {@link PositionRelative} and {@link Speed} are projected
+ * from the shared topic into a {@link TelemetrySnapshot} instead of opening a stream
+ * of their own.</p>
+ *
+ * <p>The hub also counts the observers of each topic so that link rates can follow
+ * demand; see {@link #setObserverCountListener(ObserverCountListener)}. Recorders
+ * that should not keep a topic open tap it with a {@link SampleListener} instead.</p>
+ */
+public class TelemetryHub {
+
+    public interface ObserverCountListener {
+        void onObserverCountChanged(TelemetryTopic topic, int observers);
+    }
+
+    /**
+     * Sees every sample of a topic while the topic has observers, without being one.
+     * Called on the topic's upstream thread, so each method may run on a different
+     * thread; implementations must be quick and must not throw.
+     */
+    public interface SampleListener {
+        void onPositionVelocityNed(Telemetry.PositionVelocityNed positionVelocityNed);
+
+        void onBattery(Telemetry.Battery battery);
+
+        void onGpsInfo(Telemetry.GpsInfo gpsInfo);
+
+        void onPosition(Telemetry.Position position);
+    }
+
+    private final AtomicIntegerArray mObserverCounts = new AtomicIntegerArray(TelemetryTopic.values().length);
+    private volatile ObserverCountListener mObserverCountListener;
+    private volatile SampleListener mSampleListener;
+
+    private final Flowable<Telemetry.PositionVelocityNed> mPositionVelocityNedFlowable;
+    private final Flowable<Telemetry.Battery> mBatteryFlowable;
+    private final Flowable<Telemetry.GpsInfo> mGpsInfoFlowable;
+    private final Flowable<Telemetry.Position> mPositionFlowable;
+    private final Flowable<Telemetry.EulerAngle> mAttitudeFlowable;
+
+    private final TelemetrySnapshot mTelemetrySnapshot = new TelemetrySnapshot();
+    private final Flowable<TelemetrySnapshot> mTelemetrySnapshotFlowable;
+
+    public TelemetryHub(Telemetry telemetry) {
+        this(telemetry.getPositionVelocityNed(),
+                telemetry.getBattery(),
+                telemetry.getGpsInfo(),
+                telemetry.getPosition(),
+                telemetry.getAttitudeEuler());
+    }
+
+    public TelemetryHub(Flowable<Telemetry.PositionVelocityNed> positionVelocityNedSource,
+                        Flowable<Telemetry.Battery> batterySource,
+                        Flowable<Telemetry.GpsInfo> gpsInfoSource,
+                        Flowable<Telemetry.Position> positionSource,
+                        Flowable<Telemetry.EulerAngle> attitudeSource) {
+        // Taps sit below the share, so they run once per sample and subscribe to nothing
+        mPositionVelocityNedFlowable = countObservers(TelemetryTopic.POSITION_VELOCITY_NED, share(
+                positionVelocityNedSource.doOnNext(new Consumer<Telemetry.PositionVelocityNed>() {
+                    @Override
+                    public void accept(Telemetry.PositionVelocityNed positionVelocityNed) throws Exception {
+                        SampleListener listener = mSampleListener;
+                        if (listener != null) {
+                            listener.onPositionVelocityNed(positionVelocityNed);
+                        }
+                    }
+                })));
+        mBatteryFlowable = countObservers(TelemetryTopic.BATTERY, share(
+                batterySource.doOnNext(new Consumer<Telemetry.Battery>() {
+                    @Override
+                    public void accept(Telemetry.Battery battery) throws Exception {
+                        SampleListener listener = mSampleListener;
+                        if (listener != null) {
+                            listener.onBattery(battery);
+                        }
+                    }
+                })));
+        mGpsInfoFlowable = countObservers(TelemetryTopic.GPS_INFO, share(
+                gpsInfoSource.doOnNext(new Consumer<Telemetry.GpsInfo>() {
+                    @Override
+                    public void accept(Telemetry.GpsInfo gpsInfo) throws Exception {
+                        SampleListener listener = mSampleListener;
+                        if (listener != null) {
+                            listener.onGpsInfo(gpsInfo);
+                        }
+                    }
+                })));
+        mPositionFlowable = countObservers(TelemetryTopic.POSITION, share(
+                positionSource.doOnNext(new Consumer<Telemetry.Position>() {
+                    @Override
+                    public void accept(Telemetry.Position position) throws Exception {
+                        SampleListener listener = mSampleListener;
+                        if (listener != null) {
+                            listener.onPosition(position);
+                        }
+                    }
+                })));
+        mAttitudeFlowable = countObservers(TelemetryTopic.ATTITUDE, share(attitudeSource));
+
+        mTelemetrySnapshotFlowable = share(projectPositionVelocityNed(new Function<Telemetry.PositionVelocityNed, TelemetrySnapshot>() {
+            @Override
+            public TelemetrySnapshot apply(Telemetry.PositionVelocityNed positionVelocityNed) throws Exception {
+                Telemetry.PositionNed position = positionVelocityNed.getPosition();
+                Telemetry.VelocityNed velocity = positionVelocityNed.getVelocity();
+                mTelemetrySnapshot.writePositionVelocityNed(
+                        position.getNorthM(), position.getEastM(), position.getDownM(),
+                        velocity.getNorthMS(), velocity.getEastMS(), velocity.getDownMS());
+                return mTelemetrySnapshot;
+            }
+        }));
+    }
+
+    private static <T> Flowable<T> share(Flowable<T> source) {
+        return source.publish().refCount();
+    }
+
+    private <T> Flowable<T> countObservers(final TelemetryTopic topic, Flowable<T> shared) {
+        return shared
+                .doOnSubscribe(new Consumer<Subscription>() {
+                    @Override
+                    public void accept(Subscription subscription) throws Exception {
+                        onObserverCountChanged(topic, mObserverCounts.incrementAndGet(topic.ordinal()));
+                    }
+                })
+                .doFinally(new Action() {
+                    @Override
+                    public void run() throws Exception {
+                        onObserverCountChanged(topic, mObserverCounts.decrementAndGet(topic.ordinal()));
+                    }
+                });
+    }
+
+    private void onObserverCountChanged(TelemetryTopic topic, int observers) {
+        ObserverCountListener listener = mObserverCountListener;
+        if (listener != null) {
+            listener.onObserverCountChanged(topic, observers);
+        }
+    }
+
+    /**
+     * Report observer counts to `listener`, starting with the current count of every topic.
+     * The snapshot stream counts as one observer of the NED topic.
+     */
+    public void setObserverCountListener(ObserverCountListener listener) {
+        mObserverCountListener = listener;
+        if (listener != null) {
+            for (TelemetryTopic topic : TelemetryTopic.values()) {
+                listener.onObserverCountChanged(topic, mObserverCounts.get(topic.ordinal()));
+            }
+        }
+    }
+
+    /**
+     * Hand every sample of an observed topic to `listener`, or to nobody if null.
+     */
+    public void setSampleListener(SampleListener listener) {
+        mSampleListener = listener;
+    }
+
+    public int getObserverCount(TelemetryTopic topic) {
+        return mObserverCounts.get(topic.ordinal());
+    }
+
+    public Flowable<Telemetry.PositionVelocityNed> getPositionVelocityNed() {
+        return mPositionVelocityNedFlowable;
+    }
+
+    public Flowable<Telemetry.Battery> getBattery() {
+        return mBatteryFlowable;
+    }
+
+    public Flowable<Telemetry.GpsInfo> getGpsInfo() {
+        return mGpsInfoFlowable;
+    }
+
+    public Flowable<Telemetry.Position> getPosition() {
+        return mPositionFlowable;
+    }
+
+    public Flowable<Telemetry.EulerAngle> getAttitude() {
+        return mAttitudeFlowable;
+    }
+
+    /**
+     * Projects a derived value from the shared NED topic without opening another stream.
+     */
+    public <R> Flowable<R> projectPositionVelocityNed(Function<Telemetry.PositionVelocityNed, R> projection) {
+        return mPositionVelocityNedFlowable.map(projection);
+    }
+
+    /**
+     * Emits the hub's {@link TelemetrySnapshot} after every NED update. The same instance
+     * is emitted each time; it is written on the upstream thread only.
+     */
+    public Flowable<TelemetrySnapshot> getTelemetrySnapshot() {
+        return mTelemetrySnapshotFlowable;
+    }
+}
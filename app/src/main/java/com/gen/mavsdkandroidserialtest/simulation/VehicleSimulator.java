@@ -0,0 +1,599 @@
+package com.gen.mavsdkandroidserialtest.simulation;
+
+import com.gen.mavsdkandroidserialtest.mavlink.MavlinkFrame;
+import com.gen.mavsdkandroidserialtest.mavlink.MavlinkFrameEncoder;
+import com.gen.mavsdkandroidserialtest.mavlink.MavlinkFrameParser;
+import com.gen.mavsdkandroidserialtest.mavlink.MavlinkMessages;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.DatagramChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.Arrays;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A stand-in PX4 quadcopter that speaks MAVLink 2 over UDP, for load testing
+ * mavsdk_server and everything behind it without SITL.
+ *
+ * <p>The vehicle flies a level circle around a home position while its battery drains.
+ * It streams HEARTBEAT, SYS_STATUS, GPS_RAW_INT, ATTITUDE, LOCAL_POSITION_NED,
+ * GLOBAL_POSITION_INT and BATTERY_STATUS at rates set with {@link #setRate}, up to
+ * {@link #MAX_RATE_HZ}. It answers what mavsdk_server asks of a new system: COMMAND_LONG
+ * with a COMMAND_ACK, SET_MESSAGE_INTERVAL by changing the rate, REQUEST_MESSAGE and
+ * REQUEST_AUTOPILOT_CAPABILITIES with AUTOPILOT_VERSION, TIMESYNC, PING, and
+ * MISSION_REQUEST_LIST with an empty mission. It has no parameters.</p>
+ *
+ * <p>Everything runs on one thread, which sends to the remote address given and answers
+ * whoever last sent to it. Run {@link #main} to use it outside the app.</p>
+ */
+public class VehicleSimulator {
+
+    public interface SendListener {
+        /**
+         * Called on the simulator thread just before each frame is sent, so a receiver
+         * never sees a frame ahead of its call.
+         */
+        void onSent(int messageId, int sequence, long nanos);
+    }
+
+    public static final int DEFAULT_SYSTEM_ID = 1;
+    public static final int MAX_RATE_HZ = 1000;
+
+    // The streamed messages and their default rates
+    private static final int[] STREAM_MESSAGES = new int[]{
+            MavlinkMessages.HEARTBEAT,
+            MavlinkMessages.SYS_STATUS,
+            MavlinkMessages.GPS_RAW_INT,
+            MavlinkMessages.ATTITUDE,
+            MavlinkMessages.LOCAL_POSITION_NED,
+            MavlinkMessages.GLOBAL_POSITION_INT,
+            MavlinkMessages.BATTERY_STATUS,
+    };
+    private static final double[] DEFAULT_RATES_HZ = new double[]{1, 5, 5, 50, 50, 50, 1};
+
+    private static final int AUTOPILOT_COMPONENT_ID = 1;
+    private static final int MAV_TYPE_QUADROTOR = 2;
+    private static final int MAV_AUTOPILOT_PX4 = 12;
+    private static final int MAV_MODE_FLAG_CUSTOM_MODE_ENABLED = 1;
+    private static final int MAV_MODE_FLAG_SAFETY_ARMED = 128;
+    private static final int MAV_STATE_ACTIVE = 4;
+    // PX4's AUTO.LOITER
+    private static final long PX4_CUSTOM_MODE_LOITER = 3L << 24 | 4 << 16;
+    private static final long MAV_PROTOCOL_CAPABILITIES = 2 | 4 | 8 | 8192;
+    private static final int MAV_CMD_SET_MESSAGE_INTERVAL = 511;
+    private static final int MAV_CMD_REQUEST_MESSAGE = 512;
+    private static final int MAV_CMD_REQUEST_AUTOPILOT_CAPABILITIES = 520;
+    private static final int MAV_RESULT_ACCEPTED = 0;
+    private static final int MAV_RESULT_DENIED = 2;
+    private static final int MAV_RESULT_UNSUPPORTED = 3;
+    private static final int GPS_FIX_TYPE_3D = 3;
+
+    private static final double EARTH_RADIUS_METERS = 6_378_137;
+    private static final double CIRCLE_RADIUS_METERS = 50;
+    private static final double CIRCLE_SPEED_METERS_PER_SECOND = 5;
+    private static final double ALTITUDE_METERS = 30;
+    private static final double BATTERY_FULL_VOLTS = 16.8;
+    private static final double BATTERY_EMPTY_VOLTS = 13.2;
+    private static final double BATTERY_LIFE_SECONDS = 1800;
+
+    private static final long MAX_WAIT_NANOS = 50_000_000L;
+
+    private final int mSystemId;
+    private final DatagramChannel mChannel;
+    private final Selector mSelector;
+    private final MavlinkFrameEncoder mEncoder;
+    private final MavlinkFrameParser mParser;
+    private final ByteBuffer mReceiveBuffer = ByteBuffer.allocateDirect(64 * 1024);
+    private final byte[] mReceiveBytes = new byte[64 * 1024];
+    private final byte[] mPayload = new byte[MavlinkFrame.MAX_PAYLOAD_LENGTH];
+    private final ByteBuffer mPayloadBuffer = ByteBuffer.wrap(mPayload).order(ByteOrder.LITTLE_ENDIAN);
+    private final byte[] mFrame = new byte[MavlinkFrame.MAX_FRAME_LENGTH];
+    private final ByteBuffer mFrameBuffer = ByteBuffer.wrap(mFrame);
+    private SocketAddress mRemoteAddress;
+    private volatile SendListener mSendListener;
+
+    private final double mHomeLatitude;
+    private final double mHomeLongitude;
+    private final double mHomeAltitude;
+    private final long[] mPeriodNanos = new long[STREAM_MESSAGES.length];
+    private final long[] mDueNanos = new long[STREAM_MESSAGES.length];
+    private volatile boolean mRatesChanged;
+    private long mStartNanos;
+
+    private volatile boolean mRunning;
+    private Thread mThread;
+    private volatile long mSentFrames;
+    private volatile long mReceivedFrames;
+    private volatile long mSendErrors;
+    private volatile IOException mLastError;
+
+    public VehicleSimulator(InetSocketAddress localAddress, InetSocketAddress remoteAddress) throws IOException {
+        this(localAddress, remoteAddress, DEFAULT_SYSTEM_ID, 47.3977419, 8.5455938, 488);
+    }
+
+    /**
+     * @param localAddress Where to listen, e.g. port 0 on loopback.
+     * @param remoteAddress Where to send until someone else sends to the vehicle.
+     */
+    public VehicleSimulator(InetSocketAddress localAddress, InetSocketAddress remoteAddress, int systemId,
+                            double homeLatitude, double homeLongitude, double homeAltitude) throws IOException {
+        mSystemId = systemId;
+        mRemoteAddress = remoteAddress;
+        mHomeLatitude = homeLatitude;
+        mHomeLongitude = homeLongitude;
+        mHomeAltitude = homeAltitude;
+        mEncoder = new MavlinkFrameEncoder(2, systemId, AUTOPILOT_COMPONENT_ID);
+        mParser = new MavlinkFrameParser(new MavlinkFrameParser.Listener() {
+            @Override
+            public void onFrame(MavlinkFrame frame) {
+                onRequest(frame);
+            }
+        });
+        for (int i = 0; i < STREAM_MESSAGES.length; i++) {
+            mPeriodNanos[i] = periodOf(DEFAULT_RATES_HZ[i]);
+        }
+
+        mChannel = DatagramChannel.open();
+        try {
+            mChannel.bind(localAddress);
+            mChannel.configureBlocking(false);
+            mSelector = Selector.open();
+            mChannel.register(mSelector, SelectionKey.OP_READ);
+        } catch (IOException e) {
+            mChannel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Runs a simulator until the process is killed or the simulator fails.
+     *
+     * <p>Arguments: the host:port to send to, then optionally the position rate in Hz and
+     * the local port.</p>
+     */
+    public static void main(String[] args) throws Exception {
+        if (args.length < 1) {
+            System.err.println("usage: VehicleSimulator host:port [positionRateHz] [localPort]");
+            System.exit(2);
+        }
+        int separator = args[0].lastIndexOf(':');
+        InetSocketAddress remoteAddress = new InetSocketAddress(
+                args[0].substring(0, separator), Integer.parseInt(args[0].substring(separator + 1)));
+        int localPort = args.length > 2 ? Integer.parseInt(args[2]) : 0;
+        VehicleSimulator simulator = new VehicleSimulator(new InetSocketAddress(localPort), remoteAddress);
+        if (args.length > 1) {
+            simulator.setPositionRate(Double.parseDouble(args[1]));
+        }
+        simulator.start();
+        System.out.println("Simulating system " + simulator.mSystemId + " on "
+                + simulator.getLocalAddress() + " to " + remoteAddress);
+        while (simulator.isRunning()) {
+            Thread.sleep(5000);
+            System.out.println("sent " + simulator.getSentFrames() + ", received " + simulator.getReceivedFrames());
+        }
+        System.err.println("VehicleSimulator: " + simulator.getLastError());
+        System.exit(1);
+    }
+
+    /**
+     * Report every frame sent to `listener`, e.g. to measure latency downstream.
+     */
+    public void setSendListener(SendListener listener) {
+        mSendListener = listener;
+    }
+
+    /**
+     * Stream `messageId` at `rateHz`, or stop streaming it at 0.
+     */
+    public void setRate(int messageId, double rateHz) {
+        int stream = streamOf(messageId);
+        if (stream < 0) {
+            throw new IllegalArgumentException("Not a streamed message: " + messageId);
+        }
+        synchronized (mPeriodNanos) {
+            mPeriodNanos[stream] = periodOf(rateHz);
+        }
+        mRatesChanged = true;
+        mSelector.wakeup();
+    }
+
+    /**
+     * Set the rate of every position and attitude message at once.
+     */
+    public void setPositionRate(double rateHz) {
+        setRate(MavlinkMessages.ATTITUDE, rateHz);
+        setRate(MavlinkMessages.LOCAL_POSITION_NED, rateHz);
+        setRate(MavlinkMessages.GLOBAL_POSITION_INT, rateHz);
+    }
+
+    public double getRate(int messageId) {
+        int stream = streamOf(messageId);
+        if (stream < 0) {
+            return 0;
+        }
+        synchronized (mPeriodNanos) {
+            return mPeriodNanos[stream] == 0 ? 0 : 1e9 / mPeriodNanos[stream];
+        }
+    }
+
+    private static int streamOf(int messageId) {
+        for (int i = 0; i < STREAM_MESSAGES.length; i++) {
+            if (STREAM_MESSAGES[i] == messageId) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static long periodOf(double rateHz) {
+        if (rateHz < 0 || rateHz > MAX_RATE_HZ || Double.isNaN(rateHz)) {
+            throw new IllegalArgumentException("rateHz: " + rateHz);
+        }
+        return rateHz == 0 ? 0 : (long) (1e9 / rateHz);
+    }
+
+    public InetSocketAddress getLocalAddress() throws IOException {
+        return (InetSocketAddress) mChannel.getLocalAddress();
+    }
+
+    public synchronized void start() {
+        if (mRunning) {
+            throw new IllegalStateException("Simulator already started");
+        }
+        mRunning = true;
+        mThread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                simulationLoop();
+            }
+        }, "vehicle-simulator");
+        mThread.start();
+    }
+
+    public void stop() {
+        Thread thread;
+        synchronized (this) {
+            mRunning = false;
+            thread = mThread;
+            mThread = null;
+        }
+        if (thread != null) {
+            mSelector.wakeup();
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Stop the vehicle and release its socket.
+     */
+    public void close() throws IOException {
+        stop();
+        try {
+            mSelector.close();
+        } finally {
+            mChannel.close();
+        }
+    }
+
+    private void simulationLoop() {
+        mStartNanos = System.nanoTime();
+        Arrays.fill(mDueNanos, mStartNanos);
+        long[] periodNanos = new long[STREAM_MESSAGES.length];
+        mRatesChanged = true;
+        try {
+            while (mRunning) {
+                if (mRatesChanged) {
+                    mRatesChanged = false;
+                    synchronized (mPeriodNanos) {
+                        System.arraycopy(mPeriodNanos, 0, periodNanos, 0, periodNanos.length);
+                    }
+                }
+                long now = System.nanoTime();
+                long nextDue = now + MAX_WAIT_NANOS;
+                for (int i = 0; i < STREAM_MESSAGES.length; i++) {
+                    if (periodNanos[i] == 0) {
+                        continue;
+                    }
+                    if (now - mDueNanos[i] >= 0) {
+                        send(STREAM_MESSAGES[i], now);
+                        // A stall does not turn into a burst of catch-up frames
+                        mDueNanos[i] = Math.max(mDueNanos[i] + periodNanos[i], now);
+                    }
+                    nextDue = Math.min(nextDue, mDueNanos[i]);
+                }
+                receive();
+                waitUntil(nextDue);
+            }
+        } catch (IOException e) {
+            if (mRunning) {
+                mLastError = e;
+            }
+        }
+        mRunning = false;
+    }
+
+    // Sleeps in the selector when there is a millisecond to spare, so requests are answered promptly
+    private void waitUntil(long dueNanos) throws IOException {
+        long waitNanos = dueNanos - System.nanoTime();
+        if (waitNanos >= 1_000_000L) {
+            if (mSelector.select(waitNanos / 1_000_000L) > 0) {
+                mSelector.selectedKeys().clear();
+            }
+        } else if (waitNanos > 0) {
+            LockSupport.parkNanos(waitNanos);
+        }
+    }
+
+    private void receive() throws IOException {
+        while (true) {
+            mReceiveBuffer.clear();
+            SocketAddress source = mChannel.receive(mReceiveBuffer);
+            if (source == null) {
+                return;
+            }
+            mRemoteAddress = source;
+            mReceiveBuffer.flip();
+            int length = mReceiveBuffer.remaining();
+            mReceiveBuffer.get(mReceiveBytes, 0, length);
+            mParser.parse(mReceiveBytes, 0, length);
+        }
+    }
+
+    private void onRequest(MavlinkFrame frame) {
+        mReceivedFrames++;
+        switch (frame.getMessageId()) {
+            case MavlinkMessages.COMMAND_LONG:
+                int targetSystem = frame.getUint8(30);
+                if (targetSystem == mSystemId || targetSystem == 0) {
+                    onCommand(frame);
+                }
+                break;
+            case MavlinkMessages.TIMESYNC:
+                // A request has no tc1; the reply echoes its ts1
+                if (frame.getInt64(0) == 0) {
+                    clearPayload(16);
+                    mPayloadBuffer.putLong(0, System.nanoTime() - mStartNanos);
+                    mPayloadBuffer.putLong(8, frame.getInt64(8));
+                    sendPayload(MavlinkMessages.TIMESYNC, 16);
+                }
+                break;
+            case MavlinkMessages.PING:
+                if (frame.getUint8(12) == 0) {
+                    clearPayload(14);
+                    mPayloadBuffer.putLong(0, frame.getInt64(0));
+                    mPayloadBuffer.putInt(8, frame.getInt32(8));
+                    mPayload[12] = (byte) frame.getSystemId();
+                    mPayload[13] = (byte) frame.getComponentId();
+                    sendPayload(MavlinkMessages.PING, 14);
+                }
+                break;
+            case MavlinkMessages.MISSION_REQUEST_LIST:
+                if (frame.getUint8(0) == mSystemId) {
+                    clearPayload(5);
+                    mPayload[2] = (byte) frame.getSystemId();
+                    mPayload[3] = (byte) frame.getComponentId();
+                    mPayload[4] = (byte) frame.getUint8(2);
+                    sendPayload(MavlinkMessages.MISSION_COUNT, 5);
+                }
+                break;
+            default:
+                break;
+        }
+    }
+
+    private void onCommand(MavlinkFrame frame) {
+        int command = frame.getUint16(28);
+        int result;
+        switch (command) {
+            case MAV_CMD_SET_MESSAGE_INTERVAL:
+                result = setMessageInterval((int) frame.getFloat(0), frame.getFloat(4));
+                break;
+            case MAV_CMD_REQUEST_MESSAGE:
+                int messageId = (int) frame.getFloat(0);
+                if (messageId == MavlinkMessages.AUTOPILOT_VERSION || streamOf(messageId) >= 0) {
+                    result = MAV_RESULT_ACCEPTED;
+                } else {
+                    result = MAV_RESULT_UNSUPPORTED;
+                }
+                sendAck(command, result, frame);
+                if (result == MAV_RESULT_ACCEPTED) {
+                    send(messageId, System.nanoTime());
+                }
+                return;
+            case MAV_CMD_REQUEST_AUTOPILOT_CAPABILITIES:
+                sendAck(command, MAV_RESULT_ACCEPTED, frame);
+                send(MavlinkMessages.AUTOPILOT_VERSION, System.nanoTime());
+                return;
+            default:
+                result = MAV_RESULT_UNSUPPORTED;
+                break;
+        }
+        sendAck(command, result, frame);
+    }
+
+    // An interval of -1 stops the message and 0 restores its default rate
+    private int setMessageInterval(int messageId, float intervalMicros) {
+        int stream = streamOf(messageId);
+        if (stream < 0) {
+            return MAV_RESULT_UNSUPPORTED;
+        }
+        double rateHz;
+        if (intervalMicros < 0) {
+            rateHz = 0;
+        } else if (intervalMicros == 0) {
+            rateHz = DEFAULT_RATES_HZ[stream];
+        } else {
+            rateHz = 1e6 / intervalMicros;
+        }
+        if (rateHz > MAX_RATE_HZ) {
+            return MAV_RESULT_DENIED;
+        }
+        setRate(messageId, rateHz);
+        return MAV_RESULT_ACCEPTED;
+    }
+
+    private void sendAck(int command, int result, MavlinkFrame request) {
+        clearPayload(10);
+        mPayloadBuffer.putShort(0, (short) command);
+        mPayload[2] = (byte) result;
+        mPayload[8] = (byte) request.getSystemId();
+        mPayload[9] = (byte) request.getComponentId();
+        sendPayload(MavlinkMessages.COMMAND_ACK, 10);
+    }
+
+    private void send(int messageId, long nanos) {
+        double seconds = (nanos - mStartNanos) / 1e9;
+        long timeBootMillis = (long) (seconds * 1000);
+        double angle = seconds * CIRCLE_SPEED_METERS_PER_SECOND / CIRCLE_RADIUS_METERS;
+        double north = CIRCLE_RADIUS_METERS * Math.cos(angle);
+        double east = CIRCLE_RADIUS_METERS * Math.sin(angle);
+        double velocityNorth = -CIRCLE_SPEED_METERS_PER_SECOND * Math.sin(angle);
+        double velocityEast = CIRCLE_SPEED_METERS_PER_SECOND * Math.cos(angle);
+        double remaining = Math.max(0, 1 - seconds / BATTERY_LIFE_SECONDS);
+        int voltageMillivolts = (int) ((BATTERY_EMPTY_VOLTS + (BATTERY_FULL_VOLTS - BATTERY_EMPTY_VOLTS) * remaining) * 1000);
+
+        int length = MavlinkMessages.getPayloadLength(messageId);
+        clearPayload(length);
+        switch (messageId) {
+            case MavlinkMessages.HEARTBEAT:
+                mPayloadBuffer.putInt(0, (int) PX4_CUSTOM_MODE_LOITER);
+                mPayload[4] = MAV_TYPE_QUADROTOR;
+                mPayload[5] = MAV_AUTOPILOT_PX4;
+                mPayload[6] = (byte) (MAV_MODE_FLAG_CUSTOM_MODE_ENABLED | MAV_MODE_FLAG_SAFETY_ARMED);
+                mPayload[7] = MAV_STATE_ACTIVE;
+                mPayload[8] = 3;
+                break;
+            case MavlinkMessages.SYS_STATUS:
+                mPayloadBuffer.putShort(12, (short) 250);
+                mPayloadBuffer.putShort(14, (short) voltageMillivolts);
+                mPayloadBuffer.putShort(16, (short) 1200);
+                mPayload[30] = (byte) Math.round(remaining * 100);
+                break;
+            case MavlinkMessages.GPS_RAW_INT:
+                mPayloadBuffer.putLong(0, (nanos - mStartNanos) / 1000);
+                mPayloadBuffer.putInt(8, (int) Math.round(latitudeOf(north) * 1e7));
+                mPayloadBuffer.putInt(12, (int) Math.round(longitudeOf(east) * 1e7));
+                mPayloadBuffer.putInt(16, (int) Math.round((mHomeAltitude + ALTITUDE_METERS) * 1000));
+                mPayloadBuffer.putShort(20, (short) 80);
+                mPayloadBuffer.putShort(22, (short) 120);
+                mPayloadBuffer.putShort(24, (short) Math.round(CIRCLE_SPEED_METERS_PER_SECOND * 100));
+                mPayloadBuffer.putShort(26, (short) Math.round(headingOf(velocityNorth, velocityEast) * 100));
+                mPayload[28] = GPS_FIX_TYPE_3D;
+                mPayload[29] = 14;
+                break;
+            case MavlinkMessages.ATTITUDE:
+                mPayloadBuffer.putInt(0, (int) timeBootMillis);
+                mPayloadBuffer.putFloat(12, (float) Math.atan2(velocityEast, velocityNorth));
+                mPayloadBuffer.putFloat(24, (float) (CIRCLE_SPEED_METERS_PER_SECOND / CIRCLE_RADIUS_METERS));
+                break;
+            case MavlinkMessages.LOCAL_POSITION_NED:
+                mPayloadBuffer.putInt(0, (int) timeBootMillis);
+                mPayloadBuffer.putFloat(4, (float) north);
+                mPayloadBuffer.putFloat(8, (float) east);
+                mPayloadBuffer.putFloat(12, (float) -ALTITUDE_METERS);
+                mPayloadBuffer.putFloat(16, (float) velocityNorth);
+                mPayloadBuffer.putFloat(20, (float) velocityEast);
+                break;
+            case MavlinkMessages.GLOBAL_POSITION_INT:
+                mPayloadBuffer.putInt(0, (int) timeBootMillis);
+                mPayloadBuffer.putInt(4, (int) Math.round(latitudeOf(north) * 1e7));
+                mPayloadBuffer.putInt(8, (int) Math.round(longitudeOf(east) * 1e7));
+                mPayloadBuffer.putInt(12, (int) Math.round((mHomeAltitude + ALTITUDE_METERS) * 1000));
+                mPayloadBuffer.putInt(16, (int) Math.round(ALTITUDE_METERS * 1000));
+                mPayloadBuffer.putShort(20, (short) Math.round(velocityNorth * 100));
+                mPayloadBuffer.putShort(22, (short) Math.round(velocityEast * 100));
+                mPayloadBuffer.putShort(26, (short) Math.round(headingOf(velocityNorth, velocityEast) * 100));
+                break;
+            case MavlinkMessages.BATTERY_STATUS:
+                mPayloadBuffer.putInt(0, (int) ((1 - remaining) * 5000));
+                mPayloadBuffer.putInt(4, -1);
+                mPayloadBuffer.putShort(8, (short) 2500);
+                for (int cell = 0; cell < 10; cell++) {
+                    mPayloadBuffer.putShort(10 + 2 * cell, (short) (cell < 4 ? voltageMillivolts / 4 : 0xFFFF));
+                }
+                mPayloadBuffer.putShort(30, (short) 1200);
+                mPayload[35] = (byte) Math.round(remaining * 100);
+                break;
+            case MavlinkMessages.AUTOPILOT_VERSION:
+                mPayloadBuffer.putLong(0, MAV_PROTOCOL_CAPABILITIES);
+                mPayloadBuffer.putLong(8, mSystemId);
+                // 1.14.0, official release
+                mPayloadBuffer.putInt(16, 1 << 24 | 14 << 16 | 255);
+                break;
+            default:
+                return;
+        }
+        sendPayload(messageId, length);
+    }
+
+    private double latitudeOf(double northMeters) {
+        return mHomeLatitude + Math.toDegrees(northMeters / EARTH_RADIUS_METERS);
+    }
+
+    private double longitudeOf(double eastMeters) {
+        return mHomeLongitude + Math.toDegrees(eastMeters / (EARTH_RADIUS_METERS * Math.cos(Math.toRadians(mHomeLatitude))));
+    }
+
+    private static double headingOf(double velocityNorth, double velocityEast) {
+        double heading = Math.toDegrees(Math.atan2(velocityEast, velocityNorth));
+        return heading < 0 ? heading + 360 : heading;
+    }
+
+    private void clearPayload(int length) {
+        Arrays.fill(mPayload, 0, length, (byte) 0);
+    }
+
+    private void sendPayload(int messageId, int length) {
+        SocketAddress remoteAddress = mRemoteAddress;
+        if (remoteAddress == null) {
+            return;
+        }
+        int frameLength = mEncoder.encode(messageId, mPayload, length, mFrame, 0);
+        mFrameBuffer.clear();
+        mFrameBuffer.limit(frameLength);
+        SendListener sendListener = mSendListener;
+        if (sendListener != null) {
+            // MAVLink 2 puts the sequence after the length and both flag bytes
+            sendListener.onSent(messageId, mFrame[4] & 0xFF, System.nanoTime());
+        }
+        try {
+            mChannel.send(mFrameBuffer, remoteAddress);
+            mSentFrames++;
+        } catch (IOException e) {
+            // Nobody listening yet; the next frame tries again
+            mSendErrors++;
+        }
+    }
+
+    public boolean isRunning() {
+        return mRunning;
+    }
+
+    public long getSentFrames() {
+        return mSentFrames;
+    }
+
+    public long getReceivedFrames() {
+        return mReceivedFrames;
+    }
+
+    public long getSendErrors() {
+        return mSendErrors;
+    }
+
+    /**
+     * @return The error that stopped the simulator, or null.
+     */
+    public IOException getLastError() {
+        return mLastError;
+    }
+}
@@ -0,0 +1,124 @@
+package com.gen.mavsdkandroidserialtest.telemetry;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.view.Choreographer;
+
+import androidx.lifecycle.LiveData;
+
+import org.reactivestreams.Publisher;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import io.reactivex.Flowable;
+import io.reactivex.disposables.Disposable;
+import io.reactivex.functions.Consumer;
+
+/**
+ * Turns telemetry streams into LiveData that all update together, once per display frame.
+ *
+ * <p>Where LiveDataReactiveStreams posts one main-thread message per sample per stream,
+ * streams made here only park their newest sample; the first one parked in a frame
+ * schedules a single frame callback, which hands every parked sample to its LiveData.
+ * Samples already emitted on the main thread, such as those a frame-sampled policy
+ * delivers, are set right away.</p>
+ */
+public class FrameDispatcher {
+
+    // Subscribes to its source while observed and parks each sample for the next frame
+    private class FrameLiveData<T> extends LiveData<T> implements Consumer<T> {
+        private final Flowable<T> mSource;
+        private final AtomicReference<T> mPending = new AtomicReference<>();
+        private final AtomicBoolean mQueued = new AtomicBoolean();
+        private Disposable mDisposable;
+
+        FrameLiveData(Flowable<T> source) {
+            mSource = source;
+        }
+
+        @Override
+        protected void onActive() {
+            mDisposable = mSource.subscribe(this);
+        }
+
+        @Override
+        protected void onInactive() {
+            mDisposable.dispose();
+            mDisposable = null;
+        }
+
+        @Override
+        public void accept(T t) {
+            if (Looper.myLooper() == Looper.getMainLooper()) {
+                setValue(t);
+                return;
+            }
+            mPending.set(t);
+            if (mQueued.compareAndSet(false, true)) {
+                mReady.add(this);
+                requestFrame();
+            }
+        }
+
+        void deliver() {
+            mQueued.set(false);
+            T pending = mPending.getAndSet(null);
+            if (pending != null) {
+                setValue(pending);
+            }
+        }
+    }
+
+    private final Handler mMainHandler = new Handler(Looper.getMainLooper());
+    private final ConcurrentLinkedQueue<FrameLiveData<?>> mReady = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean mFrameRequested = new AtomicBoolean();
+    private long mFrameCount;
+    private long mDeliveryCount;
+
+    private final Choreographer.FrameCallback mFrameCallback = new Choreographer.FrameCallback() {
+        @Override
+        public void doFrame(long frameTimeNanos) {
+            // Cleared first, so samples parked while draining request the next frame
+            mFrameRequested.set(false);
+            mFrameCount++;
+            FrameLiveData<?> liveData;
+            while ((liveData = mReady.poll()) != null) {
+                liveData.deliver();
+                mDeliveryCount++;
+            }
+        }
+    };
+
+    private final Runnable mPostFrameCallback = new Runnable() {
+        @Override
+        public void run() {
+            Choreographer.getInstance().postFrameCallback(mFrameCallback);
+        }
+    };
+
+    private void requestFrame() {
+        if (mFrameRequested.compareAndSet(false, true)) {
+            mMainHandler.post(mPostFrameCallback);
+        }
+    }
+
+    public <T> LiveData<T> toLiveData(Publisher<T> source) {
+        return new FrameLiveData<>(Flowable.fromPublisher(source));
+    }
+
+    /**
+     * @return The frames that delivered samples; main thread only.
+     */
+    public long getFrameCount() {
+        return mFrameCount;
+    }
+
+    /**
+     * @return The samples delivered by frame callbacks; main thread only.
+     */
+    public long getDeliveryCount() {
+        return mDeliveryCount;
+    }
+}
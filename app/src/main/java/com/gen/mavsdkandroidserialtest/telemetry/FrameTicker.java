@@ -0,0 +1,52 @@
+package com.gen.mavsdkandroidserialtest.telemetry;
+
+import android.view.Choreographer;
+
+import io.reactivex.BackpressureStrategy;
+import io.reactivex.Flowable;
+import io.reactivex.FlowableEmitter;
+import io.reactivex.FlowableOnSubscribe;
+import io.reactivex.android.schedulers.AndroidSchedulers;
+import io.reactivex.functions.Cancellable;
+
+/**
+ * Emits the frame time in nanoseconds on the main thread at every display frame, while
+ * subscribed.
+ */
+public class FrameTicker {
+
+    private static Flowable<Long> instance;
+
+    private FrameTicker() {
+    }
+
+    public static synchronized Flowable<Long> getFrameTicks() {
+        if (instance == null) {
+            instance = Flowable
+                    .create(new FlowableOnSubscribe<Long>() {
+                        @Override
+                        public void subscribe(final FlowableEmitter<Long> emitter) {
+                            final Choreographer choreographer = Choreographer.getInstance();
+                            final Choreographer.FrameCallback frameCallback = new Choreographer.FrameCallback() {
+                                @Override
+                                public void doFrame(long frameTimeNanos) {
+                                    emitter.onNext(frameTimeNanos);
+                                    choreographer.postFrameCallback(this);
+                                }
+                            };
+                            emitter.setCancellable(new Cancellable() {
+                                @Override
+                                public void cancel() {
+                                    choreographer.removeFrameCallback(frameCallback);
+                                }
+                            });
+                            choreographer.postFrameCallback(frameCallback);
+                        }
+                    }, BackpressureStrategy.LATEST)
+                    .subscribeOn(AndroidSchedulers.mainThread())
+                    .unsubscribeOn(AndroidSchedulers.mainThread())
+                    .share();
+        }
+        return instance;
+    }
+}
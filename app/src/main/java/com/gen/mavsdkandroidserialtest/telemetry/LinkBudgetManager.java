@@ -0,0 +1,181 @@
+package com.gen.mavsdkandroidserialtest.telemetry;
+
+import com.gen.mavsdkandroidserialtest.mavlink.MavlinkFrame;
+import com.gen.mavsdkandroidserialtest.mavlink.MavlinkMessages;
+
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Splits the telemetry link's byte budget between the topics that have observers and
+ * asks the vehicle to stream each topic at its share.
+ *
+ * <p>The budget is the link capacity derived from the baud rate times a target
+ * utilisation, minus whatever traffic the measured link rate shows beyond the planned
+ * topics. Topics with observers share the remainder by weight, each capped at its
+ * maximum useful rate; a topic without observers is kept at {@link #IDLE_RATE_HZ}. The
+ * plan is recomputed whenever demand or the measured rate changes, and only rates that
+ * moved noticeably are sent to the vehicle.</p>
+ */
+public class LinkBudgetManager {
+
+    public static final double DEFAULT_TARGET_UTILISATION = 0.6;
+    public static final double IDLE_RATE_HZ = 0.5;
+    private static final int SERIAL_BITS_PER_BYTE = 10;
+    private static final double RATE_CHANGE_THRESHOLD = 0.1;
+
+    public interface RateSetter {
+        void setRate(TelemetryTopic topic, double rateHz);
+    }
+
+    private static class TopicBudget {
+        final int wireBytes;
+        final double weight;
+        final double minRateHz;
+        final double maxRateHz;
+        int observers;
+        double plannedRateHz;
+        double appliedRateHz = -1;
+
+        TopicBudget(int messageId, double weight, double minRateHz, double maxRateHz) {
+            this.wireBytes = MavlinkFrame.HEADER_LENGTH_V2 + MavlinkMessages.getPayloadLength(messageId) + MavlinkFrame.CHECKSUM_LENGTH;
+            this.weight = weight;
+            this.minRateHz = minRateHz;
+            this.maxRateHz = maxRateHz;
+        }
+    }
+
+    private final Map<TelemetryTopic, TopicBudget> mTopics = new EnumMap<>(TelemetryTopic.class);
+    private final RateSetter mRateSetter;
+
+    private double mLinkBytesPerSecond;
+    private double mTargetUtilisation = DEFAULT_TARGET_UTILISATION;
+    private double mMeasuredBytesPerSecond;
+
+    public LinkBudgetManager(int baudRate, RateSetter rateSetter) {
+        mLinkBytesPerSecond = (double) baudRate / SERIAL_BITS_PER_BYTE;
+        mRateSetter = rateSetter;
+
+        mTopics.put(TelemetryTopic.POSITION_VELOCITY_NED, new TopicBudget(MavlinkMessages.LOCAL_POSITION_NED, 3, 1, 30));
+        mTopics.put(TelemetryTopic.POSITION, new TopicBudget(MavlinkMessages.GLOBAL_POSITION_INT, 3, 1, 30));
+        mTopics.put(TelemetryTopic.ATTITUDE, new TopicBudget(MavlinkMessages.ATTITUDE, 2, 1, 30));
+        mTopics.put(TelemetryTopic.BATTERY, new TopicBudget(MavlinkMessages.SYS_STATUS, 1, 0.5, 2));
+        mTopics.put(TelemetryTopic.GPS_INFO, new TopicBudget(MavlinkMessages.GPS_RAW_INT, 1, 0.5, 2));
+    }
+
+    public synchronized void setBaudRate(int baudRate) {
+        mLinkBytesPerSecond = (double) baudRate / SERIAL_BITS_PER_BYTE;
+        replan();
+    }
+
+    public synchronized void setTargetUtilisation(double targetUtilisation) {
+        mTargetUtilisation = targetUtilisation;
+        replan();
+    }
+
+    /**
+     * Report the byte rate currently observed on the link, all messages included.
+     */
+    public synchronized void setMeasuredBytesPerSecond(double measuredBytesPerSecond) {
+        mMeasuredBytesPerSecond = measuredBytesPerSecond;
+        replan();
+    }
+
+    public synchronized void setObserverCount(TelemetryTopic topic, int observers) {
+        TopicBudget budget = mTopics.get(topic);
+        if (budget != null && budget.observers != observers) {
+            budget.observers = observers;
+            replan();
+        }
+    }
+
+    public synchronized double getPlannedRateHz(TelemetryTopic topic) {
+        return mTopics.get(topic).plannedRateHz;
+    }
+
+    /**
+     * @return The bytes per second the planned topics may use.
+     */
+    public synchronized double getBudgetBytesPerSecond() {
+        double planned = 0;
+        for (TopicBudget budget : mTopics.values()) {
+            if (budget.appliedRateHz > 0) {
+                planned += budget.appliedRateHz * budget.wireBytes;
+            }
+        }
+        double otherTraffic = Math.max(0, mMeasuredBytesPerSecond - planned);
+        return Math.max(0, mLinkBytesPerSecond * mTargetUtilisation - otherTraffic);
+    }
+
+    public synchronized void replan() {
+        double remaining = getBudgetBytesPerSecond();
+
+        double activeWeight = 0;
+        for (TopicBudget budget : mTopics.values()) {
+            if (budget.observers > 0) {
+                budget.plannedRateHz = -1;
+                activeWeight += budget.weight * budget.wireBytes;
+            } else {
+                budget.plannedRateHz = IDLE_RATE_HZ;
+                remaining -= IDLE_RATE_HZ * budget.wireBytes;
+            }
+        }
+
+        // Water-filling: cap topics that would exceed their useful rate and hand what
+        // they leave over to the others.
+        boolean capped = true;
+        while (capped && activeWeight > 0) {
+            capped = false;
+            double ratePerWeight = Math.max(0, remaining) / activeWeight;
+            for (TopicBudget budget : mTopics.values()) {
+                if (budget.plannedRateHz < 0 && budget.weight * ratePerWeight >= budget.maxRateHz) {
+                    budget.plannedRateHz = budget.maxRateHz;
+                    remaining -= budget.maxRateHz * budget.wireBytes;
+                    activeWeight -= budget.weight * budget.wireBytes;
+                    capped = true;
+                }
+            }
+        }
+        double ratePerWeight = activeWeight > 0 ? Math.max(0, remaining) / activeWeight : 0;
+        for (TopicBudget budget : mTopics.values()) {
+            if (budget.plannedRateHz < 0) {
+                budget.plannedRateHz = Math.max(budget.minRateHz, budget.weight * ratePerWeight);
+            }
+        }
+
+        for (Map.Entry<TelemetryTopic, TopicBudget> entry : mTopics.entrySet()) {
+            TopicBudget budget = entry.getValue();
+            if (budget.appliedRateHz < 0
+                    || Math.abs(budget.plannedRateHz - budget.appliedRateHz) > RATE_CHANGE_THRESHOLD * budget.appliedRateHz) {
+                budget.appliedRateHz = budget.plannedRateHz;
+                mRateSetter.setRate(entry.getKey(), budget.plannedRateHz);
+            }
+        }
+    }
+
+    /**
+     * Send every rate again, e.g. after the vehicle's link came back with default rates.
+     */
+    public synchronized void reapply() {
+        for (TopicBudget budget : mTopics.values()) {
+            budget.appliedRateHz = -1;
+        }
+        replan();
+    }
+
+    @Override
+    public synchronized String toString() {
+        StringBuilder builder = new StringBuilder("budget=")
+                .append(Math.round(getBudgetBytesPerSecond()))
+                .append("B/s");
+        for (Map.Entry<TelemetryTopic, TopicBudget> entry : mTopics.entrySet()) {
+            builder.append(' ')
+                    .append(entry.getKey())
+                    .append('=')
+                    .append(String.format(Locale.US, "%.1f", entry.getValue().appliedRateHz))
+                    .append("Hz");
+        }
+        return builder.toString();
+    }
+}
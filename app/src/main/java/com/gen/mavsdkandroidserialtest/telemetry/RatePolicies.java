@@ -0,0 +1,60 @@
+package com.gen.mavsdkandroidserialtest.telemetry;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+import io.reactivex.Flowable;
+import io.reactivex.Scheduler;
+import io.reactivex.schedulers.Schedulers;
+
+/**
+ * The {@link RatePolicy} of every {@link TelemetryTopic}.
+ */
+public class RatePolicies {
+
+    public static final long SLOW_TOPIC_PERIOD_MILLIS = 1000;
+
+    private final Map<TelemetryTopic, RatePolicy> mPolicies = new EnumMap<>(TelemetryTopic.class);
+
+    /**
+     * Position, NED and attitude follow the display frame; battery and GPS info only
+     * report changes, once per second at most.
+     */
+    public static RatePolicies defaults(Flowable<?> frameTicks) {
+        return defaults(frameTicks, Schedulers.computation());
+    }
+
+    /**
+     * @param scheduler Runs the timers of the time-sampled policies.
+     */
+    public static RatePolicies defaults(Flowable<?> frameTicks, Scheduler scheduler) {
+        RatePolicies policies = new RatePolicies();
+        policies.set(TelemetryTopic.POSITION_VELOCITY_NED, RatePolicy.latestPerFrame(frameTicks));
+        policies.set(TelemetryTopic.POSITION, RatePolicy.latestPerFrame(frameTicks));
+        policies.set(TelemetryTopic.ATTITUDE, RatePolicy.latestPerFrame(frameTicks));
+        policies.set(TelemetryTopic.BATTERY, RatePolicy.changeOnly(SLOW_TOPIC_PERIOD_MILLIS, scheduler));
+        policies.set(TelemetryTopic.GPS_INFO, RatePolicy.changeOnly(SLOW_TOPIC_PERIOD_MILLIS, scheduler));
+        return policies;
+    }
+
+    public void set(TelemetryTopic topic, RatePolicy policy) {
+        mPolicies.put(topic, policy);
+    }
+
+    public RatePolicy get(TelemetryTopic topic) {
+        RatePolicy policy = mPolicies.get(topic);
+        if (policy == null) {
+            throw new IllegalStateException("No rate policy for " + topic);
+        }
+        return policy;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder();
+        for (Map.Entry<TelemetryTopic, RatePolicy> entry : mPolicies.entrySet()) {
+            builder.append(entry.getKey()).append(": ").append(entry.getValue()).append('\n');
+        }
+        return builder.toString();
+    }
+}
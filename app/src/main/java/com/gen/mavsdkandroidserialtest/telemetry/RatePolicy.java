@@ -0,0 +1,167 @@
+package com.gen.mavsdkandroidserialtest.telemetry;
+
+import org.reactivestreams.Publisher;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import io.reactivex.Flowable;
+import io.reactivex.FlowableTransformer;
+import io.reactivex.Scheduler;
+import io.reactivex.functions.BiPredicate;
+import io.reactivex.functions.Consumer;
+import io.reactivex.functions.Predicate;
+import io.reactivex.schedulers.Schedulers;
+
+/**
+ * How samples of one telemetry stream are thinned out before they reach the UI.
+ *
+ * <p>A policy instance is applied to exactly one stream and counts what happens to its
+ * samples: delivered, conflated (replaced by a newer sample before delivery) or dropped
+ * (discarded without a newer replacement, e.g. unchanged values).</p>
+ */
+public abstract class RatePolicy {
+
+    private final String mName;
+    private final AtomicLong mReceivedCount = new AtomicLong();
+    private final AtomicLong mDeliveredCount = new AtomicLong();
+    private final AtomicLong mDroppedCount = new AtomicLong();
+
+    private RatePolicy(String name) {
+        mName = name;
+    }
+
+    /**
+     * Deliver the newest sample once per display frame, skipping frames without a new sample.
+     *
+     * @param frameTicks Emits once per display frame.
+     */
+    public static RatePolicy latestPerFrame(final Flowable<?> frameTicks) {
+        return new RatePolicy("latest-per-frame") {
+            @Override
+            <T> Flowable<T> thin(Flowable<T> source) {
+                return source.sample(frameTicks);
+            }
+        };
+    }
+
+    /**
+     * Deliver the newest sample at most once per `periodMillis`, and only if it differs
+     * from the previously delivered one.
+     */
+    public static RatePolicy changeOnly(long periodMillis) {
+        return changeOnly(periodMillis, Schedulers.computation());
+    }
+
+    /**
+     * @param scheduler Runs the sampling timer and emits the samples.
+     */
+    public static RatePolicy changeOnly(final long periodMillis, final Scheduler scheduler) {
+        return new RatePolicy("change-only-" + periodMillis + "ms") {
+            @Override
+            <T> Flowable<T> thin(Flowable<T> source) {
+                return source
+                        .sample(periodMillis, TimeUnit.MILLISECONDS, scheduler)
+                        .distinctUntilChanged(new BiPredicate<T, T>() {
+                            @Override
+                            public boolean test(T previous, T current) {
+                                boolean unchanged = previous.equals(current);
+                                if (unchanged) {
+                                    onDropped();
+                                }
+                                return unchanged;
+                            }
+                        });
+            }
+        };
+    }
+
+    /**
+     * Deliver the first sample of every `windowMillis` window and drop the rest.
+     */
+    public static RatePolicy throttleFirst(final long windowMillis) {
+        return new RatePolicy("throttle-first-" + windowMillis + "ms") {
+            @Override
+            <T> Flowable<T> thin(Flowable<T> source) {
+                return source
+                        .filter(new Predicate<T>() {
+                            private boolean mWindowOpen;
+                            private long mWindowEndNanos;
+
+                            @Override
+                            public boolean test(T t) {
+                                long now = System.nanoTime();
+                                if (!mWindowOpen || now - mWindowEndNanos >= 0) {
+                                    mWindowOpen = true;
+                                    mWindowEndNanos = now + TimeUnit.MILLISECONDS.toNanos(windowMillis);
+                                    return true;
+                                }
+                                onDropped();
+                                return false;
+                            }
+                        });
+            }
+        };
+    }
+
+    abstract <T> Flowable<T> thin(Flowable<T> source);
+
+    public <T> FlowableTransformer<T, T> transformer() {
+        return new FlowableTransformer<T, T>() {
+            @Override
+            public Publisher<T> apply(Flowable<T> upstream) {
+                return RatePolicy.this.apply(upstream);
+            }
+        };
+    }
+
+    public <T> Flowable<T> apply(Flowable<T> source) {
+        return thin(source.doOnNext(new Consumer<T>() {
+            @Override
+            public void accept(T t) {
+                mReceivedCount.incrementAndGet();
+            }
+        })).doOnNext(new Consumer<T>() {
+            @Override
+            public void accept(T t) {
+                mDeliveredCount.incrementAndGet();
+            }
+        });
+    }
+
+    void onDropped() {
+        mDroppedCount.incrementAndGet();
+    }
+
+    public String getName() {
+        return mName;
+    }
+
+    public long getReceivedCount() {
+        return mReceivedCount.get();
+    }
+
+    public long getDeliveredCount() {
+        return mDeliveredCount.get();
+    }
+
+    public long getDroppedCount() {
+        return mDroppedCount.get();
+    }
+
+    /**
+     * @return The samples replaced by a newer one before they could be delivered.
+     */
+    public long getConflatedCount() {
+        return Math.max(0, mReceivedCount.get() - mDeliveredCount.get() - mDroppedCount.get());
+    }
+
+    @Override
+    public String toString() {
+        return mName
+                + " received=" + getReceivedCount()
+                + " delivered=" + getDeliveredCount()
+                + " conflated=" + getConflatedCount()
+                + " dropped=" + getDroppedCount();
+    }
+}
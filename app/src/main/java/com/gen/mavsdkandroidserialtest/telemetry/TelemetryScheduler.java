@@ -0,0 +1,126 @@
+package com.gen.mavsdkandroidserialtest.telemetry;
+
+import com.gen.mavsdkandroidserialtest.metrics.LatencyHistogram;
+
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import io.reactivex.Scheduler;
+import io.reactivex.schedulers.Schedulers;
+
+/**
+ * A fixed pool of named threads for telemetry processing, shared by every stream and
+ * vehicle, so the thread count does not grow with either.
+ *
+ * <p>Each Rx worker runs its tasks in order, one at a time, on whichever pool thread is
+ * free. Delayed tasks wait on RxJava's single helper thread and then queue here. The
+ * time tasks spend queued and the queue depth are recorded.</p>
+ */
+public class TelemetryScheduler {
+
+    public static final String THREAD_NAME_PREFIX = "telemetry-";
+
+    // Stamps a task with the time it was queued
+    private static class QueuedTask implements Runnable {
+        final Runnable task;
+        final long queuedNanos = System.nanoTime();
+
+        QueuedTask(Runnable task) {
+            this.task = task;
+        }
+
+        @Override
+        public void run() {
+            task.run();
+        }
+    }
+
+    private final int mThreadCount;
+    private final ThreadPoolExecutor mExecutor;
+    private final Scheduler mScheduler;
+    private final AtomicInteger mQueueDepth = new AtomicInteger();
+    private final AtomicInteger mMaxQueueDepth = new AtomicInteger();
+    private final AtomicLong mTaskCount = new AtomicLong();
+    private final LatencyHistogram mQueueLatency = new LatencyHistogram();
+
+    /**
+     * @param threadPriority A {@link Thread} priority, from {@link Thread#MIN_PRIORITY}
+     *     to {@link Thread#MAX_PRIORITY}.
+     */
+    public TelemetryScheduler(int threadCount, final int threadPriority) {
+        if (threadCount <= 0) {
+            throw new IllegalArgumentException("threadCount: " + threadCount);
+        }
+        mThreadCount = threadCount;
+        ThreadFactory threadFactory = new ThreadFactory() {
+            private final AtomicInteger mThreadNumber = new AtomicInteger();
+
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, THREAD_NAME_PREFIX + mThreadNumber.incrementAndGet());
+                thread.setDaemon(true);
+                thread.setPriority(threadPriority);
+                return thread;
+            }
+        };
+        mExecutor = new ThreadPoolExecutor(threadCount, threadCount, 0, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<Runnable>(), threadFactory) {
+            @Override
+            public void execute(Runnable command) {
+                int depth = mQueueDepth.incrementAndGet();
+                int maxDepth;
+                while (depth > (maxDepth = mMaxQueueDepth.get())
+                        && !mMaxQueueDepth.compareAndSet(maxDepth, depth)) {
+                    // Lost a race with another producer; retry against its maximum
+                }
+                super.execute(new QueuedTask(command));
+            }
+
+            @Override
+            protected void beforeExecute(Thread thread, Runnable runnable) {
+                mQueueDepth.decrementAndGet();
+                mTaskCount.incrementAndGet();
+                mQueueLatency.record(System.nanoTime() - ((QueuedTask) runnable).queuedNanos);
+            }
+        };
+        mScheduler = Schedulers.from(mExecutor);
+    }
+
+    public Scheduler getScheduler() {
+        return mScheduler;
+    }
+
+    public int getThreadCount() {
+        return mThreadCount;
+    }
+
+    /**
+     * @return The tasks queued and not yet started.
+     */
+    public int getQueueDepth() {
+        return mQueueDepth.get();
+    }
+
+    public int getMaxQueueDepth() {
+        return mMaxQueueDepth.get();
+    }
+
+    public long getTaskCount() {
+        return mTaskCount.get();
+    }
+
+    /**
+     * @return The time from queueing a task to a thread starting it.
+     */
+    public LatencyHistogram getQueueLatency() {
+        return mQueueLatency;
+    }
+
+    public void shutdown() {
+        mExecutor.shutdown();
+    }
+}
@@ -0,0 +1,12 @@
+package com.gen.mavsdkandroidserialtest.telemetry;
+
+/**
+ * The MAVSDK telemetry topics the app subscribes to.
+ */
+public enum TelemetryTopic {
+    POSITION_VELOCITY_NED,
+    POSITION,
+    ATTITUDE,
+    BATTERY,
+    GPS_INFO
+}
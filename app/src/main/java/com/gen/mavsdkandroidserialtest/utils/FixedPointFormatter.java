@@ -0,0 +1,110 @@
+package com.gen.mavsdkandroidserialtest.utils;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Locale;
+
+/**
+ * Writes numbers into caller-owned char buffers without allocating.
+ *
+ * <p>{@link #formatFixed} produces exactly what {@code String.format("%.Nf", value)}
+ * does in {@link Locale#US}: half-up rounding of the shortest decimal form of the value
+ * (the digits of {@link Double#toString}, so 0.145 becomes "0.15") and a "-" on negative
+ * values that round to zero. NaN, infinities and values too large for a long
+ * after scaling fall back to {@code String.format}, which allocates.</p>
+ */
+public class FixedPointFormatter {
+
+    public static final int MAX_DECIMAL_PLACES = 9;
+
+    private static final long[] POWERS_OF_TEN = {
+            1L, 10L, 100L, 1_000L, 10_000L, 100_000L, 1_000_000L, 10_000_000L, 100_000_000L, 1_000_000_000L
+    };
+    // Doubles stop holding every integer at 2^53
+    private static final double MAX_SCALED = 1e15;
+
+    private FixedPointFormatter() {
+    }
+
+    /**
+     * @return The number of chars written to `out` at `offset`.
+     */
+    public static int formatFixed(double value, int decimalPlaces, char[] out, int offset) {
+        if (decimalPlaces < 0 || decimalPlaces > MAX_DECIMAL_PLACES) {
+            throw new IllegalArgumentException("decimalPlaces: " + decimalPlaces);
+        }
+        double magnitude = Math.abs(value);
+        double scaled = magnitude * POWERS_OF_TEN[decimalPlaces];
+        if (Double.isNaN(value) || Double.isInfinite(value) || scaled >= MAX_SCALED) {
+            return formatSlow(value, decimalPlaces, out, offset);
+        }
+
+        long units = (long) Math.floor(scaled);
+        double fraction = scaled - units;
+        // Within a few ulps of .5 the scaled double cannot tell which way the decimal form
+        // rounds; only such near-ties take the allocating BigDecimal path
+        double tieTolerance = 2 * (Math.ulp(magnitude) * POWERS_OF_TEN[decimalPlaces] + Math.ulp(scaled));
+        if (Math.abs(fraction - 0.5) <= tieTolerance) {
+            units = BigDecimal.valueOf(magnitude).setScale(decimalPlaces, RoundingMode.HALF_UP).unscaledValue().longValue();
+        } else if (fraction > 0.5) {
+            units++;
+        }
+
+        int position = offset;
+        if (value < 0 || (value == 0 && 1 / value < 0)) {
+            out[position++] = '-';
+        }
+        long integerPart = units / POWERS_OF_TEN[decimalPlaces];
+        position += writeLong(integerPart, out, position);
+        if (decimalPlaces > 0) {
+            out[position++] = '.';
+            long fractionPart = units - integerPart * POWERS_OF_TEN[decimalPlaces];
+            for (int i = position + decimalPlaces - 1; i >= position; i--) {
+                out[i] = (char) ('0' + fractionPart % 10);
+                fractionPart /= 10;
+            }
+            position += decimalPlaces;
+        }
+        return position - offset;
+    }
+
+    /**
+     * Writes an integer.
+     *
+     * @return The number of chars written.
+     */
+    public static int formatInt(long value, char[] out, int offset) {
+        if (value < 0) {
+            if (value == Long.MIN_VALUE) {
+                return formatSlow(value, out, offset);
+            }
+            out[offset] = '-';
+            return 1 + writeLong(-value, out, offset + 1);
+        }
+        return writeLong(value, out, offset);
+    }
+
+    private static int writeLong(long value, char[] out, int offset) {
+        int digits = 1;
+        for (long rest = value / 10; rest != 0; rest /= 10) {
+            digits++;
+        }
+        for (int i = offset + digits - 1; i >= offset; i--) {
+            out[i] = (char) ('0' + value % 10);
+            value /= 10;
+        }
+        return digits;
+    }
+
+    private static int formatSlow(double value, int decimalPlaces, char[] out, int offset) {
+        String text = String.format(Locale.US, "%." + decimalPlaces + "f", value);
+        text.getChars(0, text.length(), out, offset);
+        return text.length();
+    }
+
+    private static int formatSlow(long value, char[] out, int offset) {
+        String text = Long.toString(value);
+        text.getChars(0, text.length(), out, offset);
+        return text.length();
+    }
+}
@@ -0,0 +1,97 @@
+package com.gen.mavsdkandroidserialtest.utils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Timing spans for the phases of a cold start, relative to when the trace was created.
+ *
+ * <p>Spans may be opened and closed from any thread, so phases that run concurrently
+ * show up overlapping.</p>
+ */
+public class StartupTrace {
+
+    public static class Span {
+        private final String mName;
+        private final long mStartNanos;
+        private volatile long mEndNanos;
+
+        Span(String name, long startNanos) {
+            mName = name;
+            mStartNanos = startNanos;
+        }
+
+        public void end() {
+            if (mEndNanos == 0) {
+                mEndNanos = System.nanoTime();
+            }
+        }
+
+        public String getName() {
+            return mName;
+        }
+
+        public boolean isEnded() {
+            return mEndNanos != 0;
+        }
+
+        /**
+         * @return The span's length, or how long it has been open so far.
+         */
+        public long getDurationNanos() {
+            long endNanos = mEndNanos;
+            return (endNanos != 0 ? endNanos : System.nanoTime()) - mStartNanos;
+        }
+    }
+
+    private final long mOriginNanos = System.nanoTime();
+    private final List<Span> mSpans = new CopyOnWriteArrayList<>();
+
+    public Span begin(String name) {
+        Span span = new Span(name, System.nanoTime());
+        mSpans.add(span);
+        return span;
+    }
+
+    /**
+     * @return The spans in the order they were begun.
+     */
+    public List<Span> getSpans() {
+        return new ArrayList<>(mSpans);
+    }
+
+    /**
+     * @return The first span called `name`, or null.
+     */
+    public Span getSpan(String name) {
+        for (Span span : mSpans) {
+            if (span.mName.equals(name)) {
+                return span;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return When `span` started, relative to the start of the trace.
+     */
+    public long getOffsetNanos(Span span) {
+        return span.mStartNanos - mOriginNanos;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder();
+        for (Span span : mSpans) {
+            builder.append(String.format(Locale.US, "%n  +%4d ms %5d ms%s %s",
+                    TimeUnit.NANOSECONDS.toMillis(getOffsetNanos(span)),
+                    TimeUnit.NANOSECONDS.toMillis(span.getDurationNanos()),
+                    span.isEnded() ? "" : "+",
+                    span.mName));
+        }
+        return builder.toString();
+    }
+}
@@ -0,0 +1,79 @@
+package com.gen.mavsdkandroidserialtest.utils;
+
+/**
+ * The text of one on-screen field, staged in a reusable buffer and compared with what
+ * is shown before the view is touched.
+ *
+ * <p>Writers stage new text with the set methods; the render pass calls {@link #commit()}
+ * and only updates the view when it returns true. Both sides run on the main thread.</p>
+ */
+public class TextField {
+
+    public static final int DEFAULT_CAPACITY = 32;
+
+    private final char[] mStaged;
+    private int mStagedLength;
+    private final char[] mShown;
+    private int mShownLength = -1;
+
+    public TextField() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public TextField(int capacity) {
+        mStaged = new char[capacity];
+        mShown = new char[capacity];
+    }
+
+    public void setFixedPoint(double value, int decimalPlaces) {
+        mStagedLength = FixedPointFormatter.formatFixed(value, decimalPlaces, mStaged, 0);
+    }
+
+    /**
+     * Stage e.g. "50%".
+     */
+    public void setPercent(long percent) {
+        mStagedLength = FixedPointFormatter.formatInt(percent, mStaged, 0);
+        mStaged[mStagedLength++] = '%';
+    }
+
+    /**
+     * Make the staged text the shown text.
+     *
+     * @return False if it was already shown, so the view can be left alone.
+     */
+    public boolean commit() {
+        if (mStagedLength == mShownLength && regionEquals()) {
+            return false;
+        }
+        System.arraycopy(mStaged, 0, mShown, 0, mStagedLength);
+        mShownLength = mStagedLength;
+        return true;
+    }
+
+    private boolean regionEquals() {
+        for (int i = 0; i < mStagedLength; i++) {
+            if (mStaged[i] != mShown[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return The shown text; valid for {@link #getShownLength()} chars until the next
+     *     change is committed.
+     */
+    public char[] getShown() {
+        return mShown;
+    }
+
+    public int getShownLength() {
+        return Math.max(0, mShownLength);
+    }
+
+    @Override
+    public String toString() {
+        return new String(mShown, 0, getShownLength());
+    }
+}
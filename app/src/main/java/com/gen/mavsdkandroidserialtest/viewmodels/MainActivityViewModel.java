@@ -6,10 +6,14 @@ import androidx.annotation.NonNull;
 import androidx.lifecycle.AndroidViewModel;
 import androidx.lifecycle.LiveData;
 
-import com.gen.mavsdkandroidserialtest.models.PositionRelative;
-import com.gen.mavsdkandroidserialtest.models.Speed;
+import com.gen.mavsdkandroidserialtest.alerts.AlertRule;
+import com.gen.mavsdkandroidserialtest.models.ConnectionState;
+import com.gen.mavsdkandroidserialtest.models.LastKnownState;
+import com.gen.mavsdkandroidserialtest.models.TelemetrySnapshot;
 import com.gen.mavsdkandroidserialtest.repositories.DroneRepository;
 
+import java.util.List;
+
 import io.mavsdk.telemetry.Telemetry;
 
 public class MainActivityViewModel extends AndroidViewModel {
@@ -21,12 +25,24 @@ public class MainActivityViewModel extends AndroidViewModel {
         mDroneRepository = DroneRepository.getInstance(application);
     }
 
-    public LiveData<PositionRelative> getPositionRelative() {
-        return mDroneRepository.getPositionRelative();
+    public LiveData<ConnectionState> getConnectionState() {
+        return mDroneRepository.getConnectionState();
+    }
+
+    public LastKnownState getLastKnownState() {
+        return mDroneRepository.getLastKnownState();
+    }
+
+    public LiveData<List<AlertRule>> getActiveAlerts() {
+        return mDroneRepository.getActiveAlerts();
     }
 
-    public LiveData<Speed> getSpeed() {
-        return mDroneRepository.getSpeed();
+    public LiveData<String> getMetricsText() {
+        return mDroneRepository.getMetricsText();
+    }
+
+    public LiveData<TelemetrySnapshot> getTelemetrySnapshot() {
+        return mDroneRepository.getTelemetrySnapshot();
     }
 
     public LiveData<Telemetry.Battery> getBattery() {
@@ -40,4 +56,8 @@ public class MainActivityViewModel extends AndroidViewModel {
     public LiveData<Telemetry.Position> getPosition() {
         return mDroneRepository.getPosition();
     }
+
+    public LiveData<Telemetry.EulerAngle> getAttitude() {
+        return mDroneRepository.getAttitude();
+    }
 }
@@ -0,0 +1,92 @@
+package com.gen.mavsdkandroidserialtest.views;
+
+import android.view.Choreographer;
+import android.widget.TextView;
+
+import com.gen.mavsdkandroidserialtest.utils.TextField;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Pushes {@link TextField}s to their views once per display frame.
+ *
+ * <p>Observers stage new text and call {@link #invalidate()}; however many updates arrive
+ * within a frame, the views are touched once, in one frame callback, and only those whose
+ * text actually changed get {@code setText}, so unchanged fields cause no layout pass.
+ * Main thread only.</p>
+ */
+public class TextFieldRenderer {
+
+    private static class Binding {
+        final TextField field;
+        final TextView textView;
+
+        Binding(TextField field, TextView textView) {
+            this.field = field;
+            this.textView = textView;
+        }
+    }
+
+    private final List<Binding> mBindings = new ArrayList<>();
+    private boolean mFramePending;
+    private long mAppliedCount;
+    private long mSkippedCount;
+
+    private final Choreographer.FrameCallback mFrameCallback = new Choreographer.FrameCallback() {
+        @Override
+        public void doFrame(long frameTimeNanos) {
+            mFramePending = false;
+            render();
+        }
+    };
+
+    /**
+     * @return The field to stage `textView`'s text in.
+     */
+    public TextField bind(TextView textView) {
+        TextField field = new TextField();
+        mBindings.add(new Binding(field, textView));
+        return field;
+    }
+
+    /**
+     * Render the staged text on the next frame.
+     */
+    public void invalidate() {
+        if (!mFramePending) {
+            mFramePending = true;
+            Choreographer.getInstance().postFrameCallback(mFrameCallback);
+        }
+    }
+
+    private void render() {
+        for (int i = 0; i < mBindings.size(); i++) {
+            Binding binding = mBindings.get(i);
+            if (binding.field.commit()) {
+                binding.textView.setText(binding.field.getShown(), 0, binding.field.getShownLength());
+                mAppliedCount++;
+            } else {
+                mSkippedCount++;
+            }
+        }
+    }
+
+    /**
+     * Drop a pending frame, e.g. when the activity stops.
+     */
+    public void cancel() {
+        if (mFramePending) {
+            mFramePending = false;
+            Choreographer.getInstance().removeFrameCallback(mFrameCallback);
+        }
+    }
+
+    public long getAppliedCount() {
+        return mAppliedCount;
+    }
+
+    public long getSkippedCount() {
+        return mSkippedCount;
+    }
+}
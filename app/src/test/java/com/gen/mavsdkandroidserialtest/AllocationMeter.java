@@ -0,0 +1,20 @@
+package com.gen.mavsdkandroidserialtest;
+
+import java.lang.management.ManagementFactory;
+
+/**
+ * Reads the bytes allocated by the current thread, using the HotSpot extension of
+ * {@link java.lang.management.ThreadMXBean} available on the host JVM.
+ */
+public class AllocationMeter {
+
+    private static final com.sun.management.ThreadMXBean THREAD_MX_BEAN =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    private AllocationMeter() {
+    }
+
+    public static long allocatedBytes() {
+        return THREAD_MX_BEAN.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+}
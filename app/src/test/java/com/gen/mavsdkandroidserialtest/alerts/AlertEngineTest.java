@@ -0,0 +1,85 @@
+package com.gen.mavsdkandroidserialtest.alerts;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import io.mavsdk.telemetry.Telemetry;
+
+import static org.junit.Assert.*;
+
+public class AlertEngineTest {
+    private static final long MILLIS = 1_000_000L;
+
+    private final List<String> mTransitions = new ArrayList<>();
+    private final AlertEngine.Listener mListener = new AlertEngine.Listener() {
+        @Override
+        public void onAlertChanged(AlertRule rule, boolean active) {
+            mTransitions.add((active ? "+" : "-") + rule.getName());
+        }
+    };
+
+    @Test
+    public void hysteresis_keepsAnAlertFromFlapping() {
+        AlertEngine engine = new AlertEngine(Arrays.asList(
+                AlertRule.below("low-voltage", AlertField.BATTERY_VOLTAGE, 14.0, 0.3, 0)), mListener);
+        double[] voltages = {15, 14.1, 13.9, 14.1, 13.95, 14.2, 14.31, 13.8};
+        for (double voltage : voltages) {
+            engine.onBattery(new Telemetry.Battery((float) voltage, 0.5f), 0);
+        }
+        assertEquals(Arrays.asList("+low-voltage", "-low-voltage", "+low-voltage"), mTransitions);
+        assertEquals(1, engine.getActiveCount());
+    }
+
+    @Test
+    public void debounce_needsTheConditionToHold() {
+        AlertEngine engine = new AlertEngine(Arrays.asList(
+                AlertRule.above("ceiling", AlertField.RELATIVE_ALTITUDE, 120, 5, 1000)), mListener);
+        engine.onValue(AlertField.RELATIVE_ALTITUDE, 121, 0);
+        engine.onValue(AlertField.RELATIVE_ALTITUDE, 119, 500 * MILLIS);
+        engine.onValue(AlertField.RELATIVE_ALTITUDE, 125, 600 * MILLIS);
+        engine.onValue(AlertField.RELATIVE_ALTITUDE, 125, 1500 * MILLIS);
+        assertTrue(mTransitions.isEmpty());
+
+        // Another field's samples also move the clock on
+        engine.onValue(AlertField.GPS_SATELLITES, 12, 1600 * MILLIS);
+        assertEquals(Arrays.asList("+ceiling"), mTransitions);
+
+        engine.onValue(AlertField.RELATIVE_ALTITUDE, 110, 2000 * MILLIS);
+        engine.onValue(AlertField.RELATIVE_ALTITUDE, 110, 2900 * MILLIS);
+        assertEquals(1, engine.getActiveRules().size());
+        engine.onValue(AlertField.RELATIVE_ALTITUDE, 110, 3000 * MILLIS);
+        assertEquals(Arrays.asList("+ceiling", "-ceiling"), mTransitions);
+    }
+
+    @Test
+    public void manyRules_onlyCrossedOnesChange() {
+        List<AlertRule> rules = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            rules.add(AlertRule.above("above-" + i, AlertField.HOME_DISTANCE, i, 0.5, 0));
+            rules.add(AlertRule.below("below-" + i, AlertField.HOME_DISTANCE, i, 0.5, 0));
+        }
+        AlertEngine engine = new AlertEngine(rules, mListener);
+        engine.onValue(AlertField.HOME_DISTANCE, 100.25, 0);
+        assertEquals(500, engine.getActiveCount());
+
+        mTransitions.clear();
+        engine.onValue(AlertField.HOME_DISTANCE, 102.75, 0);
+        // below-103 stays raised: it only clears from 103.5
+        assertEquals(4, mTransitions.size());
+        assertTrue(mTransitions.containsAll(Arrays.asList("+above-101", "+above-102", "-below-101", "-below-102")));
+        assertEquals(500, engine.getActiveCount());
+    }
+
+    @Test
+    public void nan_isIgnored() {
+        AlertEngine engine = new AlertEngine(Arrays.asList(
+                AlertRule.below("low-charge", AlertField.BATTERY_PERCENT, 20, 5, 0)), mListener);
+        engine.onBattery(new Telemetry.Battery(15f, 0.1f), 0);
+        engine.onBattery(new Telemetry.Battery(15f, Float.NaN), 0);
+        assertEquals(Arrays.asList("+low-charge"), mTransitions);
+        assertEquals("low-charge", engine.getActiveRules().get(0).getName());
+    }
+}
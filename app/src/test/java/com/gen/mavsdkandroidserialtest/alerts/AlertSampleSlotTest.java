@@ -0,0 +1,33 @@
+package com.gen.mavsdkandroidserialtest.alerts;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class AlertSampleSlotTest {
+
+    private final List<String> mEvaluated = new ArrayList<>();
+    private final AlertSampleSlot<String> mSlot = new AlertSampleSlot<String>() {
+        @Override
+        protected void evaluate(String sample, long arrivalNanos) {
+            mEvaluated.add(sample + "@" + arrivalNanos);
+        }
+    };
+
+    @Test
+    public void newerSample_replacesTheWaitingOne() {
+        assertFalse(mSlot.drain());
+        assertTrue(mSlot.offer("a", 10));
+        assertFalse(mSlot.offer("b", 20));
+        assertTrue(mSlot.drain());
+        assertFalse(mSlot.drain());
+        assertTrue(mSlot.offer("c", 30));
+        assertTrue(mSlot.drain());
+        // Each sample keeps the time it arrived, not the time it was drained
+        assertEquals(Arrays.asList("b@20", "c@30"), mEvaluated);
+    }
+}
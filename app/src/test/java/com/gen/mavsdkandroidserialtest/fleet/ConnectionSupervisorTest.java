@@ -0,0 +1,144 @@
+package com.gen.mavsdkandroidserialtest.fleet;
+
+import com.gen.mavsdkandroidserialtest.link.LinkPort;
+import com.gen.mavsdkandroidserialtest.link.LinkScheduler;
+import com.gen.mavsdkandroidserialtest.link.PipeLinkPort;
+import com.gen.mavsdkandroidserialtest.mavlink.MavlinkFrame;
+import com.gen.mavsdkandroidserialtest.mavlink.MavlinkFrameEncoder;
+import com.gen.mavsdkandroidserialtest.mavlink.MavlinkMessages;
+import com.gen.mavsdkandroidserialtest.repositories.TelemetryHub;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import io.mavsdk.telemetry.Telemetry;
+import io.reactivex.Flowable;
+
+import static org.junit.Assert.*;
+
+public class ConnectionSupervisorTest {
+
+    private final AtomicInteger mServerStarts = new AtomicInteger();
+    private final AtomicInteger mServerStops = new AtomicInteger();
+    private final AtomicReference<PipeLinkPort> mNextPort = new AtomicReference<>();
+    private final MavlinkFrameEncoder mEncoder = new MavlinkFrameEncoder(2, 1, 1);
+
+    private final VehicleServer.Factory mServerFactory = new VehicleServer.Factory() {
+        @Override
+        public VehicleServer create() {
+            return new VehicleServer() {
+                @Override
+                public TelemetryHub start(String systemAddress) {
+                    mServerStarts.incrementAndGet();
+                    return new TelemetryHub(
+                            Flowable.<Telemetry.PositionVelocityNed>never(),
+                            Flowable.<Telemetry.Battery>never(),
+                            Flowable.<Telemetry.GpsInfo>never(),
+                            Flowable.<Telemetry.Position>never(),
+                            Flowable.<Telemetry.EulerAngle>never());
+                }
+
+                @Override
+                public void stop() {
+                    mServerStops.incrementAndGet();
+                }
+            };
+        }
+    };
+
+    private FleetManager mFleetManager;
+
+    @Before
+    public void setUp() {
+        mFleetManager = new FleetManager(new LinkScheduler(1), mServerFactory, "127.0.0.1", 25540);
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        mFleetManager.close();
+    }
+
+    private void sendHeartbeat(PipeLinkPort port) throws IOException {
+        byte[] frame = new byte[MavlinkFrame.MAX_FRAME_LENGTH];
+        port.vehicleWrite(frame, 0, mEncoder.encode(MavlinkMessages.HEARTBEAT, new byte[9], 9, frame, 0));
+    }
+
+    private static void await(ConnectionSupervisor supervisor, ConnectionSupervisor.State state) throws InterruptedException {
+        long deadline = System.nanoTime() + 5_000_000_000L;
+        while (supervisor.getState() != state && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        assertEquals(state, supervisor.getState());
+    }
+
+    @Test
+    public void unplugAndReplug_restartsServerAndMeasuresRestore() throws Exception {
+        PipeLinkPort firstPort = new PipeLinkPort();
+        VehicleConnection connection = mFleetManager.addLink("usb", firstPort);
+        final AtomicInteger hubChanges = new AtomicInteger();
+        connection.addListener(new VehicleConnection.Listener() {
+            @Override
+            public void onTelemetryHubChanged(VehicleConnection connection, TelemetryHub telemetryHub) {
+                hubChanges.incrementAndGet();
+            }
+        });
+        ConnectionSupervisor supervisor = mFleetManager.supervise(connection, new ConnectionSupervisor.PortOpener() {
+            @Override
+            public LinkPort open() {
+                return mNextPort.getAndSet(null);
+            }
+        });
+
+        firstPort.vehicleDisconnect();
+        await(supervisor, ConnectionSupervisor.State.DISCONNECTED);
+        assertEquals(1, mServerStops.get());
+        assertFalse(connection.isConnected());
+
+        Thread.sleep(300);
+        assertTrue(supervisor.getFailedAttemptCount() > 0);
+
+        PipeLinkPort secondPort = new PipeLinkPort();
+        sendHeartbeat(secondPort);
+        mNextPort.set(secondPort);
+        supervisor.onDeviceAttached();
+        await(supervisor, ConnectionSupervisor.State.CONNECTED);
+
+        long deadline = System.nanoTime() + 1_000_000_000L;
+        while (supervisor.getLastRestoreNanos() == 0 && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        assertTrue(supervisor.getLastRestoreNanos() > 0);
+        assertTrue(supervisor.getLastRestoreNanos() < 1_000_000_000L);
+        assertEquals(1, supervisor.getReconnectCount());
+        assertEquals(2, mServerStarts.get());
+        assertEquals(1, hubChanges.get());
+        assertSame(secondPort, connection.getLinkPort());
+    }
+
+    @Test
+    public void detachWithoutAttach_retriesWithBoundedBackoff() throws Exception {
+        VehicleConnection connection = mFleetManager.addLink("usb", new PipeLinkPort());
+        ConnectionSupervisor supervisor = mFleetManager.supervise(connection, new ConnectionSupervisor.PortOpener() {
+            @Override
+            public LinkPort open() {
+                return mNextPort.getAndSet(null);
+            }
+        });
+
+        supervisor.onDeviceDetached();
+        await(supervisor, ConnectionSupervisor.State.DISCONNECTED);
+
+        // 50 + 100 + 200 + 400 ms of backoff fit in one second; a fifth attempt would not.
+        Thread.sleep(1000);
+        int attempts = supervisor.getFailedAttemptCount();
+        assertTrue("attempts: " + attempts, attempts >= 3 && attempts <= 5);
+
+        mNextPort.set(new PipeLinkPort());
+        await(supervisor, ConnectionSupervisor.State.CONNECTED);
+    }
+}
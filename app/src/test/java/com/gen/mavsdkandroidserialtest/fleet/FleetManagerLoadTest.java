@@ -0,0 +1,173 @@
+package com.gen.mavsdkandroidserialtest.fleet;
+
+import com.gen.mavsdkandroidserialtest.link.LinkScheduler;
+import com.gen.mavsdkandroidserialtest.link.PipeLinkPort;
+import com.gen.mavsdkandroidserialtest.mavlink.MavlinkFrame;
+import com.gen.mavsdkandroidserialtest.mavlink.MavlinkFrameEncoder;
+import com.gen.mavsdkandroidserialtest.mavlink.MavlinkMessages;
+import com.gen.mavsdkandroidserialtest.repositories.TelemetryHub;
+
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import io.mavsdk.telemetry.Telemetry;
+import io.reactivex.Flowable;
+
+import static org.junit.Assert.*;
+
+public class FleetManagerLoadTest {
+
+    private static final int VEHICLES = 8;
+    private static final int SCHEDULER_THREADS = 2;
+    private static final int RATE_HZ = 50;
+    private static final int DURATION_MILLIS = 2000;
+    private static final int MAV_AUTOPILOT_PX4 = 12;
+
+    private static final VehicleServer.Factory NO_SERVER = new VehicleServer.Factory() {
+        @Override
+        public VehicleServer create() {
+            return new VehicleServer() {
+                @Override
+                public TelemetryHub start(String systemAddress) {
+                    return new TelemetryHub(
+                            Flowable.<Telemetry.PositionVelocityNed>never(),
+                            Flowable.<Telemetry.Battery>never(),
+                            Flowable.<Telemetry.GpsInfo>never(),
+                            Flowable.<Telemetry.Position>never(),
+                            Flowable.<Telemetry.EulerAngle>never());
+                }
+
+                @Override
+                public void stop() {
+                }
+            };
+        }
+    };
+
+    @Test
+    public void eightLinks_shareBoundedThreadsAndIdentifyEveryVehicle() throws Exception {
+        FleetManager fleetManager = new FleetManager(new LinkScheduler(SCHEDULER_THREADS), NO_SERVER, "127.0.0.1", 24540);
+        PipeLinkPort[] ports = new PipeLinkPort[VEHICLES];
+        MavlinkFrameEncoder[] encoders = new MavlinkFrameEncoder[VEHICLES];
+        for (int i = 0; i < VEHICLES; i++) {
+            ports[i] = new PipeLinkPort();
+            encoders[i] = new MavlinkFrameEncoder(2, i + 1, 1);
+            fleetManager.addLink("sim-" + i, ports[i]);
+        }
+
+        byte[] heartbeat = new byte[9];
+        heartbeat[5] = MAV_AUTOPILOT_PX4;
+        byte[] position = new byte[28];
+        byte[] frame = new byte[MavlinkFrame.MAX_FRAME_LENGTH];
+
+        ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+        long cpuStart = schedulerCpuNanos(threadMXBean);
+        long start = System.nanoTime();
+        int ticks = DURATION_MILLIS * RATE_HZ / 1000;
+        for (int tick = 0; tick < ticks; tick++) {
+            for (int i = 0; i < VEHICLES; i++) {
+                if (tick % RATE_HZ == 0) {
+                    ports[i].vehicleWrite(frame, 0, encoders[i].encode(MavlinkMessages.HEARTBEAT, heartbeat, heartbeat.length, frame, 0));
+                }
+                ports[i].vehicleWrite(frame, 0, encoders[i].encode(MavlinkMessages.GLOBAL_POSITION_INT, position, position.length, frame, 0));
+            }
+            Thread.sleep(1000 / RATE_HZ);
+        }
+        Thread.sleep(200);
+        long wallNanos = System.nanoTime() - start;
+        long cpuNanos = schedulerCpuNanos(threadMXBean) - cpuStart;
+
+        assertEquals(VEHICLES, fleetManager.getVehicleCount());
+        for (int i = 0; i < VEHICLES; i++) {
+            VehicleConnection connection = fleetManager.getVehicle(i + 1);
+            assertEquals("sim-" + i, connection.getName());
+            assertEquals(ticks + (ticks + RATE_HZ - 1) / RATE_HZ, connection.getLink().getFramesIn());
+        }
+
+        assertEquals(SCHEDULER_THREADS, countThreads("link-scheduler-"));
+        assertEquals(0, countThreads("serial-udp-bridge"));
+        assertTrue("scheduler used " + cpuNanos * 100 / wallNanos + "% of a core",
+                cpuNanos < wallNanos * SCHEDULER_THREADS / 2);
+
+        fleetManager.close();
+        assertEquals(0, fleetManager.getScheduler().getPumpCount());
+    }
+
+    @Test
+    public void concurrentAddLink_startsServersInParallel() throws Exception {
+        final int serverStartMillis = 200;
+        VehicleServer.Factory slowServer = new VehicleServer.Factory() {
+            @Override
+            public VehicleServer create() {
+                final VehicleServer server = NO_SERVER.create();
+                return new VehicleServer() {
+                    @Override
+                    public TelemetryHub start(String systemAddress) {
+                        try {
+                            Thread.sleep(serverStartMillis);
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        }
+                        return server.start(systemAddress);
+                    }
+
+                    @Override
+                    public void stop() {
+                        server.stop();
+                    }
+                };
+            }
+        };
+        final FleetManager fleetManager = new FleetManager(new LinkScheduler(SCHEDULER_THREADS), slowServer, "127.0.0.1", 24640);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        List<Future<VehicleConnection>> adds = new ArrayList<>();
+
+        long start = System.nanoTime();
+        for (int i = 0; i < 4; i++) {
+            final String name = "sim-" + i;
+            adds.add(executor.submit(new Callable<VehicleConnection>() {
+                @Override
+                public VehicleConnection call() throws Exception {
+                    return fleetManager.addLink(name, new PipeLinkPort());
+                }
+            }));
+        }
+        for (Future<VehicleConnection> add : adds) {
+            assertTrue(add.get().isConnected());
+        }
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+        executor.shutdown();
+
+        assertTrue("took " + elapsedMillis + " ms", elapsedMillis < 2 * serverStartMillis);
+        assertEquals(4, fleetManager.getConnections().size());
+        fleetManager.close();
+    }
+
+    private static int countThreads(String prefix) {
+        int count = 0;
+        for (Thread thread : Thread.getAllStackTraces().keySet()) {
+            if (thread.isAlive() && thread.getName().startsWith(prefix)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private static long schedulerCpuNanos(ThreadMXBean threadMXBean) {
+        long total = 0;
+        for (Thread thread : Thread.getAllStackTraces().keySet()) {
+            if (thread.getName().startsWith("link-scheduler-")) {
+                total += Math.max(0, threadMXBean.getThreadCpuTime(thread.getId()));
+            }
+        }
+        return total;
+    }
+}
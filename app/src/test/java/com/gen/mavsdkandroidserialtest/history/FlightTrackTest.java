@@ -0,0 +1,102 @@
+package com.gen.mavsdkandroidserialtest.history;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class FlightTrackTest {
+
+    // Roughly a metre of latitude
+    private static final double DEGREES_PER_METRE = 1 / 111_195.0;
+    private static final double HOME_LATITUDE = -33.8688;
+    private static final double HOME_LONGITUDE = 151.2093;
+
+    @Test
+    public void straightLine_collapsesToItsEnds() {
+        FlightTrack track = new FlightTrack(64, 1);
+        for (int i = 0; i <= 1000; i++) {
+            track.append(HOME_LATITUDE + i * DEGREES_PER_METRE, HOME_LONGITUDE);
+        }
+
+        assertEquals(2, track.size());
+        assertEquals(1000, track.getDistanceFlownMeters(), 0.5);
+        assertEquals(1000, track.getDistanceFromHomeMeters(), 0.5);
+    }
+
+    @Test
+    public void outAndBack_keepsTheTurn() {
+        FlightTrack track = new FlightTrack(64, 1);
+        for (int i = 0; i <= 100; i++) {
+            track.append(HOME_LATITUDE + i * DEGREES_PER_METRE, HOME_LONGITUDE);
+        }
+        for (int i = 99; i >= 50; i--) {
+            track.append(HOME_LATITUDE + i * DEGREES_PER_METRE, HOME_LONGITUDE);
+        }
+        float[] east = new float[8];
+        float[] north = new float[8];
+
+        int count = track.copyMeters(east, north);
+
+        assertEquals(3, count);
+        assertEquals(100, north[1], 0.5);
+        assertEquals(50, north[2], 0.5);
+        assertEquals(150, track.getDistanceFlownMeters(), 0.5);
+        assertEquals(50, track.getDistanceFromHomeMeters(), 0.5);
+    }
+
+    @Test
+    public void longRandomFlight_staysBoundedAndWithinErrorBound() {
+        int maxVertices = 128;
+        FlightTrack track = new FlightTrack(maxVertices, 0.5);
+        Random random = new Random(3);
+        int fixes = 20_000;
+        double[] latitudes = new double[fixes];
+        double[] longitudes = new double[fixes];
+        double heading = 0;
+        double latitude = HOME_LATITUDE;
+        double longitude = HOME_LONGITUDE;
+        for (int i = 0; i < fixes; i++) {
+            heading += random.nextGaussian() * 0.2;
+            latitude += Math.cos(heading) * 2 * DEGREES_PER_METRE;
+            longitude += Math.sin(heading) * 2 * DEGREES_PER_METRE / Math.cos(Math.toRadians(HOME_LATITUDE));
+            latitudes[i] = latitude;
+            longitudes[i] = longitude;
+            track.append(latitude, longitude);
+            assertTrue(track.size() <= maxVertices + 1);
+        }
+
+        double[] trackLatitudes = new double[maxVertices + 1];
+        double[] trackLongitudes = new double[maxVertices + 1];
+        int count = track.copyCoordinates(trackLatitudes, trackLongitudes);
+        assertEquals(latitude, trackLatitudes[count - 1], 1e-9);
+        double bound = track.getErrorBoundMeters();
+        assertTrue(bound > 0.5);
+        for (int i = 0; i < fixes; i++) {
+            double distance = distanceToTrack(latitudes[i], longitudes[i], trackLatitudes, trackLongitudes, count);
+            assertTrue("fix " + i + " is " + distance + " m off, bound " + bound, distance <= bound + 0.01);
+        }
+        assertEquals(fixes, track.getFixCount());
+    }
+
+    private static double distanceToTrack(double latitude, double longitude,
+                                          double[] trackLatitudes, double[] trackLongitudes, int count) {
+        double scale = Math.cos(Math.toRadians(HOME_LATITUDE));
+        double px = longitude * scale / DEGREES_PER_METRE;
+        double py = latitude / DEGREES_PER_METRE;
+        double best = Double.MAX_VALUE;
+        for (int i = 0; i + 1 < count; i++) {
+            double ax = trackLongitudes[i] * scale / DEGREES_PER_METRE;
+            double ay = trackLatitudes[i] / DEGREES_PER_METRE;
+            double bx = trackLongitudes[i + 1] * scale / DEGREES_PER_METRE;
+            double by = trackLatitudes[i + 1] / DEGREES_PER_METRE;
+            double dx = bx - ax;
+            double dy = by - ay;
+            double lengthSquared = dx * dx + dy * dy;
+            double t = lengthSquared == 0 ? 0 : Math.max(0, Math.min(1, ((px - ax) * dx + (py - ay) * dy) / lengthSquared));
+            best = Math.min(best, Math.hypot(px - ax - t * dx, py - ay - t * dy));
+        }
+        return best;
+    }
+}
@@ -0,0 +1,123 @@
+package com.gen.mavsdkandroidserialtest.history;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class TimeSeriesTest {
+
+    @Test
+    public void append_overwritesOldestOnceFull() {
+        TimeSeries series = new TimeSeries(4, 0);
+        for (int i = 0; i < 10; i++) {
+            assertTrue(series.append(i * 100L, i));
+        }
+
+        assertEquals(4, series.size());
+        assertEquals(600, series.getTime(0));
+        assertEquals(9, series.getValue(3), 0);
+        assertEquals(4 * TimeSeries.BYTES_PER_SAMPLE, series.getMemoryBytes());
+    }
+
+    @Test
+    public void append_dropsOutOfOrderAndTooFrequentSamples() {
+        TimeSeries series = new TimeSeries(8, 100);
+        assertTrue(series.append(1000, 1));
+        assertFalse(series.append(999, 2));
+        assertFalse(series.append(1050, 3));
+        assertTrue(series.append(1100, 4));
+
+        assertEquals(2, series.size());
+    }
+
+    @Test
+    public void query_findsRangeAcrossTheWrap() {
+        TimeSeries series = new TimeSeries(100, 0);
+        for (int i = 0; i < 250; i++) {
+            series.append(i * 10L, i);
+        }
+        long[] times = new long[100];
+        double[] values = new double[100];
+
+        int count = series.query(2000, 2100, times, values);
+
+        assertEquals(10, count);
+        assertEquals(2000, times[0]);
+        assertEquals(209, values[9], 0);
+        assertEquals(0, series.query(0, 1500, times, values));
+        assertEquals(series.size(), series.lowerBound(10_000));
+    }
+
+    @Test
+    public void relativeSeries_keepsCoordinatesBeyondFloatPrecision() {
+        TimeSeries series = new TimeSeries(16, 0, true);
+        series.append(0, 151.2093456);
+        series.append(1, 151.2093457);
+
+        assertEquals(151.2093456, series.getValue(0), 1e-9);
+        assertEquals(151.2093457, series.getValue(1), 1e-9);
+    }
+
+    @Test
+    public void downsampleLttb_keepsEndsAndSpike() {
+        TimeSeries series = new TimeSeries(10_000, 0);
+        for (int i = 0; i < 10_000; i++) {
+            series.append(i, i == 5432 ? 100 : Math.sin(i / 500.0));
+        }
+        long[] times = new long[200];
+        double[] values = new double[200];
+
+        int count = series.downsampleLttb(0, 10_000, 100, times, values);
+
+        assertEquals(100, count);
+        assertEquals(0, times[0]);
+        assertEquals(9999, times[count - 1]);
+        boolean spikeKept = false;
+        for (int i = 1; i < count; i++) {
+            assertTrue(times[i] > times[i - 1]);
+            spikeKept |= times[i] == 5432;
+        }
+        assertTrue(spikeKept);
+    }
+
+    @Test
+    public void downsampleLttb_copiesRangesThatFit() {
+        TimeSeries series = new TimeSeries(100, 0);
+        for (int i = 0; i < 50; i++) {
+            series.append(i, i);
+        }
+        long[] times = new long[100];
+        double[] values = new double[100];
+
+        assertEquals(20, series.downsampleLttb(10, 30, 100, times, values));
+        assertEquals(10, times[0]);
+    }
+
+    @Test
+    public void downsampleMinMax_keepsExtremesOfEachBucket() {
+        TimeSeries series = new TimeSeries(1000, 0);
+        for (int i = 0; i < 1000; i++) {
+            series.append(i, i % 100 == 37 ? -5 : i % 100 == 71 ? 5 : 0);
+        }
+        long[] times = new long[20];
+        double[] values = new double[20];
+
+        int count = series.downsampleMinMax(0, 1000, 10, times, values);
+
+        assertEquals(20, count);
+        for (int bucket = 0; bucket < 10; bucket++) {
+            assertEquals(bucket * 100 + 37, times[2 * bucket]);
+            assertEquals(-5, values[2 * bucket], 0);
+            assertEquals(bucket * 100 + 71, times[2 * bucket + 1]);
+            assertEquals(5, values[2 * bucket + 1], 0);
+        }
+    }
+
+    @Test
+    public void telemetryHistory_hasFixedMemory() {
+        TelemetryHistory history = new TelemetryHistory(1000, 0);
+
+        assertEquals(HistoryField.values().length * 1000L * TimeSeries.BYTES_PER_SAMPLE, history.getMemoryBytes());
+        assertEquals(0, history.get(HistoryField.SPEED).size());
+    }
+}
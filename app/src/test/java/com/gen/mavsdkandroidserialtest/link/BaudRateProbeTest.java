@@ -0,0 +1,125 @@
+package com.gen.mavsdkandroidserialtest.link;
+
+import com.gen.mavsdkandroidserialtest.mavlink.MavlinkFrame;
+import com.gen.mavsdkandroidserialtest.mavlink.MavlinkFrameEncoder;
+import com.gen.mavsdkandroidserialtest.mavlink.MavlinkMessages;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class BaudRateProbeTest {
+
+    private static final String KEY = BaudRateProbe.cacheKey(0x0403, 0x6015, "A50285BI");
+
+    /**
+     * Simulated serial port whose vehicle only speaks `vehicleBaudRate`; at any other rate
+     * reads return line noise.
+     */
+    private static class SingleRateLinkPort implements LinkPort {
+
+        final int mVehicleBaudRate;
+        final List<Integer> mBaudRates = new ArrayList<>();
+        final MavlinkFrameEncoder mEncoder = new MavlinkFrameEncoder(2, 1, 1);
+        final byte[] mHeartbeat = new byte[9];
+        final Random mRandom = new Random(42);
+        int mBaudRate;
+
+        SingleRateLinkPort(int vehicleBaudRate) {
+            mVehicleBaudRate = vehicleBaudRate;
+        }
+
+        @Override
+        public int read(byte[] destination, int timeoutMillis) {
+            if (mBaudRate == mVehicleBaudRate) {
+                return mEncoder.encode(MavlinkMessages.HEARTBEAT, mHeartbeat, mHeartbeat.length, destination, 0);
+            }
+            int n = Math.min(destination.length, MavlinkFrame.MAX_FRAME_LENGTH);
+            for (int i = 0; i < n; i++) {
+                destination[i] = (byte) mRandom.nextInt();
+            }
+            return n;
+        }
+
+        @Override
+        public void write(byte[] source, int length, int timeoutMillis) {
+        }
+
+        @Override
+        public void setBaudRate(int baudRate) {
+            mBaudRate = baudRate;
+            mBaudRates.add(baudRate);
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    private static class MapCache implements BaudRateProbe.Cache {
+        final Map<String, Integer> mEntries = new HashMap<>();
+
+        @Override
+        public int get(String key) {
+            Integer baudRate = mEntries.get(key);
+            return baudRate == null ? BaudRateProbe.NO_BAUD_RATE : baudRate;
+        }
+
+        @Override
+        public void put(String key, int baudRate) {
+            mEntries.put(key, baudRate);
+        }
+    }
+
+    private static BaudRateProbe newProbe(MapCache cache) {
+        BaudRateProbe probe = new BaudRateProbe(cache);
+        probe.setWindowMillis(100);
+        return probe;
+    }
+
+    @Test
+    public void probe_findsVehicleRateAndCachesIt() throws Exception {
+        MapCache cache = new MapCache();
+        SingleRateLinkPort port = new SingleRateLinkPort(115200);
+
+        assertEquals(115200, newProbe(cache).probe(port, KEY));
+        assertEquals(115200, cache.get(KEY));
+        assertEquals(115200, port.mBaudRate);
+        assertEquals(4, port.mBaudRates.size());
+    }
+
+    @Test
+    public void probe_triesCachedRateFirst() throws Exception {
+        MapCache cache = new MapCache();
+        cache.put(KEY, 57600);
+        SingleRateLinkPort port = new SingleRateLinkPort(57600);
+
+        assertEquals(57600, newProbe(cache).probe(port, KEY));
+        assertEquals(1, port.mBaudRates.size());
+    }
+
+    @Test
+    public void probe_rescansWhenCachedRateIsStale() throws Exception {
+        MapCache cache = new MapCache();
+        cache.put(KEY, 57600);
+        SingleRateLinkPort port = new SingleRateLinkPort(921600);
+
+        assertEquals(921600, newProbe(cache).probe(port, KEY));
+        assertEquals(921600, cache.get(KEY));
+    }
+
+    @Test
+    public void probe_reportsNoRateForSilentVehicle() throws Exception {
+        MapCache cache = new MapCache();
+        SingleRateLinkPort port = new SingleRateLinkPort(9600);
+
+        assertEquals(BaudRateProbe.NO_BAUD_RATE, newProbe(cache).probe(port, KEY));
+        assertEquals(BaudRateProbe.NO_BAUD_RATE, cache.get(KEY));
+    }
+}
@@ -0,0 +1,64 @@
+package com.gen.mavsdkandroidserialtest.link;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.*;
+
+public class LinkSchedulerTest {
+
+    private final LinkScheduler mScheduler = new LinkScheduler(1);
+
+    @After
+    public void tearDown() {
+        mScheduler.shutdown();
+    }
+
+    @Test
+    public void runtimeException_isReportedAndOtherPumpsKeepRunning() throws Exception {
+        final AtomicReference<IOException> error = new AtomicReference<>();
+        final CountDownLatch failed = new CountDownLatch(1);
+        mScheduler.register(new LinkScheduler.Pump() {
+            @Override
+            public void pumpOnce() {
+                throw new IllegalArgumentException("newLimit > capacity");
+            }
+
+            @Override
+            public void onPumpError(IOException e) {
+                error.set(e);
+                failed.countDown();
+            }
+        });
+        final AtomicInteger calls = new AtomicInteger();
+        mScheduler.register(new LinkScheduler.Pump() {
+            @Override
+            public void pumpOnce() throws IOException {
+                calls.incrementAndGet();
+                try {
+                    Thread.sleep(1);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+
+            @Override
+            public void onPumpError(IOException e) {
+                fail(e.toString());
+            }
+        });
+
+        assertTrue(failed.await(2, TimeUnit.SECONDS));
+        assertTrue(error.get().getCause() instanceof IllegalArgumentException);
+        int before = calls.get();
+        Thread.sleep(100);
+        assertTrue(calls.get() > before);
+        assertEquals(1, mScheduler.getPumpCount());
+    }
+}
@@ -0,0 +1,230 @@
+package com.gen.mavsdkandroidserialtest.link;
+
+import com.gen.mavsdkandroidserialtest.mavlink.MavlinkFrame;
+import com.gen.mavsdkandroidserialtest.mavlink.MavlinkFrameEncoder;
+import com.gen.mavsdkandroidserialtest.mavlink.MavlinkFrameParser;
+import com.gen.mavsdkandroidserialtest.mavlink.MavlinkMessages;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class MavlinkRouterTest {
+    private static final int VEHICLE_SYSTEM_ID = 1;
+    private static final int SERVER_SYSTEM_ID = 245;
+    private static final int GCS_SYSTEM_ID = 255;
+
+    private PipeLinkPort mPort;
+    private DatagramChannel mServer;
+    private LinkScheduler mScheduler;
+    private MavlinkRouter mRouter;
+    private int mRouterPort;
+    private SocketChannel mGcs;
+
+    @Before
+    public void setUp() throws Exception {
+        mPort = new PipeLinkPort();
+        mServer = DatagramChannel.open();
+        mServer.bind(new InetSocketAddress("127.0.0.1", 0));
+        mServer.configureBlocking(false);
+        mScheduler = new LinkScheduler(1);
+        mRouter = new MavlinkRouter(mPort, Arrays.asList(
+                MavlinkRouter.EndpointSpec.udp("mavsdk_server", (InetSocketAddress) mServer.getLocalAddress()),
+                MavlinkRouter.EndpointSpec.tcpServer("gcs", new InetSocketAddress("127.0.0.1", 0))));
+        mRouterPort = mRouter.start(mScheduler).getPort();
+        mGcs = SocketChannel.open(mRouter.getTcpServerAddress(0));
+        mGcs.configureBlocking(false);
+        long deadline = System.currentTimeMillis() + 2000;
+        while (mRouter.getEndpoints().size() < 2 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        assertEquals(2, mRouter.getEndpoints().size());
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        mRouter.stop();
+        mScheduler.shutdown();
+        mGcs.close();
+        mServer.close();
+        mPort.close();
+    }
+
+    @Test
+    public void vehicleFrames_reachEveryEndpoint() throws Exception {
+        MavlinkFrameEncoder vehicle = new MavlinkFrameEncoder(2, VEHICLE_SYSTEM_ID, 1);
+        for (int i = 0; i < 100; i++) {
+            byte[] frame = encode(vehicle, MavlinkMessages.HEARTBEAT, new byte[9]);
+            mPort.vehicleWrite(frame, 0, frame.length);
+        }
+
+        assertEquals(100, receiveFromServer(100).size());
+        assertEquals(100, receiveFromGcs(100).size());
+        assertEquals(100, mRouter.getFramesIn());
+    }
+
+    @Test
+    public void addressedFrames_onlyReachTheirTarget() throws Exception {
+        // Each side announces itself, so the router learns where the systems are
+        byte[] heartbeat = encode(new MavlinkFrameEncoder(2, GCS_SYSTEM_ID, 190), MavlinkMessages.HEARTBEAT, new byte[9]);
+        mGcs.write(ByteBuffer.wrap(heartbeat));
+        MavlinkFrameEncoder vehicle = new MavlinkFrameEncoder(2, VEHICLE_SYSTEM_ID, 1);
+        byte[] vehicleHeartbeat = encode(vehicle, MavlinkMessages.HEARTBEAT, new byte[9]);
+        mPort.vehicleWrite(vehicleHeartbeat, 0, vehicleHeartbeat.length);
+        // Broadcasts go everywhere but back: the server sees both heartbeats
+        assertEquals(2, receiveFromServer(2).size());
+        assertEquals(1, receiveFromGcs(1).size());
+        assertEquals(MavlinkMessages.HEARTBEAT, parse(readFromVehicle(heartbeat.length)).get(0).getMessageId());
+
+        byte[] command = new byte[33];
+        command[30] = VEHICLE_SYSTEM_ID;
+        command[31] = 1;
+        byte[] commandFrame = encode(new MavlinkFrameEncoder(2, SERVER_SYSTEM_ID, 190), MavlinkMessages.COMMAND_LONG, command);
+        mServer.send(ByteBuffer.wrap(commandFrame), new InetSocketAddress("127.0.0.1", mRouterPort));
+        assertArrayEquals(commandFrame, readFromVehicle(commandFrame.length));
+
+        byte[] ack = new byte[10];
+        ack[8] = (byte) SERVER_SYSTEM_ID;
+        ack[9] = (byte) 190;
+        byte[] ackFrame = encode(vehicle, MavlinkMessages.COMMAND_ACK, ack);
+        mPort.vehicleWrite(ackFrame, 0, ackFrame.length);
+        List<MavlinkFrame> atServer = receiveFromServer(1);
+        assertEquals(MavlinkMessages.COMMAND_ACK, atServer.get(0).getMessageId());
+
+        // Neither the command nor the ack was for the ground station
+        Thread.sleep(50);
+        assertTrue(receiveFromGcs(0).isEmpty());
+        assertEquals(0, mRouter.getEndpoints().get(1).getDroppedFrames());
+    }
+
+    @Test
+    public void batches_stopAtTheEndOfTheRing() throws Exception {
+        // 13-byte heartbeats fill a 208-byte ring exactly, so a frame starts right at its end
+        PipeLinkPort port = new PipeLinkPort();
+        DatagramChannel server = DatagramChannel.open();
+        server.bind(new InetSocketAddress("127.0.0.1", 0));
+        server.configureBlocking(false);
+        MavlinkRouter router = new MavlinkRouter(port, Arrays.asList(
+                MavlinkRouter.EndpointSpec.udp("mavsdk_server", (InetSocketAddress) server.getLocalAddress())), 64, 208);
+        router.start(mScheduler);
+        try {
+            MavlinkFrameEncoder vehicle = new MavlinkFrameEncoder(2, VEHICLE_SYSTEM_ID, 1);
+            byte[] heartbeat = encode(vehicle, MavlinkMessages.HEARTBEAT, new byte[9]);
+            assertEquals(13, heartbeat.length);
+            int received = 0;
+            for (int burst = 0; burst < 20; burst++) {
+                byte[] frames = new byte[0];
+                for (int i = 0; i < 5; i++) {
+                    byte[] frame = encode(vehicle, MavlinkMessages.HEARTBEAT, new byte[9]);
+                    frames = Arrays.copyOf(frames, frames.length + frame.length);
+                    System.arraycopy(frame, 0, frames, frames.length - frame.length, frame.length);
+                }
+                port.vehicleWrite(frames, 0, frames.length);
+                received += receive(server, 5).size();
+            }
+            assertEquals(100, received);
+            assertEquals(100, router.getFramesIn());
+            assertNull(router.getLastError());
+        } finally {
+            router.stop();
+            server.close();
+            port.close();
+        }
+    }
+
+    private static byte[] encode(MavlinkFrameEncoder encoder, int messageId, byte[] payload) {
+        byte[] frame = new byte[MavlinkFrame.MAX_FRAME_LENGTH];
+        int length = encoder.encode(messageId, payload, payload.length, frame, 0);
+        return Arrays.copyOf(frame, length);
+    }
+
+    private List<MavlinkFrame> receiveFromServer(int count) throws Exception {
+        return receive(mServer, count);
+    }
+
+    private static List<MavlinkFrame> receive(DatagramChannel server, int count) throws Exception {
+        List<MavlinkFrame> frames = new ArrayList<>();
+        MavlinkFrameParser parser = collector(frames);
+        ByteBuffer datagram = ByteBuffer.allocate(SerialUdpBridge.MAX_DATAGRAM_SIZE);
+        long deadline = System.currentTimeMillis() + 2000;
+        while (frames.size() < count && System.currentTimeMillis() < deadline) {
+            datagram.clear();
+            if (server.receive(datagram) == null) {
+                Thread.sleep(5);
+                continue;
+            }
+            datagram.flip();
+            parser.parse(datagram);
+        }
+        return frames;
+    }
+
+    private List<MavlinkFrame> receiveFromGcs(int count) throws Exception {
+        List<MavlinkFrame> frames = new ArrayList<>();
+        MavlinkFrameParser parser = collector(frames);
+        ByteBuffer buffer = ByteBuffer.allocate(4096);
+        long deadline = System.currentTimeMillis() + 2000;
+        do {
+            buffer.clear();
+            if (mGcs.read(buffer) <= 0) {
+                Thread.sleep(5);
+                continue;
+            }
+            buffer.flip();
+            parser.parse(buffer);
+        } while (frames.size() < count && System.currentTimeMillis() < deadline);
+        return frames;
+    }
+
+    private byte[] readFromVehicle(int length) throws Exception {
+        byte[] written = new byte[0];
+        long deadline = System.currentTimeMillis() + 2000;
+        while (written.length < length && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+            byte[] chunk = mPort.vehicleRead();
+            written = Arrays.copyOf(written, written.length + chunk.length);
+            System.arraycopy(chunk, 0, written, written.length - chunk.length, chunk.length);
+        }
+        return written;
+    }
+
+    private static List<MavlinkFrame> parse(byte[] bytes) {
+        List<MavlinkFrame> frames = new ArrayList<>();
+        collector(frames).parse(bytes, 0, bytes.length);
+        return frames;
+    }
+
+    // Collects copies of parsed frames, which the parser reuses
+    private static MavlinkFrameParser collector(final List<MavlinkFrame> frames) {
+        return new MavlinkFrameParser(new MavlinkFrameParser.Listener() {
+            @Override
+            public void onFrame(MavlinkFrame frame) {
+                frames.add(copy(frame));
+            }
+        });
+    }
+
+    private static MavlinkFrame copy(MavlinkFrame frame) {
+        byte[] bytes = new byte[frame.getLength()];
+        frame.copyTo(bytes, 0);
+        final MavlinkFrame[] result = new MavlinkFrame[1];
+        MavlinkFrameParser parser = new MavlinkFrameParser(new MavlinkFrameParser.Listener() {
+            @Override
+            public void onFrame(MavlinkFrame parsed) {
+                result[0] = parsed;
+            }
+        });
+        parser.parse(bytes, 0, bytes.length);
+        return result[0];
+    }
+}
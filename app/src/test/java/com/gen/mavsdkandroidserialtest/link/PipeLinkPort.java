@@ -0,0 +1,93 @@
+package com.gen.mavsdkandroidserialtest.link;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Pipe;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+
+/**
+ * Fake serial port backed by two OS pipes: one carries the "vehicle" side's output to
+ * {@link #read}, the other collects what the app {@link #write}s.
+ */
+public class PipeLinkPort implements LinkPort {
+
+    private final Pipe mVehicleToApp;
+    private final Pipe mAppToVehicle;
+    private final Selector mSelector;
+    private final ByteBuffer mReadBuffer = ByteBuffer.allocate(64 * 1024);
+
+    public PipeLinkPort() throws IOException {
+        mVehicleToApp = Pipe.open();
+        mAppToVehicle = Pipe.open();
+        mVehicleToApp.source().configureBlocking(false);
+        mAppToVehicle.source().configureBlocking(false);
+        mSelector = Selector.open();
+        mVehicleToApp.source().register(mSelector, SelectionKey.OP_READ);
+    }
+
+    @Override
+    public int read(byte[] destination, int timeoutMillis) throws IOException {
+        if (!mVehicleToApp.source().isOpen()) {
+            throw new IOException("Port closed");
+        }
+        mSelector.select(Math.max(1, timeoutMillis));
+        mSelector.selectedKeys().clear();
+        ByteBuffer buffer = ByteBuffer.wrap(destination);
+        int n = mVehicleToApp.source().read(buffer);
+        if (n < 0) {
+            throw new IOException("Port closed");
+        }
+        return n;
+    }
+
+    @Override
+    public void write(byte[] source, int length, int timeoutMillis) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(source, 0, length);
+        while (buffer.hasRemaining()) {
+            mAppToVehicle.sink().write(buffer);
+        }
+    }
+
+    @Override
+    public void setBaudRate(int baudRate) {
+    }
+
+    @Override
+    public void close() throws IOException {
+        mVehicleToApp.sink().close();
+        mVehicleToApp.source().close();
+        mAppToVehicle.sink().close();
+        mAppToVehicle.source().close();
+        mSelector.close();
+    }
+
+    /**
+     * Simulate an unplug: the next {@link #read} fails.
+     */
+    public void vehicleDisconnect() throws IOException {
+        mVehicleToApp.sink().close();
+    }
+
+    /**
+     * Bytes sent by the simulated vehicle.
+     */
+    public synchronized void vehicleWrite(byte[] source, int offset, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(source, offset, length);
+        while (buffer.hasRemaining()) {
+            mVehicleToApp.sink().write(buffer);
+        }
+    }
+
+    /**
+     * Bytes the app wrote to the vehicle so far, without waiting.
+     */
+    public synchronized byte[] vehicleRead() throws IOException {
+        mReadBuffer.clear();
+        mAppToVehicle.source().read(mReadBuffer);
+        mReadBuffer.flip();
+        byte[] result = new byte[mReadBuffer.remaining()];
+        mReadBuffer.get(result);
+        return result;
+    }
+}
@@ -0,0 +1,116 @@
+package com.gen.mavsdkandroidserialtest.link;
+
+import com.gen.mavsdkandroidserialtest.mavlink.MavlinkFrame;
+import com.gen.mavsdkandroidserialtest.mavlink.MavlinkFrameEncoder;
+import com.gen.mavsdkandroidserialtest.mavlink.MavlinkFrameParser;
+import com.gen.mavsdkandroidserialtest.mavlink.MavlinkMessages;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+public class SerialUdpBridgeTest {
+    private static final int FRAME_COUNT = 500;
+
+    private PipeLinkPort mPort;
+    private DatagramChannel mServer;
+    private SerialUdpBridge mBridge;
+
+    @Before
+    public void setUp() throws Exception {
+        mPort = new PipeLinkPort();
+        mServer = DatagramChannel.open();
+        mServer.bind(new InetSocketAddress("127.0.0.1", 0));
+        mBridge = new SerialUdpBridge(mPort, (InetSocketAddress) mServer.getLocalAddress());
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        mBridge.stop();
+        mServer.close();
+        mPort.close();
+    }
+
+    @Test
+    public void uplink_forwardsWholeFramesInBatches() throws Exception {
+        mBridge.start();
+
+        MavlinkFrameEncoder encoder = new MavlinkFrameEncoder(2, 1, 1);
+        byte[] payload = new byte[MavlinkMessages.getPayloadLength(MavlinkMessages.ATTITUDE)];
+        byte[] frame = new byte[MavlinkFrame.MAX_FRAME_LENGTH];
+        ByteArrayOutputStream sent = new ByteArrayOutputStream();
+        for (int i = 0; i < FRAME_COUNT; i++) {
+            payload[0] = (byte) i;
+            payload[1] = 1;
+            int length = encoder.encode(MavlinkMessages.ATTITUDE, payload, payload.length, frame, 0);
+            sent.write(frame, 0, length);
+        }
+        byte[] stream = sent.toByteArray();
+        // Odd-sized writes so that frames straddle serial reads.
+        for (int offset = 0; offset < stream.length; offset += 37) {
+            mPort.vehicleWrite(stream, offset, Math.min(37, stream.length - offset));
+        }
+
+        final int[] received = new int[1];
+        MavlinkFrameParser parser = new MavlinkFrameParser(new MavlinkFrameParser.Listener() {
+            @Override
+            public void onFrame(MavlinkFrame frame) {
+                received[0]++;
+            }
+        });
+        ByteBuffer datagram = ByteBuffer.allocate(SerialUdpBridge.MAX_DATAGRAM_SIZE);
+        ByteArrayOutputStream forwarded = new ByteArrayOutputStream();
+        mServer.socket().setSoTimeout(2000);
+        int datagrams = 0;
+        while (received[0] < FRAME_COUNT) {
+            datagram.clear();
+            assertNotNull(mServer.receive(datagram));
+            datagram.flip();
+            int before = received[0];
+            parser.parse(datagram.duplicate());
+            assertEquals("datagram must not split frames", 0, parser.getDiscardedByteCount());
+            assertTrue(received[0] > before);
+            forwarded.write(datagram.array(), 0, datagram.limit());
+            datagrams++;
+        }
+
+        assertArrayEquals(stream, forwarded.toByteArray());
+        assertTrue("expected batching, got " + datagrams + " datagrams", datagrams < FRAME_COUNT);
+        // The pump counts a datagram after send returns, possibly after it has arrived here
+        mBridge.stop();
+        assertEquals(FRAME_COUNT, mBridge.getFramesIn());
+        assertEquals(stream.length, mBridge.getSerialBytesIn());
+        assertEquals(stream.length, mBridge.getUdpBytesOut());
+        assertEquals(datagrams, mBridge.getDatagramsOut());
+        assertTrue(mBridge.getMaxBatchLatencyNanos() > 0);
+    }
+
+    @Test
+    public void downlink_writesServerDatagramsToPort() throws Exception {
+        InetSocketAddress bridgeAddress = mBridge.start();
+
+        byte[] command = new byte[]{1, 2, 3, 4, 5};
+        mServer.send(ByteBuffer.wrap(command), bridgeAddress);
+
+        byte[] written = new byte[0];
+        long deadline = System.currentTimeMillis() + 2000;
+        while (written.length < command.length && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+            byte[] chunk = mPort.vehicleRead();
+            written = Arrays.copyOf(written, written.length + chunk.length);
+            System.arraycopy(chunk, 0, written, written.length - chunk.length, chunk.length);
+        }
+
+        assertArrayEquals(command, written);
+        assertEquals(1, mBridge.getDatagramsIn());
+        assertEquals(command.length, mBridge.getSerialBytesOut());
+    }
+}
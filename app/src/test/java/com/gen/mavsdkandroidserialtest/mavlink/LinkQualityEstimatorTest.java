@@ -0,0 +1,133 @@
+package com.gen.mavsdkandroidserialtest.mavlink;
+
+import com.gen.mavsdkandroidserialtest.models.LinkQuality;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class LinkQualityEstimatorTest {
+    private static final long MILLIS = 1_000_000L;
+
+    private final LinkQualityEstimator mEstimator = new LinkQualityEstimator(10_000, 10);
+    private final LinkQuality mQuality = new LinkQuality();
+
+    @Test
+    public void sequenceGaps_countAsLossPerSender() throws Exception {
+        List<byte[]> autopilot = encode(1, 1, MavlinkMessages.ATTITUDE, 100);
+        List<byte[]> gimbal = encode(1, 154, MavlinkMessages.ATTITUDE, 100);
+        long nanos = 0;
+        for (int i = 0; i < 100; i++) {
+            // Every tenth autopilot frame is lost; the gimbal's interleaved frames are not
+            if (i % 10 != 5) {
+                feed(autopilot.get(i), nanos);
+            }
+            feed(gimbal.get(i), nanos);
+            nanos += 10 * MILLIS;
+        }
+        // Publishing happens as the window moves on
+        feed(autopilot.get(0), 2_000 * MILLIS);
+        mEstimator.read(mQuality);
+
+        assertEquals(190, mQuality.getReceived());
+        assertEquals(10, mQuality.getLost());
+        assertEquals(5, mQuality.getLossPercent(), 0.01);
+        assertEquals(2, mEstimator.getStreamCount());
+    }
+
+    @Test
+    public void duplicatesAndLateFrames_areNotLoss() throws Exception {
+        List<byte[]> frames = encode(1, 1, MavlinkMessages.ATTITUDE, 10);
+        int[] order = {0, 1, 1, 3, 2, 4, 5, 6, 7, 9, 8};
+        long nanos = 0;
+        for (int i : order) {
+            feed(frames.get(i), nanos);
+            nanos += MILLIS;
+        }
+        feed(frames.get(0), 2_000 * MILLIS);
+        mEstimator.read(mQuality);
+
+        assertEquals(1, mQuality.getDuplicates());
+        assertEquals(2, mQuality.getReordered());
+        assertEquals(0, mQuality.getLost());
+    }
+
+    @Test
+    public void oldBuckets_leaveTheWindow() throws Exception {
+        List<byte[]> frames = encode(1, 1, MavlinkMessages.ATTITUDE, 4);
+        feed(frames.get(0), 0);
+        feed(frames.get(3), MILLIS);
+        feed(frames.get(0), 5_000 * MILLIS);
+        mEstimator.read(mQuality);
+        assertEquals(2, mQuality.getLost());
+        assertEquals(1, mQuality.getMaxGapMillis(), 0.01);
+
+        feed(frames.get(1), 20_000 * MILLIS);
+        mEstimator.read(mQuality);
+        assertEquals(0, mQuality.getLost());
+        assertEquals(0, mQuality.getReceived());
+    }
+
+    @Test
+    public void radioStatus_isPublishedAtOnce() throws Exception {
+        byte[] payload = new byte[MavlinkMessages.getPayloadLength(MavlinkMessages.RADIO_STATUS)];
+        payload[0] = 7;
+        payload[4] = (byte) 200;
+        payload[5] = (byte) 190;
+        payload[6] = 80;
+        payload[7] = 40;
+        payload[8] = 45;
+        MavlinkFrameEncoder encoder = new MavlinkFrameEncoder(2, 51, 68);
+        byte[] frame = new byte[MavlinkFrame.MAX_FRAME_LENGTH];
+        int length = encoder.encode(MavlinkMessages.RADIO_STATUS, payload, payload.length, frame, 0);
+        feed(Arrays.copyOf(frame, length), 0);
+        mEstimator.read(mQuality);
+
+        assertEquals(200, mQuality.getRssi());
+        assertEquals(190, mQuality.getRemoteRssi());
+        assertEquals(40, mQuality.getNoise());
+        assertEquals(45, mQuality.getRemoteNoise());
+        assertEquals(80, mQuality.getTxBufferPercent());
+        assertEquals(7, mQuality.getRxErrors());
+    }
+
+    @Test
+    public void steadyHeartbeats_haveLittleJitter() throws Exception {
+        List<byte[]> heartbeats = encode(1, 1, MavlinkMessages.HEARTBEAT, 40);
+        long nanos = 0;
+        for (int i = 0; i < heartbeats.size(); i++) {
+            feed(heartbeats.get(i), nanos);
+            nanos += (i % 2 == 0 ? 1_010 : 990) * MILLIS;
+        }
+        mEstimator.read(mQuality);
+        assertTrue("jitter " + mQuality.getJitterMillis(), mQuality.getJitterMillis() > 10);
+        assertTrue("jitter " + mQuality.getJitterMillis(), mQuality.getJitterMillis() < 25);
+    }
+
+    private void feed(byte[] bytes, final long nanos) {
+        new MavlinkFrameParser(new MavlinkFrameParser.Listener() {
+            @Override
+            public void onFrame(MavlinkFrame frame) {
+                mEstimator.onFrame(frame, nanos);
+            }
+        }).parse(bytes, 0, bytes.length);
+    }
+
+    // Consecutively numbered frames from one sender
+    private static List<byte[]> encode(int systemId, int componentId, int messageId, int count) {
+        MavlinkFrameEncoder encoder = new MavlinkFrameEncoder(2, systemId, componentId);
+        byte[] payload = new byte[MavlinkMessages.getPayloadLength(messageId)];
+        byte[] frame = new byte[MavlinkFrame.MAX_FRAME_LENGTH];
+        List<byte[]> frames = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            payload[0] = (byte) (i + 1);
+            int length = encoder.encode(messageId, payload, payload.length, frame, 0);
+            frames.add(Arrays.copyOf(frame, length));
+        }
+        return frames;
+    }
+}
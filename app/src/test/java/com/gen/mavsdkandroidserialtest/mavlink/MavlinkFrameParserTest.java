@@ -0,0 +1,198 @@
+package com.gen.mavsdkandroidserialtest.mavlink;
+
+import com.gen.mavsdkandroidserialtest.AllocationMeter;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class MavlinkFrameParserTest {
+
+    // Frames produced by an independent MAVLink implementation.
+    private static final byte[] V1_HEARTBEAT = bytes(
+            0xFE, 0x09, 0x00, 0x01, 0x01, 0x00, 0x00, 0x00, 0x01, 0x00, 0x02, 0x0C, 0x01, 0x03, 0x03, 0x2D, 0x6F);
+    private static final byte[] V2_GLOBAL_POSITION_INT = bytes(
+            0xFD, 0x1C, 0x00, 0x00, 0x01, 0x01, 0x01, 0x21, 0x00, 0x00, 0x40, 0xE2, 0x01, 0x00, 0x4A, 0x25,
+            0xB1, 0x07, 0x78, 0x18, 0xC7, 0x2F, 0x80, 0x38, 0x01, 0x00, 0x20, 0x4E, 0x00, 0x00, 0x64, 0x00,
+            0x38, 0xFF, 0x05, 0x00, 0x28, 0x23, 0xE4, 0x52);
+    private static final byte[] V2_SIGNED_GLOBAL_POSITION_INT = bytes(
+            0xFD, 0x1C, 0x01, 0x00, 0x02, 0x01, 0x01, 0x21, 0x00, 0x00, 0x40, 0xE2, 0x01, 0x00, 0x4A, 0x25,
+            0xB1, 0x07, 0x78, 0x18, 0xC7, 0x2F, 0x80, 0x38, 0x01, 0x00, 0x20, 0x4E, 0x00, 0x00, 0x64, 0x00,
+            0x38, 0xFF, 0x05, 0x00, 0x28, 0x23, 0xF0, 0xFF, 0x07, 0x87, 0xD6, 0x12, 0x00, 0x00, 0x00, 0x3A,
+            0x11, 0x9E, 0xB3, 0x35, 0xBD);
+
+    private final List<String> mFrames = new ArrayList<>();
+    private MavlinkFrameParser mParser;
+
+    @Before
+    public void setUp() {
+        mParser = new MavlinkFrameParser(new MavlinkFrameParser.Listener() {
+            @Override
+            public void onFrame(MavlinkFrame frame) {
+                mFrames.add("v" + frame.getVersion()
+                        + " seq=" + frame.getSequence()
+                        + " sys=" + frame.getSystemId()
+                        + " comp=" + frame.getComponentId()
+                        + " msg=" + frame.getMessageId()
+                        + " len=" + frame.getLength()
+                        + (frame.isSigned() ? " signed" : ""));
+            }
+        });
+    }
+
+    @Test
+    public void parse_v1Heartbeat() {
+        final int[] fields = new int[4];
+        MavlinkFrameParser parser = new MavlinkFrameParser(new MavlinkFrameParser.Listener() {
+            @Override
+            public void onFrame(MavlinkFrame frame) {
+                fields[0] = (int) frame.getUint32(0);
+                fields[1] = frame.getUint8(4);
+                fields[2] = frame.getUint8(5);
+                fields[3] = frame.getUint8(7);
+            }
+        });
+        parser.parse(V1_HEARTBEAT, 0, V1_HEARTBEAT.length);
+
+        assertEquals(1, parser.getFrameCount());
+        assertArrayEquals(new int[]{65536, 2, 12, 3}, fields);
+    }
+
+    @Test
+    public void parse_v2PayloadFields() {
+        final long[] fields = new long[4];
+        MavlinkFrameParser parser = new MavlinkFrameParser(new MavlinkFrameParser.Listener() {
+            @Override
+            public void onFrame(MavlinkFrame frame) {
+                fields[0] = frame.getUint32(0);
+                fields[1] = frame.getInt32(4);
+                fields[2] = frame.getInt16(22);
+                fields[3] = frame.getUint16(26);
+            }
+        });
+        parser.parse(ByteBuffer.wrap(V2_GLOBAL_POSITION_INT));
+
+        assertEquals(1, parser.getFrameCount());
+        assertArrayEquals(new long[]{123456, 129049930, -200, 9000}, fields);
+    }
+
+    @Test
+    public void parse_skipsSignature() {
+        byte[] stream = concat(V2_SIGNED_GLOBAL_POSITION_INT, V1_HEARTBEAT);
+        mParser.parse(stream, 0, stream.length);
+
+        assertEquals(Arrays.asList(
+                "v2 seq=2 sys=1 comp=1 msg=33 len=53 signed",
+                "v1 seq=0 sys=1 comp=1 msg=0 len=17"), mFrames);
+    }
+
+    @Test
+    public void parse_resyncsAfterGarbageAndCorruptFrames() {
+        byte[] corrupt = V2_GLOBAL_POSITION_INT.clone();
+        corrupt[20] ^= 0x01;
+        byte[] garbage = bytes(0x00, 0xFE, 0x02, 0x13, 0x37, 0xFD, 0x01, 0x55);
+        byte[] stream = concat(garbage, corrupt, V1_HEARTBEAT, garbage, V2_GLOBAL_POSITION_INT);
+
+        mParser.parse(stream, 0, stream.length);
+
+        assertEquals(Arrays.asList(
+                "v1 seq=0 sys=1 comp=1 msg=0 len=17",
+                "v2 seq=1 sys=1 comp=1 msg=33 len=40"), mFrames);
+        assertTrue(mParser.getCrcErrorCount() >= 1);
+        assertEquals(stream.length - V1_HEARTBEAT.length - V2_GLOBAL_POSITION_INT.length,
+                mParser.getDiscardedByteCount());
+    }
+
+    @Test
+    public void parse_byteByByte() {
+        byte[] stream = concat(V1_HEARTBEAT, V2_SIGNED_GLOBAL_POSITION_INT, V2_GLOBAL_POSITION_INT);
+        for (int i = 0; i < stream.length; i++) {
+            mParser.parse(stream, i, 1);
+        }
+        assertEquals(3, mFrames.size());
+        assertEquals(stream.length, mParser.getByteCount());
+    }
+
+    @Test
+    public void parse_unknownMessagesOnlyWhenAccepted() {
+        byte[] unknown = V1_HEARTBEAT.clone();
+        unknown[5] = (byte) 200;
+
+        mParser.parse(unknown, 0, unknown.length);
+        assertTrue(mFrames.isEmpty());
+
+        mParser.setAcceptUnknownMessages(true);
+        mParser.parse(unknown, 0, unknown.length);
+        assertEquals(Arrays.asList("v1 seq=0 sys=1 comp=1 msg=200 len=17"), mFrames);
+    }
+
+    @Test
+    public void encoder_roundTripsTruncatedV2Payload() {
+        MavlinkFrameEncoder encoder = new MavlinkFrameEncoder(2, 42, 190);
+        byte[] payload = new byte[MavlinkMessages.getPayloadLength(MavlinkMessages.COMMAND_LONG)];
+        ByteBuffer.wrap(payload).order(ByteOrder.LITTLE_ENDIAN).putFloat(0, 1.5f).putShort(28, (short) 400);
+        byte[] frame = new byte[MavlinkFrame.MAX_FRAME_LENGTH];
+        int length = encoder.encode(MavlinkMessages.COMMAND_LONG, payload, payload.length, frame, 0);
+
+        final float[] param1 = new float[1];
+        final int[] command = new int[2];
+        MavlinkFrameParser parser = new MavlinkFrameParser(new MavlinkFrameParser.Listener() {
+            @Override
+            public void onFrame(MavlinkFrame frame) {
+                param1[0] = frame.getFloat(0);
+                command[0] = frame.getUint16(28);
+                command[1] = frame.getUint8(32);
+            }
+        });
+        parser.parse(frame, 0, length);
+
+        assertEquals(MavlinkFrame.HEADER_LENGTH_V2 + 30 + MavlinkFrame.CHECKSUM_LENGTH, length);
+        assertEquals(1, parser.getFrameCount());
+        assertEquals(1.5f, param1[0], 0f);
+        assertArrayEquals(new int[]{400, 0}, command);
+    }
+
+    @Test
+    public void parse_doesNotAllocateInSteadyState() {
+        byte[] stream = concat(V1_HEARTBEAT, V2_GLOBAL_POSITION_INT, V2_SIGNED_GLOBAL_POSITION_INT, bytes(0x00, 0xFD));
+        MavlinkFrameParser parser = new MavlinkFrameParser(new MavlinkFrameParser.Listener() {
+            @Override
+            public void onFrame(MavlinkFrame frame) {
+            }
+        });
+        for (int i = 0; i < 20_000; i++) {
+            parser.parse(stream, 0, stream.length);
+        }
+
+        long before = AllocationMeter.allocatedBytes();
+        for (int i = 0; i < 100_000; i++) {
+            parser.parse(stream, 0, stream.length);
+        }
+        long allocated = AllocationMeter.allocatedBytes() - before;
+
+        assertTrue("allocated " + allocated + " bytes", allocated < 1024);
+    }
+
+    private static byte[] bytes(int... values) {
+        byte[] result = new byte[values.length];
+        for (int i = 0; i < values.length; i++) {
+            result[i] = (byte) values[i];
+        }
+        return result;
+    }
+
+    private static byte[] concat(byte[]... parts) {
+        ByteBuffer buffer = ByteBuffer.allocate(4096);
+        for (byte[] part : parts) {
+            buffer.put(part);
+        }
+        return Arrays.copyOf(buffer.array(), buffer.position());
+    }
+}
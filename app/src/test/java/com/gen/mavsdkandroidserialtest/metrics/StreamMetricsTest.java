@@ -0,0 +1,106 @@
+package com.gen.mavsdkandroidserialtest.metrics;
+
+import com.gen.mavsdkandroidserialtest.AllocationMeter;
+import com.gen.mavsdkandroidserialtest.telemetry.RatePolicy;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+
+import io.reactivex.Flowable;
+
+import static org.junit.Assert.*;
+
+public class StreamMetricsTest {
+    private static final int WARMUP_SAMPLES = 200_000;
+    private static final int MEASURED_SAMPLES = 2_000_000;
+
+    @Rule
+    public TemporaryFolder mTemporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void throttledStream_countsArrivalsDeliveriesAndDrops() {
+        MetricsRegistry registry = new MetricsRegistry();
+        RatePolicy ratePolicy = RatePolicy.throttleFirst(60_000);
+        final StreamMetrics streamMetrics = registry.register("battery", ratePolicy);
+
+        List<Integer> delivered = Flowable.range(0, 10)
+                .doOnNext(streamMetrics.<Integer>arrivals())
+                .compose(ratePolicy.<Integer>transformer())
+                .toList()
+                .blockingGet();
+        streamMetrics.onDelivered();
+
+        assertEquals(1, delivered.size());
+        assertEquals(10, streamMetrics.getArrivalCount());
+        assertEquals(1, streamMetrics.getDeliveryCount());
+        assertEquals(9, streamMetrics.getThrottledCount());
+        assertEquals(1, streamMetrics.getHandoffLatency().getCount());
+    }
+
+    @Test
+    public void dump_writesTextAndAppendsJsonLines() throws Exception {
+        MetricsRegistry registry = new MetricsRegistry();
+        StreamMetrics position = registry.register("position", null);
+        position.onArrival();
+        position.onDelivered();
+        registry.register("attitude", null);
+
+        File directory = new File(mTemporaryFolder.getRoot(), "metrics");
+        registry.dump(directory, 1000);
+        registry.dump(directory, 2000);
+
+        String text = new String(Files.readAllBytes(new File(directory, MetricsRegistry.TEXT_FILE_NAME).toPath()), StandardCharsets.UTF_8);
+        assertTrue(text, text.startsWith("rx threads: "));
+        assertTrue(text, text.contains("position") && text.contains("in=1 out=1"));
+
+        List<String> lines = Files.readAllLines(new File(directory, MetricsRegistry.JSON_FILE_NAME).toPath(), StandardCharsets.UTF_8);
+        assertEquals(2, lines.size());
+        assertTrue(lines.get(1), lines.get(1).startsWith("{\"timeMillis\":2000,\"rxThreads\":"));
+        assertTrue(lines.get(1), lines.get(1).contains("{\"name\":\"position\",\"rateHz\":0.00,\"arrivals\":1,\"deliveries\":1,"));
+        assertTrue(lines.get(1), lines.get(1).endsWith("\"name\":\"attitude\",\"rateHz\":0.00,\"arrivals\":0,\"deliveries\":0,"
+                + "\"throttled\":0,\"latencyCount\":0,\"p50Micros\":0,\"p99Micros\":0,\"maxMicros\":0}]}"));
+    }
+
+    @Test
+    public void rate_measuredOverOneSecondWindows() throws Exception {
+        StreamMetrics streamMetrics = new StreamMetrics("position", null);
+        long end = System.nanoTime() + 2_300_000_000L;
+        while (System.nanoTime() < end) {
+            streamMetrics.onArrival();
+            Thread.sleep(10);
+        }
+        double rateHz = streamMetrics.getRateHz();
+        assertTrue("rate " + rateHz, rateHz > 50 && rateHz <= 101);
+    }
+
+    // Benchmark: the cost added to every sample of an instrumented stream
+    @Test
+    public void recording_isAllocationFreeAndCheap() {
+        StreamMetrics streamMetrics = new StreamMetrics("position", null);
+        record(streamMetrics, WARMUP_SAMPLES);
+
+        long before = AllocationMeter.allocatedBytes();
+        long start = System.nanoTime();
+        record(streamMetrics, MEASURED_SAMPLES);
+        long nanosPerSample = (System.nanoTime() - start) / MEASURED_SAMPLES;
+        long allocated = AllocationMeter.allocatedBytes() - before;
+
+        // Anything left over is the meter itself, not the recording.
+        assertTrue("allocated " + allocated + " bytes", allocated < 1024);
+        assertTrue("recording took " + nanosPerSample + " ns per sample", nanosPerSample < 1000);
+        assertEquals(WARMUP_SAMPLES + MEASURED_SAMPLES, streamMetrics.getHandoffLatency().getCount());
+    }
+
+    private static void record(StreamMetrics streamMetrics, int count) {
+        for (int i = 0; i < count; i++) {
+            streamMetrics.onArrival();
+            streamMetrics.onDelivered();
+        }
+    }
+}
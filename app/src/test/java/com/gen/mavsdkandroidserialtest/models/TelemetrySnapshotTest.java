@@ -0,0 +1,88 @@
+package com.gen.mavsdkandroidserialtest.models;
+
+import com.gen.mavsdkandroidserialtest.AllocationMeter;
+
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.Assert.*;
+
+public class TelemetrySnapshotTest {
+    private static final int WARMUP_UPDATES = 200_000;
+    private static final int MEASURED_UPDATES = 1_000_000;
+
+    @Test
+    public void writePositionVelocityNed_computesDerivedValues() {
+        TelemetrySnapshot snapshot = new TelemetrySnapshot();
+        PositionRelative positionRelative = new PositionRelative();
+        Speed speed = new Speed();
+
+        snapshot.writePositionVelocityNed(3f, 4f, -10f, 6f, 8f, 2f);
+        snapshot.readPositionRelative(positionRelative);
+        snapshot.readSpeed(speed);
+
+        assertEquals(5f, positionRelative.getDistance(), 1e-6f);
+        assertEquals(10f, positionRelative.getHeight(), 1e-6f);
+        assertEquals(10f, speed.getHspeed(), 1e-6f);
+        assertEquals(2f, speed.getVspeed(), 1e-6f);
+        assertEquals(1, snapshot.getUpdateCount());
+    }
+
+    @Test
+    public void update_doesNotAllocateInSteadyState() {
+        TelemetrySnapshot snapshot = new TelemetrySnapshot();
+        PositionRelative positionRelative = new PositionRelative();
+        Speed speed = new Speed();
+
+        runUpdates(snapshot, positionRelative, speed, WARMUP_UPDATES);
+
+        long before = AllocationMeter.allocatedBytes();
+        runUpdates(snapshot, positionRelative, speed, MEASURED_UPDATES);
+        long allocated = AllocationMeter.allocatedBytes() - before;
+
+        // Anything left over is the meter itself, not the updates.
+        assertTrue("allocated " + allocated + " bytes", allocated < 1024);
+    }
+
+    @Test
+    public void read_neverObservesTornUpdate() throws InterruptedException {
+        final TelemetrySnapshot snapshot = new TelemetrySnapshot();
+        final AtomicBoolean running = new AtomicBoolean(true);
+
+        Thread writer = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                float i = 0;
+                while (running.get()) {
+                    i++;
+                    snapshot.write(i, i, i, i);
+                }
+            }
+        });
+        writer.start();
+
+        PositionRelative positionRelative = new PositionRelative();
+        Speed speed = new Speed();
+        try {
+            for (int i = 0; i < MEASURED_UPDATES; i++) {
+                snapshot.readPositionRelative(positionRelative);
+                assertEquals(positionRelative.getDistance(), positionRelative.getHeight(), 0f);
+                snapshot.readSpeed(speed);
+                assertEquals(speed.getHspeed(), speed.getVspeed(), 0f);
+            }
+        } finally {
+            running.set(false);
+            writer.join();
+        }
+    }
+
+    private static void runUpdates(TelemetrySnapshot snapshot, PositionRelative positionRelative, Speed speed, int count) {
+        for (int i = 0; i < count; i++) {
+            float f = i & 1023;
+            snapshot.writePositionVelocityNed(f, f, -f, f, f, f);
+            snapshot.readPositionRelative(positionRelative);
+            snapshot.readSpeed(speed);
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package com.gen.mavsdkandroidserialtest.recording;
+
+import com.gen.mavsdkandroidserialtest.models.LastKnownState;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+
+import io.mavsdk.telemetry.Telemetry;
+
+import static org.junit.Assert.*;
+
+public class LastKnownStateStoreTest {
+    private static final long TIME_MILLIS = 1_700_000_000_000L;
+
+    private File mFile;
+
+    @Before
+    public void setUp() throws Exception {
+        mFile = File.createTempFile("last-known-state", ".bin");
+        assertTrue(mFile.delete());
+    }
+
+    @After
+    public void tearDown() {
+        mFile.delete();
+    }
+
+    @Test
+    public void state_survivesReopening() throws Exception {
+        LastKnownStateStore store = new LastKnownStateStore(mFile);
+        assertTrue(store.read().isEmpty());
+        store.onPosition(TIME_MILLIS, new Telemetry.Position(47.3977419, 8.5455938, 518.5f, 30f));
+        store.onBattery(TIME_MILLIS + 1, new Telemetry.Battery(15.2f, 0.64f));
+        store.onGpsInfo(TIME_MILLIS + 2, new Telemetry.GpsInfo(11, Telemetry.FixType.FIX_3D));
+        assertTrue(store.flush());
+        assertFalse(store.flush());
+        store.onPositionVelocityNed(TIME_MILLIS + 3, new Telemetry.PositionVelocityNed(
+                new Telemetry.PositionNed(12f, -5f, -30f), new Telemetry.VelocityNed(1f, 2f, 0.5f)));
+        store.close();
+
+        store = new LastKnownStateStore(mFile);
+        LastKnownState state = store.read();
+        assertEquals(TIME_MILLIS, state.getPositionTimeMillis());
+        assertEquals(47.3977419, state.getPosition().getLatitudeDeg(), 0);
+        assertEquals(8.5455938, state.getPosition().getLongitudeDeg(), 0);
+        assertEquals(30f, state.getPosition().getRelativeAltitudeM(), 0);
+        assertEquals(15.2f, state.getBattery().getVoltageV(), 0);
+        assertEquals(0.64f, state.getBattery().getRemainingPercent(), 0);
+        assertEquals(11, (int) state.getGpsInfo().getNumSatellites());
+        assertEquals(Telemetry.FixType.FIX_3D, state.getGpsInfo().getFixType());
+        assertEquals(TIME_MILLIS + 3, state.getPositionVelocityNedTimeMillis());
+        assertEquals(-5f, state.getPositionVelocityNed().getPosition().getEastM(), 0);
+        assertEquals(0.5f, state.getPositionVelocityNed().getVelocity().getDownMS(), 0);
+        store.close();
+    }
+
+    @Test
+    public void unknownGpsFields_readBackAsNull() throws Exception {
+        LastKnownStateStore store = new LastKnownStateStore(mFile);
+        store.onGpsInfo(TIME_MILLIS, new Telemetry.GpsInfo(null, null));
+        assertTrue(store.flush());
+        LastKnownState state = store.read();
+        assertEquals(TIME_MILLIS, state.getGpsInfoTimeMillis());
+        assertNull(state.getGpsInfo().getNumSatellites());
+        assertNull(state.getGpsInfo().getFixType());
+
+        store.onGpsInfo(TIME_MILLIS + 1, new Telemetry.GpsInfo(9, null));
+        store.close();
+        store = new LastKnownStateStore(mFile);
+        state = store.read();
+        assertEquals(9, (int) state.getGpsInfo().getNumSatellites());
+        assertNull(state.getGpsInfo().getFixType());
+        store.close();
+    }
+
+    @Test
+    public void interruptedFlush_readsAsEmpty() throws Exception {
+        LastKnownStateStore store = new LastKnownStateStore(mFile);
+        store.onBattery(TIME_MILLIS, new Telemetry.Battery(15.2f, 0.64f));
+        store.close();
+        RandomAccessFile file = new RandomAccessFile(mFile, "rw");
+        file.seek(4);
+        file.write(3);
+        file.close();
+
+        store = new LastKnownStateStore(mFile);
+        assertTrue(store.read().isEmpty());
+        store.onBattery(TIME_MILLIS + 1000, new Telemetry.Battery(15.1f, 0.63f));
+        store.flush();
+        LastKnownState state = store.read();
+        assertEquals(TIME_MILLIS + 1000, state.getBatteryTimeMillis());
+        assertNull(state.getPosition());
+        store.close();
+    }
+
+    @Test
+    public void foreignFile_isReplaced() throws Exception {
+        RandomAccessFile file = new RandomAccessFile(mFile, "rw");
+        for (int i = 0; i < LastKnownStateStore.FILE_LENGTH; i++) {
+            file.write(0x5A);
+        }
+        file.close();
+
+        LastKnownStateStore store = new LastKnownStateStore(mFile);
+        assertTrue(store.read().isEmpty());
+        store.onGpsInfo(TIME_MILLIS, new Telemetry.GpsInfo(7, Telemetry.FixType.FIX_2D));
+        store.close();
+
+        store = new LastKnownStateStore(mFile);
+        LastKnownState state = store.read();
+        assertEquals(7, (int) state.getGpsInfo().getNumSatellites());
+        assertNull(state.getBattery());
+        assertNull(state.getPositionVelocityNed());
+        store.close();
+    }
+}
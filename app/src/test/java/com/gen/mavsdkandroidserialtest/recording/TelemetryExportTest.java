@@ -0,0 +1,131 @@
+package com.gen.mavsdkandroidserialtest.recording;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Random;
+
+import io.mavsdk.telemetry.Telemetry;
+
+import static org.junit.Assert.*;
+
+public class TelemetryExportTest {
+    private static final int SAMPLES = 6000;
+    private static final long START_MILLIS = 1_700_000_000_000L;
+
+    @Test
+    public void samples_readBackWithinTheirScale() throws Exception {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        TelemetryExportWriter writer = new TelemetryExportWriter(output, 256, true);
+        writeFlight(writer, null);
+        writer.write(ExportStream.BATTERY, START_MILLIS + SAMPLES * 100L, Double.NaN, 0.5, 0, 0, 0, 0);
+        writer.close();
+
+        TelemetryExportReader reader = new TelemetryExportReader(new ByteArrayInputStream(output.toByteArray()));
+        Random random = new Random(1);
+        int positions = 0;
+        int batteries = 0;
+        double[] latitudes = new double[256];
+        while (reader.next()) {
+            if (reader.getStream() == ExportStream.POSITION) {
+                reader.copyColumn(1, latitudes);
+                for (int row = 0; row < reader.getRowCount(); row++) {
+                    Telemetry.Position expected = position(positions, random);
+                    assertEquals(START_MILLIS + positions * 100L, reader.getTimeMillis(row));
+                    assertEquals(expected.getLatitudeDeg(), latitudes[row], 1e-7);
+                    assertEquals(expected.getLongitudeDeg(), reader.getValue(2, row), 1e-7);
+                    assertEquals(expected.getRelativeAltitudeM(), reader.getValue(4, row), 1e-3);
+                    positions++;
+                }
+            } else if (reader.getStream() == ExportStream.BATTERY) {
+                batteries += reader.getRowCount();
+            }
+        }
+        assertFalse(reader.isTruncated());
+        assertEquals(SAMPLES, positions);
+        assertEquals(SAMPLES / 10 + 1, batteries);
+        assertTrue(Double.isNaN(lastBatteryVoltage(output.toByteArray())));
+        reader.close();
+    }
+
+    @Test
+    public void export_isFarSmallerThanCsv() throws Exception {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        StringBuilder csv = new StringBuilder();
+        TelemetryExportWriter writer = new TelemetryExportWriter(output, TelemetryExportWriter.DEFAULT_BLOCK_ROWS, true);
+        writeFlight(writer, csv);
+        writer.close();
+
+        double ratio = (double) csv.length() / output.size();
+        assertTrue("expected 5x over CSV, got " + ratio, ratio >= 5);
+        assertTrue(writer.getRawBytes() > output.size() - TelemetryExportWriter.HEADER_LENGTH);
+    }
+
+    @Test
+    public void truncatedFile_endsAtTheLastWholeBlock() throws Exception {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        TelemetryExportWriter writer = new TelemetryExportWriter(output, 100, false);
+        Random random = new Random(1);
+        for (int i = 0; i < 250; i++) {
+            writer.writePosition(START_MILLIS + i * 100L, position(i, random));
+        }
+        writer.close();
+        byte[] bytes = output.toByteArray();
+
+        TelemetryExportReader reader = new TelemetryExportReader(
+                new ByteArrayInputStream(Arrays.copyOf(bytes, bytes.length - 5)));
+        int rows = 0;
+        while (reader.next()) {
+            rows += reader.getRowCount();
+        }
+        assertEquals(200, rows);
+        assertTrue(reader.isTruncated());
+        reader.close();
+    }
+
+    // Ten minutes at 10 Hz, with a battery sample every second
+    private static void writeFlight(TelemetryExportWriter writer, StringBuilder csv) {
+        Random random = new Random(1);
+        for (int i = 0; i < SAMPLES; i++) {
+            long timeMillis = START_MILLIS + i * 100L;
+            Telemetry.Position position = position(i, random);
+            writer.writePosition(timeMillis, position);
+            if (csv != null) {
+                csv.append(String.format(Locale.US, "%d,%.7f,%.7f,%.3f,%.3f\n", timeMillis,
+                        position.getLatitudeDeg(), position.getLongitudeDeg(),
+                        position.getAbsoluteAltitudeM(), position.getRelativeAltitudeM()));
+            }
+            if (i % 10 == 0) {
+                Telemetry.Battery battery = new Telemetry.Battery(16.8f - i * 0.0002f, 1 - i / (float) SAMPLES);
+                writer.writeBattery(timeMillis, battery);
+                if (csv != null) {
+                    csv.append(String.format(Locale.US, "%d,%.3f,%.3f\n", timeMillis,
+                            battery.getVoltageV(), battery.getRemainingPercent()));
+                }
+            }
+        }
+    }
+
+    // A slow circle with centimetre noise on the altitude
+    private static Telemetry.Position position(int i, Random random) {
+        double angle = i * 0.001;
+        float altitude = (float) (30 + random.nextGaussian() * 0.02);
+        return new Telemetry.Position(47.3977419 + 0.001 * Math.sin(angle), 8.5455938 + 0.0015 * Math.cos(angle),
+                488 + altitude, altitude);
+    }
+
+    private static double lastBatteryVoltage(byte[] bytes) throws Exception {
+        TelemetryExportReader reader = new TelemetryExportReader(new ByteArrayInputStream(bytes));
+        double voltage = 0;
+        while (reader.next()) {
+            if (reader.getStream() == ExportStream.BATTERY) {
+                voltage = reader.getValue(1, reader.getRowCount() - 1);
+            }
+        }
+        reader.close();
+        return voltage;
+    }
+}
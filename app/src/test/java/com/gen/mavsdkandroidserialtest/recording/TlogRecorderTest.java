@@ -0,0 +1,114 @@
+package com.gen.mavsdkandroidserialtest.recording;
+
+import com.gen.mavsdkandroidserialtest.mavlink.MavlinkFrame;
+import com.gen.mavsdkandroidserialtest.mavlink.MavlinkFrameEncoder;
+import com.gen.mavsdkandroidserialtest.mavlink.MavlinkFrameParser;
+import com.gen.mavsdkandroidserialtest.mavlink.MavlinkMessages;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class TlogRecorderTest {
+    // LOCAL_POSITION_NED with a non-zero last byte, so MAVLink 2 does not trim the payload
+    private static final int FRAME_LENGTH = 40;
+    private static final int RECORD_LENGTH = TlogRecorder.TIMESTAMP_LENGTH + FRAME_LENGTH;
+    // 921600 baud carries about 2300 of these frames a second
+    private static final double MIN_FRAMES_PER_SECOND = 20_000;
+
+    @Rule
+    public TemporaryFolder mTemporaryFolder = new TemporaryFolder();
+
+    private final MavlinkFrameEncoder mEncoder = new MavlinkFrameEncoder(2, 1, 1);
+    private final byte[] mPayload = new byte[MavlinkMessages.getPayloadLength(MavlinkMessages.LOCAL_POSITION_NED)];
+    private final byte[] mFrame = new byte[MavlinkFrame.MAX_FRAME_LENGTH];
+
+    @Test
+    public void fullRing_dropsAndCountsFrames() throws Exception {
+        File directory = mTemporaryFolder.newFolder();
+        TlogRecorder recorder = new TlogRecorder(directory, "test", 1024 * 1024, 64, 1000);
+        MavlinkFrameParser parser = new MavlinkFrameParser(recorder);
+        // Nothing drains the ring before start
+        for (int i = 0; i < 1000; i++) {
+            parse(parser, i);
+        }
+        assertEquals(64, recorder.getQueuedFrames());
+        assertEquals(1000 - 64, recorder.getDroppedFrames());
+
+        recorder.start();
+        recorder.stop();
+        assertNull(recorder.getLastError());
+        assertEquals(64, recorder.getRecordedFrames());
+        TlogReader reader = new TlogReader(TlogReplayer.findLatestSession(directory));
+        assertEquals(64, reader.getFrameCount());
+        reader.close();
+    }
+
+    @Test
+    public void sustainedFrames_rotateSegmentsAndTruncateOnClose() throws Exception {
+        File directory = mTemporaryFolder.newFolder();
+        TlogRecorder recorder = new TlogRecorder(directory);
+        MavlinkFrameParser parser = new MavlinkFrameParser(recorder);
+        int frameCount = (int) (TlogRecorder.DEFAULT_SEGMENT_SIZE / RECORD_LENGTH) + 10_000;
+
+        recorder.start();
+        long startNanos = System.nanoTime();
+        for (int i = 0; i < frameCount; i++) {
+            // Keep the producer from outrunning the ring, which the serial rate never does
+            while (recorder.getQueuedFrames() >= TlogRecorder.DEFAULT_QUEUE_CAPACITY / 2) {
+                Thread.yield();
+            }
+            parse(parser, i);
+        }
+        recorder.stop();
+        double framesPerSecond = frameCount * 1e9 / (System.nanoTime() - startNanos);
+
+        assertNull(recorder.getLastError());
+        assertEquals(0, recorder.getDroppedFrames());
+        assertEquals(frameCount, recorder.getRecordedFrames());
+        assertEquals((long) frameCount * RECORD_LENGTH, recorder.getBytesWritten());
+        assertTrue("only " + (int) framesPerSecond + " frames/s", framesPerSecond > MIN_FRAMES_PER_SECOND);
+
+        List<File> segments = TlogReplayer.findLatestSession(directory);
+        assertEquals(2, segments.size());
+        // Both segments are cut to what was written, the first just short of the segment size
+        long firstLength = segments.get(0).length();
+        assertEquals(TlogRecorder.DEFAULT_SEGMENT_SIZE / RECORD_LENGTH * RECORD_LENGTH, firstLength);
+        assertEquals(recorder.getBytesWritten(), firstLength + segments.get(1).length());
+        TlogReader reader = new TlogReader(segments);
+        assertEquals(frameCount, reader.getFrameCount());
+        assertEquals(FRAME_LENGTH, reader.getFrameLength(frameCount - 1));
+        reader.close();
+    }
+
+    @Test
+    public void segment_isForcedWithinTheFlushInterval() throws Exception {
+        File directory = mTemporaryFolder.newFolder();
+        TlogRecorder recorder = new TlogRecorder(directory, "test", 1024 * 1024, 256, 50);
+        MavlinkFrameParser parser = new MavlinkFrameParser(recorder);
+        recorder.start();
+        for (int i = 0; i < 40; i++) {
+            parse(parser, i);
+            Thread.sleep(10);
+        }
+        recorder.stop();
+
+        assertTrue(recorder.getMaxFlushIntervalNanos() >= 50_000_000L);
+        // The writer parks for 2 ms between checks; leave room for a slow scheduler
+        assertTrue("forced after " + recorder.getMaxFlushIntervalNanos() / 1_000_000 + " ms",
+                recorder.getMaxFlushIntervalNanos() < 250_000_000L);
+        assertEquals(40 * RECORD_LENGTH, TlogReplayer.findLatestSession(directory).get(0).length());
+    }
+
+    private void parse(MavlinkFrameParser parser, int i) {
+        mPayload[0] = (byte) i;
+        mPayload[mPayload.length - 1] = 1;
+        int length = mEncoder.encode(MavlinkMessages.LOCAL_POSITION_NED, mPayload, mPayload.length, mFrame, 0);
+        parser.parse(mFrame, 0, length);
+    }
+}
@@ -0,0 +1,94 @@
+package com.gen.mavsdkandroidserialtest.recording;
+
+import com.gen.mavsdkandroidserialtest.mavlink.MavlinkFrame;
+import com.gen.mavsdkandroidserialtest.mavlink.MavlinkFrameEncoder;
+import com.gen.mavsdkandroidserialtest.mavlink.MavlinkFrameParser;
+import com.gen.mavsdkandroidserialtest.mavlink.MavlinkMessages;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class TlogReplayerTest {
+    private static final int FRAME_COUNT = 3000;
+
+    @Rule
+    public TemporaryFolder mTemporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void recordedSegments_replayInOrderAsFastAsPossible() throws Exception {
+        File directory = mTemporaryFolder.newFolder();
+        record(directory);
+
+        List<File> segments = TlogReplayer.findLatestSession(directory);
+        assertTrue("expected rotation, got " + segments.size(), segments.size() > 1);
+
+        TlogReader reader = new TlogReader(segments);
+        assertEquals(FRAME_COUNT, reader.getFrameCount());
+        for (int i = 1; i < reader.getFrameCount(); i++) {
+            assertTrue(reader.getTimestampMicros(i) >= reader.getTimestampMicros(i - 1));
+        }
+
+        final int[] expectedSequence = new int[1];
+        final int[] replayed = new int[1];
+        TlogReplayer replayer = new TlogReplayer(reader, new MavlinkFrameParser.Listener() {
+            @Override
+            public void onFrame(MavlinkFrame frame) {
+                assertEquals(expectedSequence[0] & 0xFF, frame.getSequence());
+                expectedSequence[0]++;
+                replayed[0]++;
+            }
+        });
+        replayer.setSpeed(TlogReplayer.SPEED_AS_FAST_AS_POSSIBLE);
+        replayer.start();
+        long deadline = System.currentTimeMillis() + 5000;
+        while (replayer.isRunning() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        replayer.close();
+
+        assertEquals(FRAME_COUNT, replayed[0]);
+        assertEquals(FRAME_COUNT, replayer.getReplayedFrames());
+        assertTrue(replayer.getFramesPerSecond() > 0);
+    }
+
+    @Test
+    public void indexOf_findsFirstFrameAtOrAfterTimestamp() throws Exception {
+        File directory = mTemporaryFolder.newFolder();
+        record(directory);
+
+        TlogReader reader = new TlogReader(TlogReplayer.findLatestSession(directory));
+        int middle = reader.getFrameCount() / 2;
+        long timestamp = reader.getTimestampMicros(middle);
+        int index = reader.indexOf(timestamp);
+
+        assertEquals(timestamp, reader.getTimestampMicros(index));
+        assertTrue(index == 0 || reader.getTimestampMicros(index - 1) < timestamp);
+        assertEquals(0, reader.indexOf(Long.MIN_VALUE));
+        assertEquals(reader.getFrameCount(), reader.indexOf(Long.MAX_VALUE));
+        reader.close();
+    }
+
+    private static void record(File directory) throws Exception {
+        TlogRecorder recorder = new TlogRecorder(directory, "test", 16 * 1024, 4096, 10);
+        recorder.start();
+        MavlinkFrameParser parser = new MavlinkFrameParser(recorder);
+        MavlinkFrameEncoder encoder = new MavlinkFrameEncoder(2, 1, 1);
+        byte[] payload = new byte[MavlinkMessages.getPayloadLength(MavlinkMessages.LOCAL_POSITION_NED)];
+        byte[] frame = new byte[MavlinkFrame.MAX_FRAME_LENGTH];
+        for (int i = 0; i < FRAME_COUNT; i++) {
+            payload[0] = (byte) i;
+            payload[27] = 1;
+            int length = encoder.encode(MavlinkMessages.LOCAL_POSITION_NED, payload, payload.length, frame, 0);
+            parser.parse(frame, 0, length);
+        }
+        recorder.stop();
+        assertEquals(0, recorder.getDroppedFrames());
+        assertNull(recorder.getLastError());
+    }
+}
@@ -0,0 +1,71 @@
+package com.gen.mavsdkandroidserialtest.repositories;
+
+import com.gen.mavsdkandroidserialtest.telemetry.TelemetryTopic;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import io.mavsdk.telemetry.Telemetry;
+import io.reactivex.Flowable;
+import io.reactivex.disposables.Disposable;
+import io.reactivex.processors.PublishProcessor;
+
+import static org.junit.Assert.*;
+
+public class TelemetryHubTest {
+
+    private final PublishProcessor<Telemetry.Battery> mBatterySource = PublishProcessor.create();
+    private final List<Telemetry.Battery> mTapped = new ArrayList<>();
+
+    private final TelemetryHub mHub = new TelemetryHub(
+            Flowable.<Telemetry.PositionVelocityNed>never(),
+            mBatterySource,
+            Flowable.<Telemetry.GpsInfo>never(),
+            Flowable.<Telemetry.Position>never(),
+            Flowable.<Telemetry.EulerAngle>never());
+
+    @Test
+    public void sampleListener_seesObservedSamplesWithoutCountingAsAnObserver() {
+        mHub.setSampleListener(new RecordingSampleListener());
+        Telemetry.Battery unobserved = new Telemetry.Battery(15.0f, 0.5f);
+        mBatterySource.onNext(unobserved);
+        assertFalse(mBatterySource.hasSubscribers());
+        assertTrue(mTapped.isEmpty());
+
+        Disposable first = mHub.getBattery().subscribe();
+        Disposable second = mHub.getBattery().subscribe();
+        assertEquals(2, mHub.getObserverCount(TelemetryTopic.BATTERY));
+        Telemetry.Battery observed = new Telemetry.Battery(15.2f, 0.64f);
+        mBatterySource.onNext(observed);
+        assertEquals(1, mTapped.size());
+        assertSame(observed, mTapped.get(0));
+
+        first.dispose();
+        second.dispose();
+        assertEquals(0, mHub.getObserverCount(TelemetryTopic.BATTERY));
+        assertFalse(mBatterySource.hasSubscribers());
+        mBatterySource.onNext(observed);
+        assertEquals(1, mTapped.size());
+    }
+
+    private class RecordingSampleListener implements TelemetryHub.SampleListener {
+        @Override
+        public void onPositionVelocityNed(Telemetry.PositionVelocityNed positionVelocityNed) {
+        }
+
+        @Override
+        public void onBattery(Telemetry.Battery battery) {
+            mTapped.add(battery);
+        }
+
+        @Override
+        public void onGpsInfo(Telemetry.GpsInfo gpsInfo) {
+        }
+
+        @Override
+        public void onPosition(Telemetry.Position position) {
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package com.gen.mavsdkandroidserialtest.simulation;
+
+import com.gen.mavsdkandroidserialtest.mavlink.MavlinkFrame;
+import com.gen.mavsdkandroidserialtest.mavlink.MavlinkFrameEncoder;
+import com.gen.mavsdkandroidserialtest.mavlink.MavlinkFrameParser;
+import com.gen.mavsdkandroidserialtest.mavlink.MavlinkMessages;
+import com.gen.mavsdkandroidserialtest.mavlink.MavlinkTelemetryDecoder;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.DatagramChannel;
+import java.util.ArrayList;
+import java.util.List;
+
+import io.mavsdk.telemetry.Telemetry;
+
+import static org.junit.Assert.*;
+
+public class VehicleSimulatorTest {
+    private static final int MAV_CMD_SET_MESSAGE_INTERVAL = 511;
+    private static final int MAV_CMD_REQUEST_MESSAGE = 512;
+
+    private DatagramChannel mGroundStation;
+    private VehicleSimulator mSimulator;
+    private final MavlinkFrameEncoder mEncoder = new MavlinkFrameEncoder(2, 245, 190);
+    private final int[] mCounts = new int[512];
+    private final List<Telemetry.Position> mPositions = new ArrayList<>();
+    private final List<Integer> mAckedCommands = new ArrayList<>();
+    private long mTimesyncTs1;
+    private final MavlinkFrameParser mParser = new MavlinkFrameParser(new MavlinkFrameParser.Listener() {
+        @Override
+        public void onFrame(MavlinkFrame frame) {
+            mCounts[frame.getMessageId()]++;
+            if (frame.getMessageId() == MavlinkMessages.GLOBAL_POSITION_INT) {
+                mPositions.add(MavlinkTelemetryDecoder.decodePosition(frame));
+            } else if (frame.getMessageId() == MavlinkMessages.COMMAND_ACK && frame.getUint8(2) == 0) {
+                mAckedCommands.add(frame.getUint16(0));
+            } else if (frame.getMessageId() == MavlinkMessages.TIMESYNC) {
+                mTimesyncTs1 = frame.getInt64(8);
+            }
+        }
+    });
+
+    @Before
+    public void setUp() throws Exception {
+        InetAddress loopback = InetAddress.getLoopbackAddress();
+        mGroundStation = DatagramChannel.open();
+        mGroundStation.bind(new InetSocketAddress(loopback, 0));
+        mSimulator = new VehicleSimulator(new InetSocketAddress(loopback, 0),
+                (InetSocketAddress) mGroundStation.getLocalAddress());
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        mSimulator.close();
+        mGroundStation.close();
+    }
+
+    @Test
+    public void streams_runAtTheirRates() throws Exception {
+        mSimulator.setPositionRate(200);
+        mSimulator.start();
+        receiveFor(1000);
+
+        assertTrue("heartbeats " + mCounts[MavlinkMessages.HEARTBEAT], mCounts[MavlinkMessages.HEARTBEAT] >= 1);
+        assertTrue("positions " + mPositions.size(), mPositions.size() > 120 && mPositions.size() < 260);
+        assertTrue(mCounts[MavlinkMessages.LOCAL_POSITION_NED] > 120);
+        assertTrue(mCounts[MavlinkMessages.GPS_RAW_INT] >= 4);
+        assertTrue(mCounts[MavlinkMessages.SYS_STATUS] >= 4);
+        assertTrue(mCounts[MavlinkMessages.BATTERY_STATUS] >= 1);
+
+        // Within the circle around home, at 30 m
+        Telemetry.Position position = mPositions.get(mPositions.size() - 1);
+        assertEquals(47.3977419, position.getLatitudeDeg(), 0.001);
+        assertEquals(8.5455938, position.getLongitudeDeg(), 0.001);
+        assertEquals(30, position.getRelativeAltitudeM(), 0.01);
+    }
+
+    @Test
+    public void requests_areAnswered() throws Exception {
+        mSimulator.start();
+        InetSocketAddress vehicle = new InetSocketAddress(InetAddress.getLoopbackAddress(),
+                mSimulator.getLocalAddress().getPort());
+        sendCommand(vehicle, MAV_CMD_REQUEST_MESSAGE, MavlinkMessages.AUTOPILOT_VERSION, 0);
+        sendCommand(vehicle, MAV_CMD_SET_MESSAGE_INTERVAL, MavlinkMessages.GLOBAL_POSITION_INT, 2500);
+        ByteBuffer timesync = ByteBuffer.allocate(16).order(ByteOrder.LITTLE_ENDIAN);
+        timesync.putLong(8, 123456789L);
+        send(vehicle, MavlinkMessages.TIMESYNC, timesync.array());
+        receiveFor(300);
+
+        assertTrue(mAckedCommands.contains(MAV_CMD_REQUEST_MESSAGE));
+        assertTrue(mAckedCommands.contains(MAV_CMD_SET_MESSAGE_INTERVAL));
+        assertEquals(1, mCounts[MavlinkMessages.AUTOPILOT_VERSION]);
+        assertEquals(123456789L, mTimesyncTs1);
+        assertEquals(400, mSimulator.getRate(MavlinkMessages.GLOBAL_POSITION_INT), 0.01);
+    }
+
+    private void sendCommand(InetSocketAddress vehicle, int command, float param1, float param2) throws Exception {
+        ByteBuffer payload = ByteBuffer.allocate(33).order(ByteOrder.LITTLE_ENDIAN);
+        payload.putFloat(0, param1);
+        payload.putFloat(4, param2);
+        payload.putShort(28, (short) command);
+        payload.put(30, (byte) VehicleSimulator.DEFAULT_SYSTEM_ID);
+        payload.put(31, (byte) 1);
+        send(vehicle, MavlinkMessages.COMMAND_LONG, payload.array());
+    }
+
+    private void send(InetSocketAddress vehicle, int messageId, byte[] payload) throws Exception {
+        byte[] frame = new byte[MavlinkFrame.MAX_FRAME_LENGTH];
+        int length = mEncoder.encode(messageId, payload, payload.length, frame, 0);
+        mGroundStation.send(ByteBuffer.wrap(frame, 0, length), vehicle);
+    }
+
+    private void receiveFor(long millis) throws Exception {
+        mGroundStation.configureBlocking(false);
+        ByteBuffer buffer = ByteBuffer.allocate(64 * 1024);
+        long deadline = System.nanoTime() + millis * 1_000_000L;
+        while (System.nanoTime() < deadline) {
+            buffer.clear();
+            if (mGroundStation.receive(buffer) == null) {
+                Thread.sleep(1);
+                continue;
+            }
+            mParser.parse(buffer.array(), 0, buffer.position());
+        }
+    }
+}
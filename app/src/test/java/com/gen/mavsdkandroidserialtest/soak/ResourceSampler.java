@@ -0,0 +1,113 @@
+package com.gen.mavsdkandroidserialtest.soak;
+
+import java.io.File;
+import java.lang.management.BufferPoolMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.ThreadMXBean;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Samples the resources a leak would grow, and fits a line through each of them.
+ *
+ * <p>Heap is measured after a full collection, so only live objects count. Native
+ * handles are the process's open file descriptors (sockets, pipes, files), read from
+ * /proc; where that does not exist they are reported as -1 and never fail a run.</p>
+ */
+public class ResourceSampler {
+
+    public static final int HEAP_BYTES = 0;
+    public static final int DIRECT_BYTES = 1;
+    public static final int THREADS = 2;
+    public static final int FILE_DESCRIPTORS = 3;
+    public static final String[] NAMES = new String[]{"heap-bytes", "direct-bytes", "threads", "file-descriptors"};
+
+    private static final File FD_DIRECTORY = new File("/proc/self/fd");
+
+    private final MemoryMXBean mMemoryMXBean = ManagementFactory.getMemoryMXBean();
+    private final ThreadMXBean mThreadMXBean = ManagementFactory.getThreadMXBean();
+    private final BufferPoolMXBean mDirectPool;
+
+    private long mStartNanos;
+    private int mCount;
+    private double[] mMinutes = new double[64];
+    private final long[][] mValues = new long[NAMES.length][64];
+
+    public ResourceSampler() {
+        BufferPoolMXBean directPool = null;
+        List<BufferPoolMXBean> pools = ManagementFactory.getPlatformMXBeans(BufferPoolMXBean.class);
+        for (BufferPoolMXBean pool : pools) {
+            if ("direct".equals(pool.getName())) {
+                directPool = pool;
+            }
+        }
+        mDirectPool = directPool;
+    }
+
+    public synchronized void sample() {
+        long now = System.nanoTime();
+        if (mCount == 0) {
+            mStartNanos = now;
+        }
+        if (mCount == mMinutes.length) {
+            mMinutes = Arrays.copyOf(mMinutes, 2 * mCount);
+            for (int i = 0; i < mValues.length; i++) {
+                mValues[i] = Arrays.copyOf(mValues[i], 2 * mCount);
+            }
+        }
+        System.gc();
+        mMinutes[mCount] = (now - mStartNanos) / 60e9;
+        mValues[HEAP_BYTES][mCount] = mMemoryMXBean.getHeapMemoryUsage().getUsed();
+        mValues[DIRECT_BYTES][mCount] = mDirectPool == null ? -1 : mDirectPool.getMemoryUsed();
+        mValues[THREADS][mCount] = mThreadMXBean.getThreadCount();
+        String[] descriptors = FD_DIRECTORY.list();
+        mValues[FILE_DESCRIPTORS][mCount] = descriptors == null ? -1 : descriptors.length;
+        mCount++;
+    }
+
+    public synchronized int getSampleCount() {
+        return mCount;
+    }
+
+    public synchronized double getMinutes() {
+        return mCount == 0 ? 0 : mMinutes[mCount - 1];
+    }
+
+    public synchronized long getFirst(int resource) {
+        return mCount == 0 ? -1 : mValues[resource][0];
+    }
+
+    public synchronized long getLast(int resource) {
+        return mCount == 0 ? -1 : mValues[resource][mCount - 1];
+    }
+
+    /**
+     * @return The least-squares growth per hour of `resource`, leaving out the first
+     *     `warmupFraction` of the samples, or 0 with fewer than three samples or none of
+     *     the resource.
+     */
+    public synchronized double getSlopePerHour(int resource, double warmupFraction) {
+        int first = (int) (mCount * warmupFraction);
+        int n = mCount - first;
+        if (n < 3 || mValues[resource][first] < 0) {
+            return 0;
+        }
+        double meanX = 0;
+        double meanY = 0;
+        for (int i = first; i < mCount; i++) {
+            meanX += mMinutes[i];
+            meanY += mValues[resource][i];
+        }
+        meanX /= n;
+        meanY /= n;
+        double covariance = 0;
+        double variance = 0;
+        for (int i = first; i < mCount; i++) {
+            double dx = mMinutes[i] - meanX;
+            covariance += dx * (mValues[resource][i] - meanY);
+            variance += dx * dx;
+        }
+        return variance == 0 ? 0 : covariance / variance * 60;
+    }
+}
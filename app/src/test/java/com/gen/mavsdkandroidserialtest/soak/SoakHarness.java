@@ -0,0 +1,438 @@
+package com.gen.mavsdkandroidserialtest.soak;
+
+import com.gen.mavsdkandroidserialtest.fleet.FleetManager;
+import com.gen.mavsdkandroidserialtest.fleet.VehicleServer;
+import com.gen.mavsdkandroidserialtest.link.LinkPort;
+import com.gen.mavsdkandroidserialtest.link.LinkScheduler;
+import com.gen.mavsdkandroidserialtest.link.UdpLinkPort;
+import com.gen.mavsdkandroidserialtest.mavlink.MavlinkFrame;
+import com.gen.mavsdkandroidserialtest.mavlink.MavlinkFrameParser;
+import com.gen.mavsdkandroidserialtest.mavlink.MavlinkTelemetryDecoder;
+import com.gen.mavsdkandroidserialtest.metrics.LatencyHistogram;
+import com.gen.mavsdkandroidserialtest.repositories.TelemetryHub;
+import com.gen.mavsdkandroidserialtest.simulation.VehicleSimulator;
+import com.gen.mavsdkandroidserialtest.telemetry.RatePolicies;
+import com.gen.mavsdkandroidserialtest.telemetry.TelemetryScheduler;
+import com.gen.mavsdkandroidserialtest.telemetry.TelemetryTopic;
+
+import java.io.IOException;
+import java.net.DatagramSocket;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import io.reactivex.Flowable;
+import io.reactivex.Scheduler;
+import io.reactivex.disposables.CompositeDisposable;
+import io.reactivex.disposables.Disposable;
+import io.reactivex.functions.Consumer;
+import io.reactivex.schedulers.Schedulers;
+
+/**
+ * Drives the telemetry pipeline with a {@link VehicleSimulator} for as long as asked, and
+ * reports end-to-end latency per stream and the growth of heap, threads and handles.
+ *
+ * <p>The path is the app's, up to the point that needs Android: simulator, UDP link,
+ * {@link FleetManager} bridge, a decoding stand-in for mavsdk_server, {@link TelemetryHub},
+ * the default {@link RatePolicies} on the {@link TelemetryScheduler}, and one observer per
+ * stream on a single thread standing in for the main thread. Display frames are a 60 Hz
+ * timer.</p>
+ *
+ * <p>Latency runs from the moment the simulator sent the frame behind a sample to the
+ * observer's callback. The snapshot stream is timed from the newest NED frame it holds.
+ * Samples delivered in the first second are counted but not timed: they pay for class
+ * loading and compilation, which would dominate the tail of a short run.</p>
+ */
+public class SoakHarness {
+
+    public static final String[] STREAMS = new String[]{"snapshot", "battery", "gps-info", "position", "attitude"};
+
+    private static final long FRAME_PERIOD_MICROS = 16_667;
+    private static final int LINK_THREADS = 2;
+    private static final int TELEMETRY_THREADS = 2;
+    private static final int STAMP_RING_SIZE = 16;
+    private static final long LATENCY_WARMUP_MILLIS = 1000;
+
+    private final double mPositionRateHz;
+    private final long mSampleIntervalMillis;
+
+    /**
+     * @param positionRateHz The rate of the position, NED and attitude messages.
+     * @param sampleIntervalMillis How often resources are sampled.
+     */
+    public SoakHarness(double positionRateHz, long sampleIntervalMillis) {
+        mPositionRateHz = positionRateHz;
+        mSampleIntervalMillis = sampleIntervalMillis;
+    }
+
+    public Report run(long durationMillis) throws Exception {
+        final StreamProbe[] probes = new StreamProbe[STREAMS.length];
+        for (int i = 0; i < probes.length; i++) {
+            probes[i] = new StreamProbe(STREAMS[i]);
+        }
+        ResourceSampler resources = new ResourceSampler();
+        // The baseline is taken before anything starts, so start-up growth shows in the first samples
+        resources.sample();
+
+        final AtomicLongArray sendNanos = new AtomicLongArray(256);
+        final DecodingServer[] servers = new DecodingServer[1];
+        VehicleServer.Factory serverFactory = new VehicleServer.Factory() {
+            @Override
+            public VehicleServer create() {
+                servers[0] = new DecodingServer(sendNanos);
+                return servers[0];
+            }
+        };
+
+        LinkScheduler linkScheduler = new LinkScheduler(LINK_THREADS);
+        FleetManager fleetManager = new FleetManager(linkScheduler, serverFactory, "127.0.0.1", freeUdpPort());
+        TelemetryScheduler telemetryScheduler = new TelemetryScheduler(TELEMETRY_THREADS, Thread.NORM_PRIORITY);
+        ExecutorService observerExecutor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable runnable) {
+                return new Thread(runnable, "soak-observer");
+            }
+        });
+        Scheduler observerScheduler = Schedulers.from(observerExecutor);
+        Flowable<Long> frameTicks = Flowable.interval(FRAME_PERIOD_MICROS, FRAME_PERIOD_MICROS, TimeUnit.MICROSECONDS).share();
+        RatePolicies ratePolicies = RatePolicies.defaults(frameTicks, telemetryScheduler.getScheduler());
+        CompositeDisposable disposables = new CompositeDisposable();
+
+        UdpLinkPort linkPort = new UdpLinkPort(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+        VehicleSimulator simulator = new VehicleSimulator(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0),
+                linkPort.getLocalAddress());
+        simulator.setPositionRate(mPositionRateHz);
+        simulator.setSendListener(new VehicleSimulator.SendListener() {
+            @Override
+            public void onSent(int messageId, int sequence, long nanos) {
+                sendNanos.set(sequence, nanos);
+            }
+        });
+
+        try {
+            fleetManager.addLink("soak", linkPort);
+            TelemetryHub hub = servers[0].getHub();
+            disposables.add(observe(hub.getTelemetrySnapshot(), TelemetryTopic.POSITION_VELOCITY_NED, probes[0], servers[0], ratePolicies, telemetryScheduler, observerScheduler));
+            disposables.add(observe(hub.getBattery(), TelemetryTopic.BATTERY, probes[1], servers[0], ratePolicies, telemetryScheduler, observerScheduler));
+            disposables.add(observe(hub.getGpsInfo(), TelemetryTopic.GPS_INFO, probes[2], servers[0], ratePolicies, telemetryScheduler, observerScheduler));
+            disposables.add(observe(hub.getPosition(), TelemetryTopic.POSITION, probes[3], servers[0], ratePolicies, telemetryScheduler, observerScheduler));
+            disposables.add(observe(hub.getAttitude(), TelemetryTopic.ATTITUDE, probes[4], servers[0], ratePolicies, telemetryScheduler, observerScheduler));
+            long warmupEndNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(LATENCY_WARMUP_MILLIS);
+            for (StreamProbe probe : probes) {
+                probe.setWarmupEnd(warmupEndNanos);
+            }
+            simulator.start();
+
+            long endNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(durationMillis);
+            while (true) {
+                long remainingMillis = TimeUnit.NANOSECONDS.toMillis(endNanos - System.nanoTime());
+                if (remainingMillis <= 0) {
+                    break;
+                }
+                Thread.sleep(Math.min(remainingMillis, mSampleIntervalMillis));
+                resources.sample();
+            }
+        } finally {
+            disposables.dispose();
+            simulator.close();
+            fleetManager.close();
+            linkScheduler.shutdown();
+            telemetryScheduler.shutdown();
+            observerExecutor.shutdown();
+        }
+        return new Report(probes, resources, simulator.getSentFrames());
+    }
+
+    private static <T> Disposable observe(Flowable<T> source, TelemetryTopic topic, final StreamProbe probe,
+                                          final DecodingServer server, RatePolicies ratePolicies,
+                                          TelemetryScheduler telemetryScheduler, Scheduler observerScheduler) {
+        return source
+                .doOnNext(new Consumer<T>() {
+                    @Override
+                    public void accept(T sample) {
+                        probe.stamp(sample, server.getFrameSendNanos());
+                    }
+                })
+                .compose(ratePolicies.get(topic).<T>transformer())
+                .subscribeOn(telemetryScheduler.getScheduler())
+                .observeOn(observerScheduler)
+                .subscribe(new Consumer<T>() {
+                    @Override
+                    public void accept(T sample) {
+                        probe.onDelivered(sample);
+                    }
+                });
+    }
+
+    private static int freeUdpPort() throws IOException {
+        DatagramSocket socket = new DatagramSocket(0, InetAddress.getLoopbackAddress());
+        try {
+            return socket.getLocalPort();
+        } finally {
+            socket.close();
+        }
+    }
+
+    /**
+     * Stands in for mavsdk_server: listens where the bridge forwards to and decodes the
+     * frames in-process, remembering when the simulator sent the current one.
+     */
+    private static class DecodingServer implements VehicleServer {
+
+        private final AtomicLongArray mSendNanos;
+        private final MavlinkTelemetryDecoder mDecoder = new MavlinkTelemetryDecoder(0);
+        private final MavlinkFrameParser mParser;
+        private final TelemetryHub mHub;
+        private volatile boolean mRunning;
+        private LinkPort mPort;
+        private Thread mThread;
+        private long mFrameSendNanos;
+
+        DecodingServer(AtomicLongArray sendNanos) {
+            mSendNanos = sendNanos;
+            mParser = new MavlinkFrameParser(new MavlinkFrameParser.Listener() {
+                @Override
+                public void onFrame(MavlinkFrame frame) {
+                    mFrameSendNanos = mSendNanos.get(frame.getSequence());
+                    mDecoder.onFrame(frame);
+                }
+            });
+            mHub = new TelemetryHub(mDecoder.getPositionVelocityNed(), mDecoder.getBattery(), mDecoder.getGpsInfo(),
+                    mDecoder.getPosition(), mDecoder.getAttitude());
+        }
+
+        @Override
+        public TelemetryHub start(String systemAddress) {
+            int port = Integer.parseInt(systemAddress.substring(systemAddress.lastIndexOf(':') + 1));
+            try {
+                mPort = new UdpLinkPort(new InetSocketAddress(InetAddress.getLoopbackAddress(), port));
+            } catch (IOException e) {
+                throw new IllegalStateException("Cannot listen on " + systemAddress, e);
+            }
+            mRunning = true;
+            mThread = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    byte[] buffer = new byte[64 * 1024];
+                    try {
+                        while (mRunning) {
+                            int length = mPort.read(buffer, 100);
+                            mParser.parse(buffer, 0, length);
+                        }
+                    } catch (IOException e) {
+                        if (mRunning) {
+                            throw new IllegalStateException(e);
+                        }
+                    }
+                }
+            }, "soak-server");
+            mThread.start();
+            return mHub;
+        }
+
+        // Read on the server thread, where the decoded samples are emitted
+        long getFrameSendNanos() {
+            return mFrameSendNanos;
+        }
+
+        TelemetryHub getHub() {
+            return mHub;
+        }
+
+        @Override
+        public void stop() {
+            mRunning = false;
+            try {
+                mThread.join();
+                mPort.close();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+
+    /**
+     * Pairs the latest samples of one stream with their send times, by identity, and
+     * times each delivered sample.
+     */
+    private static class StreamProbe {
+
+        private final String mName;
+        private final Object[] mSamples = new Object[STAMP_RING_SIZE];
+        private final long[] mStamps = new long[STAMP_RING_SIZE];
+        private int mNext;
+        private final LatencyHistogram mLatency = new LatencyHistogram();
+        private final AtomicLong mDelivered = new AtomicLong();
+        private final AtomicLong mUnmatched = new AtomicLong();
+        private volatile long mWarmupEndNanos;
+
+        StreamProbe(String name) {
+            mName = name;
+        }
+
+        void setWarmupEnd(long nanos) {
+            mWarmupEndNanos = nanos;
+        }
+
+        synchronized void stamp(Object sample, long sendNanos) {
+            mSamples[mNext] = sample;
+            mStamps[mNext] = sendNanos;
+            mNext = (mNext + 1) % STAMP_RING_SIZE;
+        }
+
+        void onDelivered(Object sample) {
+            long now = System.nanoTime();
+            mDelivered.incrementAndGet();
+            if (now - mWarmupEndNanos < 0) {
+                return;
+            }
+            long sendNanos = find(sample);
+            if (sendNanos == 0) {
+                mUnmatched.incrementAndGet();
+            } else {
+                mLatency.record(now - sendNanos);
+            }
+        }
+
+        // Newest first, so a reused instance gets its latest stamp
+        private synchronized long find(Object sample) {
+            for (int i = 1; i <= STAMP_RING_SIZE; i++) {
+                int index = (mNext - i + STAMP_RING_SIZE) % STAMP_RING_SIZE;
+                if (mSamples[index] == sample) {
+                    return mStamps[index];
+                }
+            }
+            return 0;
+        }
+    }
+
+    public static class Report {
+
+        private final StreamProbe[] mProbes;
+        private final ResourceSampler mResources;
+        private final long mSentFrames;
+
+        Report(StreamProbe[] probes, ResourceSampler resources, long sentFrames) {
+            mProbes = probes;
+            mResources = resources;
+            mSentFrames = sentFrames;
+        }
+
+        public LatencyHistogram getLatency(String stream) {
+            return probe(stream).mLatency;
+        }
+
+        public long getDeliveredCount(String stream) {
+            return probe(stream).mDelivered.get();
+        }
+
+        /**
+         * @return Deliveries whose sample had left the stamp ring, which are not timed.
+         */
+        public long getUnmatchedCount(String stream) {
+            return probe(stream).mUnmatched.get();
+        }
+
+        public ResourceSampler getResources() {
+            return mResources;
+        }
+
+        public long getSentFrames() {
+            return mSentFrames;
+        }
+
+        private StreamProbe probe(String stream) {
+            for (StreamProbe probe : mProbes) {
+                if (probe.mName.equals(stream)) {
+                    return probe;
+                }
+            }
+            throw new IllegalArgumentException("Unknown stream: " + stream);
+        }
+
+        /**
+         * @return A description of every limit exceeded; empty if the run passed.
+         *     Resource slopes are only judged on runs of at least `limits.minSlopeMinutes`.
+         */
+        public List<String> check(Limits limits) {
+            List<String> failures = new ArrayList<>();
+            for (StreamProbe probe : mProbes) {
+                boolean slow = probe.mName.equals("battery") || probe.mName.equals("gps-info");
+                LatencyHistogram latency = probe.mLatency;
+                if (probe.mDelivered.get() == 0) {
+                    failures.add(probe.mName + ": nothing delivered");
+                    continue;
+                }
+                checkAtMost(failures, probe.mName + " p50 ms", latency.getPercentileNanos(50) / 1e6,
+                        slow ? limits.slowP50Millis : limits.p50Millis);
+                checkAtMost(failures, probe.mName + " p99 ms", latency.getPercentileNanos(99) / 1e6,
+                        slow ? limits.slowP99Millis : limits.p99Millis);
+                checkAtMost(failures, probe.mName + " p99.9 ms", latency.getPercentileNanos(99.9) / 1e6,
+                        slow ? limits.slowP999Millis : limits.p999Millis);
+            }
+            if (mResources.getMinutes() >= limits.minSlopeMinutes) {
+                double[] maxSlopes = new double[]{limits.heapBytesPerHour, limits.directBytesPerHour,
+                        limits.threadsPerHour, limits.fileDescriptorsPerHour};
+                for (int resource = 0; resource < maxSlopes.length; resource++) {
+                    checkAtMost(failures, ResourceSampler.NAMES[resource] + " per hour",
+                            mResources.getSlopePerHour(resource, limits.warmupFraction), maxSlopes[resource]);
+                }
+            }
+            return failures;
+        }
+
+        private static void checkAtMost(List<String> failures, String name, double value, double limit) {
+            if (value > limit) {
+                failures.add(String.format(Locale.US, "%s: %.3f over %.3f", name, value, limit));
+            }
+        }
+
+        public String toText(double warmupFraction) {
+            StringBuilder builder = new StringBuilder();
+            builder.append(String.format(Locale.US, "%.1f min, %d frames sent\n", mResources.getMinutes(), mSentFrames));
+            for (StreamProbe probe : mProbes) {
+                LatencyHistogram latency = probe.mLatency;
+                builder.append(String.format(Locale.US,
+                        "%-9s delivered %8d  p50 %7.3f ms  p99 %7.3f ms  p99.9 %7.3f ms  max %7.3f ms\n",
+                        probe.mName, probe.mDelivered.get(),
+                        latency.getPercentileNanos(50) / 1e6, latency.getPercentileNanos(99) / 1e6,
+                        latency.getPercentileNanos(99.9) / 1e6, latency.getMaxNanos() / 1e6));
+            }
+            for (int resource = 0; resource < ResourceSampler.NAMES.length; resource++) {
+                builder.append(String.format(Locale.US, "%-16s %12d -> %12d  %+.1f/h\n",
+                        ResourceSampler.NAMES[resource], mResources.getFirst(resource), mResources.getLast(resource),
+                        mResources.getSlopePerHour(resource, warmupFraction)));
+            }
+            return builder.toString();
+        }
+    }
+
+    /**
+     * What a run may not exceed. Battery and GPS info are sampled once per second by
+     * their rate policy, so their latency limits are separate.
+     */
+    public static class Limits {
+        public double p50Millis = 25;
+        public double p99Millis = 50;
+        public double p999Millis = 100;
+        public double slowP50Millis = 1100;
+        public double slowP99Millis = 1200;
+        public double slowP999Millis = 1300;
+        public double heapBytesPerHour = 1 << 20;
+        public double directBytesPerHour = 64 << 10;
+        public double threadsPerHour = 0.5;
+        public double fileDescriptorsPerHour = 0.5;
+        public double minSlopeMinutes = 10;
+        public double warmupFraction = 0.2;
+    }
+}
@@ -0,0 +1,34 @@
+package com.gen.mavsdkandroidserialtest.soak;
+
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * A few seconds of {@link SoakHarness} by default; set soak.minutes for a real soak, e.g.
+ * ./gradlew :app:testDebugUnitTest --tests '*SoakTest' -Dsoak.minutes=240. Resource
+ * slopes are only judged from ten minutes on.
+ */
+public class SoakTest {
+
+    @Test
+    public void pipeline_staysWithinLatencyAndResourceLimits() throws Exception {
+        double minutes = Double.parseDouble(System.getProperty("soak.minutes", "0.05"));
+        double positionRateHz = Double.parseDouble(System.getProperty("soak.rateHz", "100"));
+        long sampleIntervalMillis = Long.parseLong(System.getProperty("soak.sampleMillis", "10000"));
+
+        SoakHarness.Limits limits = new SoakHarness.Limits();
+        limits.p99Millis = Double.parseDouble(System.getProperty("soak.p99Millis", String.valueOf(limits.p99Millis)));
+        limits.p999Millis = Double.parseDouble(System.getProperty("soak.p999Millis", String.valueOf(limits.p999Millis)));
+        limits.heapBytesPerHour = Double.parseDouble(System.getProperty("soak.heapBytesPerHour", String.valueOf(limits.heapBytesPerHour)));
+
+        SoakHarness.Report report = new SoakHarness(positionRateHz, sampleIntervalMillis).run((long) (minutes * 60_000));
+        System.out.print(report.toText(limits.warmupFraction));
+
+        List<String> failures = report.check(limits);
+        assertTrue(failures.toString(), failures.isEmpty());
+        assertTrue(report.getSentFrames() > 0);
+    }
+}
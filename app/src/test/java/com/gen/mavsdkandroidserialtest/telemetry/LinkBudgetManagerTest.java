@@ -0,0 +1,78 @@
+package com.gen.mavsdkandroidserialtest.telemetry;
+
+import org.junit.Test;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class LinkBudgetManagerTest {
+
+    private static final int BAUD_RATE = 57600;
+
+    private final Map<TelemetryTopic, Double> mRates = new EnumMap<>(TelemetryTopic.class);
+    private int mRateChanges;
+
+    private final LinkBudgetManager mManager = new LinkBudgetManager(BAUD_RATE, new LinkBudgetManager.RateSetter() {
+        @Override
+        public void setRate(TelemetryTopic topic, double rateHz) {
+            mRates.put(topic, rateHz);
+            mRateChanges++;
+        }
+    });
+
+    private double plannedBytesPerSecond() {
+        // v2 frame sizes: header + payload + checksum
+        return mRates.get(TelemetryTopic.POSITION_VELOCITY_NED) * 40
+                + mRates.get(TelemetryTopic.POSITION) * 40
+                + mRates.get(TelemetryTopic.ATTITUDE) * 40
+                + mRates.get(TelemetryTopic.BATTERY) * 43
+                + mRates.get(TelemetryTopic.GPS_INFO) * 42;
+    }
+
+    @Test
+    public void withoutObservers_everyTopicIdles() {
+        mManager.replan();
+
+        for (TelemetryTopic topic : TelemetryTopic.values()) {
+            assertEquals(LinkBudgetManager.IDLE_RATE_HZ, mRates.get(topic), 0);
+        }
+    }
+
+    @Test
+    public void observedTopics_shareBudgetByWeightWithinCaps() {
+        for (TelemetryTopic topic : TelemetryTopic.values()) {
+            mManager.setObserverCount(topic, 1);
+        }
+
+        assertEquals(2, mRates.get(TelemetryTopic.BATTERY), 0);
+        assertEquals(2, mRates.get(TelemetryTopic.GPS_INFO), 0);
+        assertEquals(mRates.get(TelemetryTopic.POSITION), mRates.get(TelemetryTopic.POSITION_VELOCITY_NED), 1e-9);
+        assertTrue(mRates.get(TelemetryTopic.POSITION) > mRates.get(TelemetryTopic.ATTITUDE));
+        assertTrue(plannedBytesPerSecond() <= BAUD_RATE / 10.0 * LinkBudgetManager.DEFAULT_TARGET_UTILISATION + 1e-6);
+    }
+
+    @Test
+    public void unplannedTraffic_shrinksBudget() {
+        mManager.setObserverCount(TelemetryTopic.POSITION, 1);
+        double before = mRates.get(TelemetryTopic.POSITION);
+
+        mManager.setMeasuredBytesPerSecond(plannedBytesPerSecond() + 3000);
+
+        assertTrue(mRates.get(TelemetryTopic.POSITION) < before);
+    }
+
+    @Test
+    public void lastObserverLeaving_idlesTopicAndSkipsUnchangedRates() {
+        mManager.setObserverCount(TelemetryTopic.ATTITUDE, 1);
+        int changes = mRateChanges;
+        mManager.setObserverCount(TelemetryTopic.ATTITUDE, 1);
+        assertEquals(changes, mRateChanges);
+
+        mManager.setObserverCount(TelemetryTopic.ATTITUDE, 0);
+
+        assertEquals(LinkBudgetManager.IDLE_RATE_HZ, mRates.get(TelemetryTopic.ATTITUDE), 0);
+        assertEquals(changes + 1, mRateChanges);
+    }
+}
@@ -0,0 +1,48 @@
+package com.gen.mavsdkandroidserialtest.telemetry;
+
+import org.junit.Test;
+
+import io.reactivex.processors.PublishProcessor;
+import io.reactivex.subscribers.TestSubscriber;
+
+import static org.junit.Assert.*;
+
+public class RatePolicyTest {
+
+    @Test
+    public void latestPerFrame_deliversNewestSampleAndCountsConflated() {
+        PublishProcessor<Long> frameTicks = PublishProcessor.create();
+        PublishProcessor<Integer> source = PublishProcessor.create();
+        RatePolicy policy = RatePolicy.latestPerFrame(frameTicks);
+        TestSubscriber<Integer> subscriber = policy.apply(source).test();
+
+        source.onNext(1);
+        source.onNext(2);
+        source.onNext(3);
+        frameTicks.onNext(0L);
+        frameTicks.onNext(1L);
+        source.onNext(4);
+        frameTicks.onNext(2L);
+
+        subscriber.assertValues(3, 4);
+        assertEquals(4, policy.getReceivedCount());
+        assertEquals(2, policy.getDeliveredCount());
+        assertEquals(2, policy.getConflatedCount());
+        assertEquals(0, policy.getDroppedCount());
+    }
+
+    @Test
+    public void throttleFirst_dropsSamplesInsideWindow() {
+        PublishProcessor<Integer> source = PublishProcessor.create();
+        RatePolicy policy = RatePolicy.throttleFirst(60_000);
+        TestSubscriber<Integer> subscriber = policy.apply(source).test();
+
+        source.onNext(1);
+        source.onNext(2);
+        source.onNext(3);
+
+        subscriber.assertValues(1);
+        assertEquals(2, policy.getDroppedCount());
+        assertEquals(0, policy.getConflatedCount());
+    }
+}
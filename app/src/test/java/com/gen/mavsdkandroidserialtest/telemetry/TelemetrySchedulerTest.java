@@ -0,0 +1,111 @@
+package com.gen.mavsdkandroidserialtest.telemetry;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import io.reactivex.disposables.Disposable;
+import io.reactivex.functions.Consumer;
+import io.reactivex.processors.PublishProcessor;
+import io.reactivex.subscribers.TestSubscriber;
+
+import static org.junit.Assert.*;
+
+public class TelemetrySchedulerTest {
+
+    private final TelemetryScheduler mScheduler = new TelemetryScheduler(2, Thread.NORM_PRIORITY);
+
+    @After
+    public void tearDown() {
+        mScheduler.shutdown();
+    }
+
+    @Test
+    public void manyStreams_shareTheFixedThreads() throws InterruptedException {
+        final Set<String> threadNames = new HashSet<>();
+        List<Disposable> disposables = new ArrayList<>();
+        List<PublishProcessor<Integer>> sources = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            PublishProcessor<Integer> source = PublishProcessor.create();
+            sources.add(source);
+            disposables.add(source.onBackpressureBuffer()
+                    .observeOn(mScheduler.getScheduler())
+                    .subscribe(new Consumer<Integer>() {
+                        @Override
+                        public void accept(Integer value) {
+                            synchronized (threadNames) {
+                                threadNames.add(Thread.currentThread().getName());
+                            }
+                        }
+                    }));
+        }
+        for (int sample = 0; sample < 100; sample++) {
+            for (PublishProcessor<Integer> source : sources) {
+                source.onNext(sample);
+            }
+        }
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (mScheduler.getQueueDepth() > 0 && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+
+        synchronized (threadNames) {
+            assertTrue(threadNames.toString(), threadNames.size() <= 2);
+            for (String threadName : threadNames) {
+                assertTrue(threadName, threadName.startsWith(TelemetryScheduler.THREAD_NAME_PREFIX));
+            }
+        }
+        assertTrue(mScheduler.getTaskCount() > 0);
+        assertEquals(mScheduler.getTaskCount(), mScheduler.getQueueLatency().getCount());
+        assertTrue(mScheduler.getMaxQueueDepth() >= 1);
+        for (Disposable disposable : disposables) {
+            disposable.dispose();
+        }
+    }
+
+    @Test
+    public void worker_keepsSampleOrder() {
+        PublishProcessor<Integer> source = PublishProcessor.create();
+        TestSubscriber<Integer> subscriber = source.onBackpressureBuffer()
+                .observeOn(mScheduler.getScheduler())
+                .test();
+        for (int i = 0; i < 10_000; i++) {
+            source.onNext(i);
+        }
+        source.onComplete();
+
+        subscriber.awaitTerminalEvent(5, TimeUnit.SECONDS);
+        subscriber.assertValueCount(10_000);
+        List<Integer> values = subscriber.values();
+        for (int i = 0; i < values.size(); i++) {
+            assertEquals(i, (int) values.get(i));
+        }
+    }
+
+    @Test
+    public void changeOnly_samplesOnTheGivenScheduler() {
+        PublishProcessor<Integer> source = PublishProcessor.create();
+        RatePolicy policy = RatePolicy.changeOnly(20, mScheduler.getScheduler());
+        final List<String> threadNames = new ArrayList<>();
+        TestSubscriber<Integer> subscriber = policy.apply(source)
+                .doOnNext(new Consumer<Integer>() {
+                    @Override
+                    public void accept(Integer value) {
+                        threadNames.add(Thread.currentThread().getName());
+                    }
+                })
+                .test();
+
+        source.onNext(1);
+        subscriber.awaitCount(1);
+
+        subscriber.assertValues(1);
+        assertTrue(threadNames.get(0).startsWith(TelemetryScheduler.THREAD_NAME_PREFIX));
+        subscriber.dispose();
+    }
+}
@@ -0,0 +1,85 @@
+package com.gen.mavsdkandroidserialtest.utils;
+
+import com.gen.mavsdkandroidserialtest.AllocationMeter;
+
+import org.junit.Test;
+
+import java.util.Locale;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class FixedPointFormatterTest {
+
+    private final char[] mBuffer = new char[512];
+
+    private String format(double value, int decimalPlaces) {
+        return new String(mBuffer, 0, FixedPointFormatter.formatFixed(value, decimalPlaces, mBuffer, 0));
+    }
+
+    private static String expected(double value, int decimalPlaces) {
+        return String.format(Locale.US, "%." + decimalPlaces + "f", value);
+    }
+
+    @Test
+    public void formatFixed_matchesStringFormatOnEdgeCases() {
+        double[] values = {0, -0.0, 0.125, 0.145, 1.005, 2.5, -2.5, 0.5, 9.995, 99.9999, -0.001, 1e-9,
+                47.3977425, 8.5465, 123456789.123, 1e13, 1e20, Double.NaN, Double.POSITIVE_INFINITY, -1e300};
+        for (double value : values) {
+            for (int decimalPlaces = 0; decimalPlaces <= 6; decimalPlaces++) {
+                assertEquals(value + " to " + decimalPlaces, expected(value, decimalPlaces), format(value, decimalPlaces));
+            }
+        }
+    }
+
+    @Test
+    public void formatFixed_matchesStringFormatOnRandomValues() {
+        Random random = new Random(42);
+        for (int i = 0; i < 200_000; i++) {
+            int decimalPlaces = random.nextInt(7);
+            double value = (random.nextDouble() - 0.5) * Math.pow(10, random.nextInt(10));
+            if (i % 4 == 0) {
+                // Values sitting on a rounding boundary in decimal
+                value = Math.round(value * 1000) / 1000.0 + 0.5 / Math.pow(10, decimalPlaces);
+            }
+            assertEquals(value + " to " + decimalPlaces, expected(value, decimalPlaces), format(value, decimalPlaces));
+        }
+    }
+
+    @Test
+    public void formatInt_writesSignAndDigits() {
+        assertEquals("0", new String(mBuffer, 0, FixedPointFormatter.formatInt(0, mBuffer, 0)));
+        assertEquals("-42", new String(mBuffer, 0, FixedPointFormatter.formatInt(-42, mBuffer, 0)));
+        assertEquals(Long.toString(Long.MIN_VALUE), new String(mBuffer, 0, FixedPointFormatter.formatInt(Long.MIN_VALUE, mBuffer, 0)));
+        assertEquals("x1234", "x" + new String(mBuffer, 1, FixedPointFormatter.formatInt(1234, mBuffer, 1)));
+    }
+
+    @Test
+    public void formatFixed_doesNotAllocate() {
+        for (int i = 0; i < 200_000; i++) {
+            FixedPointFormatter.formatFixed(47.3 + i * 1.234567e-7, 5, mBuffer, 0);
+        }
+        long before = AllocationMeter.allocatedBytes();
+        for (int i = 0; i < 1_000_000; i++) {
+            FixedPointFormatter.formatFixed(47.3 + i * 1.234567e-7, 5, mBuffer, 0);
+        }
+        long allocated = AllocationMeter.allocatedBytes() - before;
+        assertTrue("allocated " + allocated + " bytes", allocated < 1024);
+    }
+
+    @Test
+    public void textField_commitsOnlyChanges() {
+        TextField field = new TextField();
+        field.setFixedPoint(12.344, 2);
+        assertTrue(field.commit());
+        assertEquals("12.34", field.toString());
+
+        field.setFixedPoint(12.341, 2);
+        assertFalse(field.commit());
+
+        field.setPercent(50);
+        assertTrue(field.commit());
+        assertEquals("50%", field.toString());
+        assertEquals(3, field.getShownLength());
+    }
+}
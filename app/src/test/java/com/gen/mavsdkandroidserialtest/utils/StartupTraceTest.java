@@ -0,0 +1,61 @@
+package com.gen.mavsdkandroidserialtest.utils;
+
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class StartupTraceTest {
+
+    @Test
+    public void spansFromSeveralThreads_overlapAndKeepBeginOrder() throws Exception {
+        final StartupTrace trace = new StartupTrace();
+        StartupTrace.Span startup = trace.begin("startup");
+
+        Thread[] threads = new Thread[2];
+        for (int i = 0; i < threads.length; i++) {
+            final String name = "link " + i;
+            threads[i] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    StartupTrace.Span span = trace.begin(name);
+                    try {
+                        Thread.sleep(50);
+                    } catch (InterruptedException ignored) {
+                    }
+                    span.end();
+                }
+            });
+            threads[i].start();
+            threads[i].join(10);
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        startup.end();
+
+        List<StartupTrace.Span> spans = trace.getSpans();
+        assertEquals(3, spans.size());
+        assertEquals("startup", spans.get(0).getName());
+        StartupTrace.Span first = trace.getSpan("link 0");
+        StartupTrace.Span second = trace.getSpan("link 1");
+        assertTrue(first.isEnded() && second.isEnded());
+        // The second span began while the first was still open
+        assertTrue(trace.getOffsetNanos(second) < trace.getOffsetNanos(first) + first.getDurationNanos());
+        assertTrue(startup.getDurationNanos() >= first.getDurationNanos());
+        assertTrue(trace.toString().contains("link 1"));
+    }
+
+    @Test
+    public void endTwice_keepsFirstEnd() throws Exception {
+        StartupTrace trace = new StartupTrace();
+        StartupTrace.Span span = trace.begin("server");
+        span.end();
+        long duration = span.getDurationNanos();
+        Thread.sleep(5);
+        span.end();
+        assertEquals(duration, span.getDurationNanos());
+        assertNull(trace.getSpan("missing"));
+    }
+}
@@ -0,0 +1,95 @@
+package com.gen.mavsdkandroidserialtest.benchmarks;
+
+import com.gen.mavsdkandroidserialtest.alerts.AlertEngine;
+import com.gen.mavsdkandroidserialtest.alerts.AlertField;
+import com.gen.mavsdkandroidserialtest.alerts.AlertRule;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import io.mavsdk.telemetry.Telemetry;
+
+/**
+ * Evaluating alert rules against one sample of each telemetry type as a vehicle drifts,
+ * with the compiled engine and with a check of every rule on every sample. The engine's
+ * cost should not grow with the rule count.
+ */
+@State(Scope.Thread)
+public class AlertBenchmark {
+
+    @Param({"10", "100", "1000"})
+    public int ruleCount;
+
+    private AlertEngine mEngine;
+    private AlertRule[] mRules;
+    private int mTransitions;
+    private long mStep;
+
+    @Setup
+    public void setUp() {
+        List<AlertRule> rules = new ArrayList<>();
+        AlertField[] fields = AlertField.values();
+        for (int i = 0; i < ruleCount; i++) {
+            AlertField field = fields[i % fields.length];
+            // Thresholds spread over each field's range, so some rules are always near the value
+            double threshold = (i / fields.length) * 1000.0 / ruleCount;
+            if (i % 2 == 0) {
+                rules.add(AlertRule.above("rule-" + i, field, threshold, 1, 500));
+            } else {
+                rules.add(AlertRule.below("rule-" + i, field, threshold, 1, 500));
+            }
+        }
+        mRules = rules.toArray(new AlertRule[0]);
+        mEngine = new AlertEngine(rules, new AlertEngine.Listener() {
+            @Override
+            public void onAlertChanged(AlertRule rule, boolean active) {
+                mTransitions++;
+            }
+        });
+    }
+
+    @Benchmark
+    public int evaluateCompiled() {
+        long nanos = mStep++ * 20_000_000L;
+        double drift = Math.sin(mStep * 0.001);
+        mEngine.onValue(AlertField.BATTERY_VOLTAGE, 15 + drift, nanos);
+        mEngine.onValue(AlertField.BATTERY_PERCENT, 50 + 10 * drift, nanos);
+        mEngine.onValue(AlertField.GPS_SATELLITES, 10 + Math.round(2 * drift), nanos);
+        mEngine.onValue(AlertField.RELATIVE_ALTITUDE, 60 + 20 * drift, nanos);
+        mEngine.onValue(AlertField.HOME_DISTANCE, 100 + 50 * drift, nanos);
+        mEngine.onValue(AlertField.GROUND_SPEED, 5 + drift, nanos);
+        return mTransitions;
+    }
+
+    @Benchmark
+    public int evaluateEveryRule() {
+        mStep++;
+        double drift = Math.sin(mStep * 0.001);
+        double[] values = new double[]{15 + drift, 50 + 10 * drift, 10 + Math.round(2 * drift),
+                60 + 20 * drift, 100 + 50 * drift, 5 + drift};
+        int raised = 0;
+        for (AlertRule rule : mRules) {
+            double value = values[rule.getField().ordinal()];
+            if (rule.isAbove() ? value > rule.getThreshold() : value < rule.getThreshold()) {
+                raised++;
+            }
+        }
+        return raised;
+    }
+
+    @Benchmark
+    public int evaluatePositionVelocityNed() {
+        mStep++;
+        double drift = Math.sin(mStep * 0.001);
+        mEngine.onPositionVelocityNed(new Telemetry.PositionVelocityNed(
+                new Telemetry.PositionNed((float) (70 * drift), (float) (70 * drift), -30f),
+                new Telemetry.VelocityNed((float) drift, 3f, 0f)), mStep * 20_000_000L);
+        return mTransitions;
+    }
+}
@@ -0,0 +1,89 @@
+package com.gen.mavsdkandroidserialtest.benchmarks;
+
+import com.gen.mavsdkandroidserialtest.recording.ExportStream;
+import com.gen.mavsdkandroidserialtest.recording.TelemetryExportReader;
+import com.gen.mavsdkandroidserialtest.recording.TelemetryExportWriter;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Locale;
+
+import io.mavsdk.telemetry.Telemetry;
+
+/**
+ * Writing position samples to a columnar export, and reading ten minutes of them back
+ * from it and from the same samples as CSV.
+ */
+@State(Scope.Thread)
+public class ExportBenchmark {
+
+    private static final int SAMPLES = 6000;
+
+    private TelemetryExportWriter mWriter;
+    private final Telemetry.Position mPosition = new Telemetry.Position(47.3977419, 8.5455938, 518f, 30f);
+    private long mTimeMillis = 1_700_000_000_000L;
+    private byte[] mExport;
+    private String[] mCsvLines;
+
+    @Setup
+    public void setUp() throws IOException {
+        mWriter = new TelemetryExportWriter(new OutputStream() {
+            @Override
+            public void write(int b) {
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) {
+            }
+        }, TelemetryExportWriter.DEFAULT_BLOCK_ROWS, true);
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        TelemetryExportWriter writer = new TelemetryExportWriter(output, TelemetryExportWriter.DEFAULT_BLOCK_ROWS, true);
+        mCsvLines = new String[SAMPLES];
+        for (int i = 0; i < SAMPLES; i++) {
+            double latitude = 47.3977419 + 0.001 * Math.sin(i * 0.001);
+            double longitude = 8.5455938 + 0.0015 * Math.cos(i * 0.001);
+            long timeMillis = mTimeMillis + i * 100L;
+            writer.write(ExportStream.POSITION, timeMillis, latitude, longitude, 518, 30, 0, 0);
+            mCsvLines[i] = String.format(Locale.US, "%d,%.7f,%.7f,%.3f,%.3f", timeMillis, latitude, longitude, 518.0, 30.0);
+        }
+        writer.close();
+        mExport = output.toByteArray();
+    }
+
+    @Benchmark
+    public void writePosition() {
+        mTimeMillis += 100;
+        mWriter.writePosition(mTimeMillis, mPosition);
+    }
+
+    @Benchmark
+    public double readExport() throws IOException {
+        TelemetryExportReader reader = new TelemetryExportReader(new ByteArrayInputStream(mExport));
+        double sum = 0;
+        while (reader.next()) {
+            for (int row = 0; row < reader.getRowCount(); row++) {
+                sum += reader.getValue(1, row);
+            }
+        }
+        reader.close();
+        return sum;
+    }
+
+    @Benchmark
+    public double readCsv() {
+        double sum = 0;
+        for (String line : mCsvLines) {
+            int start = line.indexOf(',') + 1;
+            sum += Double.parseDouble(line.substring(start, line.indexOf(',', start)));
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,66 @@
+package com.gen.mavsdkandroidserialtest.benchmarks;
+
+import com.gen.mavsdkandroidserialtest.history.FlightTrack;
+import com.gen.mavsdkandroidserialtest.history.TimeSeries;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Appending to a full telemetry history series, thinning all of it to a chart's width
+ * as the repository's default capacity holds it, and extending a wandering flight track.
+ */
+@State(Scope.Thread)
+public class HistoryBenchmark {
+
+    private static final int CAPACITY = 36000;
+    private static final int PIXELS = 480;
+
+    private final TimeSeries mSeries = new TimeSeries(CAPACITY, 0);
+    private final long[] mOutTimes = new long[2 * PIXELS];
+    private final double[] mOutValues = new double[2 * PIXELS];
+    private long mTimeMillis;
+    private final FlightTrack mTrack = new FlightTrack(2000, 1);
+    private long mTrackStep;
+    private double mHeading;
+    private double mLatitude = -33.8688;
+    private double mLongitude = 151.2093;
+
+    @Setup
+    public void setUp() {
+        for (int i = 0; i < CAPACITY; i++) {
+            append();
+        }
+    }
+
+    private void append() {
+        mTimeMillis += 200;
+        mSeries.append(mTimeMillis, Math.sin(mTimeMillis / 60000.0) * 50 + (mTimeMillis % 7));
+    }
+
+    @Benchmark
+    public void appendToFullSeries() {
+        append();
+    }
+
+    @Benchmark
+    public int downsampleLttb() {
+        return mSeries.downsampleLttb(0, Long.MAX_VALUE, PIXELS, mOutTimes, mOutValues);
+    }
+
+    @Benchmark
+    public int downsampleMinMax() {
+        return mSeries.downsampleMinMax(mSeries.getTime(0), mTimeMillis + 1, PIXELS, mOutTimes, mOutValues);
+    }
+
+    @Benchmark
+    public int appendToFlightTrack() {
+        mHeading += Math.sin(mTrackStep++ * 0.01) * 0.1;
+        mLatitude += Math.cos(mHeading) * 1e-5;
+        mLongitude += Math.sin(mHeading) * 1e-5;
+        mTrack.append(mLatitude, mLongitude);
+        return mTrack.size();
+    }
+}
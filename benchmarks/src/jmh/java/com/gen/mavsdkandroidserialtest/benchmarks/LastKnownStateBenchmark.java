@@ -0,0 +1,67 @@
+package com.gen.mavsdkandroidserialtest.benchmarks;
+
+import com.gen.mavsdkandroidserialtest.models.LastKnownState;
+import com.gen.mavsdkandroidserialtest.recording.LastKnownStateStore;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.File;
+import java.io.IOException;
+
+import io.mavsdk.telemetry.Telemetry;
+
+/**
+ * The cost a telemetry stream pays to hand a sample to the last-known-state store, a
+ * flush of all four samples to the mapped file, and the read done at startup.
+ */
+@State(Scope.Thread)
+public class LastKnownStateBenchmark {
+
+    private File mFile;
+    private LastKnownStateStore mStore;
+    private final Telemetry.PositionVelocityNed[] mPositionVelocityNeds = new Telemetry.PositionVelocityNed[2];
+    private long mTimeMillis = 1_700_000_000_000L;
+
+    @Setup
+    public void setUp() throws IOException {
+        mFile = File.createTempFile("last-known-state", ".bin");
+        mStore = new LastKnownStateStore(mFile);
+        for (int i = 0; i < mPositionVelocityNeds.length; i++) {
+            mPositionVelocityNeds[i] = new Telemetry.PositionVelocityNed(
+                    new Telemetry.PositionNed(12f + i, -5f, -30f), new Telemetry.VelocityNed(1f, 2f, 0.5f));
+        }
+        mStore.onPositionVelocityNed(mTimeMillis, mPositionVelocityNeds[0]);
+        mStore.flush();
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        mStore.close();
+        mFile.delete();
+    }
+
+    @Benchmark
+    public void updateSample() {
+        mStore.onPositionVelocityNed(++mTimeMillis, mPositionVelocityNeds[(int) (mTimeMillis & 1)]);
+    }
+
+    @Benchmark
+    public boolean flushAll() {
+        long timeMillis = ++mTimeMillis;
+        // New instances each time, so every section is rewritten
+        mStore.onPosition(timeMillis, new Telemetry.Position(47.3977419, 8.5455938, 518f, 30f));
+        mStore.onBattery(timeMillis, new Telemetry.Battery(15.2f, 0.64f));
+        mStore.onGpsInfo(timeMillis, new Telemetry.GpsInfo(11, Telemetry.FixType.FIX_3D));
+        mStore.onPositionVelocityNed(timeMillis, mPositionVelocityNeds[(int) (timeMillis & 1)]);
+        return mStore.flush();
+    }
+
+    @Benchmark
+    public LastKnownState read() {
+        return mStore.read();
+    }
+}
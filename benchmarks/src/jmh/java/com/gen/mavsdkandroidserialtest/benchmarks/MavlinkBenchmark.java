@@ -0,0 +1,85 @@
+package com.gen.mavsdkandroidserialtest.benchmarks;
+
+import com.gen.mavsdkandroidserialtest.mavlink.LinkQualityEstimator;
+import com.gen.mavsdkandroidserialtest.mavlink.MavlinkFrame;
+import com.gen.mavsdkandroidserialtest.mavlink.MavlinkFrameEncoder;
+import com.gen.mavsdkandroidserialtest.mavlink.MavlinkFrameParser;
+import com.gen.mavsdkandroidserialtest.mavlink.MavlinkMessages;
+import com.gen.mavsdkandroidserialtest.mavlink.MavlinkTelemetryDecoder;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Framing, CRC and decoding of the telemetry messages the app reads off the link, and
+ * measuring the link's quality from them.
+ * One operation is one frame.
+ */
+@State(Scope.Thread)
+public class MavlinkBenchmark {
+
+    private static final int FRAMES = 64;
+    private static final int[] MESSAGE_IDS = {
+            MavlinkMessages.LOCAL_POSITION_NED,
+            MavlinkMessages.GLOBAL_POSITION_INT,
+            MavlinkMessages.ATTITUDE,
+            MavlinkMessages.SYS_STATUS,
+    };
+
+    private final MavlinkFrameEncoder mEncoder = new MavlinkFrameEncoder(2, 1, 1);
+    private final byte[] mPayload = new byte[255];
+    private final byte[] mFrame = new byte[MavlinkFrame.MAX_FRAME_LENGTH];
+    private byte[] mStream;
+    private int mStreamLength;
+
+    private MavlinkFrameParser mParser;
+    private MavlinkFrameParser mDecodingParser;
+    private MavlinkFrameParser mMeasuringParser;
+    private Blackhole mBlackhole;
+
+    @Setup
+    public void setUp(Blackhole blackhole) {
+        mBlackhole = blackhole;
+        mStream = new byte[FRAMES * MavlinkFrame.MAX_FRAME_LENGTH];
+        for (int i = 0; i < FRAMES; i++) {
+            int messageId = MESSAGE_IDS[i % MESSAGE_IDS.length];
+            mStreamLength += mEncoder.encode(messageId, mPayload, MavlinkMessages.getPayloadLength(messageId), mStream, mStreamLength);
+        }
+        mParser = new MavlinkFrameParser(new MavlinkFrameParser.Listener() {
+            @Override
+            public void onFrame(MavlinkFrame frame) {
+                mBlackhole.consume(frame.getMessageId());
+            }
+        });
+        mDecodingParser = new MavlinkFrameParser(new MavlinkTelemetryDecoder(0));
+        mMeasuringParser = new MavlinkFrameParser(new LinkQualityEstimator());
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(FRAMES)
+    public void parse() {
+        mParser.parse(mStream, 0, mStreamLength);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(FRAMES)
+    public void parseAndDecode() {
+        mDecodingParser.parse(mStream, 0, mStreamLength);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(FRAMES)
+    public void parseAndMeasureLink() {
+        mMeasuringParser.parse(mStream, 0, mStreamLength);
+    }
+
+    @Benchmark
+    public int encodeLocalPositionNed() {
+        return mEncoder.encode(MavlinkMessages.LOCAL_POSITION_NED, mPayload,
+                MavlinkMessages.getPayloadLength(MavlinkMessages.LOCAL_POSITION_NED), mFrame, 0);
+    }
+}
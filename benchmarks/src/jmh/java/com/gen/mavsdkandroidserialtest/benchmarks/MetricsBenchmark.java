@@ -0,0 +1,47 @@
+package com.gen.mavsdkandroidserialtest.benchmarks;
+
+import com.gen.mavsdkandroidserialtest.metrics.LatencyHistogram;
+import com.gen.mavsdkandroidserialtest.metrics.MetricsRegistry;
+import com.gen.mavsdkandroidserialtest.metrics.StreamMetrics;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * The per-sample cost of instrumenting a stream, and the cost of formatting a dump.
+ */
+@State(Scope.Thread)
+public class MetricsBenchmark {
+
+    private final LatencyHistogram mHistogram = new LatencyHistogram();
+    private final MetricsRegistry mRegistry = new MetricsRegistry();
+    private StreamMetrics mStreamMetrics;
+    private long mNanos;
+
+    @Setup
+    public void setUp() {
+        mStreamMetrics = mRegistry.register("position", null);
+        for (String name : new String[]{"snapshot", "battery", "gps-info", "attitude"}) {
+            mRegistry.register(name, null);
+        }
+    }
+
+    @Benchmark
+    public void histogramRecord() {
+        mNanos = (mNanos + 7919) & 0xFFFFFF;
+        mHistogram.record(mNanos);
+    }
+
+    @Benchmark
+    public void arrivalAndDelivery() {
+        mStreamMetrics.onArrival();
+        mStreamMetrics.onDelivered();
+    }
+
+    @Benchmark
+    public String registryToText() {
+        return mRegistry.toText();
+    }
+}
@@ -0,0 +1,195 @@
+package com.gen.mavsdkandroidserialtest.benchmarks;
+
+import com.gen.mavsdkandroidserialtest.models.TelemetrySnapshot;
+import com.gen.mavsdkandroidserialtest.repositories.TelemetryHub;
+import com.gen.mavsdkandroidserialtest.telemetry.RatePolicy;
+import com.gen.mavsdkandroidserialtest.telemetry.TelemetryScheduler;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import io.mavsdk.telemetry.Telemetry;
+import io.reactivex.Flowable;
+import io.reactivex.disposables.Disposable;
+import io.reactivex.functions.Consumer;
+import io.reactivex.functions.Function;
+import io.reactivex.processors.PublishProcessor;
+import io.reactivex.schedulers.Schedulers;
+
+/**
+ * The operator chains DroneRepository builds, fed a synthetic load.
+ *
+ * <p>One operation pushes one simulated second of telemetry at {@link #rateHz}, together
+ * with 60 display frame ticks, through the chain. Time-based operators see real time, so
+ * a throttle window spans the whole operation: the figures are the cost of the operators
+ * per second of flight, not the rate they let through.</p>
+ */
+@State(Scope.Thread)
+public class RxPipelineBenchmark {
+
+    private static final int FRAMES_PER_SECOND = 60;
+    private static final long THROTTLE_WINDOW_MILLIS = 500;
+
+    @Param({"10", "50", "200"})
+    public int rateHz;
+
+    private Telemetry.PositionVelocityNed[] mSamples;
+    private PublishProcessor<Telemetry.PositionVelocityNed> mSource;
+    private PublishProcessor<Long> mFrameTicks;
+    private Disposable mDisposable;
+    private final AtomicLong mDelivered = new AtomicLong();
+    private final TelemetryScheduler mTelemetryScheduler = new TelemetryScheduler(2, Thread.NORM_PRIORITY);
+
+    private final Function<Telemetry.PositionVelocityNed, Float> mProjectNorth = new Function<Telemetry.PositionVelocityNed, Float>() {
+        @Override
+        public Float apply(Telemetry.PositionVelocityNed positionVelocityNed) {
+            return positionVelocityNed.getPosition().getNorthM();
+        }
+    };
+
+    @Setup
+    public void setUpSamples() {
+        mSamples = new Telemetry.PositionVelocityNed[rateHz];
+        for (int i = 0; i < rateHz; i++) {
+            mSamples[i] = new Telemetry.PositionVelocityNed(
+                    new Telemetry.PositionNed(i * 0.1f, 4f, -10f),
+                    new Telemetry.VelocityNed(6f, 8f, 2f));
+        }
+    }
+
+    @TearDown
+    public void shutDownScheduler() {
+        mTelemetryScheduler.shutdown();
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDown() {
+        if (mDisposable != null) {
+            mDisposable.dispose();
+            mDisposable = null;
+        }
+    }
+
+    private void subscribe(Flowable<?> chain, final Blackhole blackhole) {
+        tearDown();
+        mDisposable = chain.subscribe(new Consumer<Object>() {
+            @Override
+            public void accept(Object delivered) {
+                blackhole.consume(delivered);
+                mDelivered.incrementAndGet();
+            }
+        });
+    }
+
+    private void pushOneSecond() {
+        int nextFrame = 0;
+        for (int i = 0; i < rateHz; i++) {
+            mSource.onNext(mSamples[i]);
+            while (nextFrame * rateHz <= i * FRAMES_PER_SECOND) {
+                mFrameTicks.onNext((long) nextFrame++);
+            }
+        }
+        while (nextFrame < FRAMES_PER_SECOND) {
+            mFrameTicks.onNext((long) nextFrame++);
+        }
+    }
+
+    @Setup(Level.Iteration)
+    public void setUpProcessors() {
+        mSource = PublishProcessor.create();
+        mFrameTicks = PublishProcessor.create();
+    }
+
+    /**
+     * The fixed throttleFirst the repository used before rate policies.
+     */
+    @Benchmark
+    public void throttleFirst(Blackhole blackhole) {
+        if (mDisposable == null) {
+            subscribe(mSource.compose(RatePolicy.throttleFirst(THROTTLE_WINDOW_MILLIS).<Telemetry.PositionVelocityNed>transformer()), blackhole);
+        }
+        pushOneSecond();
+    }
+
+    /**
+     * Hub projection into the shared snapshot, then the per-frame policy the NED stream uses.
+     */
+    @Benchmark
+    public void hubSnapshotLatestPerFrame(Blackhole blackhole) {
+        if (mDisposable == null) {
+            TelemetryHub telemetryHub = new TelemetryHub(
+                    mSource,
+                    Flowable.<Telemetry.Battery>never(),
+                    Flowable.<Telemetry.GpsInfo>never(),
+                    Flowable.<Telemetry.Position>never(),
+                    Flowable.<Telemetry.EulerAngle>never());
+            subscribe(telemetryHub.getTelemetrySnapshot()
+                    .compose(RatePolicy.latestPerFrame(mFrameTicks).<TelemetrySnapshot>transformer()), blackhole);
+        }
+        pushOneSecond();
+    }
+
+    /**
+     * A plain map of every sample, without thinning.
+     */
+    @Benchmark
+    public void map(Blackhole blackhole) {
+        if (mDisposable == null) {
+            subscribe(mSource.map(mProjectNorth), blackhole);
+        }
+        pushOneSecond();
+    }
+
+    /**
+     * A subscribeOn hop as the repository makes for every stream: subscribe on the io
+     * scheduler, map one second of samples and wait for the last one.
+     */
+    @Benchmark
+    public Float subscribeOnHop() {
+        return Flowable.fromArray(mSamples)
+                .subscribeOn(Schedulers.io())
+                .map(mProjectNorth)
+                .blockingLast();
+    }
+
+    /**
+     * Every sample handed to another thread, as the conflating operators and LiveData do
+     * on their way to the UI. Waits until the other thread has seen the whole second.
+     */
+    @Benchmark
+    public void observeOnHop(Blackhole blackhole) {
+        if (mDisposable == null) {
+            subscribe(mSource.onBackpressureBuffer().observeOn(Schedulers.single()).map(mProjectNorth), blackhole);
+        }
+        pushOneSecondAndWait();
+    }
+
+    /**
+     * The same hop onto the telemetry scheduler, which also times every queued task.
+     */
+    @Benchmark
+    public void telemetrySchedulerHop(Blackhole blackhole) {
+        if (mDisposable == null) {
+            subscribe(mSource.onBackpressureBuffer().observeOn(mTelemetryScheduler.getScheduler()).map(mProjectNorth), blackhole);
+        }
+        pushOneSecondAndWait();
+    }
+
+    private void pushOneSecondAndWait() {
+        long target = mDelivered.get() + rateHz;
+        for (int i = 0; i < rateHz; i++) {
+            mSource.onNext(mSamples[i]);
+        }
+        while (mDelivered.get() < target) {
+            Thread.yield();
+        }
+    }
+}
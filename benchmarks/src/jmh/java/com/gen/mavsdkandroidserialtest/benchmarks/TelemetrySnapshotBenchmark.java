@@ -0,0 +1,42 @@
+package com.gen.mavsdkandroidserialtest.benchmarks;
+
+import com.gen.mavsdkandroidserialtest.models.PositionRelative;
+import com.gen.mavsdkandroidserialtest.models.Speed;
+import com.gen.mavsdkandroidserialtest.models.TelemetrySnapshot;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * The NED to {@link PositionRelative} / {@link Speed} transform run on every NED sample.
+ */
+@State(Scope.Thread)
+public class TelemetrySnapshotBenchmark {
+
+    private final TelemetrySnapshot mSnapshot = new TelemetrySnapshot();
+    private final PositionRelative mPositionRelative = new PositionRelative();
+    private final Speed mSpeed = new Speed();
+    private float mNorth;
+
+    @Benchmark
+    public void writePositionVelocityNed() {
+        mNorth += 0.1f;
+        mSnapshot.writePositionVelocityNed(mNorth, 4f, -10f, 6f, 8f, 2f);
+    }
+
+    @Benchmark
+    public void readPositionRelativeAndSpeed(Blackhole blackhole) {
+        mSnapshot.readPositionRelative(mPositionRelative);
+        mSnapshot.readSpeed(mSpeed);
+        blackhole.consume(mPositionRelative.getDistance());
+        blackhole.consume(mSpeed.getHspeed());
+    }
+
+    @Benchmark
+    public void writeThenRead(Blackhole blackhole) {
+        writePositionVelocityNed();
+        readPositionRelativeAndSpeed(blackhole);
+    }
+}
@@ -0,0 +1,55 @@
+package com.gen.mavsdkandroidserialtest.benchmarks;
+
+import com.gen.mavsdkandroidserialtest.utils.FixedPointFormatter;
+import com.gen.mavsdkandroidserialtest.utils.TextField;
+import com.gen.mavsdkandroidserialtest.utils.TextUtils;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * The formatting behind every value MainActivity shows: the String.format based
+ * TextUtils it used to call, and the fixed-point formatter and field diff it uses now.
+ */
+@State(Scope.Thread)
+public class TextFormattingBenchmark {
+
+    private final char[] mBuffer = new char[32];
+    private final TextField mField = new TextField();
+    private double mValue = 47.397742;
+
+    @Benchmark
+    public String roundToTwoDecimalPlaces() {
+        mValue += 0.000013;
+        return TextUtils.roundToDecimalPlaces(mValue, 2);
+    }
+
+    @Benchmark
+    public String roundToFiveDecimalPlaces() {
+        mValue += 0.000013;
+        return TextUtils.roundToDecimalPlaces(mValue, 5);
+    }
+
+    @Benchmark
+    public int fixedPointTwoDecimalPlaces() {
+        mValue += 0.000013;
+        return FixedPointFormatter.formatFixed(mValue, 2, mBuffer, 0);
+    }
+
+    @Benchmark
+    public int fixedPointFiveDecimalPlaces() {
+        mValue += 0.000013;
+        return FixedPointFormatter.formatFixed(mValue, 5, mBuffer, 0);
+    }
+
+    /**
+     * A high-rate field whose shown text rarely changes: format, diff, mostly skip.
+     */
+    @Benchmark
+    public boolean textFieldStageAndCommit() {
+        mValue += 0.000013;
+        mField.setFixedPoint(mValue, 2);
+        return mField.commit();
+    }
+}